@@ -60,6 +60,7 @@ public class GeneratorContext {
     private SourceUtils sourceUtils;
     private Map<String, String> envOptions;
     private Set<TypeMirror> registeredJaxbElements;
+    private Set<TypeMirror> registeredJaxbMarshallers;
 
     public GeneratorContext(ProcessingEnvironment env) {
         registerAtBoot = new ArrayList<DefinedClass>();
@@ -76,6 +77,7 @@ public class GeneratorContext {
         sourceUtils = new SourceUtils(env);
         registeredEnums = new HashSet<TypeMirror>();
         registeredJaxbElements = new HashSet<TypeMirror>();
+        registeredJaxbMarshallers = new HashSet<TypeMirror>();
         envOptions = Collections.unmodifiableMap(env.getOptions());
         messager = env.getMessager();
     }
@@ -148,6 +150,14 @@ public class GeneratorContext {
         registeredJaxbElements.add(jaxbElement);
     }
 
+    public boolean isJaxbMarshallerRegistered(TypeMirror jaxbElement) {
+        return registeredJaxbMarshallers.contains(jaxbElement);
+    }
+
+    public void registerJaxbMarshaller(TypeMirror jaxbElement) {
+        registeredJaxbMarshallers.add(jaxbElement);
+    }
+
     public SourceUtils getSourceUtils() {
         return sourceUtils;
     }
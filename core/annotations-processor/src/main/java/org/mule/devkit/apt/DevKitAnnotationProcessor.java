@@ -18,6 +18,7 @@ package org.mule.devkit.apt;
 
 import org.mule.devkit.generation.Generator;
 import org.mule.devkit.generation.adapter.CapabilitiesAdapterGenerator;
+import org.mule.devkit.generation.adapter.ConcurrentKeyedObjectPoolGenerator;
 import org.mule.devkit.generation.adapter.ConnectionManagerGenerator;
 import org.mule.devkit.generation.adapter.HttpCallbackAdapterGenerator;
 import org.mule.devkit.generation.adapter.InjectAdapterGenerator;
@@ -28,11 +29,14 @@ import org.mule.devkit.generation.adapter.OAuth2AdapterGenerator;
 import org.mule.devkit.generation.adapter.PoolAdapterGenerator;
 import org.mule.devkit.generation.adapter.RestAdapterGenerator;
 import org.mule.devkit.generation.callback.DefaultHttpCallbackGenerator;
+import org.mule.devkit.generation.mule.CompiledExpressionGenerator;
 import org.mule.devkit.generation.mule.MessageProcessorGenerator;
 import org.mule.devkit.generation.mule.MessageSourceGenerator;
 import org.mule.devkit.generation.mule.NestedProcessorChainGenerator;
 import org.mule.devkit.generation.mule.NestedProcessorStringGenerator;
+import org.mule.devkit.generation.mule.PrimaryNodeNotificationGenerator;
 import org.mule.devkit.generation.mule.RegistryBootstrapGenerator;
+import org.mule.devkit.generation.mule.TransformerCacheGenerator;
 import org.mule.devkit.generation.mule.expression.ExpressionEnricherGenerator;
 import org.mule.devkit.generation.mule.expression.ExpressionEvaluatorGenerator;
 import org.mule.devkit.generation.mule.oauth.AuthorizeBeanDefinitionParserGenerator;
@@ -88,6 +92,7 @@ public class DevKitAnnotationProcessor extends AbstractAnnotationProcessor {
         generators.add(new OAuth1AdapterGenerator());
         generators.add(new OAuth2AdapterGenerator());
         generators.add(new LifecycleAdapterFactoryGenerator());
+        generators.add(new ConcurrentKeyedObjectPoolGenerator());
         generators.add(new ConnectionManagerGenerator()); // this should be the last on the chain of adapters
         generators.add(new PoolAdapterGenerator());
         generators.add(new JaxbTransformerGenerator());
@@ -95,11 +100,14 @@ public class DevKitAnnotationProcessor extends AbstractAnnotationProcessor {
         generators.add(new EnumTransformerGenerator());
         generators.add(new NestedProcessorChainGenerator());
         generators.add(new NestedProcessorStringGenerator());
+        generators.add(new TransformerCacheGenerator());
+        generators.add(new CompiledExpressionGenerator());
         generators.add(new DefaultSaveAccessTokenCallbackGenerator());
         generators.add(new DefaultRestoreAccessTokenCallbackGenerator());
         generators.add(new DefaultRestoreAccessTokenCallbackFactoryGenerator());
         generators.add(new DefaultSaveAccessTokenCallbackFactoryGenerator());
         generators.add(new BeanDefinitionParserGenerator());
+        generators.add(new PrimaryNodeNotificationGenerator());
         generators.add(new MessageSourceGenerator());
         generators.add(new MessageProcessorGenerator());
         generators.add(new AuthorizeMessageProcessorGenerator());
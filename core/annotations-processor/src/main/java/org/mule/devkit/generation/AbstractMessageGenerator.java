@@ -50,6 +50,7 @@ import org.mule.config.i18n.CoreMessages;
 import org.mule.config.i18n.MessageFactory;
 import org.mule.construct.Flow;
 import org.mule.devkit.generation.callback.DefaultHttpCallbackGenerator;
+import org.mule.devkit.generation.mule.TransformerCacheGenerator;
 import org.mule.devkit.model.code.Block;
 import org.mule.devkit.model.code.CatchBlock;
 import org.mule.devkit.model.code.Conditional;
@@ -67,6 +68,7 @@ import org.mule.devkit.model.code.Package;
 import org.mule.devkit.model.code.TryStatement;
 import org.mule.devkit.model.code.TypeReference;
 import org.mule.devkit.model.code.Variable;
+import org.mule.devkit.model.code.WhileLoop;
 import org.mule.devkit.model.code.builders.FieldBuilder;
 import org.mule.session.DefaultMuleSession;
 import org.mule.transformer.types.DataTypeFactory;
@@ -84,10 +86,10 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
 
@@ -232,7 +234,7 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         isAssignableFrom.body()._return(ExpressionFactory.FALSE);
     }
 
-    protected void generateTransformMethod(DefinedClass messageProcessorClass) {
+    protected void generateTransformMethod(DefinedClass messageProcessorClass, FieldVariable transformerCache) {
         Method transform = messageProcessorClass.method(Modifier.PRIVATE, ref(Object.class), "transform");
         transform._throws(ref(TransformerException.class));
         Variable muleMessage = transform.param(ref(MuleMessage.class), "muleMessage");
@@ -318,18 +320,8 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
                 Op.not(ExpressionFactory.invoke("isAssignableFrom").arg(expectedType).arg(target.invoke("getClass")))
         ));
 
-        Variable sourceDataType = shouldTransform._then().decl(ref(DataType.class), "sourceDataType",
-                ref(DataTypeFactory.class).staticInvoke("create").arg(target.invoke("getClass")));
-
-        Conditional ifParameterizedType = shouldTransform._then()._if(Op._instanceof(expectedType, ref(ParameterizedType.class)));
-        ifParameterizedType._then().assign(expectedType, ExpressionFactory.cast(ref(ParameterizedType.class), expectedType).invoke("getRawType"));
-
-        Variable targetDataType = shouldTransform._then().decl(ref(DataType.class), "targetDataType",
-                ref(DataTypeFactory.class).staticInvoke("create").arg(
-                        ExpressionFactory.cast(ref(Class.class), expectedType)));
-
         Variable transformer = shouldTransform._then().decl(ref(Transformer.class), "t",
-                muleMessage.invoke("getMuleContext").invoke("getRegistry").invoke("lookupTransformer").arg(sourceDataType).arg(targetDataType));
+                transformerCache.invoke("lookupTransformer").arg(target.invoke("getClass")).arg(expectedType).arg(ExpressionFactory._null()));
 
         shouldTransform._then()._return(transformer.invoke("transform").arg(target));
 
@@ -379,6 +371,12 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         return patternInfo;
     }
 
+    protected FieldVariable generateFieldForTransformerCache(DefinedClass messageProcessorClass) {
+        FieldVariable transformerCache = messageProcessorClass.field(Modifier.PRIVATE, context.getClassForRole(TransformerCacheGenerator.ROLE), "transformerCache");
+        transformerCache.javadoc().add("Transformers already resolved from the registry");
+        return transformerCache;
+    }
+
     protected FieldVariable generateFieldForExpressionManager(DefinedClass messageProcessorClass) {
         FieldVariable expressionManager = messageProcessorClass.field(Modifier.PRIVATE, ref(ExpressionManager.class), "expressionManager");
         expressionManager.javadoc().add("Mule Expression Manager");
@@ -408,6 +406,47 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         return field;
     }
 
+    /**
+     * Declares a final field holding the generic type of each parameter of the specified method and resolves
+     * them once in the constructor, so callers do not need to go through reflection on every invocation.
+     *
+     * @param clazz             Class where the fields will be declared
+     * @param constructor       Constructor of the class, where the fields get initialised
+     * @param moduleObject      Class that declares the method
+     * @param executableElement Method whose parameter types will be resolved
+     * @return A list with a field for each parameter, in declaration order
+     */
+    protected List<FieldVariable> generateFieldsForGenericParameterTypes(DefinedClass clazz, Method constructor, TypeReference moduleObject, ExecutableElement executableElement) {
+        Invocation parameterClasses = ExpressionFactory._new(ref(Class.class).array());
+        for (VariableElement parameter : executableElement.getParameters()) {
+            if (parameter.asType().getKind().isPrimitive()) {
+                parameterClasses.arg(ref(parameter.asType()).boxify().staticRef("TYPE"));
+            } else {
+                parameterClasses.arg(ref(parameter.asType()).boxify().dotclass());
+            }
+        }
+
+        TryStatement tryStatement = constructor.body()._try();
+        Variable method = tryStatement.body().decl(ref(java.lang.reflect.Method.class), "method",
+                moduleObject.dotclass().invoke("getMethod").arg(executableElement.getSimpleName().toString()).arg(parameterClasses));
+        Variable genericParameterTypes = tryStatement.body().decl(ref(java.lang.reflect.Type.class).array(), "genericParameterTypes",
+                method.invoke("getGenericParameterTypes"));
+
+        List<FieldVariable> types = new ArrayList<FieldVariable>();
+        for (VariableElement parameter : executableElement.getParameters()) {
+            FieldVariable type = clazz.field(Modifier.PRIVATE | Modifier.FINAL, ref(java.lang.reflect.Type.class), parameter.getSimpleName().toString() + "Type");
+            type.javadoc().add("Generic type of the " + parameter.getSimpleName().toString() + " parameter");
+            tryStatement.body().assign(type, genericParameterTypes.component(ExpressionFactory.lit(types.size())));
+            types.add(type);
+        }
+
+        CatchBlock catchBlock = tryStatement._catch(ref(NoSuchMethodException.class));
+        Variable e = catchBlock.param("e");
+        catchBlock.body()._throw(ExpressionFactory._new(ref(RuntimeException.class)).arg(e));
+
+        return types;
+    }
+
     protected FieldVariable generateFieldForMessageProcessorListener(DefinedClass messageSourceClass) {
         FieldVariable messageProcessor = messageSourceClass.field(Modifier.PRIVATE, ref(MessageProcessor.class), "messageProcessor");
         messageProcessor.javadoc().add("Message processor that will get called for processing incoming events");
@@ -585,7 +624,7 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         return fields;
     }
 
-    protected Method generateInitialiseMethod(DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields, TypeElement typeElement, FieldVariable muleContext, FieldVariable expressionManager, FieldVariable patternInfo, FieldVariable object, FieldVariable retryCount, boolean shouldAutoCreate) {
+    protected Method generateInitialiseMethod(DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields, TypeElement typeElement, FieldVariable muleContext, FieldVariable expressionManager, FieldVariable patternInfo, FieldVariable object, boolean shouldAutoCreate) {
         DefinedClass pojoClass = context.getClassForRole(context.getNameUtils().generateModuleObjectRoleKey(typeElement));
 
         Method initialise = messageProcessorClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "initialise");
@@ -594,10 +633,6 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         initialise.javadoc().addThrows(ref(InitialisationException.class));
         initialise._throws(InitialisationException.class);
 
-        if (retryCount != null) {
-            initialise.body().assign(retryCount, ExpressionFactory._new(ref(AtomicInteger.class)));
-        }
-
         if (expressionManager != null) {
             initialise.body().assign(expressionManager, muleContext.invoke("getExpressionManager"));
         }
@@ -674,6 +709,24 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         return initialise;
     }
 
+    protected void generateInitialiseTransformerCache(Method initialise, FieldVariable transformerCache, FieldVariable muleContext) {
+        DefinedClass transformerCacheClass = context.getClassForRole(TransformerCacheGenerator.ROLE);
+
+        initialise.body().assign(transformerCache, ExpressionFactory._new(transformerCacheClass).arg(muleContext));
+        TryStatement tryRegister = initialise.body()._try();
+        tryRegister.body().add(transformerCache.invoke("register"));
+        CatchBlock catchBlock = tryRegister._catch(ref(RegistrationException.class));
+        Variable exception = catchBlock.param("e");
+        catchBlock.body()._throw(ExpressionFactory._new(ref(InitialisationException.class)).
+                arg(ref(CoreMessages.class).staticInvoke("initialisationFailure").arg(transformerCacheClass.fullName())).
+                arg(exception).arg(ExpressionFactory._this()));
+    }
+
+    protected void generateDisposeTransformerCache(Method dispose, FieldVariable transformerCache) {
+        Conditional ifTransformerCacheNotNull = dispose.body()._if(Op.ne(transformerCache, ExpressionFactory._null()));
+        ifTransformerCacheNotNull._then().add(transformerCache.invoke("unregister"));
+    }
+
     protected Method generateSetMuleContextMethod(DefinedClass clazz, FieldVariable muleContext) {
         return generateSetMuleContextMethod(clazz, muleContext, null);
     }
@@ -780,18 +833,32 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         return flowConstruct;
     }
 
-    protected FieldVariable generateRetryCountField(DefinedClass messageSourceClass) {
-        FieldVariable retryCount = messageSourceClass.field(Modifier.PRIVATE, ref(AtomicInteger.class), "retryCount");
-        retryCount.javadoc().add("Variable used to track how many retries we have attempted on this message processor");
-        return retryCount;
-    }
-
     protected FieldVariable generateRetryMaxField(DefinedClass messageSourceClass) {
         FieldVariable retryMax = messageSourceClass.field(Modifier.PRIVATE, context.getCodeModel().INT, "retryMax");
         retryMax.javadoc().add("Maximum number of retries that can be attempted.");
         return retryMax;
     }
 
+    protected FieldVariable generateRetryBackoffField(DefinedClass messageSourceClass) {
+        FieldVariable retryBackoff = messageSourceClass.field(Modifier.PRIVATE, context.getCodeModel().LONG, "retryBackoff");
+        retryBackoff.javadoc().add("Milliseconds to wait before the first retry, doubled on every subsequent one.");
+        return retryBackoff;
+    }
+
+    protected FieldVariable generateRetryMaxBackoffField(DefinedClass messageSourceClass) {
+        FieldVariable retryMaxBackoff = messageSourceClass.field(Modifier.PRIVATE, context.getCodeModel().LONG, "retryMaxBackoff",
+                ExpressionFactory.lit(30000L));
+        retryMaxBackoff.javadoc().add("Maximum number of milliseconds to wait between retries.");
+        return retryMaxBackoff;
+    }
+
+    protected FieldVariable generateRetryJitterField(DefinedClass messageSourceClass) {
+        FieldVariable retryJitter = messageSourceClass.field(Modifier.PRIVATE, context.getCodeModel().BOOLEAN, "retryJitter",
+                ExpressionFactory.TRUE);
+        retryJitter.javadoc().add("Whether to randomize the wait between retries so that failing invocations do not retry in lockstep.");
+        return retryJitter;
+    }
+
 
     protected Method generateSetModuleObjectMethod(DefinedClass messageProcessorClass, FieldVariable object) {
         Method setObject = messageProcessorClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "setModuleObject");
@@ -922,6 +989,10 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
     }
 
     protected void generateSourceCallbackProcessMethod(DefinedClass messageSourceClass, FieldVariable messageProcessor, FieldVariable muleContext, FieldVariable flowConstruct) {
+        generateSourceCallbackProcessMethod(messageSourceClass, messageProcessor, muleContext, flowConstruct, null);
+    }
+
+    protected void generateSourceCallbackProcessMethod(DefinedClass messageSourceClass, FieldVariable messageProcessor, FieldVariable muleContext, FieldVariable flowConstruct, Method dispatch) {
         Method process = messageSourceClass.method(Modifier.PUBLIC, ref(Object.class), "process");
         process.javadoc().add("Implements {@link SourceCallback#process(org.mule.api.MuleEvent)}. This message source will be passed on to ");
         process.javadoc().add("the actual pojo's method as a callback mechanism.");
@@ -947,6 +1018,12 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         newMuleEvent.arg(muleSession);
         process.body().assign(muleEvent, newMuleEvent);
 
+        if (dispatch != null) {
+            process.body().invoke(dispatch).arg(muleEvent);
+            process.body()._return(ExpressionFactory._null());
+            return;
+        }
+
         TryStatement tryBlock = process.body()._try();
         Variable responseEvent = tryBlock.body().decl(ref(MuleEvent.class), "responseEvent");
         Invocation messageProcess = messageProcessor.invoke("process");
@@ -966,11 +1043,21 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
     }
 
     protected void generateSourceCallbackProcessMethodWithNoPayload(DefinedClass messageSourceClass, FieldVariable messageProcessor, FieldVariable muleContext, FieldVariable flowConstruct) {
+        generateSourceCallbackProcessMethodWithNoPayload(messageSourceClass, messageProcessor, muleContext, flowConstruct, null);
+    }
+
+    protected void generateSourceCallbackProcessMethodWithNoPayload(DefinedClass messageSourceClass, FieldVariable messageProcessor, FieldVariable muleContext, FieldVariable flowConstruct, Method dispatch) {
         Method process = messageSourceClass.method(Modifier.PUBLIC, ref(Object.class), "process");
         process.javadoc().add("Implements {@link SourceCallback#process()}. This message source will be passed on to ");
         process.javadoc().add("the actual pojo's method as a callback mechanism.");
         process._throws(ref(Exception.class));
 
+        if (dispatch != null) {
+            process.body().invoke(dispatch).arg(ref(RequestContext.class).staticInvoke("getEvent"));
+            process.body()._return(ExpressionFactory._null());
+            return;
+        }
+
         TryStatement tryBlock = process.body()._try();
         Variable responseEvent = tryBlock.body().decl(ref(MuleEvent.class), "responseEvent");
         Invocation messageProcess = messageProcessor.invoke("process");
@@ -991,6 +1078,10 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
 
 
     protected void generateSourceCallbackProcessWithPropertiesMethod(DefinedClass messageSourceClass, FieldVariable messageProcessor, FieldVariable muleContext, FieldVariable flowConstruct) {
+        generateSourceCallbackProcessWithPropertiesMethod(messageSourceClass, messageProcessor, muleContext, flowConstruct, null);
+    }
+
+    protected void generateSourceCallbackProcessWithPropertiesMethod(DefinedClass messageSourceClass, FieldVariable messageProcessor, FieldVariable muleContext, FieldVariable flowConstruct, Method dispatch) {
         Method process = messageSourceClass.method(Modifier.PUBLIC, ref(Object.class), "process");
         process.javadoc().add("Implements {@link SourceCallback#process(org.mule.api.MuleEvent)}. This message source will be passed on to ");
         process.javadoc().add("the actual pojo's method as a callback mechanism.");
@@ -1020,6 +1111,12 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         newMuleEvent.arg(muleSession);
         process.body().assign(muleEvent, newMuleEvent);
 
+        if (dispatch != null) {
+            process.body().invoke(dispatch).arg(muleEvent);
+            process.body()._return(ExpressionFactory._null());
+            return;
+        }
+
         TryStatement tryBlock = process.body()._try();
         Variable responseEvent = tryBlock.body().decl(ref(MuleEvent.class), "responseEvent");
         Invocation messageProcess = messageProcessor.invoke("process");
@@ -1039,6 +1136,57 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
     }
 
 
+    protected void generateSourceCallbackProcessBatchMethod(DefinedClass messageSourceClass) {
+        Method processBatch = messageSourceClass.method(Modifier.PUBLIC, ref(Object.class), "processBatch");
+        processBatch.javadoc().add("Implements {@link SourceCallback#processBatch(java.util.List)}. The whole batch travels ");
+        processBatch.javadoc().add("through the flow as the payload of a single message.");
+        processBatch._throws(ref(Exception.class));
+        Variable payloads = processBatch.param(ref(List.class).narrow(ref(Object.class).wildcard()), "payloads");
+
+        processBatch.body()._return(ExpressionFactory.invoke("process").arg(ExpressionFactory.cast(ref(Object.class), payloads)));
+    }
+
+    protected void generateSourceCallbackProcessIteratorMethod(DefinedClass messageSourceClass, FieldVariable messageProcessor, FieldVariable muleContext, FieldVariable flowConstruct) {
+        generateSourceCallbackProcessIteratorMethod(messageSourceClass, messageProcessor, muleContext, flowConstruct, null);
+    }
+
+    protected void generateSourceCallbackProcessIteratorMethod(DefinedClass messageSourceClass, FieldVariable messageProcessor, FieldVariable muleContext, FieldVariable flowConstruct, Method dispatch) {
+        Method process = messageSourceClass.method(Modifier.PUBLIC, context.getCodeModel().INT, "process");
+        process.javadoc().add("Implements {@link SourceCallback#process(java.util.Iterator)}. Every payload is dispatched ");
+        process.javadoc().add("as its own message as soon as it is pulled from the iterator.");
+        process._throws(ref(Exception.class));
+        Variable payloads = process.param(ref(Iterator.class).narrow(ref(Object.class).wildcard()), "payloads");
+
+        // events handed to the worker pool may run concurrently, so they cannot share a session
+        Variable muleSession = null;
+        if (dispatch == null) {
+            muleSession = process.body().decl(ref(MuleSession.class), "muleSession",
+                    ExpressionFactory._new(ref(DefaultMuleSession.class)).arg(flowConstruct).arg(muleContext));
+        }
+        Variable count = process.body().decl(context.getCodeModel().INT, "count", ExpressionFactory.lit(0));
+
+        WhileLoop loop = process.body()._while(payloads.invoke("hasNext"));
+        Variable muleMessage = loop.body().decl(ref(MuleMessage.class), "muleMessage",
+                ExpressionFactory._new(ref(DefaultMuleMessage.class)).arg(payloads.invoke("next")).arg(muleContext));
+        Invocation newMuleEvent = ExpressionFactory._new(ref(DefaultMuleEvent.class));
+        newMuleEvent.arg(muleMessage);
+        newMuleEvent.arg(ref(MessageExchangePattern.class).staticRef("ONE_WAY"));
+        if (muleSession != null) {
+            newMuleEvent.arg(muleSession);
+        } else {
+            newMuleEvent.arg(ExpressionFactory._new(ref(DefaultMuleSession.class)).arg(flowConstruct).arg(muleContext));
+        }
+        Variable muleEvent = loop.body().decl(ref(MuleEvent.class), "muleEvent", newMuleEvent);
+        if (dispatch != null) {
+            loop.body().invoke(dispatch).arg(muleEvent);
+        } else {
+            loop.body().add(messageProcessor.invoke("process").arg(muleEvent));
+        }
+        loop.body().assign(count, Op.plus(count, ExpressionFactory.lit(1)));
+
+        process.body()._return(count);
+    }
+
     protected void generateStartMethod(DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields) {
         Method startMethod = messageProcessorClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "start");
         startMethod._throws(ref(MuleException.class));
@@ -1102,7 +1250,7 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
         }
     }
 
-    protected void generateDiposeMethod(DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields) {
+    protected Method generateDiposeMethod(DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields) {
         Method diposeMethod = messageProcessorClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "dispose");
 
         if (fields != null) {
@@ -1130,6 +1278,8 @@ public abstract class AbstractMessageGenerator extends AbstractModuleGenerator {
 
 
         }
+
+        return diposeMethod;
     }
 
 
@@ -17,6 +17,7 @@
 package org.mule.devkit.generation;
 
 import org.apache.commons.lang.StringUtils;
+import org.mule.RequestContext;
 import org.mule.api.MessagingException;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleEvent;
@@ -28,10 +29,17 @@ import org.mule.api.context.MuleContextAware;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.Startable;
 import org.mule.api.lifecycle.Stoppable;
+import org.mule.api.oauth.CachingOAuthTokenStore;
 import org.mule.api.oauth.NotAuthorizedException;
+import org.mule.api.oauth.OAuthToken;
+import org.mule.api.oauth.OAuthTokenStore;
+import org.mule.api.oauth.ObjectStoreOAuthTokenStore;
+import org.mule.api.oauth.SingleFlight;
+import org.mule.api.oauth.UnableToAcquireAccessTokenException;
 import org.mule.api.oauth.RestoreAccessTokenCallback;
 import org.mule.api.oauth.SaveAccessTokenCallback;
 import org.mule.api.processor.MessageProcessor;
+import org.mule.api.store.ObjectStoreException;
 import org.mule.config.i18n.MessageFactory;
 import org.mule.devkit.generation.callback.DefaultHttpCallbackGenerator;
 import org.mule.devkit.model.code.Block;
@@ -55,6 +63,8 @@ import javax.lang.model.element.VariableElement;
 import java.net.URLDecoder;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -79,6 +89,15 @@ public abstract class AbstractOAuthAdapterGenerator extends AbstractModuleGenera
     protected static final String EXPIRATION_FIELD_NAME = "expiration";
     public static final String OAUTH_SAVE_ACCESS_TOKEN_CALLBACK_FIELD_NAME = "oauthSaveAccessToken";
     public static final String OAUTH_RESTORE_ACCESS_TOKEN_CALLBACK_FIELD_NAME = "oauthRestoreAccessToken";
+    public static final String OAUTH_TOKEN_STORE_FIELD_NAME = "oauthTokenStore";
+    public static final String RESOLVE_ACCESS_TOKEN_METHOD_NAME = "resolveAccessToken";
+    public static final String RESTORE_ACCESS_TOKEN_METHOD_NAME = "restoreAccessToken";
+    public static final String TOKEN_REQUEST_TIMEOUT_FIELD_NAME = "tokenRequestTimeout";
+    public static final long DEFAULT_TOKEN_REQUEST_TIMEOUT = 30000L;
+    protected static final String TOKEN_REQUESTS_FIELD_NAME = "tokenRequests";
+    protected static final String DO_RESTORE_ACCESS_TOKEN_METHOD_NAME = "doRestoreAccessToken";
+    protected static final String DO_FETCH_ACCESS_TOKEN_METHOD_NAME = "doFetchAccessToken";
+    protected static final String CURRENT_ACCESS_TOKEN_ID_METHOD_NAME = "currentAccessTokenId";
 
     protected DefinedClass getOAuthAdapterClass(TypeElement typeElement, String classSuffix, Class<?> interf) {
         String oauthAdapterName = context.getNameUtils().generateClassName(typeElement, NamingContants.ADAPTERS_NAMESPACE, classSuffix);
@@ -119,6 +138,17 @@ public abstract class AbstractOAuthAdapterGenerator extends AbstractModuleGenera
         return new FieldBuilder(oauthAdapter).type(RestoreAccessTokenCallback.class).name(OAUTH_RESTORE_ACCESS_TOKEN_CALLBACK_FIELD_NAME).getterAndSetter().build();
     }
 
+    protected FieldVariable tokenStoreField(DefinedClass oauthAdapter) {
+        return new FieldBuilder(oauthAdapter).type(OAuthTokenStore.class).name(OAUTH_TOKEN_STORE_FIELD_NAME).getterAndSetter().build();
+    }
+
+    protected void tokenRequestFields(DefinedClass oauthAdapter) {
+        new FieldBuilder(oauthAdapter).type(SingleFlight.class).name(TOKEN_REQUESTS_FIELD_NAME).finalField().
+                initialValue(ExpressionFactory._new(ref(SingleFlight.class))).build();
+        new FieldBuilder(oauthAdapter).type(context.getCodeModel().LONG).name(TOKEN_REQUEST_TIMEOUT_FIELD_NAME).
+                initialValue(ExpressionFactory.lit(DEFAULT_TOKEN_REQUEST_TIMEOUT)).getterAndSetter().build();
+    }
+
     protected FieldVariable redirectUrlField(DefinedClass oauthAdapter) {
         return new FieldBuilder(oauthAdapter).type(String.class).name(REDIRECT_URL_FIELD_NAME).getter().build();
     }
@@ -131,19 +161,21 @@ public abstract class AbstractOAuthAdapterGenerator extends AbstractModuleGenera
         return new FieldBuilder(oauthAdapter).type(HttpCallback.class).name(CALLBACK_FIELD_NAME).build();
     }
 
-    protected void generateStartMethod(DefinedClass oauthAdapter) {
+    protected Method generateStartMethod(DefinedClass oauthAdapter) {
         Method start = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().VOID, Startable.PHASE_NAME);
         start._throws(MuleException.class);
         start.body().invoke(ExpressionFactory._super(), Startable.PHASE_NAME);
         start.body().invoke(oauthAdapter.fields().get(CALLBACK_FIELD_NAME), Startable.PHASE_NAME);
         start.body().assign(oauthAdapter.fields().get(REDIRECT_URL_FIELD_NAME), oauthAdapter.fields().get(CALLBACK_FIELD_NAME).invoke("getUrl"));
+        return start;
     }
 
-    protected void generateStopMethod(DefinedClass oauthAdapter) {
+    protected Method generateStopMethod(DefinedClass oauthAdapter) {
         Method start = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().VOID, Stoppable.PHASE_NAME);
         start._throws(MuleException.class);
         start.body().invoke(ExpressionFactory._super(), (Stoppable.PHASE_NAME));
         start.body().invoke(oauthAdapter.fields().get(CALLBACK_FIELD_NAME), Stoppable.PHASE_NAME);
+        return start;
     }
 
     protected Method generateInitialiseMethod(DefinedClass oauthAdapter, DefinedClass messageProcessor, String callbackPath) {
@@ -158,6 +190,9 @@ public abstract class AbstractOAuthAdapterGenerator extends AbstractModuleGenera
         Invocation connector = ExpressionFactory.invoke("get" + StringUtils.capitalize(DefaultHttpCallbackGenerator.CONNECTOR_FIELD_NAME));
         FieldVariable callback = oauthAdapter.fields().get(CALLBACK_FIELD_NAME);
         FieldVariable muleContext = oauthAdapter.fields().get(MULE_CONTEXT_FIELD_NAME);
+        FieldVariable tokenStore = oauthAdapter.fields().get(OAUTH_TOKEN_STORE_FIELD_NAME);
+        initialise.body()._if(isNull(tokenStore))._then().assign(tokenStore,
+                ExpressionFactory._new(ref(CachingOAuthTokenStore.class)).arg(ExpressionFactory._new(ref(ObjectStoreOAuthTokenStore.class))));
         if (StringUtils.isEmpty(callbackPath)) {
             initialise.body().assign(callback, ExpressionFactory._new(context.getClassForRole(DefaultHttpCallbackGenerator.HTTP_CALLBACK_ROLE)).
                     arg(ExpressionFactory._new(messageProcessor)).arg(muleContext).arg(domain).arg(localPort).arg(remotePort).arg(async).arg(connector));
@@ -180,8 +215,8 @@ public abstract class AbstractOAuthAdapterGenerator extends AbstractModuleGenera
         Variable event = processMethod.param(ref(MuleEvent.class), "event");
 
         TryStatement tryToExtractVerifier = processMethod.body()._try();
-        tryToExtractVerifier.body().assign(oauthAdapter.fields().get(VERIFIER_FIELD_NAME), ExpressionFactory.invoke("extractAuthorizationCode").arg(event.invoke("getMessageAsString")));
-        tryToExtractVerifier.body().add(ExpressionFactory.invoke("fetchAccessToken"));
+        Variable verifier = tryToExtractVerifier.body().decl(ref(String.class), "verifier", ExpressionFactory.invoke("extractAuthorizationCode").arg(event.invoke("getMessageAsString")));
+        generateCallbackFetchAccessToken(oauthAdapter, messageProcessor, tryToExtractVerifier.body(), event, verifier);
 
         CatchBlock catchBlock = tryToExtractVerifier._catch(ref(Exception.class));
         Variable exceptionCaught = catchBlock.param("e");
@@ -202,19 +237,28 @@ public abstract class AbstractOAuthAdapterGenerator extends AbstractModuleGenera
         return messageProcessor;
     }
 
+    /**
+     * Hook for exchanging the verifier received by the OAuth callback. By default the verifier is handed to the
+     * adapter and the single token held by the adapter is fetched.
+     */
+    protected void generateCallbackFetchAccessToken(DefinedClass oauthAdapter, DefinedClass messageProcessor, Block block, Variable event, Variable verifier) {
+        block.assign(oauthAdapter.fields().get(VERIFIER_FIELD_NAME), verifier);
+        block.add(ExpressionFactory.invoke(FETCH_ACCESS_TOKEN_METHOD_NAME));
+    }
+
     protected void muleContextField(DefinedClass oauthAdapter) {
         new FieldBuilder(oauthAdapter).name(MULE_CONTEXT_FIELD_NAME).type(MuleContext.class).setter().build();
     }
 
 
-    protected void generateOverrides(DevKitTypeElement typeElement, DefinedClass oauthAdapter, FieldVariable oauthAccessToken, FieldVariable oauthAccessTokenSecret) {
+    protected void generateOverrides(DevKitTypeElement typeElement, DefinedClass oauthAdapter) {
         Map<String, Variable> variables = new HashMap<String, Variable>();
         for (ExecutableElement executableElement : typeElement.getMethodsWhoseParametersAreAnnotatedWith(OAuthAccessToken.class)) {
             Method override = oauthAdapter.method(Modifier.PUBLIC, ref(executableElement.getReturnType()), executableElement.getSimpleName().toString());
             //override.annotate(Override.class);
             override._throws(ref(NotAuthorizedException.class));
 
-            override.body().invoke("hasBeenAuthorized");
+            Variable resolvedAccessToken = override.body().decl(ref(OAuthToken.class), "resolvedAccessToken", ExpressionFactory.invoke(RESOLVE_ACCESS_TOKEN_METHOD_NAME));
 
             for (VariableElement parameter : executableElement.getParameters()) {
                 if (parameter.getAnnotation(OAuthAccessToken.class) != null ||
@@ -231,9 +275,9 @@ public abstract class AbstractOAuthAdapterGenerator extends AbstractModuleGenera
             Invocation callSuper = ExpressionFactory._super().invoke(executableElement.getSimpleName().toString());
             for (VariableElement parameter : executableElement.getParameters()) {
                 if (parameter.getAnnotation(OAuthAccessToken.class) != null) {
-                    callSuper.arg(oauthAccessToken);
+                    callSuper.arg(resolvedAccessToken.invoke("getAccessToken"));
                 } else if (parameter.getAnnotation(OAuthAccessTokenSecret.class) != null) {
-                    callSuper.arg(oauthAccessTokenSecret);
+                    callSuper.arg(resolvedAccessToken.invoke("getAccessTokenSecret"));
                 } else {
                     callSuper.arg(variables.get(parameter.getSimpleName().toString()));
                 }
@@ -247,12 +291,12 @@ public abstract class AbstractOAuthAdapterGenerator extends AbstractModuleGenera
         }
     }
 
-    protected void generateHasBeenAuthorizedMethod(DefinedClass oauthAdapter, FieldVariable oauthAccessToken) {
+    protected Method generateHasBeenAuthorizedMethod(DefinedClass oauthAdapter, FieldVariable oauthAccessToken) {
         Method hasBeenAuthorized = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().VOID, "hasBeenAuthorized");
         hasBeenAuthorized._throws(ref(NotAuthorizedException.class));
         Block ifAccessTokenIsNull = hasBeenAuthorized.body()._if(isNull(oauthAccessToken))._then();
 
-        ifAccessTokenIsNull.invoke("restoreAccessToken");
+        ifAccessTokenIsNull.invoke(RESTORE_ACCESS_TOKEN_METHOD_NAME);
 
         Block ifAccessTokenIsNull2 = ifAccessTokenIsNull._if(isNull(oauthAccessToken))._then();
 
@@ -260,6 +304,146 @@ public abstract class AbstractOAuthAdapterGenerator extends AbstractModuleGenera
         newNotAuthorizedException.arg("This connector has not yet been authorized, please authorize by calling \"authorize\".");
 
         ifAccessTokenIsNull2._throw(newNotAuthorizedException);
+        return hasBeenAuthorized;
     }
 
-}
\ No newline at end of file
+    /**
+     * Generates the single-flight entry points for restoring and fetching access tokens, and the method that
+     * resolves the token to use on the current invocation. Concurrent requests for the same token are executed
+     * once, while the rest of the callers wait for the outcome for at most the token request timeout.
+     * <p/>
+     * When the current event carries an access token id the token is looked up in the token store, running the
+     * restore callback only on a miss, otherwise the single token held by the adapter is used.
+     */
+    protected void generateTokenRequestMethods(DefinedClass oauthAdapter, FieldVariable oauthAccessToken, FieldVariable oauthAccessTokenSecret, FieldVariable logger) throws GenerationException {
+        FieldVariable tokenStore = oauthAdapter.fields().get(OAUTH_TOKEN_STORE_FIELD_NAME);
+        FieldVariable restoreCallback = oauthAdapter.fields().get(OAUTH_RESTORE_ACCESS_TOKEN_CALLBACK_FIELD_NAME);
+        FieldVariable tokenRequests = oauthAdapter.fields().get(TOKEN_REQUESTS_FIELD_NAME);
+        FieldVariable tokenRequestTimeout = oauthAdapter.fields().get(TOKEN_REQUEST_TIMEOUT_FIELD_NAME);
+
+        // the restore callback keeps the restored token in its own state, so restores cannot overlap
+        Method restoreAccessTokenFor = oauthAdapter.method(Modifier.PRIVATE | Modifier.SYNCHRONIZED, ref(OAuthToken.class), DO_RESTORE_ACCESS_TOKEN_METHOD_NAME);
+        restoreAccessTokenFor._throws(ref(ObjectStoreException.class));
+        Variable restoreId = restoreAccessTokenFor.param(ref(String.class), "accessTokenId");
+        Variable restored = restoreAccessTokenFor.body().decl(ref(OAuthToken.class), "token", tokenStore.invoke("retrieve").arg(restoreId));
+        Block ifStillMissing = restoreAccessTokenFor.body()._if(isNull(restored))._then();
+        ifStillMissing.add(restoreCallback.invoke("restoreAccessToken"));
+        Block ifRestored = ifStillMissing._if(Op.ne(restoreCallback.invoke("getAccessToken"), ExpressionFactory._null()))._then();
+        ifRestored.assign(restored, ExpressionFactory._new(ref(OAuthToken.class)).arg(restoreCallback.invoke("getAccessToken")).
+                arg(oauthAccessTokenSecret != null ? restoreCallback.invoke("getAccessTokenSecret") : ExpressionFactory._null()).arg(ExpressionFactory._null()));
+        ifRestored.add(tokenStore.invoke("store").arg(restoreId).arg(restored));
+        restoreAccessTokenFor.body()._return(restored);
+
+        DefinedClass restoreTask = generateRestoreAccessTokenTaskClass(oauthAdapter, oauthAccessToken, oauthAccessTokenSecret);
+        DefinedClass fetchTask = generateFetchAccessTokenTaskClass(oauthAdapter);
+
+        Method restoreAccessToken = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().BOOLEAN, RESTORE_ACCESS_TOKEN_METHOD_NAME);
+        TryStatement tryToRestore = restoreAccessToken.body()._try();
+        tryToRestore.body()._return(Op.ne(tokenRequests.invoke("execute").arg(RESTORE_ACCESS_TOKEN_METHOD_NAME).
+                arg(ExpressionFactory._new(restoreTask).arg(ExpressionFactory._null())).arg(tokenRequestTimeout), ExpressionFactory._null()));
+        CatchBlock catchRestore = tryToRestore._catch(ref(Exception.class));
+        Variable restoreException = catchRestore.param("e");
+        catchRestore.body().add(logger.invoke("error").arg("Cannot restore access token, an unexpected error occurred").arg(restoreException));
+        catchRestore.body()._return(ExpressionFactory.FALSE);
+
+        Method fetchAccessToken = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().VOID, FETCH_ACCESS_TOKEN_METHOD_NAME);
+        fetchAccessToken._throws(ref(UnableToAcquireAccessTokenException.class));
+        TryStatement tryToFetch = fetchAccessToken.body()._try();
+        // only callbacks handing over the same verifier join the same exchange
+        tryToFetch.body().add(tokenRequests.invoke("execute").arg(ExpressionFactory.lit(FETCH_ACCESS_TOKEN_METHOD_NAME + ":").plus(oauthAdapter.fields().get(VERIFIER_FIELD_NAME))).
+                arg(ExpressionFactory._new(fetchTask)).arg(tokenRequestTimeout));
+        CatchBlock catchUnableToAcquire = tryToFetch._catch(ref(UnableToAcquireAccessTokenException.class));
+        catchUnableToAcquire.body()._throw(catchUnableToAcquire.param("e"));
+        CatchBlock catchRuntime = tryToFetch._catch(ref(RuntimeException.class));
+        catchRuntime.body()._throw(catchRuntime.param("e"));
+        CatchBlock catchFetch = tryToFetch._catch(ref(Exception.class));
+        catchFetch.body()._throw(ExpressionFactory._new(ref(UnableToAcquireAccessTokenException.class)).arg(catchFetch.param("e")));
+
+        Method currentAccessTokenId = oauthAdapter.method(Modifier.PRIVATE, ref(String.class), CURRENT_ACCESS_TOKEN_ID_METHOD_NAME);
+        Variable event = currentAccessTokenId.body().decl(ref(MuleEvent.class), "event", ref(RequestContext.class).staticInvoke("getEvent"));
+        Block ifEvent = currentAccessTokenId.body()._if(Op.ne(event, ExpressionFactory._null()))._then();
+        Variable id = ifEvent.decl(ref(Object.class), "id", event.invoke("getMessage").invoke("getInvocationProperty").arg(ref(OAuthTokenStore.class).staticRef("ACCESS_TOKEN_ID_PROPERTY")));
+        ifEvent._if(Op.ne(id, ExpressionFactory._null()))._then()._return(id.invoke("toString"));
+        currentAccessTokenId.body()._return(ExpressionFactory._null());
+
+        Method resolveAccessToken = oauthAdapter.method(Modifier.PUBLIC, ref(OAuthToken.class), RESOLVE_ACCESS_TOKEN_METHOD_NAME);
+        resolveAccessToken._throws(ref(NotAuthorizedException.class));
+
+        Variable accessTokenId = resolveAccessToken.body().decl(ref(String.class), "accessTokenId", ExpressionFactory.invoke(CURRENT_ACCESS_TOKEN_ID_METHOD_NAME));
+
+        Block ifNoId = resolveAccessToken.body()._if(isNull(accessTokenId))._then();
+        ifNoId.invoke("hasBeenAuthorized");
+        ifNoId._return(ExpressionFactory._new(ref(OAuthToken.class)).arg(oauthAccessToken).
+                arg(oauthAccessTokenSecret != null ? oauthAccessTokenSecret : ExpressionFactory._null()).arg(ExpressionFactory._null()));
+
+        Variable token = resolveAccessToken.body().decl(ref(OAuthToken.class), "token");
+        TryStatement tryToResolve = resolveAccessToken.body()._try();
+        tryToResolve.body().assign(token, tokenStore.invoke("retrieve").arg(accessTokenId));
+        Block ifMiss = tryToResolve.body()._if(Op.cand(isNull(token), Op.ne(restoreCallback, ExpressionFactory._null())))._then();
+        ifMiss.assign(token, ExpressionFactory.cast(ref(OAuthToken.class), tokenRequests.invoke("execute").arg(ExpressionFactory.lit(RESTORE_ACCESS_TOKEN_METHOD_NAME + ":").plus(accessTokenId)).
+                arg(ExpressionFactory._new(restoreTask).arg(accessTokenId)).arg(tokenRequestTimeout)));
+
+        CatchBlock catchTimeout = tryToResolve._catch(ref(TimeoutException.class));
+        Variable timeoutException = catchTimeout.param("e");
+        catchTimeout.body()._throw(ExpressionFactory._new(ref(NotAuthorizedException.class)).
+                arg(ExpressionFactory.lit("Timed out waiting for the access token for id ").plus(accessTokenId).plus(ExpressionFactory.lit(" to be restored"))).arg(timeoutException));
+        CatchBlock catchException = tryToResolve._catch(ref(Exception.class));
+        Variable e = catchException.param("e");
+        catchException.body()._throw(ExpressionFactory._new(ref(NotAuthorizedException.class)).
+                arg(ExpressionFactory.lit("Cannot retrieve access token for id ").plus(accessTokenId)).arg(e));
+
+        Invocation newNotAuthorizedException = ExpressionFactory._new(ref(NotAuthorizedException.class));
+        newNotAuthorizedException.arg(ExpressionFactory.lit("No access token is available for id ").plus(accessTokenId).plus(ExpressionFactory.lit(", please authorize by calling \"authorize\".")));
+        resolveAccessToken.body()._if(isNull(token))._then()._throw(newNotAuthorizedException);
+        generateResolvedAccessTokenCheck(oauthAdapter, resolveAccessToken.body(), accessTokenId, token);
+        resolveAccessToken.body()._return(token);
+    }
+
+    /**
+     * Hook for checking a token resolved from the token store before it is used. It may assign another token to
+     * `token`, or throw {@link NotAuthorizedException} if the token cannot be used.
+     */
+    protected void generateResolvedAccessTokenCheck(DefinedClass oauthAdapter, Block block, Variable accessTokenId, Variable token) {
+    }
+
+    private DefinedClass generateRestoreAccessTokenTaskClass(DefinedClass oauthAdapter, FieldVariable oauthAccessToken, FieldVariable oauthAccessTokenSecret) throws GenerationException {
+        DefinedClass restoreTask;
+        try {
+            restoreTask = oauthAdapter._class(Modifier.PRIVATE, "RestoreAccessTokenTask")._implements(ref(Callable.class).narrow(OAuthToken.class));
+        } catch (ClassAlreadyExistsException e) {
+            throw new GenerationException(e); // This wont happen
+        }
+        restoreTask.javadoc().add("Restores the token with the given id, or the token held by the adapter if the id is null");
+
+        FieldVariable accessTokenId = restoreTask.field(Modifier.PRIVATE, ref(String.class), "accessTokenId");
+        Method constructor = restoreTask.constructor(Modifier.PUBLIC);
+        Variable accessTokenIdParam = constructor.param(ref(String.class), "accessTokenId");
+        constructor.body().assign(ExpressionFactory._this().ref(accessTokenId), accessTokenIdParam);
+
+        Method call = restoreTask.method(Modifier.PUBLIC, ref(OAuthToken.class), "call")._throws(ref(Exception.class));
+        Conditional ifNoId = call.body()._if(isNull(accessTokenId));
+        ifNoId._then()._if(ExpressionFactory.invoke(DO_RESTORE_ACCESS_TOKEN_METHOD_NAME))._then()._return(
+                ExpressionFactory._new(ref(OAuthToken.class)).arg(oauthAccessToken).
+                        arg(oauthAccessTokenSecret != null ? oauthAccessTokenSecret : ExpressionFactory._null()).arg(ExpressionFactory._null()));
+        ifNoId._then()._return(ExpressionFactory._null());
+        call.body()._return(ExpressionFactory.invoke(DO_RESTORE_ACCESS_TOKEN_METHOD_NAME).arg(accessTokenId));
+
+        return restoreTask;
+    }
+
+    private DefinedClass generateFetchAccessTokenTaskClass(DefinedClass oauthAdapter) throws GenerationException {
+        DefinedClass fetchTask;
+        try {
+            fetchTask = oauthAdapter._class(Modifier.PRIVATE, "FetchAccessTokenTask")._implements(ref(Callable.class).narrow(Object.class));
+        } catch (ClassAlreadyExistsException e) {
+            throw new GenerationException(e); // This wont happen
+        }
+        fetchTask.javadoc().add("Exchanges the verifier for an access token");
+
+        Method call = fetchTask.method(Modifier.PUBLIC, ref(Object.class), "call")._throws(ref(Exception.class));
+        call.body().invoke(DO_FETCH_ACCESS_TOKEN_METHOD_NAME);
+        call.body()._return(ExpressionFactory._null());
+
+        return fetchTask;
+    }
+}
@@ -46,9 +46,18 @@ public class NamingContants {
     public static final String CONFIG_DEFINITION_PARSER_CLASS_NAME_SUFFIX = "ConfigDefinitionParser";
     public static final String NESTED_PROCESSOR_CHAIN_CLASS_NAME = "NestedProcessorChain";
     public static final String NESTED_PROCESSOR_STRING_CLASS_NAME = "NestedProcessorString";
+    public static final String TRANSFORMER_CACHE_CLASS_NAME = "TransformerCache";
+    public static final String COMPILED_EXPRESSION_CLASS_NAME = "CompiledExpression";
     public static final String AUTHORIZE_DEFINITION_PARSER_CLASS_NAME = "AuthorizeDefinitionParser";
     public static final String NAMESPACE_HANDLER_CLASS_NAME_SUFFIX = "NamespaceHandler";
     public static final String REST_CLIENT_ADAPTER_CLASS_NAME_SUFFIX = "RestClientAdapter";
+    public static final String RELEASING_INPUT_STREAM_CLASS_NAME_SUFFIX = "ReleasingInputStream";
     public static final String CONNECTION_KEY_CLASS_NAME_SUFFIX = "ConnectionKey";
     public static final String CONNECTION_FACTORY_CLASS_NAME_SUFFIX = "ConnectionFactory";
+    public static final String CONNECTION_WARMER_CLASS_NAME_SUFFIX = "ConnectionWarmer";
+    public static final String WORKER_CLASS_NAME_SUFFIX = "Worker";
+    public static final String PRIMARY_NODE_LISTENER_CLASS_NAME_SUFFIX = "PrimaryNodeListener";
+    public static final String PRIMARY_NODE_CHECK_CLASS_NAME_SUFFIX = "PrimaryNodeCheck";
+    public static final String CONCURRENT_KEYED_OBJECT_POOL_CLASS_NAME = "ConcurrentKeyedObjectPool";
+    public static final String PRIMARY_NODE_NOTIFICATION_CLASS_NAME = "PrimaryNodeNotification";
 }
@@ -0,0 +1,422 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.devkit.generation.adapter;
+
+import org.apache.commons.pool.KeyedObjectPool;
+import org.apache.commons.pool.KeyedPoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.mule.devkit.generation.AbstractModuleGenerator;
+import org.mule.devkit.generation.DevKitTypeElement;
+import org.mule.devkit.generation.GenerationException;
+import org.mule.devkit.generation.NamingContants;
+import org.mule.devkit.model.code.Block;
+import org.mule.devkit.model.code.CatchBlock;
+import org.mule.devkit.model.code.ClassAlreadyExistsException;
+import org.mule.devkit.model.code.Conditional;
+import org.mule.devkit.model.code.DefinedClass;
+import org.mule.devkit.model.code.ExpressionFactory;
+import org.mule.devkit.model.code.FieldVariable;
+import org.mule.devkit.model.code.ForEach;
+import org.mule.devkit.model.code.Method;
+import org.mule.devkit.model.code.Modifier;
+import org.mule.devkit.model.code.Op;
+import org.mule.devkit.model.code.TryStatement;
+import org.mule.devkit.model.code.TypeReference;
+import org.mule.devkit.model.code.Variable;
+import org.mule.devkit.model.code.WhileLoop;
+
+import javax.lang.model.element.ExecutableElement;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentKeyedObjectPoolGenerator extends AbstractModuleGenerator {
+
+    public static final String ROLE = "ConcurrentKeyedObjectPool";
+
+    @Override
+    protected boolean shouldGenerate(DevKitTypeElement typeElement) {
+        ExecutableElement connectMethod = connectMethodForClass(typeElement);
+        ExecutableElement disconnectMethod = disconnectMethodForClass(typeElement);
+
+        return connectMethod != null && disconnectMethod != null;
+    }
+
+    @Override
+    protected void doGenerate(DevKitTypeElement typeElement) throws GenerationException {
+        String poolClassName = context.getNameUtils().generateClassNameInPackage(typeElement, NamingContants.ADAPTERS_NAMESPACE, NamingContants.CONCURRENT_KEYED_OBJECT_POOL_CLASS_NAME);
+        org.mule.devkit.model.code.Package pkg = context.getCodeModel()._package(context.getNameUtils().getPackageName(poolClassName));
+        DefinedClass poolClass;
+        try {
+            poolClass = pkg._class(Modifier.PUBLIC, context.getNameUtils().getClassName(poolClassName));
+        } catch (ClassAlreadyExistsException e) {
+            // another module in the same package already generated it
+            context.setClassRole(ROLE, e.getExistingClass());
+            return;
+        }
+        poolClass._implements(ref(KeyedObjectPool.class));
+        poolClass.javadoc().add("A keyed object pool that keeps a lock-free queue of idle objects for each key and bounds active ");
+        poolClass.javadoc().add("objects with a semaphore per key, so that borrowing and returning under one key never blocks ");
+        poolClass.javadoc().add("threads working with another one.");
+
+        DefinedClass keyPoolClass = generateKeyPoolClass(poolClass);
+
+        FieldVariable pools = poolClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(ConcurrentMap.class).narrow(ref(Object.class)).narrow(keyPoolClass), "pools",
+                ExpressionFactory._new(ref(ConcurrentHashMap.class).narrow(ref(Object.class)).narrow(keyPoolClass)));
+        pools.javadoc().add("Idle objects and counters for each key");
+        FieldVariable factory = poolClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(KeyedPoolableObjectFactory.class), "factory");
+        factory.javadoc().add("Factory used to create, activate, passivate and destroy pooled objects");
+        FieldVariable maxActive = poolClass.field(Modifier.PRIVATE | Modifier.FINAL, context.getCodeModel().INT, "maxActive");
+        maxActive.javadoc().add("Maximum number of active objects per key, non-positive when unbounded");
+        FieldVariable maxIdle = poolClass.field(Modifier.PRIVATE | Modifier.FINAL, context.getCodeModel().INT, "maxIdle");
+        maxIdle.javadoc().add("Maximum number of idle objects per key, negative when unbounded");
+        FieldVariable maxWait = poolClass.field(Modifier.PRIVATE | Modifier.FINAL, context.getCodeModel().LONG, "maxWait");
+        maxWait.javadoc().add("Milliseconds to wait for an object when the pool is exhausted, non-positive to wait forever");
+        FieldVariable whenExhaustedAction = poolClass.field(Modifier.PRIVATE | Modifier.FINAL, context.getCodeModel().BYTE, "whenExhaustedAction");
+        whenExhaustedAction.javadoc().add("What to do when the pool is exhausted");
+        FieldVariable closed = poolClass.field(Modifier.PRIVATE | Modifier.VOLATILE, context.getCodeModel().BOOLEAN, "closed");
+        closed.javadoc().add("Whether this pool has been closed");
+        FieldVariable evictor = poolClass.field(Modifier.PRIVATE, ref(Timer.class), "evictor");
+        evictor.javadoc().add("Timer validating idle objects in the background, null when idle objects are not tested");
+
+        Method constructor = poolClass.constructor(Modifier.PUBLIC);
+        constructor.javadoc().add("Create a new pool");
+        constructor.javadoc().addParam("factory Factory of pooled objects");
+        constructor.javadoc().addParam("config Pool configuration");
+        Variable factoryParam = constructor.param(ref(KeyedPoolableObjectFactory.class), "factory");
+        Variable config = constructor.param(ref(GenericKeyedObjectPool.Config.class), "config");
+        constructor.body().assign(ExpressionFactory._this().ref(factory), factoryParam);
+        constructor.body().assign(ExpressionFactory._this().ref(maxActive), Op.cond(
+                Op.eq(config.ref("whenExhaustedAction"), ref(GenericKeyedObjectPool.class).staticRef("WHEN_EXHAUSTED_GROW")),
+                ExpressionFactory.lit(-1), config.ref("maxActive")));
+        constructor.body().assign(ExpressionFactory._this().ref(maxIdle), config.ref("maxIdle"));
+        constructor.body().assign(ExpressionFactory._this().ref(maxWait), config.ref("maxWait"));
+        constructor.body().assign(ExpressionFactory._this().ref(whenExhaustedAction), config.ref("whenExhaustedAction"));
+
+        DefinedClass evictorClass = generateEvictorClass(poolClass);
+        Block ifTestWhileIdle = constructor.body()._if(Op.cand(config.ref("testWhileIdle"),
+                Op.gt(config.ref("timeBetweenEvictionRunsMillis"), ExpressionFactory.lit(0L))))._then();
+        ifTestWhileIdle.assign(evictor, ExpressionFactory._new(ref(Timer.class)).arg(poolClass.name() + " evictor").arg(ExpressionFactory.TRUE));
+        ifTestWhileIdle.add(evictor.invoke("schedule").arg(ExpressionFactory._new(evictorClass)).
+                arg(config.ref("timeBetweenEvictionRunsMillis")).arg(config.ref("timeBetweenEvictionRunsMillis")));
+
+        Method getKeyPool = generateGetKeyPoolMethod(poolClass, keyPoolClass, pools, maxActive);
+        Method removeIfUnused = generateRemoveIfUnusedMethod(poolClass, keyPoolClass, pools);
+        Method destroy = generateDestroyMethod(poolClass, factory);
+
+        generateBorrowObjectMethod(poolClass, keyPoolClass, factory, maxWait, whenExhaustedAction, closed, getKeyPool, destroy);
+        generateReturnObjectMethod(poolClass, keyPoolClass, factory, maxIdle, closed, getKeyPool, removeIfUnused, destroy);
+        generateInvalidateObjectMethod(poolClass, keyPoolClass, factory, getKeyPool, removeIfUnused);
+        generateAddObjectMethod(poolClass, keyPoolClass, factory, closed, getKeyPool);
+        generateCountMethods(poolClass, keyPoolClass, pools);
+        generateClearMethods(poolClass, keyPoolClass, pools, removeIfUnused, destroy);
+        generateEvictMethod(poolClass, keyPoolClass, pools, factory, removeIfUnused, destroy);
+
+        Method close = poolClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "close");
+        close._throws(ref(Exception.class));
+        close.body().assign(closed, ExpressionFactory.TRUE);
+        close.body()._if(Op.ne(evictor, ExpressionFactory._null()))._then().add(evictor.invoke("cancel"));
+        close.body().invoke("clear");
+
+        Method setFactory = poolClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "setFactory");
+        setFactory.param(ref(KeyedPoolableObjectFactory.class), "factory");
+        setFactory.body()._throw(ExpressionFactory._new(ref(UnsupportedOperationException.class)).arg("The factory of this pool cannot be changed"));
+
+        context.setClassRole(ROLE, poolClass);
+    }
+
+    private DefinedClass generateKeyPoolClass(DefinedClass poolClass) throws GenerationException {
+        DefinedClass keyPoolClass;
+        try {
+            keyPoolClass = poolClass._class(Modifier.PRIVATE | Modifier.STATIC, "KeyPool");
+        } catch (ClassAlreadyExistsException e) {
+            throw new GenerationException(e);
+        }
+        keyPoolClass.javadoc().add("Idle objects and counters for a single key");
+
+        TypeReference queueType = ref(ConcurrentLinkedQueue.class).narrow(ref(Object.class));
+        keyPoolClass.field(Modifier.PRIVATE | Modifier.FINAL, queueType, "idle", ExpressionFactory._new(queueType));
+        FieldVariable numIdle = keyPoolClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(AtomicInteger.class), "numIdle", ExpressionFactory._new(ref(AtomicInteger.class)));
+        FieldVariable numActive = keyPoolClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(AtomicInteger.class), "numActive", ExpressionFactory._new(ref(AtomicInteger.class)));
+        FieldVariable permits = keyPoolClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(Semaphore.class), "permits");
+        FieldVariable users = keyPoolClass.field(Modifier.PRIVATE, context.getCodeModel().INT, "users");
+        users.javadoc().add("Number of threads working with this key pool, guarded by this key pool");
+        FieldVariable retired = keyPoolClass.field(Modifier.PRIVATE, context.getCodeModel().BOOLEAN, "retired");
+        retired.javadoc().add("Whether this key pool has been removed from the pool, guarded by this key pool");
+
+        Method constructor = keyPoolClass.constructor(Modifier.PUBLIC);
+        Variable maxActive = constructor.param(context.getCodeModel().INT, "maxActive");
+        constructor.body().assign(ExpressionFactory._this().ref(permits), Op.cond(
+                Op.gt(maxActive, ExpressionFactory.lit(0)),
+                ExpressionFactory._new(ref(Semaphore.class)).arg(maxActive),
+                ExpressionFactory._null()));
+
+        Method release = keyPoolClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "release");
+        release.body()._if(Op.ne(permits, ExpressionFactory._null()))._then().add(permits.invoke("release"));
+
+        Method enter = keyPoolClass.method(Modifier.PUBLIC | Modifier.SYNCHRONIZED, context.getCodeModel().BOOLEAN, "enter");
+        enter.javadoc().add("Registers a thread about to work with this key pool");
+        enter.javadoc().addReturn("<code>false</code> if this key pool has already been removed and must not be used, <code>true</code> otherwise");
+        enter.body()._if(retired)._then()._return(ExpressionFactory.FALSE);
+        enter.body().assignPlus(users, ExpressionFactory.lit(1));
+        enter.body()._return(ExpressionFactory.TRUE);
+
+        Method leave = keyPoolClass.method(Modifier.PUBLIC | Modifier.SYNCHRONIZED, context.getCodeModel().VOID, "leave");
+        leave.javadoc().add("Unregisters a thread previously registered with enter");
+        leave.body().assign(users, Op.minus(users, ExpressionFactory.lit(1)));
+
+        Method retireIfUnused = keyPoolClass.method(Modifier.PUBLIC | Modifier.SYNCHRONIZED, context.getCodeModel().BOOLEAN, "retireIfUnused");
+        retireIfUnused.javadoc().add("Retires this key pool if no thread is working with it and it holds neither idle nor active objects");
+        retireIfUnused.javadoc().addReturn("<code>true</code> if this key pool is retired and can be removed from the pool");
+        retireIfUnused.body()._if(Op.cand(Op.eq(users, ExpressionFactory.lit(0)), Op.cand(
+                Op.eq(numIdle.invoke("get"), ExpressionFactory.lit(0)),
+                Op.eq(numActive.invoke("get"), ExpressionFactory.lit(0)))))._then().assign(retired, ExpressionFactory.TRUE);
+        retireIfUnused.body()._return(retired);
+
+        return keyPoolClass;
+    }
+
+    private DefinedClass generateEvictorClass(DefinedClass poolClass) throws GenerationException {
+        DefinedClass evictorClass;
+        try {
+            evictorClass = poolClass._class(Modifier.PRIVATE, "Evictor");
+        } catch (ClassAlreadyExistsException e) {
+            throw new GenerationException(e);
+        }
+        evictorClass._extends(ref(TimerTask.class));
+        evictorClass.javadoc().add("Periodically validates the idle objects of this pool");
+
+        Method run = evictorClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "run");
+        TryStatement tryEvict = run.body()._try();
+        tryEvict.body().invoke("evict");
+        tryEvict._catch(ref(Exception.class)).param("e");
+
+        return evictorClass;
+    }
+
+    private void generateEvictMethod(DefinedClass poolClass, DefinedClass keyPoolClass, FieldVariable pools, FieldVariable factory, Method removeIfUnused, Method destroy) {
+        Method evict = poolClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "evict");
+        evict._throws(ref(Exception.class));
+        evict.javadoc().add("Validates every idle object once, destroying those that are no longer valid. Idle objects are taken ");
+        evict.javadoc().add("out of the pool one at a time while being validated so borrowers are never handed one under test.");
+
+        ForEach forEachKey = evict.body().forEach(ref(Map.Entry.class).narrow(ref(Object.class)).narrow(keyPoolClass), "entry", pools.invoke("entrySet"));
+        Variable key = forEachKey.body().decl(ref(Object.class), "key", forEachKey.var().invoke("getKey"));
+        Variable keyPool = forEachKey.body().decl(keyPoolClass, "keyPool", forEachKey.var().invoke("getValue"));
+        forEachKey.body()._if(Op.not(keyPool.invoke("enter")))._then()._continue();
+        TryStatement tryEvict = forEachKey.body()._try();
+        Variable remaining = tryEvict.body().decl(context.getCodeModel().INT, "remaining", keyPool.ref("numIdle").invoke("get"));
+        WhileLoop loop = tryEvict.body()._while(Op.gt(remaining, ExpressionFactory.lit(0)));
+        loop.body().assign(remaining, Op.minus(remaining, ExpressionFactory.lit(1)));
+        Variable obj = loop.body().decl(ref(Object.class), "obj", keyPool.ref("idle").invoke("poll"));
+        loop.body()._if(Op.eq(obj, ExpressionFactory._null()))._then()._break();
+        loop.body().add(keyPool.ref("numIdle").invoke("decrementAndGet"));
+        Conditional ifValid = loop.body()._if(factory.invoke("validateObject").arg(key).arg(obj));
+        ifValid._then().add(keyPool.ref("numIdle").invoke("incrementAndGet"));
+        ifValid._then().add(keyPool.ref("idle").invoke("offer").arg(obj));
+        ifValid._else().add(ExpressionFactory.invoke(destroy).arg(key).arg(obj));
+        tryEvict._finally().add(keyPool.invoke("leave"));
+        forEachKey.body().invoke(removeIfUnused).arg(key).arg(keyPool);
+    }
+
+    private Method generateGetKeyPoolMethod(DefinedClass poolClass, DefinedClass keyPoolClass, FieldVariable pools, FieldVariable maxActive) {
+        Method getKeyPool = poolClass.method(Modifier.PRIVATE, keyPoolClass, "getKeyPool");
+        getKeyPool.javadoc().add("Retrieves the key pool for the given key, creating it if needed, and registers the calling thread ");
+        getKeyPool.javadoc().add("with it. Callers must invoke leave on the returned key pool once done.");
+        Variable key = getKeyPool.param(ref(Object.class), "key");
+        WhileLoop loop = getKeyPool.body()._while(ExpressionFactory.TRUE);
+        Variable keyPool = loop.body().decl(keyPoolClass, "keyPool", pools.invoke("get").arg(key));
+        Block ifNull = loop.body()._if(Op.eq(keyPool, ExpressionFactory._null()))._then();
+        Variable newKeyPool = ifNull.decl(keyPoolClass, "newKeyPool", ExpressionFactory._new(keyPoolClass).arg(maxActive));
+        ifNull.assign(keyPool, pools.invoke("putIfAbsent").arg(key).arg(newKeyPool));
+        ifNull._if(Op.eq(keyPool, ExpressionFactory._null()))._then().assign(keyPool, newKeyPool);
+        loop.body()._if(keyPool.invoke("enter"))._then()._return(keyPool);
+        loop.body().add(pools.invoke("remove").arg(key).arg(keyPool));
+
+        return getKeyPool;
+    }
+
+    private Method generateRemoveIfUnusedMethod(DefinedClass poolClass, DefinedClass keyPoolClass, FieldVariable pools) {
+        Method removeIfUnused = poolClass.method(Modifier.PRIVATE, context.getCodeModel().VOID, "removeIfUnused");
+        removeIfUnused.javadoc().add("Removes the key pool of the given key once it holds neither idle nor active objects so that pools ");
+        removeIfUnused.javadoc().add("for keys that are no longer used do not accumulate.");
+        Variable key = removeIfUnused.param(ref(Object.class), "key");
+        Variable keyPool = removeIfUnused.param(keyPoolClass, "keyPool");
+        removeIfUnused.body()._if(keyPool.invoke("retireIfUnused"))._then().add(pools.invoke("remove").arg(key).arg(keyPool));
+
+        return removeIfUnused;
+    }
+
+    private Method generateDestroyMethod(DefinedClass poolClass, FieldVariable factory) {
+        Method destroy = poolClass.method(Modifier.PRIVATE, context.getCodeModel().VOID, "destroy");
+        Variable key = destroy.param(ref(Object.class), "key");
+        Variable obj = destroy.param(ref(Object.class), "obj");
+        TryStatement tryDestroy = destroy.body()._try();
+        tryDestroy.body().add(factory.invoke("destroyObject").arg(key).arg(obj));
+        tryDestroy._catch(ref(Exception.class)).param("e");
+
+        return destroy;
+    }
+
+    private void generateBorrowObjectMethod(DefinedClass poolClass, DefinedClass keyPoolClass, FieldVariable factory, FieldVariable maxWait, FieldVariable whenExhaustedAction, FieldVariable closed, Method getKeyPool, Method destroy) {
+        Method borrowObject = poolClass.method(Modifier.PUBLIC, ref(Object.class), "borrowObject");
+        borrowObject._throws(ref(Exception.class));
+        Variable key = borrowObject.param(ref(Object.class), "key");
+
+        borrowObject.body()._if(closed)._then()._throw(ExpressionFactory._new(ref(IllegalStateException.class)).arg("Pool not open"));
+        Variable keyPool = borrowObject.body().decl(keyPoolClass, "keyPool", ExpressionFactory.invoke(getKeyPool).arg(key));
+
+        TryStatement tryEntered = borrowObject.body()._try();
+        Conditional ifBounded = tryEntered.body()._if(Op.ne(keyPool.ref("permits"), ExpressionFactory._null()));
+        Conditional ifFail = ifBounded._then()._if(Op.eq(whenExhaustedAction, ref(GenericKeyedObjectPool.class).staticRef("WHEN_EXHAUSTED_FAIL")));
+        ifFail._then()._if(Op.not(keyPool.ref("permits").invoke("tryAcquire")))._then()._throw(
+                ExpressionFactory._new(ref(NoSuchElementException.class)).arg("Pool exhausted"));
+        Conditional ifWaitForever = ifFail._elseif(Op.lte(maxWait, ExpressionFactory.lit(0L)));
+        ifWaitForever._then().add(keyPool.ref("permits").invoke("acquire"));
+        ifWaitForever._elseif(Op.not(keyPool.ref("permits").invoke("tryAcquire").arg(maxWait).arg(ref(TimeUnit.class).staticRef("MILLISECONDS"))))._then()._throw(
+                ExpressionFactory._new(ref(NoSuchElementException.class)).arg("Timeout waiting for idle object"));
+
+        Variable borrowed = tryEntered.body().decl(context.getCodeModel().BOOLEAN, "borrowed", ExpressionFactory.FALSE);
+        TryStatement tryBorrow = tryEntered.body()._try();
+        WhileLoop loop = tryBorrow.body()._while(ExpressionFactory.TRUE);
+        Variable obj = loop.body().decl(ref(Object.class), "obj", keyPool.ref("idle").invoke("poll"));
+        Variable created = loop.body().decl(context.getCodeModel().BOOLEAN, "created", ExpressionFactory.FALSE);
+        Conditional ifNoIdle = loop.body()._if(Op.eq(obj, ExpressionFactory._null()));
+        ifNoIdle._then().assign(obj, factory.invoke("makeObject").arg(key));
+        ifNoIdle._then().assign(created, ExpressionFactory.TRUE);
+        ifNoIdle._else().add(keyPool.ref("numIdle").invoke("decrementAndGet"));
+
+        TryStatement tryActivate = loop.body()._try();
+        tryActivate.body().add(factory.invoke("activateObject").arg(key).arg(obj));
+        CatchBlock catchActivate = tryActivate._catch(ref(Exception.class));
+        Variable e = catchActivate.param("e");
+        catchActivate.body().add(ExpressionFactory.invoke(destroy).arg(key).arg(obj));
+        catchActivate.body()._if(created)._then()._throw(e);
+        catchActivate.body()._continue();
+
+        loop.body().add(keyPool.ref("numActive").invoke("incrementAndGet"));
+        loop.body().assign(borrowed, ExpressionFactory.TRUE);
+        loop.body()._return(obj);
+
+        tryBorrow._finally()._if(Op.not(borrowed))._then().add(keyPool.invoke("release"));
+        tryEntered._finally().add(keyPool.invoke("leave"));
+    }
+
+    private void generateReturnObjectMethod(DefinedClass poolClass, DefinedClass keyPoolClass, FieldVariable factory, FieldVariable maxIdle, FieldVariable closed, Method getKeyPool, Method removeIfUnused, Method destroy) {
+        Method returnObject = poolClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "returnObject");
+        returnObject._throws(ref(Exception.class));
+        Variable key = returnObject.param(ref(Object.class), "key");
+        Variable obj = returnObject.param(ref(Object.class), "obj");
+
+        Variable keyPool = returnObject.body().decl(keyPoolClass, "keyPool", ExpressionFactory.invoke(getKeyPool).arg(key));
+        returnObject.body().add(keyPool.ref("numActive").invoke("decrementAndGet"));
+        TryStatement tryReturn = returnObject.body()._try();
+        Variable keep = tryReturn.body().decl(context.getCodeModel().BOOLEAN, "keep", Op.not(closed));
+
+        TryStatement tryPassivate = tryReturn.body()._if(keep)._then()._try();
+        tryPassivate.body().add(factory.invoke("passivateObject").arg(key).arg(obj));
+        CatchBlock catchPassivate = tryPassivate._catch(ref(Exception.class));
+        catchPassivate.param("e");
+        catchPassivate.body().assign(keep, ExpressionFactory.FALSE);
+
+        Block ifKeep = tryReturn.body()._if(keep)._then();
+        Variable numIdle = ifKeep.decl(context.getCodeModel().INT, "numIdle", keyPool.ref("numIdle").invoke("incrementAndGet"));
+        Conditional ifTooManyIdle = ifKeep._if(Op.cand(Op.gte(maxIdle, ExpressionFactory.lit(0)), Op.gt(numIdle, maxIdle)));
+        ifTooManyIdle._then().add(keyPool.ref("numIdle").invoke("decrementAndGet"));
+        ifTooManyIdle._then().assign(keep, ExpressionFactory.FALSE);
+        ifTooManyIdle._else().add(keyPool.ref("idle").invoke("offer").arg(obj));
+
+        tryReturn.body()._if(Op.not(keep))._then().add(ExpressionFactory.invoke(destroy).arg(key).arg(obj));
+        tryReturn._finally().add(keyPool.invoke("release"));
+        tryReturn._finally().add(keyPool.invoke("leave"));
+        tryReturn._finally().invoke(removeIfUnused).arg(key).arg(keyPool);
+    }
+
+    private void generateInvalidateObjectMethod(DefinedClass poolClass, DefinedClass keyPoolClass, FieldVariable factory, Method getKeyPool, Method removeIfUnused) {
+        Method invalidateObject = poolClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "invalidateObject");
+        invalidateObject._throws(ref(Exception.class));
+        Variable key = invalidateObject.param(ref(Object.class), "key");
+        Variable obj = invalidateObject.param(ref(Object.class), "obj");
+
+        Variable keyPool = invalidateObject.body().decl(keyPoolClass, "keyPool", ExpressionFactory.invoke(getKeyPool).arg(key));
+        invalidateObject.body().add(keyPool.ref("numActive").invoke("decrementAndGet"));
+        TryStatement tryDestroy = invalidateObject.body()._try();
+        tryDestroy.body().add(factory.invoke("destroyObject").arg(key).arg(obj));
+        tryDestroy._finally().add(keyPool.invoke("release"));
+        tryDestroy._finally().add(keyPool.invoke("leave"));
+        tryDestroy._finally().invoke(removeIfUnused).arg(key).arg(keyPool);
+    }
+
+    private void generateAddObjectMethod(DefinedClass poolClass, DefinedClass keyPoolClass, FieldVariable factory, FieldVariable closed, Method getKeyPool) {
+        Method addObject = poolClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "addObject");
+        addObject._throws(ref(Exception.class));
+        Variable key = addObject.param(ref(Object.class), "key");
+
+        addObject.body()._if(closed)._then()._throw(ExpressionFactory._new(ref(IllegalStateException.class)).arg("Pool not open"));
+        Variable keyPool = addObject.body().decl(keyPoolClass, "keyPool", ExpressionFactory.invoke(getKeyPool).arg(key));
+        TryStatement tryAdd = addObject.body()._try();
+        Variable obj = tryAdd.body().decl(ref(Object.class), "obj", factory.invoke("makeObject").arg(key));
+        tryAdd.body().add(factory.invoke("passivateObject").arg(key).arg(obj));
+        tryAdd.body().add(keyPool.ref("numIdle").invoke("incrementAndGet"));
+        tryAdd.body().add(keyPool.ref("idle").invoke("offer").arg(obj));
+        tryAdd._finally().add(keyPool.invoke("leave"));
+    }
+
+    private void generateCountMethods(DefinedClass poolClass, DefinedClass keyPoolClass, FieldVariable pools) {
+        for (String counter : new String[]{"numIdle", "numActive"}) {
+            String methodName = "get" + Character.toUpperCase(counter.charAt(0)) + counter.substring(1);
+
+            Method countForKey = poolClass.method(Modifier.PUBLIC, context.getCodeModel().INT, methodName);
+            Variable key = countForKey.param(ref(Object.class), "key");
+            Variable keyPool = countForKey.body().decl(keyPoolClass, "keyPool", pools.invoke("get").arg(key));
+            countForKey.body()._return(Op.cond(Op.eq(keyPool, ExpressionFactory._null()),
+                    ExpressionFactory.lit(0), keyPool.ref(counter).invoke("get")));
+
+            Method count = poolClass.method(Modifier.PUBLIC, context.getCodeModel().INT, methodName);
+            Variable total = count.body().decl(context.getCodeModel().INT, "total", ExpressionFactory.lit(0));
+            ForEach forEach = count.body().forEach(keyPoolClass, "keyPool", pools.invoke("values"));
+            forEach.body().assignPlus(total, forEach.var().ref(counter).invoke("get"));
+            count.body()._return(total);
+        }
+    }
+
+    private void generateClearMethods(DefinedClass poolClass, DefinedClass keyPoolClass, FieldVariable pools, Method removeIfUnused, Method destroy) {
+        Method clearKey = poolClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "clear");
+        clearKey._throws(ref(Exception.class));
+        Variable key = clearKey.param(ref(Object.class), "key");
+        Variable keyPool = clearKey.body().decl(keyPoolClass, "keyPool", pools.invoke("get").arg(key));
+        clearKey.body()._if(Op.eq(keyPool, ExpressionFactory._null()))._then()._return();
+        Variable obj = clearKey.body().decl(ref(Object.class), "obj", keyPool.ref("idle").invoke("poll"));
+        WhileLoop loop = clearKey.body()._while(Op.ne(obj, ExpressionFactory._null()));
+        loop.body().add(keyPool.ref("numIdle").invoke("decrementAndGet"));
+        loop.body().add(ExpressionFactory.invoke(destroy).arg(key).arg(obj));
+        loop.body().assign(obj, keyPool.ref("idle").invoke("poll"));
+        clearKey.body().invoke(removeIfUnused).arg(key).arg(keyPool);
+
+        Method clear = poolClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "clear");
+        clear._throws(ref(Exception.class));
+        ForEach forEach = clear.body().forEach(ref(Object.class), "key", pools.invoke("keySet"));
+        forEach.body().invoke(clearKey).arg(forEach.var());
+    }
+}
@@ -17,6 +17,7 @@
 package org.mule.devkit.generation.adapter;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.pool.KeyedObjectPool;
 import org.apache.commons.pool.KeyedPoolableObjectFactory;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.mule.api.Capabilities;
@@ -33,6 +34,7 @@ import org.mule.devkit.generation.AbstractMessageGenerator;
 import org.mule.devkit.generation.DevKitTypeElement;
 import org.mule.devkit.generation.GenerationException;
 import org.mule.devkit.generation.NamingContants;
+import org.mule.devkit.model.code.Block;
 import org.mule.devkit.model.code.Cast;
 import org.mule.devkit.model.code.CatchBlock;
 import org.mule.devkit.model.code.ClassAlreadyExistsException;
@@ -48,15 +50,23 @@ import org.mule.devkit.model.code.Op;
 import org.mule.devkit.model.code.TryStatement;
 import org.mule.devkit.model.code.TypeReference;
 import org.mule.devkit.model.code.Variable;
+import org.mule.devkit.model.code.WhileLoop;
 
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class ConnectionManagerGenerator extends AbstractMessageGenerator {
 
+    public static final String COMMONS_POOL_STRATEGY = "COMMONS_POOL";
+    public static final String CONCURRENT_POOL_STRATEGY = "CONCURRENT";
+
     @Override
     protected boolean shouldGenerate(DevKitTypeElement typeElement) {
         ExecutableElement connectMethod = connectMethodForClass(typeElement);
@@ -98,9 +108,31 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         FieldVariable connectionPool = generateFieldForConnectionPool(connectionManagerClass);
         FieldVariable poolingProfile = connectionManagerClass.field(Modifier.PROTECTED, ref(PoolingProfile.class), "connectionPoolingProfile");
 
+        FieldVariable poolStrategy = connectionManagerClass.field(Modifier.PRIVATE, ref(String.class), "connectionPoolStrategy");
+        poolStrategy.javadoc().add("Pool implementation used for connections, either " + COMMONS_POOL_STRATEGY + " or " + CONCURRENT_POOL_STRATEGY);
+
         // generate getter and setter for pooling profile
         generateSetter(connectionManagerClass, poolingProfile);
         generateGetter(connectionManagerClass, poolingProfile);
+        generateSetter(connectionManagerClass, poolStrategy);
+        generateGetter(connectionManagerClass, poolStrategy);
+
+        FieldVariable validationIdleTime = connectionManagerClass.field(Modifier.PRIVATE, context.getCodeModel().LONG, "connectionValidationIdleTime");
+        validationIdleTime.javadoc().add("Milliseconds since its last validation after which a connection is validated again on borrow");
+        FieldVariable evictionCheckInterval = connectionManagerClass.field(Modifier.PRIVATE, context.getCodeModel().LONG, "connectionEvictionCheckInterval");
+        evictionCheckInterval.javadoc().add("Milliseconds between background validations of idle connections, zero to disable them");
+        generateSetter(connectionManagerClass, validationIdleTime);
+        generateGetter(connectionManagerClass, validationIdleTime);
+        generateSetter(connectionManagerClass, evictionCheckInterval);
+        generateGetter(connectionManagerClass, evictionCheckInterval);
+
+        FieldVariable minIdle = connectionManagerClass.field(Modifier.PRIVATE, context.getCodeModel().INT, "connectionMinIdle");
+        minIdle.javadoc().add("Number of idle connections kept ready for each connection key");
+        generateSetter(connectionManagerClass, minIdle);
+        generateGetter(connectionManagerClass, minIdle);
+
+        FieldVariable warmerExecutor = connectionManagerClass.field(Modifier.PRIVATE, ref(ExecutorService.class), "connectionWarmerExecutor");
+        warmerExecutor.javadoc().add("Executor that opens idle connections in the background, null when no minimum is configured");
 
         // generate setters for all parameters
         for (String fieldName : fields.keySet()) {
@@ -117,17 +149,23 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         // generate key fields
         Map<String, AbstractMessageGenerator.FieldVariableElement> keyFields = generateStandardFieldForEachParameter(connectionKeyClass, connectMethod);
 
+        FieldVariable hash = connectionKeyClass.field(Modifier.PRIVATE | Modifier.FINAL, context.getCodeModel().INT, "hash");
+        hash.javadoc().add("Hash code of the key, computed once on construction rather than on every lookup");
+        Method computeHash = generateConnectionKeyComputeHashMethod(connectMethod, connectionKeyClass);
+
         // generate constructor for key
-        generateKeyConstructor(connectMethod, connectionKeyClass, keyFields);
+        Method keyConstructor = generateKeyConstructor(connectMethod, connectionKeyClass, keyFields);
+        keyConstructor.body().assign(hash, ExpressionFactory.invoke(computeHash));
 
-        // generate setters for all keys
+        // keys are immutable, generate getters only
         for (String fieldName : keyFields.keySet()) {
-            generateSetter(connectionKeyClass, keyFields.get(fieldName).getField());
+            keyFields.get(fieldName).getField().mods().setFinal(true);
             generateGetter(connectionKeyClass, keyFields.get(fieldName).getField());
         }
 
-        generateConnectionKeyHashCodeMethod(connectMethod, connectionKeyClass);
-        generateConnectionKeyEqualsMethod(connectMethod, connectionKeyClass);
+        Method hashCode = connectionKeyClass.method(Modifier.PUBLIC, context.getCodeModel().INT, "hashCode");
+        hashCode.body()._return(hash);
+        generateConnectionKeyEqualsMethod(connectMethod, connectionKeyClass, hash);
 
         DefinedClass connectionFactoryClass = getConnectorFactoryClass(connectionManagerClass);
 
@@ -139,23 +177,31 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         connectionFactoryConstructor.body().assign(ExpressionFactory._this().ref(connectionManagerInFactory),
                 constructorConnectionManager);
 
-        generateMakeObjectMethod(typeElement, connectMethod, connectionFactoryClass, connectionKeyClass, connectionManagerInFactory);
-        generateDestroyObjectMethod(connectMethod, disconnectMethod, connectionKeyClass, connectionFactoryClass);
-        generateValidateObjectMethod(connectionFactoryClass, logger, validateConnectionMethod);
-        generateActivateObjectMethod(connectionFactoryClass, validateConnectionMethod, connectMethod, keyFields, connectionKeyClass);
+        FieldVariable lastValidated = connectionFactoryClass.field(Modifier.PRIVATE, ref(ConcurrentMap.class).narrow(ref(Object.class)).narrow(ref(Long.class)), "lastValidated",
+                ExpressionFactory._new(ref(ConcurrentHashMap.class).narrow(ref(Object.class)).narrow(ref(Long.class))));
+        lastValidated.javadoc().add("Last time each pooled connector was found to be connected");
+
+        generateMakeObjectMethod(typeElement, connectMethod, connectionFactoryClass, connectionKeyClass, connectionManagerInFactory, keyFields, lastValidated);
+        generateDestroyObjectMethod(connectMethod, disconnectMethod, connectionKeyClass, connectionFactoryClass, lastValidated);
+        generateValidateObjectMethod(connectionFactoryClass, logger, validateConnectionMethod, lastValidated);
+        generateActivateObjectMethod(connectionFactoryClass, validateConnectionMethod, connectMethod, keyFields, connectionKeyClass, connectionManagerInFactory, lastValidated);
         generatePassivateObjectMethod(connectionFactoryClass);
 
-        generateInitialiseMethod(connectionManagerClass, connectionPool, poolingProfile, connectionFactoryClass);
+        DefinedClass connectionWarmerClass = generateConnectionWarmerClass(connectionManagerClass, connectionKeyClass, connectionPool, minIdle, logger);
+
+        Method initialise = generateInitialiseMethod(connectionManagerClass, connectionPool, poolingProfile, poolStrategy, evictionCheckInterval, connectionFactoryClass);
+        generateWarmUpKnownConnection(initialise, connectMethod, fields, connectionKeyClass, connectionWarmerClass, minIdle, warmerExecutor);
+        generateDisposeMethod(connectionManagerClass, connectionPool, warmerExecutor, logger);
 
         generateBorrowConnectionMethod(connectMethod, connectionManagerClass, connectionPool, connectionKeyClass);
         generateReturnConnectionMethod(connectMethod, connectionManagerClass, connectionPool, connectionKeyClass);
-        generateDestroyConnectionMethod(connectMethod, connectionManagerClass, connectionPool, connectionKeyClass);
+        generateDestroyConnectionMethod(connectMethod, connectionManagerClass, connectionPool, connectionKeyClass, connectionWarmerClass, warmerExecutor);
 
         generateIsCapableOf(typeElement, connectionManagerClass);
     }
 
-    private void generateConnectionKeyHashCodeMethod(ExecutableElement connect, DefinedClass connectionKeyClass) {
-        Method hashCode = connectionKeyClass.method(Modifier.PUBLIC, context.getCodeModel().INT, "hashCode");
+    private Method generateConnectionKeyComputeHashMethod(ExecutableElement connect, DefinedClass connectionKeyClass) {
+        Method hashCode = connectionKeyClass.method(Modifier.PRIVATE, context.getCodeModel().INT, "computeHash");
         Variable hash = hashCode.body().decl(context.getCodeModel().INT, "hash", ExpressionFactory.lit(1));
 
         for (VariableElement variable : connect.getParameters()) {
@@ -176,12 +222,16 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         hashCode.body()._return(
                 hash
         );
+
+        return hashCode;
     }
 
-    private void generateConnectionKeyEqualsMethod(ExecutableElement connect, DefinedClass connectionKey) {
+    private void generateConnectionKeyEqualsMethod(ExecutableElement connect, DefinedClass connectionKey, FieldVariable hash) {
         Method equals = connectionKey.method(Modifier.PUBLIC, context.getCodeModel().BOOLEAN, "equals");
         Variable obj = equals.param(ref(Object.class), "obj");
-        Expression areEqual = Op._instanceof(obj, connectionKey);
+        equals.body()._if(Op.eq(obj, ExpressionFactory._this()))._then()._return(ExpressionFactory.TRUE);
+        Expression areEqual = Op.cand(Op._instanceof(obj, connectionKey),
+                Op.eq(hash, ExpressionFactory.cast(connectionKey, obj).ref(hash)));
 
         for (VariableElement variable : connect.getParameters()) {
             if (variable.getAnnotation(ConnectionKey.class) == null) {
@@ -227,7 +277,7 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         );
     }
 
-    private void generateDestroyConnectionMethod(ExecutableElement connect, DefinedClass connectionManagerClass, FieldVariable connectionPool, DefinedClass connectionKeyClass) {
+    private void generateDestroyConnectionMethod(ExecutableElement connect, DefinedClass connectionManagerClass, FieldVariable connectionPool, DefinedClass connectionKeyClass, DefinedClass connectionWarmerClass, FieldVariable warmerExecutor) {
         DefinedClass connectorClass = context.getClassForRole(context.getNameUtils().generateConnectorObjectRoleKey((TypeElement) connect.getEnclosingElement()));
         Method destroyConnector = connectionManagerClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "destroyConnection");
         Variable key = destroyConnector.param(connectionKeyClass, "key");
@@ -238,9 +288,67 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
                         key
                 ).arg(connection)
         );
+        destroyConnector.body()._if(Op.cand(Op.ne(warmerExecutor, ExpressionFactory._null()), Op.not(warmerExecutor.invoke("isShutdown"))))._then().add(
+                warmerExecutor.invoke("execute").arg(ExpressionFactory._new(connectionWarmerClass).arg(key)));
     }
 
-    private void generateInitialiseMethod(DefinedClass connectionManagerClass, FieldVariable connectionPool, FieldVariable connectionPoolingProfile, DefinedClass connectionFactoryClass) {
+    private DefinedClass generateConnectionWarmerClass(DefinedClass connectionManagerClass, DefinedClass connectionKeyClass, FieldVariable connectionPool, FieldVariable minIdle, FieldVariable logger) {
+        DefinedClass connectionWarmerClass;
+        try {
+            connectionWarmerClass = connectionManagerClass._class(Modifier.PRIVATE, NamingContants.CONNECTION_WARMER_CLASS_NAME_SUFFIX);
+        } catch (ClassAlreadyExistsException e) {
+            return e.getExistingClass();
+        }
+        connectionWarmerClass._implements(Runnable.class);
+        connectionWarmerClass.javadoc().add("Opens connections for a key until the pool holds the minimum number of idle ones");
+
+        FieldVariable key = connectionWarmerClass.field(Modifier.PRIVATE, connectionKeyClass, "key");
+        Method constructor = connectionWarmerClass.constructor(Modifier.PUBLIC);
+        Variable keyParam = constructor.param(connectionKeyClass, "key");
+        constructor.body().assign(ExpressionFactory._this().ref(key), keyParam);
+
+        Method run = connectionWarmerClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "run");
+        TryStatement tryWarm = run.body()._try();
+        Variable missing = tryWarm.body().decl(context.getCodeModel().INT, "missing", Op.minus(minIdle, connectionPool.invoke("getNumIdle").arg(key)));
+        WhileLoop loop = tryWarm.body()._while(Op.gt(missing, ExpressionFactory.lit(0)));
+        loop.body().add(connectionPool.invoke("addObject").arg(key));
+        loop.body().assign(missing, Op.minus(missing, ExpressionFactory.lit(1)));
+        CatchBlock catchWarm = tryWarm._catch(ref(Exception.class));
+        Variable e = catchWarm.param("e");
+        catchWarm.body().add(logger.invoke("warn").arg(Op.plus(ExpressionFactory.lit("Unable to open idle connections: "), e.invoke("getMessage"))).arg(e));
+
+        return connectionWarmerClass;
+    }
+
+    private void generateWarmUpKnownConnection(Method initialise, ExecutableElement connect, Map<String, FieldVariableElement> fields, DefinedClass connectionKeyClass, DefinedClass connectionWarmerClass, FieldVariable minIdle, FieldVariable warmerExecutor) {
+        Block ifMinIdle = initialise.body()._if(Op.gt(minIdle, ExpressionFactory.lit(0)))._then();
+        ifMinIdle.assign(warmerExecutor, ref(Executors.class).staticInvoke("newSingleThreadExecutor"));
+
+        // connections can only be opened ahead of time for the key configured in the config element
+        Expression keyIsConfigured = ExpressionFactory.TRUE;
+        Invocation newKey = ExpressionFactory._new(connectionKeyClass);
+        for (VariableElement variable : connect.getParameters()) {
+            FieldVariable field = fields.get(variable.getSimpleName().toString()).getField();
+            if (!variable.asType().getKind().isPrimitive()) {
+                keyIsConfigured = Op.cand(keyIsConfigured, Op.ne(field, ExpressionFactory._null()));
+            }
+            newKey.arg(field);
+        }
+        ifMinIdle._if(keyIsConfigured)._then().add(warmerExecutor.invoke("execute").arg(ExpressionFactory._new(connectionWarmerClass).arg(newKey)));
+    }
+
+    private void generateDisposeMethod(DefinedClass connectionManagerClass, FieldVariable connectionPool, FieldVariable warmerExecutor, FieldVariable logger) {
+        Method dispose = connectionManagerClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "dispose");
+        dispose.body()._if(Op.ne(warmerExecutor, ExpressionFactory._null()))._then().add(warmerExecutor.invoke("shutdownNow"));
+        Conditional ifPool = dispose.body()._if(Op.ne(connectionPool, ExpressionFactory._null()));
+        TryStatement tryClose = ifPool._then()._try();
+        tryClose.body().add(connectionPool.invoke("close"));
+        CatchBlock catchClose = tryClose._catch(ref(Exception.class));
+        Variable e = catchClose.param("e");
+        catchClose.body().add(logger.invoke("warn").arg(Op.plus(ExpressionFactory.lit("Unable to close connection pool: "), e.invoke("getMessage"))).arg(e));
+    }
+
+    private Method generateInitialiseMethod(DefinedClass connectionManagerClass, FieldVariable connectionPool, FieldVariable connectionPoolingProfile, FieldVariable connectionPoolStrategy, FieldVariable connectionEvictionCheckInterval, DefinedClass connectionFactoryClass) {
         Method initialisableMethod = connectionManagerClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "initialise");
 
         Variable config = initialisableMethod.body().decl(ref(GenericKeyedObjectPool.Config.class), "config",
@@ -252,14 +360,26 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         ifNotNull._then().assign(config.ref("maxWait"), connectionPoolingProfile.invoke("getMaxWait"));
         ifNotNull._then().assign(config.ref("whenExhaustedAction"), ExpressionFactory.cast(context.getCodeModel().BYTE, connectionPoolingProfile.invoke("getExhaustedAction")));
 
+        Conditional ifEviction = initialisableMethod.body()._if(Op.gt(connectionEvictionCheckInterval, ExpressionFactory.lit(0L)));
+        ifEviction._then().assign(config.ref("timeBetweenEvictionRunsMillis"), connectionEvictionCheckInterval);
+        ifEviction._then().assign(config.ref("testWhileIdle"), ExpressionFactory.TRUE);
+        ifEviction._then().assign(config.ref("numTestsPerEvictionRun"), ExpressionFactory.lit(-1));
+        ifEviction._then().assign(config.ref("minEvictableIdleTimeMillis"), ExpressionFactory.lit(-1L));
+
         Invocation newObjectFactory = ExpressionFactory._new(connectionFactoryClass);
         newObjectFactory.arg(ExpressionFactory._this());
-        initialisableMethod.body().assign(connectionPool, ExpressionFactory._new(ref(GenericKeyedObjectPool.class)).arg(
+        Conditional ifConcurrent = initialisableMethod.body()._if(ExpressionFactory.lit(CONCURRENT_POOL_STRATEGY).invoke("equals").arg(connectionPoolStrategy));
+        ifConcurrent._then().assign(connectionPool, ExpressionFactory._new(context.getClassForRole(ConcurrentKeyedObjectPoolGenerator.ROLE)).arg(
                 newObjectFactory
         ).arg(config));
+        ifConcurrent._else().assign(connectionPool, ExpressionFactory._new(ref(GenericKeyedObjectPool.class)).arg(
+                newObjectFactory
+        ).arg(config));
+
+        return initialisableMethod;
     }
 
-    private void generateActivateObjectMethod(DefinedClass connectionFactoryClass, ExecutableElement validateConnectionMethod, ExecutableElement connect, Map<String, FieldVariableElement> keyFields, DefinedClass connectionKeyClass) {
+    private void generateActivateObjectMethod(DefinedClass connectionFactoryClass, ExecutableElement validateConnectionMethod, ExecutableElement connect, Map<String, FieldVariableElement> keyFields, DefinedClass connectionKeyClass, FieldVariable connectionManagerInFactory, FieldVariable lastValidated) {
         DefinedClass connectorClass = context.getClassForRole(context.getNameUtils().generateConnectorObjectRoleKey((TypeElement) validateConnectionMethod.getEnclosingElement()));
         Method activateObject = connectionFactoryClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "activateObject");
         activateObject._throws(ref(Exception.class));
@@ -272,22 +392,32 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         Conditional ifNotObj = activateObject.body()._if(Op.not(Op._instanceof(obj, connectorClass)));
         ifNotObj._then()._throw(ExpressionFactory._new(ref(RuntimeException.class)).arg("Invalid connector type"));
         
+        Variable validatedAt = activateObject.body().decl(ref(Long.class), "validatedAt", lastValidated.invoke("get").arg(obj));
+        Block ifStale = activateObject.body()._if(Op.cor(Op.eq(validatedAt, ExpressionFactory._null()),
+                Op.gte(Op.minus(ref(System.class).staticInvoke("currentTimeMillis"), validatedAt),
+                        connectionManagerInFactory.invoke("getConnectionValidationIdleTime"))))._then();
+
         Cast casterConnector = ExpressionFactory.cast(connectorClass, obj);
-        TryStatement tryDisconnect = activateObject.body()._try();
+        TryStatement tryDisconnect = ifStale._try();
         Conditional ifNotConnected = tryDisconnect.body()._if(Op.not(casterConnector.invoke(validateConnectionMethod.getSimpleName().toString())));
+        ifNotConnected._then().add(generateConnectInvocation(casterConnector, connect, keyFields, connectionKeyClass, key));
+
+        
+        CatchBlock catchAndRethrow = tryDisconnect._catch(ref(Exception.class));
+        Variable e = catchAndRethrow.param("e");
+        catchAndRethrow.body()._throw(e);
+        ifStale.add(lastValidated.invoke("put").arg(obj).arg(ref(System.class).staticInvoke("currentTimeMillis")));
+    }
+
+    private Invocation generateConnectInvocation(Expression connector, ExecutableElement connect, Map<String, FieldVariableElement> keyFields, DefinedClass connectionKeyClass, Variable key) {
         Cast castedConnectionKey = ExpressionFactory.cast(connectionKeyClass, key);
-        Invocation connectInvoke = ExpressionFactory.cast(connectorClass, obj).invoke(connect.getSimpleName().toString());
+        Invocation connectInvoke = connector.invoke(connect.getSimpleName().toString());
         for (VariableElement variable : connect.getParameters()) {
             String fieldName = variable.getSimpleName().toString();
             connectInvoke.arg(castedConnectionKey.invoke("get" + StringUtils.capitalize(keyFields.get(fieldName).getField().name())));
         }
-        ifNotConnected._then().add(connectInvoke);
 
-        
-        CatchBlock catchAndRethrow = tryDisconnect._catch(ref(Exception.class));
-        Variable e = catchAndRethrow.param("e");
-        catchAndRethrow.body()._throw(e);
-        
+        return connectInvoke;
     }
 
     private void generatePassivateObjectMethod(DefinedClass connectionFactoryClass) {
@@ -297,7 +427,7 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         passivateObject.param(Object.class, "obj");
     }
 
-    private void generateValidateObjectMethod(DefinedClass connectionFactoryClass, FieldVariable logger, ExecutableElement validateConnectionMethod) {
+    private void generateValidateObjectMethod(DefinedClass connectionFactoryClass, FieldVariable logger, ExecutableElement validateConnectionMethod, FieldVariable lastValidated) {
         DefinedClass connectorClass = context.getClassForRole(context.getNameUtils().generateConnectorObjectRoleKey((TypeElement) validateConnectionMethod.getEnclosingElement()));
         Method validateObject = connectionFactoryClass.method(Modifier.PUBLIC, context.getCodeModel().BOOLEAN, "validateObject");
         validateObject.param(Object.class, "key");
@@ -308,14 +438,16 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
 
         Cast casterConnector = ExpressionFactory.cast(connectorClass, obj);
         TryStatement tryDisconnect = validateObject.body()._try();
-        tryDisconnect.body()._return(casterConnector.invoke(validateConnectionMethod.getSimpleName().toString()));
+        Variable valid = tryDisconnect.body().decl(context.getCodeModel().BOOLEAN, "valid", casterConnector.invoke(validateConnectionMethod.getSimpleName().toString()));
+        tryDisconnect.body()._if(valid)._then().add(lastValidated.invoke("put").arg(obj).arg(ref(System.class).staticInvoke("currentTimeMillis")));
+        tryDisconnect.body()._return(valid);
         CatchBlock catchAndRethrow = tryDisconnect._catch(ref(Exception.class));
         Variable e = catchAndRethrow.param("e");
         catchAndRethrow.body().add(logger.invoke("error").arg(e.invoke("getMessage")).arg(e));
         catchAndRethrow.body()._return(ExpressionFactory.FALSE);
     }
 
-    private void generateDestroyObjectMethod(ExecutableElement connect, ExecutableElement disconnect, DefinedClass connectionKeyClass, DefinedClass connectionFactoryClass) {
+    private void generateDestroyObjectMethod(ExecutableElement connect, ExecutableElement disconnect, DefinedClass connectionKeyClass, DefinedClass connectionFactoryClass, FieldVariable lastValidated) {
         DefinedClass connectorClass = context.getClassForRole(context.getNameUtils().generateConnectorObjectRoleKey((TypeElement) connect.getEnclosingElement()));
 
         Method destroyObject = connectionFactoryClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "destroyObject");
@@ -334,11 +466,12 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         CatchBlock catchAndRethrow = tryDisconnect._catch(ref(Exception.class));
         Variable e = catchAndRethrow.param("e");
         catchAndRethrow.body()._throw(e);
+        tryDisconnect._finally().add(lastValidated.invoke("remove").arg(obj));
         tryDisconnect._finally()._if(Op._instanceof(casterConnector, ref(Stoppable.class)))._then().add(casterConnector.invoke("stop"));
         tryDisconnect._finally()._if(Op._instanceof(casterConnector, ref(Disposable.class)))._then().add(casterConnector.invoke("dispose"));
     }
 
-    private void generateMakeObjectMethod(DevKitTypeElement typeElement, ExecutableElement connect, DefinedClass connectionFactoryClass, DefinedClass connectionKey, FieldVariable connectionManagerInFactory) {
+    private void generateMakeObjectMethod(DevKitTypeElement typeElement, ExecutableElement connect, DefinedClass connectionFactoryClass, DefinedClass connectionKey, FieldVariable connectionManagerInFactory, Map<String, FieldVariableElement> keyFields, FieldVariable lastValidated) {
         DefinedClass connectorClass = context.getClassForRole(context.getNameUtils().generateConnectorObjectRoleKey((TypeElement) connect.getEnclosingElement()));
         Method makeObject = connectionFactoryClass.method(Modifier.PUBLIC, Object.class, "makeObject");
         makeObject._throws(ref(Exception.class));
@@ -358,6 +491,9 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
 
         setMuleContextToConnectorIfNecessary(connectionManagerInFactory, connectorClass, makeObject, connector);
 
+        makeObject.body().add(generateConnectInvocation(connector, connect, keyFields, connectionKey, key));
+        makeObject.body().add(lastValidated.invoke("put").arg(connector).arg(ref(System.class).staticInvoke("currentTimeMillis")));
+
         makeObject.body()._return(connector);
     }
 
@@ -371,17 +507,19 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
         }
     }
 
-    private void generateKeyConstructor(ExecutableElement connect, DefinedClass connectionKeyClass, Map<String, FieldVariableElement> keyFields) {
+    private Method generateKeyConstructor(ExecutableElement connect, DefinedClass connectionKeyClass, Map<String, FieldVariableElement> keyFields) {
         Method keyConstructor = connectionKeyClass.constructor(Modifier.PUBLIC);
         for (VariableElement variable : connect.getParameters()) {
             String fieldName = variable.getSimpleName().toString();
             Variable parameter = keyConstructor.param(ref(variable.asType()), fieldName);
             keyConstructor.body().assign(ExpressionFactory._this().ref(keyFields.get(fieldName).getField()), parameter);
         }
+
+        return keyConstructor;
     }
 
     private FieldVariable generateFieldForConnectionPool(DefinedClass connectionManagerClass) {
-        FieldVariable connectionPool = connectionManagerClass.field(Modifier.PRIVATE, ref(GenericKeyedObjectPool.class), "connectionPool");
+        FieldVariable connectionPool = connectionManagerClass.field(Modifier.PRIVATE, ref(KeyedObjectPool.class), "connectionPool");
         connectionPool.javadoc().add("Connector Pool");
 
         return connectionPool;
@@ -396,6 +534,7 @@ public class ConnectionManagerGenerator extends AbstractMessageGenerator {
 
         DefinedClass connectionManagerClass = pkg._class(context.getNameUtils().getClassName(connectionManagerName));
         connectionManagerClass._implements(ref(Initialisable.class));
+        connectionManagerClass._implements(ref(Disposable.class));
         connectionManagerClass._implements(ref(Capabilities.class));
         connectionManagerClass._implements(ref(MuleContextAware.class));
         connectionManagerClass._implements(ref(ConnectionManager.class).narrow(getConnectionParametersClass(typeElement, connectionManagerClass)).narrow(classToExtend));
@@ -25,17 +25,21 @@ import oauth.signpost.exception.OAuthCommunicationException;
 import oauth.signpost.exception.OAuthExpectationFailedException;
 import oauth.signpost.exception.OAuthMessageSignerException;
 import oauth.signpost.exception.OAuthNotAuthorizedException;
+import oauth.signpost.http.HttpRequest;
+import oauth.signpost.http.RequestParameters;
 import oauth.signpost.signature.AuthorizationHeaderSigningStrategy;
-import oauth.signpost.signature.HmacSha1MessageSigner;
-import oauth.signpost.signature.PlainTextMessageSigner;
 import oauth.signpost.signature.QueryStringSigningStrategy;
+import oauth.signpost.signature.SignatureBaseString;
 import org.mule.api.annotations.oauth.OAuth;
 import org.mule.api.annotations.oauth.OAuthConsumerKey;
 import org.mule.api.annotations.oauth.OAuthConsumerSecret;
 import org.mule.api.annotations.oauth.OAuthMessageSigner;
 import org.mule.api.annotations.oauth.OAuthScope;
 import org.mule.api.annotations.oauth.OAuthSigningStrategy;
+import org.mule.api.oauth.NotAuthorizedException;
 import org.mule.api.oauth.OAuth1Adapter;
+import org.mule.api.oauth.OAuthRequestSigner;
+import org.mule.api.oauth.OAuthToken;
 import org.mule.api.oauth.UnableToAcquireAccessTokenException;
 import org.mule.api.oauth.UnableToAcquireRequestTokenException;
 import org.mule.devkit.generation.AbstractOAuthAdapterGenerator;
@@ -43,6 +47,7 @@ import org.mule.devkit.generation.DevKitTypeElement;
 import org.mule.devkit.generation.GenerationException;
 import org.mule.devkit.model.code.Block;
 import org.mule.devkit.model.code.CatchBlock;
+import org.mule.devkit.model.code.ClassAlreadyExistsException;
 import org.mule.devkit.model.code.Conditional;
 import org.mule.devkit.model.code.DefinedClass;
 import org.mule.devkit.model.code.ExpressionFactory;
@@ -58,6 +63,7 @@ import org.mule.devkit.model.code.builders.FieldBuilder;
 import javax.lang.model.element.TypeElement;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.Map;
 
 public class OAuth1AdapterGenerator extends AbstractOAuthAdapterGenerator {
 
@@ -65,6 +71,7 @@ public class OAuth1AdapterGenerator extends AbstractOAuthAdapterGenerator {
     private static final String REQUEST_TOKEN_FIELD_NAME = "requestToken";
     private static final String REQUEST_TOKEN_SECRET_FIELD_NAME = "requestTokenSecret";
     private static final String CONSUMER_FIELD_NAME = "consumer";
+    private static final String REQUEST_SIGNER_FIELD_NAME = "requestSigner";
 
     @Override
     protected boolean shouldGenerate(DevKitTypeElement typeElement) {
@@ -86,10 +93,13 @@ public class OAuth1AdapterGenerator extends AbstractOAuthAdapterGenerator {
         FieldVariable oauthVerifier = authorizationCodeField(oauthAdapter);
         FieldVariable saveAccessTokenCallback = saveAccessTokenCallbackField(oauthAdapter);
         FieldVariable restoreAccessTokenCallback = restoreAccessTokenCallbackField(oauthAdapter);
+        tokenStoreField(oauthAdapter);
+        tokenRequestFields(oauthAdapter);
         FieldVariable redirectUrl = redirectUrlField(oauthAdapter);
         FieldVariable oauthAccessToken = accessTokenField(oauthAdapter);
         FieldVariable oauthAccessTokenSecret = oauthAccessTokenSecretField(oauthAdapter);
         consumerField(oauthAdapter);
+        requestSignerField(oauthAdapter);
         oauthCallbackField(oauthAdapter);
 
         DefinedClass messageProcessor = generateMessageProcessorInnerClass(oauthAdapter);
@@ -105,7 +115,9 @@ public class OAuth1AdapterGenerator extends AbstractOAuthAdapterGenerator {
         generateFetchAccessTokenMethod(oauthAdapter, requestToken, requestTokenSecret, saveAccessTokenCallback, oauthVerifier, typeElement, oauth, logger);
 
         generateHasBeenAuthorizedMethod(oauthAdapter, oauthAccessToken);
-        generateOverrides(typeElement, oauthAdapter, oauthAccessToken, oauthAccessTokenSecret);
+        generateTokenRequestMethods(oauthAdapter, oauthAccessToken, oauthAccessTokenSecret, logger);
+        generateSignRequestMethod(oauthAdapter);
+        generateOverrides(typeElement, oauthAdapter);
     }
 
     private FieldVariable requestTokenField(DefinedClass oauthAdapter) {
@@ -124,17 +136,20 @@ public class OAuth1AdapterGenerator extends AbstractOAuthAdapterGenerator {
         return new FieldBuilder(oauthAdapter).type(OAuthConsumer.class).name(CONSUMER_FIELD_NAME).build();
     }
 
-    private Method generateCreateConsumerMethod(DefinedClass oauthAdapter, OAuth oauth, TypeElement typeElement) {
+    private FieldVariable requestSignerField(DefinedClass oauthAdapter) {
+        return new FieldBuilder(oauthAdapter).type(OAuthRequestSigner.class).name(REQUEST_SIGNER_FIELD_NAME).getter().build();
+    }
+
+    private Method generateCreateConsumerMethod(DefinedClass oauthAdapter, OAuth oauth, TypeElement typeElement) throws GenerationException {
         Method createConsumer = oauthAdapter.method(Modifier.PRIVATE, context.getCodeModel().VOID, "createConsumer");
         Invocation getConsumerKey = ExpressionFactory.invoke(getterMethodForFieldAnnotatedWith(typeElement, OAuthConsumerKey.class));
         Invocation getConsumerSecret = ExpressionFactory.invoke(getterMethodForFieldAnnotatedWith(typeElement, OAuthConsumerSecret.class));
         FieldVariable consumer = oauthAdapter.fields().get(CONSUMER_FIELD_NAME);
+        createConsumer.body().assign(oauthAdapter.fields().get(REQUEST_SIGNER_FIELD_NAME), ExpressionFactory._new(ref(OAuthRequestSigner.class)).arg(getConsumerKey).arg(getConsumerSecret).
+                arg(ref(OAuthMessageSigner.class).staticRef(oauth.messageSigner().name())).arg(ref(OAuthSigningStrategy.class).staticRef(oauth.signingStrategy().name())));
         createConsumer.body().assign(consumer, ExpressionFactory._new(ref(DefaultOAuthConsumer.class)).arg(getConsumerKey).arg(getConsumerSecret));
-        if (oauth.messageSigner().equals(OAuthMessageSigner.HMAC_SHA1)) {
-            createConsumer.body().invoke(consumer, "setMessageSigner").arg(ExpressionFactory._new(ref(HmacSha1MessageSigner.class)));
-        } else if (oauth.messageSigner().equals(OAuthMessageSigner.PLAIN_TEXT)) {
-            createConsumer.body().invoke(consumer, "setMessageSigner").arg(ExpressionFactory._new(ref(PlainTextMessageSigner.class)));
-        }
+        // the token exchange signs with the cached keys of the request signer as well
+        createConsumer.body().invoke(consumer, "setMessageSigner").arg(ExpressionFactory._new(generateRequestSignerMessageSignerClass(oauthAdapter)));
         if (oauth.signingStrategy().equals(OAuthSigningStrategy.AUTHORIZATION_HEADER)) {
             createConsumer.body().invoke(consumer, "setSigningStrategy").arg(ExpressionFactory._new(ref(AuthorizationHeaderSigningStrategy.class)));
         } else if (oauth.signingStrategy().equals(OAuthSigningStrategy.QUERY_STRING)) {
@@ -143,6 +158,41 @@ public class OAuth1AdapterGenerator extends AbstractOAuthAdapterGenerator {
         return createConsumer;
     }
 
+    private DefinedClass generateRequestSignerMessageSignerClass(DefinedClass oauthAdapter) throws GenerationException {
+        DefinedClass messageSigner;
+        try {
+            messageSigner = oauthAdapter._class(Modifier.PRIVATE, "RequestSignerMessageSigner");
+        } catch (ClassAlreadyExistsException e) {
+            throw new GenerationException(e); // This wont happen
+        }
+        messageSigner._extends(ref(oauth.signpost.signature.OAuthMessageSigner.class));
+        messageSigner.javadoc().add("Adapts the request signer to signpost, so request and access token requests reuse its keys");
+
+        FieldVariable requestSigner = oauthAdapter.fields().get(REQUEST_SIGNER_FIELD_NAME);
+        Method getSignatureMethod = messageSigner.method(Modifier.PUBLIC, ref(String.class), "getSignatureMethod");
+        getSignatureMethod.body()._return(requestSigner.invoke("getSignatureMethod"));
+
+        Method sign = messageSigner.method(Modifier.PUBLIC, ref(String.class), "sign");
+        sign._throws(ref(OAuthMessageSignerException.class));
+        Variable request = sign.param(ref(HttpRequest.class), "request");
+        Variable requestParameters = sign.param(ref(RequestParameters.class), "requestParameters");
+        Invocation baseString = ExpressionFactory._new(ref(SignatureBaseString.class)).arg(request).arg(requestParameters).invoke("generate");
+        sign.body()._return(requestSigner.invoke("signBaseString").arg(baseString).arg(ExpressionFactory.invoke("getTokenSecret")));
+
+        return messageSigner;
+    }
+
+    private void generateSignRequestMethod(DefinedClass oauthAdapter) {
+        Method signRequest = oauthAdapter.method(Modifier.PUBLIC, ref(String.class), "signRequest");
+        signRequest._throws(ref(NotAuthorizedException.class));
+        Variable method = signRequest.param(ref(String.class), "method");
+        Variable url = signRequest.param(ref(String.class), "url");
+        Variable parameters = signRequest.param(ref(Map.class).narrow(String.class).narrow(String.class), "parameters");
+        Variable token = signRequest.body().decl(ref(OAuthToken.class), "token", ExpressionFactory.invoke(RESOLVE_ACCESS_TOKEN_METHOD_NAME));
+        signRequest.body()._return(oauthAdapter.fields().get(REQUEST_SIGNER_FIELD_NAME).invoke("sign").arg(method).arg(url).arg(parameters).
+                arg(token.invoke("getAccessToken")).arg(token.invoke("getAccessTokenSecret")));
+    }
+
     private void generateInitialiseMethod(DefinedClass oauthAdapter, DefinedClass messageProcessor, Method createConsumer, OAuth oauth) {
         Method initialise = generateInitialiseMethod(oauthAdapter, messageProcessor, oauth.callbackPath());
         initialise.body().invoke(createConsumer);
@@ -193,7 +243,7 @@ public class OAuth1AdapterGenerator extends AbstractOAuthAdapterGenerator {
     
     private void generateRestoreAccessTokenMethod(DefinedClass oauthAdapter, FieldVariable restoreAccessTokenCallbackField, FieldVariable logger)
     {
-        Method restoreAccessTokenMethod = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().BOOLEAN, "restoreAccessToken");
+        Method restoreAccessTokenMethod = oauthAdapter.method(Modifier.PRIVATE, context.getCodeModel().BOOLEAN, DO_RESTORE_ACCESS_TOKEN_METHOD_NAME);
 
         Conditional ifRestoreCallbackNotNull = restoreAccessTokenMethod.body()._if(Op.ne(restoreAccessTokenCallbackField, ExpressionFactory._null()));
 
@@ -231,7 +281,7 @@ public class OAuth1AdapterGenerator extends AbstractOAuthAdapterGenerator {
     }
 
     private void generateFetchAccessTokenMethod(DefinedClass oauthAdapter, FieldVariable requestToken, FieldVariable requestTokenSecret, FieldVariable saveAccessTokenCallback, FieldVariable oauthVerifier, DevKitTypeElement typeElement, OAuth oauth, FieldVariable logger) {
-        Method fetchAccessToken = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().VOID, FETCH_ACCESS_TOKEN_METHOD_NAME);
+        Method fetchAccessToken = oauthAdapter.method(Modifier.PRIVATE, context.getCodeModel().VOID, DO_FETCH_ACCESS_TOKEN_METHOD_NAME);
         fetchAccessToken._throws(ref(UnableToAcquireAccessTokenException.class));
 
         fetchAccessToken.body().invoke("restoreAccessToken");
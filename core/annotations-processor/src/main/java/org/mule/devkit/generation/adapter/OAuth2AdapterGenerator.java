@@ -17,42 +17,86 @@
 
 package org.mule.devkit.generation.adapter;
 
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.lang.StringUtils;
 import org.mule.api.annotations.oauth.OAuth2;
 import org.mule.api.annotations.oauth.OAuthConsumerKey;
 import org.mule.api.annotations.oauth.OAuthConsumerSecret;
 import org.mule.api.annotations.oauth.OAuthScope;
+import org.mule.api.oauth.NotAuthorizedException;
 import org.mule.api.oauth.OAuth2Adapter;
+import org.mule.api.oauth.OAuthToken;
+import org.mule.api.oauth.TokenRefreshStatistics;
+import org.mule.api.oauth.TokenResponse;
 import org.mule.api.oauth.UnableToAcquireAccessTokenException;
 import org.mule.devkit.generation.AbstractOAuthAdapterGenerator;
 import org.mule.devkit.generation.DevKitTypeElement;
 import org.mule.devkit.generation.GenerationException;
 import org.mule.devkit.model.code.Block;
 import org.mule.devkit.model.code.CatchBlock;
+import org.mule.devkit.model.code.ClassAlreadyExistsException;
 import org.mule.devkit.model.code.Conditional;
 import org.mule.devkit.model.code.DefinedClass;
+import org.mule.devkit.model.code.Expression;
 import org.mule.devkit.model.code.ExpressionFactory;
 import org.mule.devkit.model.code.FieldVariable;
 import org.mule.devkit.model.code.Invocation;
+import org.mule.devkit.model.code.JArray;
 import org.mule.devkit.model.code.Method;
 import org.mule.devkit.model.code.Modifier;
 import org.mule.devkit.model.code.Op;
 import org.mule.devkit.model.code.TryStatement;
 import org.mule.devkit.model.code.Variable;
 import org.mule.devkit.model.code.builders.FieldBuilder;
-import org.mule.util.IOUtils;
+import org.mule.util.concurrent.DaemonThreadFactory;
 
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class OAuth2AdapterGenerator extends AbstractOAuthAdapterGenerator {
 
+    public static final String REFRESH_ACCESS_TOKEN_METHOD_NAME = "refreshAccessToken";
+    public static final String TOKEN_REFRESH_FRACTION_FIELD_NAME = "tokenRefreshFraction";
+    public static final double DEFAULT_TOKEN_REFRESH_FRACTION = 0.8;
+    public static final String TOKEN_CONNECTION_TIMEOUT_FIELD_NAME = "tokenConnectionTimeout";
+    public static final String TOKEN_RESPONSE_TIMEOUT_FIELD_NAME = "tokenResponseTimeout";
+    public static final int DEFAULT_TOKEN_CONNECTION_TIMEOUT = 10000;
+    public static final int DEFAULT_TOKEN_RESPONSE_TIMEOUT = 30000;
+    private static final int MAX_TOKEN_CONNECTIONS = 20;
+    private static final String TOKEN_HTTP_CLIENT_FIELD_NAME = "tokenHttpClient";
+    private static final String TOKEN_HTTP_CONNECTION_MANAGER_FIELD_NAME = "tokenHttpConnectionManager";
+    private static final String ACCESS_TOKEN_PARAMETER = "access_token";
+    private static final String EXPIRES_IN_PARAMETER = "expires_in";
+    private static final String REFRESH_TOKEN_PARAMETER = "refresh_token";
+    private static final String REFRESH_TOKEN_FIELD_NAME = "refreshToken";
+    private static final String REFRESH_TOKEN_PATTERN_FIELD_NAME = "REFRESH_TOKEN_PATTERN";
+    private static final String TOKEN_REFRESH_SCHEDULER_FIELD_NAME = "tokenRefreshScheduler";
+    private static final String SCHEDULED_TOKEN_REFRESH_FIELD_NAME = "scheduledTokenRefresh";
+    private static final String TOKEN_REFRESH_STATISTICS_FIELD_NAME = "tokenRefreshStatistics";
+    private static final String EXCHANGE_TOKEN_METHOD_NAME = "exchangeToken";
+    private static final String SCHEDULE_TOKEN_REFRESH_METHOD_NAME = "scheduleTokenRefresh";
+    private static final String DO_REFRESH_ACCESS_TOKEN_METHOD_NAME = "doRefreshAccessToken";
+    private static final String STATE_PARAMETER = "state";
+    private static final String STATE_PATTERN_FIELD_NAME = "STATE_PATTERN";
+    private static final String FETCH_ACCESS_TOKEN_TASK_CLASS_NAME = "FetchAccessTokenForIdTask";
+    private static final String REFRESH_ACCESS_TOKEN_TASK_CLASS_NAME = "RefreshAccessTokenTask";
+    private static final String REFRESH_GRANT_TYPE = "refresh_token";
+
     @Override
     protected boolean shouldGenerate(DevKitTypeElement typeElement) {
         return typeElement.hasAnnotation(OAuth2.class);
@@ -69,6 +113,10 @@ public class OAuth2AdapterGenerator extends AbstractOAuthAdapterGenerator {
 
         expirationPatternConstant(oauthAdapter, oauth2);
 
+        refreshTokenPatternConstant(oauthAdapter, oauth2);
+
+        statePatternConstant(oauthAdapter);
+
         muleContextField(oauthAdapter);
 
         authorizationCodeField(oauthAdapter);
@@ -78,23 +126,36 @@ public class OAuth2AdapterGenerator extends AbstractOAuthAdapterGenerator {
 
         FieldVariable saveAccessTokenCallback = saveAccessTokenCallbackField(oauthAdapter);
         FieldVariable restoreAccessTokenCallback = restoreAccessTokenCallbackField(oauthAdapter);
+        tokenStoreField(oauthAdapter);
+        tokenRequestFields(oauthAdapter);
+        tokenRefreshFields(oauthAdapter);
+        tokenHttpClientFields(oauthAdapter);
 
         expirationField(oauthAdapter, typeElement.getAnnotation(OAuth2.class));
 
         DefinedClass messageProcessor = generateMessageProcessorInnerClass(oauthAdapter);
 
-        generateStartMethod(oauthAdapter);
-        generateStopMethod(oauthAdapter);
+        Method start = generateStartMethod(oauthAdapter);
+        Method stop = generateStopMethod(oauthAdapter);
         generateInitialiseMethod(oauthAdapter, messageProcessor, oauth2.callbackPath());
 
         FieldVariable logger = FieldBuilder.newLoggerField(oauthAdapter);
+        generateStartTokenHttpClient(oauthAdapter, start);
+        generateStartTokenRefreshScheduler(oauthAdapter, start);
+        generateStopTokenRefreshScheduler(oauthAdapter, stop);
+        generateStopTokenHttpClient(oauthAdapter, stop);
         generateGetAuthorizationUrlMethod(oauthAdapter, typeElement, oauth2, logger);
         generateRestoreAccessTokenMethod(oauthAdapter, restoreAccessTokenCallback, logger);
+        generateExchangeTokenMethod(oauthAdapter, oauth2, logger);
         generateFetchAccessTokenMethod(oauthAdapter, typeElement, oauth2, saveAccessTokenCallback, logger);
+        generateFetchAccessTokenForIdMethods(oauthAdapter, typeElement, logger);
+        generateRefreshAccessTokenMethods(oauthAdapter, typeElement, oauth2, saveAccessTokenCallback, logger);
         generateHasTokenExpiredMethod(oauthAdapter, oauth2);
         generateResetMethod(oauthAdapter, oauth2);
-        generateHasBeenAuthorizedMethod(oauthAdapter, oauthAccessToken);
-        generateOverrides(typeElement, oauthAdapter, oauthAccessToken, null);
+        Method hasBeenAuthorized = generateHasBeenAuthorizedMethod(oauthAdapter, oauthAccessToken);
+        generateRefreshExpiredAccessToken(oauthAdapter, hasBeenAuthorized);
+        generateTokenRequestMethods(oauthAdapter, oauthAccessToken, null, logger);
+        generateOverrides(typeElement, oauthAdapter);
     }
 
     private void accessTokenPatternConstant(DefinedClass oauthAdapter, OAuth2 oauth2) {
@@ -109,6 +170,71 @@ public class OAuth2AdapterGenerator extends AbstractOAuthAdapterGenerator {
         }
     }
 
+    private void refreshTokenPatternConstant(DefinedClass oauthAdapter, OAuth2 oauth2) {
+        if (!StringUtils.isEmpty(oauth2.refreshTokenRegex())) {
+            new FieldBuilder(oauthAdapter).type(Pattern.class).name(REFRESH_TOKEN_PATTERN_FIELD_NAME).staticField().finalField().
+                    initialValue(ref(Pattern.class).staticInvoke("compile").arg(oauth2.refreshTokenRegex())).build();
+        }
+    }
+
+    private void statePatternConstant(DefinedClass oauthAdapter) {
+        new FieldBuilder(oauthAdapter).type(Pattern.class).name(STATE_PATTERN_FIELD_NAME).staticField().finalField().
+                initialValue(ref(Pattern.class).staticInvoke("compile").arg("[?&]" + STATE_PARAMETER + "=([^&]+)")).build();
+    }
+
+    private void tokenRefreshFields(DefinedClass oauthAdapter) {
+        new FieldBuilder(oauthAdapter).type(String.class).name(REFRESH_TOKEN_FIELD_NAME).getterAndSetter().build();
+        new FieldBuilder(oauthAdapter).type(context.getCodeModel().DOUBLE).name(TOKEN_REFRESH_FRACTION_FIELD_NAME).
+                initialValue(ExpressionFactory.lit(DEFAULT_TOKEN_REFRESH_FRACTION)).getterAndSetter().build();
+        oauthAdapter.field(Modifier.PRIVATE | Modifier.VOLATILE, ref(ScheduledExecutorService.class), TOKEN_REFRESH_SCHEDULER_FIELD_NAME);
+        oauthAdapter.field(Modifier.PRIVATE | Modifier.VOLATILE, ref(ScheduledFuture.class).narrow(ref(Object.class).wildcard()), SCHEDULED_TOKEN_REFRESH_FIELD_NAME);
+        new FieldBuilder(oauthAdapter).type(TokenRefreshStatistics.class).name(TOKEN_REFRESH_STATISTICS_FIELD_NAME).finalField().
+                initialValue(ExpressionFactory._new(ref(TokenRefreshStatistics.class))).getter().build();
+    }
+
+    private void tokenHttpClientFields(DefinedClass oauthAdapter) {
+        new FieldBuilder(oauthAdapter).type(context.getCodeModel().INT).name(TOKEN_CONNECTION_TIMEOUT_FIELD_NAME).
+                initialValue(ExpressionFactory.lit(DEFAULT_TOKEN_CONNECTION_TIMEOUT)).getterAndSetter().build();
+        new FieldBuilder(oauthAdapter).type(context.getCodeModel().INT).name(TOKEN_RESPONSE_TIMEOUT_FIELD_NAME).
+                initialValue(ExpressionFactory.lit(DEFAULT_TOKEN_RESPONSE_TIMEOUT)).getterAndSetter().build();
+        oauthAdapter.field(Modifier.PRIVATE, ref(MultiThreadedHttpConnectionManager.class), TOKEN_HTTP_CONNECTION_MANAGER_FIELD_NAME);
+        oauthAdapter.field(Modifier.PRIVATE | Modifier.VOLATILE, ref(HttpClient.class), TOKEN_HTTP_CLIENT_FIELD_NAME);
+    }
+
+    private void generateStartTokenHttpClient(DefinedClass oauthAdapter, Method start) {
+        FieldVariable connectionManager = oauthAdapter.fields().get(TOKEN_HTTP_CONNECTION_MANAGER_FIELD_NAME);
+        FieldVariable httpClient = oauthAdapter.fields().get(TOKEN_HTTP_CLIENT_FIELD_NAME);
+        FieldVariable connectionTimeout = oauthAdapter.fields().get(TOKEN_CONNECTION_TIMEOUT_FIELD_NAME);
+        start.body().assign(connectionManager, ExpressionFactory._new(ref(MultiThreadedHttpConnectionManager.class)));
+        start.body().add(connectionManager.invoke("getParams").invoke("setDefaultMaxConnectionsPerHost").arg(ExpressionFactory.lit(MAX_TOKEN_CONNECTIONS)));
+        start.body().add(connectionManager.invoke("getParams").invoke("setMaxTotalConnections").arg(ExpressionFactory.lit(MAX_TOKEN_CONNECTIONS)));
+        start.body().add(connectionManager.invoke("getParams").invoke("setConnectionTimeout").arg(connectionTimeout));
+        start.body().add(connectionManager.invoke("getParams").invoke("setSoTimeout").arg(oauthAdapter.fields().get(TOKEN_RESPONSE_TIMEOUT_FIELD_NAME)));
+        start.body().assign(httpClient, ExpressionFactory._new(ref(HttpClient.class)).arg(connectionManager));
+        start.body().add(httpClient.invoke("getParams").invoke("setConnectionManagerTimeout").arg(connectionTimeout));
+        start.body().add(httpClient.invoke("getParams").invoke("setParameter").arg("http.protocol.content-charset").arg(ENCODING));
+    }
+
+    private void generateStopTokenHttpClient(DefinedClass oauthAdapter, Method stop) {
+        FieldVariable connectionManager = oauthAdapter.fields().get(TOKEN_HTTP_CONNECTION_MANAGER_FIELD_NAME);
+        Block ifConnectionManager = stop.body()._if(Op.ne(connectionManager, ExpressionFactory._null()))._then();
+        ifConnectionManager.add(connectionManager.invoke("shutdown"));
+        ifConnectionManager.assign(connectionManager, ExpressionFactory._null());
+        ifConnectionManager.assign(oauthAdapter.fields().get(TOKEN_HTTP_CLIENT_FIELD_NAME), ExpressionFactory._null());
+    }
+
+    private void generateStartTokenRefreshScheduler(DefinedClass oauthAdapter, Method start) {
+        start.body().assign(oauthAdapter.fields().get(TOKEN_REFRESH_SCHEDULER_FIELD_NAME), ref(Executors.class).staticInvoke("newSingleThreadScheduledExecutor").arg(
+                ExpressionFactory._new(ref(DaemonThreadFactory.class)).arg(oauthAdapter.name() + " Token Refresh")));
+    }
+
+    private void generateStopTokenRefreshScheduler(DefinedClass oauthAdapter, Method stop) {
+        FieldVariable scheduler = oauthAdapter.fields().get(TOKEN_REFRESH_SCHEDULER_FIELD_NAME);
+        Block ifScheduler = stop.body()._if(Op.ne(scheduler, ExpressionFactory._null()))._then();
+        ifScheduler.add(scheduler.invoke("shutdownNow"));
+        ifScheduler.assign(scheduler, ExpressionFactory._null());
+    }
+
     private void expirationField(DefinedClass oauthAdapter, OAuth2 oauth2) {
         if (!StringUtils.isEmpty(oauth2.expirationRegex())) {
             new FieldBuilder(oauthAdapter).type(Date.class).name(EXPIRATION_FIELD_NAME).setter().build();
@@ -135,13 +261,20 @@ public class OAuth2AdapterGenerator extends AbstractOAuthAdapterGenerator {
             ifScopeNotNull.invoke(urlBuilder, "append").arg(scope);
         }
 
+        // the provider hands the state back to the callback, which stores the token under the same id
+        Variable accessTokenId = getAuthorizationUrl.body().decl(ref(String.class), "accessTokenId", ExpressionFactory.invoke(CURRENT_ACCESS_TOKEN_ID_METHOD_NAME));
+        Block ifAccessTokenId = getAuthorizationUrl.body()._if(Op.ne(accessTokenId, ExpressionFactory._null()))._then();
+        ifAccessTokenId.invoke(urlBuilder, "append").arg("&" + STATE_PARAMETER + "=");
+        TryStatement tryToEncode = ifAccessTokenId._try();
+        tryToEncode.body().invoke(urlBuilder, "append").arg(ref(URLEncoder.class).staticInvoke("encode").arg(accessTokenId).arg(ENCODING));
+        generateReThrow(tryToEncode, UnsupportedEncodingException.class, IllegalStateException.class);
 
         getAuthorizationUrl.body().invoke(logger, "debug").arg(ExpressionFactory.direct("\"OAUth 2 authorization url: \" + urlBuilder"));
         getAuthorizationUrl.body()._return(urlBuilder.invoke("toString"));
     }
 
     private void generateRestoreAccessTokenMethod(DefinedClass oauthAdapter, FieldVariable restoreAccessTokenCallbackField, FieldVariable logger) {
-        Method restoreAccessTokenMethod = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().BOOLEAN, "restoreAccessToken");
+        Method restoreAccessTokenMethod = oauthAdapter.method(Modifier.PRIVATE, context.getCodeModel().BOOLEAN, DO_RESTORE_ACCESS_TOKEN_METHOD_NAME);
         Conditional ifRestoreCallbackNotNull = restoreAccessTokenMethod.body()._if(Op.ne(restoreAccessTokenCallbackField, ExpressionFactory._null()));
 
         Conditional ifDebugEnabled = ifRestoreCallbackNotNull._then()._if(logger.invoke("isDebugEnabled"));
@@ -172,10 +305,10 @@ public class OAuth2AdapterGenerator extends AbstractOAuthAdapterGenerator {
     }
 
     private void generateFetchAccessTokenMethod(DefinedClass oauthAdapter, DevKitTypeElement typeElement, OAuth2 oauth2, FieldVariable saveAccessTokenCallback, FieldVariable logger) {
-        Method fetchAccessToken = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().VOID, "fetchAccessToken");
+        Method fetchAccessToken = oauthAdapter.method(Modifier.PRIVATE, context.getCodeModel().VOID, DO_FETCH_ACCESS_TOKEN_METHOD_NAME);
         fetchAccessToken._throws(ref(UnableToAcquireAccessTokenException.class));
 
-        fetchAccessToken.body().invoke("restoreAccessToken");
+        fetchAccessToken.body().invoke(RESTORE_ACCESS_TOKEN_METHOD_NAME);
 
         Conditional ifAccessTokenNull = fetchAccessToken.body()._if(Op.eq(oauthAdapter.fields().get(OAUTH_ACCESS_TOKEN_FIELD_NAME), ExpressionFactory._null()));
 
@@ -187,109 +320,169 @@ public class OAuth2AdapterGenerator extends AbstractOAuthAdapterGenerator {
         ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
 
         Block body = tryStatement.body();
-        Variable conn = body.decl(ref(HttpURLConnection.class), "conn",
-                ExpressionFactory.cast(ref(HttpURLConnection.class), ExpressionFactory._new(ref(URL.class)).arg(oauth2.accessTokenUrl()).invoke("openConnection")));
+        Variable token = body.decl(ref(OAuthToken.class), "token", generateExchangeVerifier(oauthAdapter, typeElement, oauthAdapter.fields().get(VERIFIER_FIELD_NAME)));
+        generateApplyToken(oauthAdapter, body, token, oauth2);
+        generateSaveAccessToken(oauthAdapter, body, saveAccessTokenCallback, logger);
+        body.invoke(SCHEDULE_TOKEN_REFRESH_METHOD_NAME).arg(token).arg(ExpressionFactory._null());
 
-        body.invoke(conn, "setRequestMethod").arg("POST");
-        body.invoke(conn, "setDoOutput").arg(ExpressionFactory.lit(true));
+        generateReThrow(tryStatement, Exception.class, RuntimeException.class);
+    }
 
-        Invocation consumerKey = ExpressionFactory.invoke(getterMethodForFieldAnnotatedWith(typeElement, OAuthConsumerKey.class));
-        Invocation consumerSecret = ExpressionFactory.invoke(getterMethodForFieldAnnotatedWith(typeElement, OAuthConsumerSecret.class));
+    private void generateFetchAccessTokenForIdMethods(DefinedClass oauthAdapter, DevKitTypeElement typeElement, FieldVariable logger) throws GenerationException {
+        Method doFetchForId = oauthAdapter.method(Modifier.PRIVATE, context.getCodeModel().VOID, DO_FETCH_ACCESS_TOKEN_METHOD_NAME);
+        doFetchForId._throws(ref(Exception.class));
+        Variable verifier = doFetchForId.param(ref(String.class), "verifier");
+        Variable accessTokenId = doFetchForId.param(ref(String.class), "accessTokenId");
 
-        Variable builder = body.decl(ref(StringBuilder.class), "builder", ExpressionFactory._new(ref(StringBuilder.class)));
+        Conditional ifDebugEnabled = doFetchForId.body()._if(logger.invoke("isDebugEnabled"));
+        Variable messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Retrieving access token "));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("[accessTokenId = ")));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(accessTokenId));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("] ")));
+        ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
 
-        body.invoke(builder, "append").arg("code=");
-        body.invoke(builder, "append").arg(ref(URLEncoder.class).staticInvoke("encode").arg(oauthAdapter.fields().get(VERIFIER_FIELD_NAME)).arg(ENCODING));
+        Variable token = doFetchForId.body().decl(ref(OAuthToken.class), "token", generateExchangeVerifier(oauthAdapter, typeElement, verifier));
+        // keep the expiration and refresh token along with the token so that it can be refreshed once restored
+        doFetchForId.body().add(oauthAdapter.fields().get(OAUTH_TOKEN_STORE_FIELD_NAME).invoke("store").arg(accessTokenId).arg(token));
+        doFetchForId.body().invoke(SCHEDULE_TOKEN_REFRESH_METHOD_NAME).arg(token).arg(accessTokenId);
+
+        DefinedClass fetchTask = generateFetchAccessTokenForIdTaskClass(oauthAdapter);
+
+        Method fetchForId = oauthAdapter.method(Modifier.PRIVATE, context.getCodeModel().VOID, FETCH_ACCESS_TOKEN_METHOD_NAME);
+        fetchForId._throws(ref(UnableToAcquireAccessTokenException.class));
+        Variable fetchVerifier = fetchForId.param(ref(String.class), "verifier");
+        Variable fetchAccessTokenId = fetchForId.param(ref(String.class), "accessTokenId");
+        TryStatement tryToFetch = fetchForId.body()._try();
+        tryToFetch.body().add(oauthAdapter.fields().get(TOKEN_REQUESTS_FIELD_NAME).invoke("execute").arg(ExpressionFactory.lit(FETCH_ACCESS_TOKEN_METHOD_NAME + ":").plus(fetchAccessTokenId)).
+                arg(ExpressionFactory._new(fetchTask).arg(fetchVerifier).arg(fetchAccessTokenId)).arg(oauthAdapter.fields().get(TOKEN_REQUEST_TIMEOUT_FIELD_NAME)));
+        CatchBlock catchUnableToAcquire = tryToFetch._catch(ref(UnableToAcquireAccessTokenException.class));
+        catchUnableToAcquire.body()._throw(catchUnableToAcquire.param("e"));
+        CatchBlock catchFetch = tryToFetch._catch(ref(Exception.class));
+        catchFetch.body()._throw(ExpressionFactory._new(ref(UnableToAcquireAccessTokenException.class)).arg(catchFetch.param("e")));
+    }
 
-        body.invoke(builder, "append").arg("&client_id=");
-        body.invoke(builder, "append").arg(ref(URLEncoder.class).staticInvoke("encode").arg(consumerKey).arg(ENCODING));
+    private DefinedClass generateFetchAccessTokenForIdTaskClass(DefinedClass oauthAdapter) throws GenerationException {
+        DefinedClass fetchTask;
+        try {
+            fetchTask = oauthAdapter._class(Modifier.PRIVATE, FETCH_ACCESS_TOKEN_TASK_CLASS_NAME)._implements(ref(Callable.class).narrow(Object.class));
+        } catch (ClassAlreadyExistsException e) {
+            throw new GenerationException(e); // This wont happen
+        }
+        fetchTask.javadoc().add("Exchanges the verifier received for an access token id and stores the token under that id");
 
-        body.invoke(builder, "append").arg("&client_secret=");
-        body.invoke(builder, "append").arg(ref(URLEncoder.class).staticInvoke("encode").arg(consumerSecret).arg(ENCODING));
+        FieldVariable verifier = fetchTask.field(Modifier.PRIVATE, ref(String.class), "verifier");
+        FieldVariable accessTokenId = fetchTask.field(Modifier.PRIVATE, ref(String.class), "accessTokenId");
+        Method constructor = fetchTask.constructor(Modifier.PUBLIC);
+        Variable verifierParam = constructor.param(ref(String.class), "verifier");
+        Variable accessTokenIdParam = constructor.param(ref(String.class), "accessTokenId");
+        constructor.body().assign(ExpressionFactory._this().ref(verifier), verifierParam);
+        constructor.body().assign(ExpressionFactory._this().ref(accessTokenId), accessTokenIdParam);
 
-        body.invoke(builder, "append").arg("&grant_type=");
-        body.invoke(builder, "append").arg(ref(URLEncoder.class).staticInvoke("encode").arg(GRANT_TYPE).arg(ENCODING));
+        Method call = fetchTask.method(Modifier.PUBLIC, ref(Object.class), "call")._throws(ref(Exception.class));
+        call.body().invoke(DO_FETCH_ACCESS_TOKEN_METHOD_NAME).arg(verifier).arg(accessTokenId);
+        call.body()._return(ExpressionFactory._null());
 
-        body.invoke(builder, "append").arg("&redirect_uri=");
-        body.invoke(builder, "append").arg(ref(URLEncoder.class).staticInvoke("encode").arg(oauthAdapter.fields().get(REDIRECT_URL_FIELD_NAME)).arg(ENCODING));
+        return fetchTask;
+    }
 
-        ifDebugEnabled = tryStatement.body()._if(logger.invoke("isDebugEnabled"));
-        messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
+    @Override
+    protected void generateCallbackFetchAccessToken(DefinedClass oauthAdapter, DefinedClass messageProcessor, Block block, Variable event, Variable verifier) {
+        Method extractState = messageProcessor.method(Modifier.PRIVATE, ref(String.class), "extractState")._throws(ref(Exception.class));
+        Variable response = extractState.param(String.class, "response");
+        Variable matcher = extractState.body().decl(ref(Matcher.class), "matcher", oauthAdapter.fields().get(STATE_PATTERN_FIELD_NAME).invoke("matcher").arg(response));
+        extractState.body()._if(Op.cand(matcher.invoke("find"), Op.gte(matcher.invoke("groupCount"), ExpressionFactory.lit(1))))._then().
+                _return(ref(URLDecoder.class).staticInvoke("decode").arg(matcher.invoke("group").arg(ExpressionFactory.lit(1))).arg(ENCODING));
+        extractState.body()._return(ExpressionFactory._null());
+
+        // the state carries the access token id the authorization was requested for
+        Variable accessTokenId = block.decl(ref(String.class), "accessTokenId", ExpressionFactory.invoke(extractState).arg(event.invoke("getMessageAsString")));
+        Conditional ifNoAccessTokenId = block._if(isNull(accessTokenId));
+        super.generateCallbackFetchAccessToken(oauthAdapter, messageProcessor, ifNoAccessTokenId._then(), event, verifier);
+        ifNoAccessTokenId._else().invoke(FETCH_ACCESS_TOKEN_METHOD_NAME).arg(verifier).arg(accessTokenId);
+    }
+
+    private Expression generateExchangeVerifier(DefinedClass oauthAdapter, DevKitTypeElement typeElement, Expression verifier) {
+        Invocation consumerKey = ExpressionFactory.invoke(getterMethodForFieldAnnotatedWith(typeElement, OAuthConsumerKey.class));
+        Invocation consumerSecret = ExpressionFactory.invoke(getterMethodForFieldAnnotatedWith(typeElement, OAuthConsumerSecret.class));
+        return ExpressionFactory.invoke(EXCHANGE_TOKEN_METHOD_NAME).arg(generateTokenRequestParameters(
+                new String[]{"code", "client_id", "client_secret", "grant_type", "redirect_uri"},
+                new Expression[]{verifier, consumerKey, consumerSecret, ExpressionFactory.lit(GRANT_TYPE), oauthAdapter.fields().get(REDIRECT_URL_FIELD_NAME)}));
+    }
+
+    private void generateExchangeTokenMethod(DefinedClass oauthAdapter, OAuth2 oauth2, FieldVariable logger) {
+        Method exchangeToken = oauthAdapter.method(Modifier.PRIVATE, ref(OAuthToken.class), EXCHANGE_TOKEN_METHOD_NAME);
+        exchangeToken._throws(ref(Exception.class));
+        Variable parameters = exchangeToken.param(ref(NameValuePair.class).array(), "parameters");
+        Block body = exchangeToken.body();
+
+        Variable post = body.decl(ref(PostMethod.class), "post", ExpressionFactory._new(ref(PostMethod.class)).arg(oauth2.accessTokenUrl()));
+        body.add(post.invoke("addParameters").arg(parameters));
+
+        Conditional ifDebugEnabled = body._if(logger.invoke("isDebugEnabled"));
+        Variable messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
         ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Sending request to ["));
         ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(oauth2.accessTokenUrl()));
-        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("] using the following as content ["));
-        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(builder.invoke("toString")));
         ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("]"));
         ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
 
-        Variable out = body.decl(ref(OutputStreamWriter.class), "out", ExpressionFactory._new(ref(OutputStreamWriter.class)).arg(conn.invoke("getOutputStream")));
-        body.invoke(out, "write").arg(builder.invoke("toString"));
-        body.invoke(out, "close");
-
-        Variable response = body.decl(ref(String.class), "response", ref(IOUtils.class).staticInvoke("toString").arg(conn.invoke("getInputStream")));
+        TryStatement tryStatement = body._try();
+        body = tryStatement.body();
+        Variable status = body.decl(context.getCodeModel().INT, "status", oauthAdapter.fields().get(TOKEN_HTTP_CLIENT_FIELD_NAME).invoke("executeMethod").arg(post));
+        Variable response = body.decl(ref(TokenResponse.class), "response", ref(TokenResponse.class).staticInvoke("parse").arg(post.invoke("getResponseBodyAsStream")).arg(ENCODING));
 
-        ifDebugEnabled = tryStatement.body()._if(logger.invoke("isDebugEnabled"));
+        ifDebugEnabled = body._if(logger.invoke("isDebugEnabled"));
         messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
         ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Received response ["));
-        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(response));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(response.invoke("getBody")));
         ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("]"));
         ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
 
-        Variable matcher = body.decl(ref(Matcher.class), "matcher", oauthAdapter.fields().get(ACCESS_CODE_PATTERN_FIELD_NAME).invoke("matcher").arg(response));
-        Conditional ifAccessTokenFound = body._if(Op.cand(matcher.invoke("find"), Op.gte(matcher.invoke("groupCount"), ExpressionFactory.lit(1))));
-        Invocation group = matcher.invoke("group").arg(ExpressionFactory.lit(1));
-        ifAccessTokenFound._then().assign(oauthAdapter.fields().get(ACCESS_TOKEN_FIELD_NAME), ref(URLDecoder.class).staticInvoke("decode").arg(group).arg(ENCODING));
+        body._if(Op.gte(status, ref(HttpStatus.class).staticRef("SC_BAD_REQUEST")))._then()._throw(ExpressionFactory._new(ref(Exception.class)).arg(
+                ref(String.class).staticInvoke("format").arg("OAuth access token request failed with status %d: %s").arg(status).arg(response.invoke("getBody"))));
 
-        ifDebugEnabled = ifAccessTokenFound._then()._if(logger.invoke("isDebugEnabled"));
-        messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
-        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Access token retrieved successfully "));
-        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("[accessToken = ")));
-        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(oauthAdapter.fields().get(ACCESS_TOKEN_FIELD_NAME)));
-        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("] ")));
-        ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
+        Variable accessToken = body.decl(ref(String.class), "accessToken", response.invoke("getParameter").arg(ACCESS_TOKEN_PARAMETER));
+        // fall back to the regular expression for providers that do not answer with JSON or a form
+        Block ifAccessTokenNotParsed = body._if(isNull(accessToken))._then();
+        Variable matcher = ifAccessTokenNotParsed.decl(ref(Matcher.class), "matcher", oauthAdapter.fields().get(ACCESS_CODE_PATTERN_FIELD_NAME).invoke("matcher").arg(response.invoke("getBody")));
+        ifAccessTokenNotParsed._if(Op.not(Op.cand(matcher.invoke("find"), Op.gte(matcher.invoke("groupCount"), ExpressionFactory.lit(1)))))._then()._throw(ExpressionFactory._new(
+                ref(Exception.class)).arg(ref(String.class).staticInvoke("format").arg("OAuth access token could not be extracted from: %s").arg(response.invoke("getBody"))));
+        ifAccessTokenNotParsed.assign(accessToken, ref(URLDecoder.class).staticInvoke("decode").arg(matcher.invoke("group").arg(ExpressionFactory.lit(1))).arg(ENCODING));
 
-        ifAccessTokenFound._else()._throw(ExpressionFactory._new(
-                ref(Exception.class)).arg(ref(String.class).staticInvoke("format").arg("OAuth access token could not be extracted from: %s").arg(response)));
-
-        Conditional ifSaveCallbackNotNull = ifAccessTokenFound._then()._if(Op.ne(saveAccessTokenCallback, ExpressionFactory._null()));
-        Invocation saveAccessToken = saveAccessTokenCallback.invoke("saveAccessToken").arg(oauthAdapter.fields().get(OAUTH_ACCESS_TOKEN_FIELD_NAME))
-                .arg(ExpressionFactory._null());
-        TryStatement tryToSave = ifSaveCallbackNotNull._then()._try();
-
-        ifDebugEnabled = ifSaveCallbackNotNull._then()._if(logger.invoke("isDebugEnabled"));
+        ifDebugEnabled = body._if(logger.invoke("isDebugEnabled"));
         messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
-        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Attempting to save access token..."));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Access token retrieved successfully "));
         ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("[accessToken = ")));
-        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(oauthAdapter.fields().get(OAUTH_ACCESS_TOKEN_FIELD_NAME)));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(accessToken));
         ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("] ")));
         ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
 
-        tryToSave.body().add(saveAccessToken);
-        CatchBlock logIfCannotSave = tryToSave._catch(ref(Exception.class));
-        Variable e2 = logIfCannotSave.param("e");
-        logIfCannotSave.body().add(logger.invoke("error").arg("Cannot save access token, an unexpected error occurred").arg(e2));
-
+        Variable expiration = body.decl(ref(Date.class), "expiration", ExpressionFactory._null());
         if (!StringUtils.isEmpty(oauth2.expirationRegex())) {
-            ifDebugEnabled = ifAccessTokenFound._then()._if(logger.invoke("isDebugEnabled"));
+            Variable expiresIn = body.decl(ref(String.class), "expiresIn", response.invoke("getParameter").arg(EXPIRES_IN_PARAMETER));
+            Block ifExpiresInNotParsed = body._if(isNull(expiresIn))._then();
+            ifDebugEnabled = ifExpiresInNotParsed._if(logger.invoke("isDebugEnabled"));
             messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Attempting to extract expiration time using "));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("[expirationPattern = ")));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(oauth2.expirationRegex()));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("] ")));
             ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
+            Variable expirationMatcher = ifExpiresInNotParsed.decl(ref(Matcher.class), "expirationMatcher", oauthAdapter.fields().get(EXPIRATION_TIME_PATTERN_FIELD_NAME).invoke("matcher").arg(response.invoke("getBody")));
+            ifExpiresInNotParsed._if(Op.cand(expirationMatcher.invoke("find"), Op.gte(expirationMatcher.invoke("groupCount"), ExpressionFactory.lit(1))))._then().
+                    assign(expiresIn, expirationMatcher.invoke("group").arg(ExpressionFactory.lit(1)));
 
-            Variable expirationMatcher = ifAccessTokenFound._then().decl(ref(Matcher.class), "expirationMatcher", oauthAdapter.fields().get(EXPIRATION_TIME_PATTERN_FIELD_NAME).invoke("matcher").arg(response));
-            Conditional ifExpirationFound = ifAccessTokenFound._then()._if(Op.cand(expirationMatcher.invoke("find"), Op.gte(expirationMatcher.invoke("groupCount"), ExpressionFactory.lit(1))));
+            Conditional ifExpirationFound = body._if(Op.ne(expiresIn, ExpressionFactory._null()));
             Variable seconds = ifExpirationFound._then().decl(ref(Long.class), "expirationSecsAhead",
-                    ref(Long.class).staticInvoke("parseLong").arg(expirationMatcher.invoke("group").arg(ExpressionFactory.lit(1))));
-            ifExpirationFound._then().assign(oauthAdapter.fields().get(EXPIRATION_FIELD_NAME), ExpressionFactory._new(ref(Date.class)).arg(
+                    ref(Long.class).staticInvoke("parseLong").arg(expiresIn.invoke("trim")));
+            ifExpirationFound._then().assign(expiration, ExpressionFactory._new(ref(Date.class)).arg(
                     Op.plus(ref(System.class).staticInvoke("currentTimeMillis"), Op.mul(seconds, ExpressionFactory.lit(1000)))));
 
             ifDebugEnabled = ifExpirationFound._then()._if(logger.invoke("isDebugEnabled"));
             messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Token expiration extracted successfully "));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("[expiration = ")));
-            ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(oauthAdapter.fields().get(EXPIRATION_FIELD_NAME)));
+            ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(expiration));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("] ")));
             ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
 
@@ -297,11 +490,202 @@ public class OAuth2AdapterGenerator extends AbstractOAuthAdapterGenerator {
             messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Token expiration could not be extracted from "));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("[response = ")));
-            ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(response));
+            ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(response.invoke("getBody")));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("] ")));
             ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
         }
-        generateReThrow(tryStatement, Exception.class, RuntimeException.class);
+
+        Variable refreshToken = body.decl(ref(String.class), "refreshToken", ExpressionFactory._null());
+        if (!StringUtils.isEmpty(oauth2.refreshTokenRegex())) {
+            body.assign(refreshToken, response.invoke("getParameter").arg(REFRESH_TOKEN_PARAMETER));
+            Block ifRefreshTokenNotParsed = body._if(isNull(refreshToken))._then();
+            Variable refreshTokenMatcher = ifRefreshTokenNotParsed.decl(ref(Matcher.class), "refreshTokenMatcher", oauthAdapter.fields().get(REFRESH_TOKEN_PATTERN_FIELD_NAME).invoke("matcher").arg(response.invoke("getBody")));
+            Conditional ifRefreshTokenFound = ifRefreshTokenNotParsed._if(Op.cand(refreshTokenMatcher.invoke("find"), Op.gte(refreshTokenMatcher.invoke("groupCount"), ExpressionFactory.lit(1))));
+            ifRefreshTokenFound._then().assign(refreshToken, ref(URLDecoder.class).staticInvoke("decode").arg(refreshTokenMatcher.invoke("group").arg(ExpressionFactory.lit(1))).arg(ENCODING));
+        }
+
+        body._return(ExpressionFactory._new(ref(OAuthToken.class)).arg(accessToken).arg(ExpressionFactory._null()).arg(expiration).arg(refreshToken));
+
+        tryStatement._finally().add(post.invoke("releaseConnection"));
+    }
+
+    private Expression generateTokenRequestParameters(String[] names, Expression[] values) {
+        JArray parameters = ExpressionFactory.newArray(ref(NameValuePair.class));
+        for (int i = 0; i < names.length; i++) {
+            parameters.add(ExpressionFactory._new(ref(NameValuePair.class)).arg(names[i]).arg(values[i]));
+        }
+        return parameters;
+    }
+
+    private void generateApplyToken(DefinedClass oauthAdapter, Block block, Variable token, OAuth2 oauth2) {
+        block.assign(oauthAdapter.fields().get(ACCESS_TOKEN_FIELD_NAME), token.invoke("getAccessToken"));
+        if (!StringUtils.isEmpty(oauth2.expirationRegex())) {
+            block.assign(oauthAdapter.fields().get(EXPIRATION_FIELD_NAME), token.invoke("getExpiration"));
+        }
+        block.assign(oauthAdapter.fields().get(REFRESH_TOKEN_FIELD_NAME), token.invoke("getRefreshToken"));
+    }
+
+    private void generateSaveAccessToken(DefinedClass oauthAdapter, Block block, FieldVariable saveAccessTokenCallback, FieldVariable logger) {
+        Conditional ifSaveCallbackNotNull = block._if(Op.ne(saveAccessTokenCallback, ExpressionFactory._null()));
+        Invocation saveAccessToken = saveAccessTokenCallback.invoke("saveAccessToken").arg(oauthAdapter.fields().get(OAUTH_ACCESS_TOKEN_FIELD_NAME))
+                .arg(ExpressionFactory._null());
+        TryStatement tryToSave = ifSaveCallbackNotNull._then()._try();
+
+        Conditional ifDebugEnabled = ifSaveCallbackNotNull._then()._if(logger.invoke("isDebugEnabled"));
+        Variable messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Attempting to save access token..."));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("[accessToken = ")));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(oauthAdapter.fields().get(OAUTH_ACCESS_TOKEN_FIELD_NAME)));
+        ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("] ")));
+        ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
+
+        tryToSave.body().add(saveAccessToken);
+        CatchBlock logIfCannotSave = tryToSave._catch(ref(Exception.class));
+        Variable e2 = logIfCannotSave.param("e");
+        logIfCannotSave.body().add(logger.invoke("error").arg("Cannot save access token, an unexpected error occurred").arg(e2));
+    }
+
+    private void generateRefreshAccessTokenMethods(DefinedClass oauthAdapter, DevKitTypeElement typeElement, OAuth2 oauth2, FieldVariable saveAccessTokenCallback, FieldVariable logger) throws GenerationException {
+        FieldVariable tokenStore = oauthAdapter.fields().get(OAUTH_TOKEN_STORE_FIELD_NAME);
+        FieldVariable tokenRequests = oauthAdapter.fields().get(TOKEN_REQUESTS_FIELD_NAME);
+        FieldVariable tokenRequestTimeout = oauthAdapter.fields().get(TOKEN_REQUEST_TIMEOUT_FIELD_NAME);
+        FieldVariable refreshFraction = oauthAdapter.fields().get(TOKEN_REFRESH_FRACTION_FIELD_NAME);
+        FieldVariable scheduler = oauthAdapter.fields().get(TOKEN_REFRESH_SCHEDULER_FIELD_NAME);
+        FieldVariable scheduledRefresh = oauthAdapter.fields().get(SCHEDULED_TOKEN_REFRESH_FIELD_NAME);
+
+        Method doRefresh = oauthAdapter.method(Modifier.PRIVATE, ref(OAuthToken.class), DO_REFRESH_ACCESS_TOKEN_METHOD_NAME);
+        doRefresh._throws(ref(Exception.class));
+        Variable accessTokenId = doRefresh.param(ref(String.class), "accessTokenId");
+        Variable currentRefreshToken = doRefresh.body().decl(ref(String.class), "currentRefreshToken", oauthAdapter.fields().get(REFRESH_TOKEN_FIELD_NAME));
+        Block ifAccessTokenId = doRefresh.body()._if(Op.ne(accessTokenId, ExpressionFactory._null()))._then();
+        Variable current = ifAccessTokenId.decl(ref(OAuthToken.class), "current", tokenStore.invoke("retrieve").arg(accessTokenId));
+        // a refresh scheduled twice for the same token only hits the provider once
+        ifAccessTokenId._if(Op.cand(Op.ne(current, ExpressionFactory._null()), Op.not(current.invoke("isDueForRefresh").arg(refreshFraction))))._then()._return(current);
+        ifAccessTokenId.assign(currentRefreshToken, Op.cond(Op.ne(current, ExpressionFactory._null()), current.invoke("getRefreshToken"), ExpressionFactory._null()));
+        doRefresh.body()._if(isNull(currentRefreshToken))._then()._throw(ExpressionFactory._new(ref(IllegalStateException.class)).arg("No refresh token is available"));
+
+        Invocation consumerKey = ExpressionFactory.invoke(getterMethodForFieldAnnotatedWith(typeElement, OAuthConsumerKey.class));
+        Invocation consumerSecret = ExpressionFactory.invoke(getterMethodForFieldAnnotatedWith(typeElement, OAuthConsumerSecret.class));
+        Variable token = doRefresh.body().decl(ref(OAuthToken.class), "token", ExpressionFactory.invoke(EXCHANGE_TOKEN_METHOD_NAME).arg(generateTokenRequestParameters(
+                new String[]{"grant_type", "refresh_token", "client_id", "client_secret"},
+                new Expression[]{ExpressionFactory.lit(REFRESH_GRANT_TYPE), currentRefreshToken, consumerKey, consumerSecret})));
+        // providers may keep the refresh token unchanged and leave it out of the response
+        doRefresh.body()._if(isNull(token.invoke("getRefreshToken")))._then().assign(token, ExpressionFactory._new(ref(OAuthToken.class)).
+                arg(token.invoke("getAccessToken")).arg(ExpressionFactory._null()).arg(token.invoke("getExpiration")).arg(currentRefreshToken));
+        Conditional ifSingleToken = doRefresh.body()._if(isNull(accessTokenId));
+        generateApplyToken(oauthAdapter, ifSingleToken._then(), token, oauth2);
+        generateSaveAccessToken(oauthAdapter, ifSingleToken._then(), saveAccessTokenCallback, logger);
+        ifSingleToken._then().invoke(SCHEDULE_TOKEN_REFRESH_METHOD_NAME).arg(token).arg(ExpressionFactory._null());
+        ifSingleToken._else().add(tokenStore.invoke("store").arg(accessTokenId).arg(token));
+        doRefresh.body()._return(token);
+
+        DefinedClass refreshTask = generateRefreshAccessTokenTaskClass(oauthAdapter, logger);
+
+        Method scheduleRefresh = oauthAdapter.method(Modifier.PRIVATE, context.getCodeModel().VOID, SCHEDULE_TOKEN_REFRESH_METHOD_NAME);
+        Variable scheduleToken = scheduleRefresh.param(ref(OAuthToken.class), "token");
+        Variable scheduleId = scheduleRefresh.param(ref(String.class), "accessTokenId");
+        Variable delay = scheduleRefresh.body().decl(context.getCodeModel().LONG, "delay", scheduleToken.invoke("getRefreshDelay").arg(refreshFraction));
+        scheduleRefresh.body()._if(Op.cor(Op.cor(isNull(scheduler), Op.lte(refreshFraction, ExpressionFactory.lit(0))),
+                Op.cor(isNull(scheduleToken.invoke("getRefreshToken")), Op.lt(delay, ExpressionFactory.lit(0)))))._then()._return();
+        TryStatement trySchedule = scheduleRefresh.body()._try();
+        Variable refresh = trySchedule.body().decl(ref(ScheduledFuture.class).narrow(ref(Object.class).wildcard()), "refresh",
+                scheduler.invoke("schedule").arg(ExpressionFactory.cast(ref(Runnable.class), ExpressionFactory._new(refreshTask).arg(scheduleId))).
+                        arg(delay).arg(ref(TimeUnit.class).staticRef("MILLISECONDS")));
+        Block ifScheduleSingleToken = trySchedule.body()._if(isNull(scheduleId))._then();
+        ifScheduleSingleToken._if(Op.ne(scheduledRefresh, ExpressionFactory._null()))._then().add(scheduledRefresh.invoke("cancel").arg(ExpressionFactory.FALSE));
+        ifScheduleSingleToken.assign(scheduledRefresh, refresh);
+        CatchBlock catchRejected = trySchedule._catch(ref(RejectedExecutionException.class));
+        catchRejected.param("e");
+        catchRejected.body().add(logger.invoke("debug").arg("Access token refresh not scheduled, the adapter has been stopped"));
+
+        Method refreshAccessToken = oauthAdapter.method(Modifier.PUBLIC, context.getCodeModel().VOID, REFRESH_ACCESS_TOKEN_METHOD_NAME);
+        refreshAccessToken._throws(ref(UnableToAcquireAccessTokenException.class));
+        TryStatement tryToRefresh = refreshAccessToken.body()._try();
+        tryToRefresh.body().add(tokenRequests.invoke("execute").arg(REFRESH_ACCESS_TOKEN_METHOD_NAME).arg(ExpressionFactory._new(refreshTask).arg(ExpressionFactory._null())).arg(tokenRequestTimeout));
+        CatchBlock catchUnableToAcquire = tryToRefresh._catch(ref(UnableToAcquireAccessTokenException.class));
+        catchUnableToAcquire.body()._throw(catchUnableToAcquire.param("e"));
+        CatchBlock catchRefresh = tryToRefresh._catch(ref(Exception.class));
+        catchRefresh.body()._throw(ExpressionFactory._new(ref(UnableToAcquireAccessTokenException.class)).arg(catchRefresh.param("e")));
+    }
+
+    private DefinedClass generateRefreshAccessTokenTaskClass(DefinedClass oauthAdapter, FieldVariable logger) throws GenerationException {
+        DefinedClass refreshTask;
+        try {
+            refreshTask = oauthAdapter._class(Modifier.PRIVATE, REFRESH_ACCESS_TOKEN_TASK_CLASS_NAME);
+        } catch (ClassAlreadyExistsException e) {
+            throw new GenerationException(e); // This wont happen
+        }
+        refreshTask._implements(Runnable.class);
+        refreshTask._implements(ref(Callable.class).narrow(OAuthToken.class));
+        refreshTask.javadoc().add("Refreshes the token with the given id, or the token held by the adapter if the id is null");
+
+        FieldVariable accessTokenId = refreshTask.field(Modifier.PRIVATE, ref(String.class), "accessTokenId");
+        Method constructor = refreshTask.constructor(Modifier.PUBLIC);
+        Variable accessTokenIdParam = constructor.param(ref(String.class), "accessTokenId");
+        constructor.body().assign(ExpressionFactory._this().ref(accessTokenId), accessTokenIdParam);
+
+        Method run = refreshTask.method(Modifier.PUBLIC, context.getCodeModel().VOID, "run");
+        TryStatement tryToRefresh = run.body()._try();
+        tryToRefresh.body().add(oauthAdapter.fields().get(TOKEN_REQUESTS_FIELD_NAME).invoke("execute").
+                arg(Op.cond(isNull(accessTokenId), ExpressionFactory.lit(REFRESH_ACCESS_TOKEN_METHOD_NAME), ExpressionFactory.lit(REFRESH_ACCESS_TOKEN_METHOD_NAME + ":").plus(accessTokenId))).
+                arg(ExpressionFactory._this()).arg(oauthAdapter.fields().get(TOKEN_REQUEST_TIMEOUT_FIELD_NAME)));
+        CatchBlock catchException = tryToRefresh._catch(ref(Exception.class));
+        Variable e = catchException.param("e");
+        catchException.body().add(logger.invoke("warn").arg("Unable to refresh access token").arg(e));
+
+        FieldVariable statistics = oauthAdapter.fields().get(TOKEN_REFRESH_STATISTICS_FIELD_NAME);
+        Method call = refreshTask.method(Modifier.PUBLIC, ref(OAuthToken.class), "call")._throws(ref(Exception.class));
+        TryStatement tryToCall = call.body()._try();
+        Variable token = tryToCall.body().decl(ref(OAuthToken.class), "token", ExpressionFactory.invoke(DO_REFRESH_ACCESS_TOKEN_METHOD_NAME).arg(accessTokenId));
+        tryToCall.body().add(statistics.invoke("refreshSucceeded"));
+        tryToCall.body()._return(token);
+        CatchBlock catchFailure = tryToCall._catch(ref(Exception.class));
+        Variable failure = catchFailure.param("e");
+        catchFailure.body().add(statistics.invoke("refreshFailed").arg(failure));
+        catchFailure.body()._throw(failure);
+
+        return refreshTask;
+    }
+
+    private DefinedClass refreshAccessTokenTaskClass(DefinedClass oauthAdapter) {
+        Iterator<DefinedClass> classes = oauthAdapter.classes();
+        while (classes.hasNext()) {
+            DefinedClass innerClass = classes.next();
+            if (REFRESH_ACCESS_TOKEN_TASK_CLASS_NAME.equals(innerClass.name())) {
+                return innerClass;
+            }
+        }
+        throw new IllegalStateException(REFRESH_ACCESS_TOKEN_TASK_CLASS_NAME + " has not been generated yet");
+    }
+
+    private void generateRefreshExpiredAccessToken(DefinedClass oauthAdapter, Method hasBeenAuthorized) {
+        Block ifExpired = hasBeenAuthorized.body()._if(Op.cand(ExpressionFactory.invoke(HAS_TOKEN_EXPIRED_METHOD_NAME),
+                Op.ne(oauthAdapter.fields().get(REFRESH_TOKEN_FIELD_NAME), ExpressionFactory._null())))._then();
+        TryStatement tryToRefresh = ifExpired._try();
+        tryToRefresh.body().invoke(REFRESH_ACCESS_TOKEN_METHOD_NAME);
+        CatchBlock catchUnableToAcquire = tryToRefresh._catch(ref(UnableToAcquireAccessTokenException.class));
+        Variable e = catchUnableToAcquire.param("e");
+        catchUnableToAcquire.body()._throw(ExpressionFactory._new(ref(NotAuthorizedException.class)).
+                arg("The access token has expired and could not be refreshed").arg(e));
+    }
+
+    @Override
+    protected void generateResolvedAccessTokenCheck(DefinedClass oauthAdapter, Block block, Variable accessTokenId, Variable token) {
+        // an expired token cannot be used, so it is refreshed right away instead of in the background
+        Block ifExpired = block._if(Op.cand(token.invoke("isExpired"), Op.ne(token.invoke("getRefreshToken"), ExpressionFactory._null())))._then();
+        TryStatement tryToRefresh = ifExpired._try();
+        tryToRefresh.body().assign(token, ExpressionFactory.cast(ref(OAuthToken.class), oauthAdapter.fields().get(TOKEN_REQUESTS_FIELD_NAME).invoke("execute").
+                arg(ExpressionFactory.lit(REFRESH_ACCESS_TOKEN_METHOD_NAME + ":").plus(accessTokenId)).
+                arg(ExpressionFactory._new(refreshAccessTokenTaskClass(oauthAdapter)).arg(accessTokenId)).
+                arg(oauthAdapter.fields().get(TOKEN_REQUEST_TIMEOUT_FIELD_NAME))));
+        CatchBlock catchRefresh = tryToRefresh._catch(ref(Exception.class));
+        Variable e = catchRefresh.param("e");
+        catchRefresh.body()._throw(ExpressionFactory._new(ref(NotAuthorizedException.class)).
+                arg(ExpressionFactory.lit("The access token for id ").plus(accessTokenId).plus(ExpressionFactory.lit(" has expired and could not be refreshed"))).arg(e));
+
+        block._if(Op.cand(token.invoke("isDueForRefresh").arg(oauthAdapter.fields().get(TOKEN_REFRESH_FRACTION_FIELD_NAME)),
+                Op.not(oauthAdapter.fields().get(TOKEN_REQUESTS_FIELD_NAME).invoke("isInFlight").arg(ExpressionFactory.lit(REFRESH_ACCESS_TOKEN_METHOD_NAME + ":").plus(accessTokenId)))))._then().
+                invoke(SCHEDULE_TOKEN_REFRESH_METHOD_NAME).arg(token).arg(accessTokenId);
     }
 
     private void generateHasTokenExpiredMethod(DefinedClass oauthAdapter, OAuth2 oauth2) {
@@ -323,6 +707,11 @@ public class OAuth2AdapterGenerator extends AbstractOAuthAdapterGenerator {
         }
         reset.body().assign(oauthAdapter.fields().get(VERIFIER_FIELD_NAME), ExpressionFactory._null());
         reset.body().assign(oauthAdapter.fields().get(ACCESS_TOKEN_FIELD_NAME), ExpressionFactory._null());
+        reset.body().assign(oauthAdapter.fields().get(REFRESH_TOKEN_FIELD_NAME), ExpressionFactory._null());
+        FieldVariable scheduledRefresh = oauthAdapter.fields().get(SCHEDULED_TOKEN_REFRESH_FIELD_NAME);
+        Block ifScheduled = reset.body()._if(Op.ne(scheduledRefresh, ExpressionFactory._null()))._then();
+        ifScheduled.add(scheduledRefresh.invoke("cancel").arg(ExpressionFactory.FALSE));
+        ifScheduled.assign(scheduledRefresh, ExpressionFactory._null());
     }
 
     private void generateReThrow(TryStatement tryStatement, Class<? extends Exception> exceptionToCatch, Class<? extends Exception> exceptionToThrow) {
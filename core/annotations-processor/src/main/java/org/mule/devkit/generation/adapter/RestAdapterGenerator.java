@@ -18,7 +18,9 @@
 package org.mule.devkit.generation.adapter;
 
 import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethodBase;
 import org.apache.commons.httpclient.HttpVersion;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.URI;
 import org.apache.commons.httpclient.cookie.CookiePolicy;
@@ -29,6 +31,7 @@ import org.apache.commons.httpclient.methods.PutMethod;
 import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.commons.httpclient.methods.TraceMethod;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 import org.mule.api.MuleContext;
@@ -55,6 +58,7 @@ import org.mule.devkit.generation.DevKitTypeElement;
 import org.mule.devkit.generation.NamingContants;
 import org.mule.devkit.model.code.Block;
 import org.mule.devkit.model.code.CatchBlock;
+import org.mule.devkit.model.code.ClassAlreadyExistsException;
 import org.mule.devkit.model.code.Conditional;
 import org.mule.devkit.model.code.DefinedClass;
 import org.mule.devkit.model.code.Expression;
@@ -78,10 +82,12 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import javax.lang.model.type.TypeMirror;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -90,6 +96,15 @@ import java.util.Map;
 
 public class RestAdapterGenerator extends AbstractModuleGenerator {
 
+    public static final String MAX_CONNECTIONS_PER_HOST_FIELD_NAME = "maxConnectionsPerHost";
+    public static final String MAX_TOTAL_CONNECTIONS_FIELD_NAME = "maxTotalConnections";
+    public static final String IDLE_CONNECTION_TIMEOUT_FIELD_NAME = "idleConnectionTimeout";
+    public static final String IDLE_CONNECTION_CHECK_INTERVAL_FIELD_NAME = "idleConnectionCheckInterval";
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
+    public static final long DEFAULT_IDLE_CONNECTION_TIMEOUT = 0L;
+    public static final long DEFAULT_IDLE_CONNECTION_CHECK_INTERVAL = 5000L;
+
     @Override
     protected boolean shouldGenerate(DevKitTypeElement typeElement) {
         return typeElement.isModuleOrConnector() && typeElement.hasMethodsAnnotatedWith(RestCall.class);
@@ -104,6 +119,12 @@ public class RestAdapterGenerator extends AbstractModuleGenerator {
 
         FieldVariable responseTimeout = restClientAdapterClass.field(Modifier.PRIVATE, context.getCodeModel().INT, "responseTimeout");
         FieldVariable muleContext = restClientAdapterClass.field(Modifier.PRIVATE, ref(MuleContext.class), "muleContext");
+        FieldVariable maxConnectionsPerHost = restClientAdapterClass.field(Modifier.PRIVATE, context.getCodeModel().INT, MAX_CONNECTIONS_PER_HOST_FIELD_NAME, ExpressionFactory.lit(DEFAULT_MAX_CONNECTIONS_PER_HOST));
+        FieldVariable maxTotalConnections = restClientAdapterClass.field(Modifier.PRIVATE, context.getCodeModel().INT, MAX_TOTAL_CONNECTIONS_FIELD_NAME, ExpressionFactory.lit(DEFAULT_MAX_TOTAL_CONNECTIONS));
+        FieldVariable idleConnectionTimeout = restClientAdapterClass.field(Modifier.PRIVATE, context.getCodeModel().LONG, IDLE_CONNECTION_TIMEOUT_FIELD_NAME, ExpressionFactory.lit(DEFAULT_IDLE_CONNECTION_TIMEOUT));
+        FieldVariable idleConnectionCheckInterval = restClientAdapterClass.field(Modifier.PRIVATE, context.getCodeModel().LONG, IDLE_CONNECTION_CHECK_INTERVAL_FIELD_NAME, ExpressionFactory.lit(DEFAULT_IDLE_CONNECTION_CHECK_INTERVAL));
+        FieldVariable httpConnectionManager = restClientAdapterClass.field(Modifier.PRIVATE, ref(MultiThreadedHttpConnectionManager.class), "httpConnectionManager");
+        FieldVariable idleConnectionTimeoutThread = restClientAdapterClass.field(Modifier.PRIVATE, ref(IdleConnectionTimeoutThread.class), "idleConnectionTimeoutThread");
 
         Expression httpClient = null;
         if (!typeElement.hasFieldAnnotatedWith(RestHttpClient.class)) {
@@ -117,17 +138,39 @@ public class RestAdapterGenerator extends AbstractModuleGenerator {
         Method initialise = restClientAdapterClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "initialise");
         initialise.annotate(ref(Override.class));
         initialise.body().add(ExpressionFactory._super().invoke("initialise"));
+        // a single client is shared by every rest call, so it needs a connection manager that is safe
+        // for concurrent use and keeps more than one connection per host alive
+        initialise.body().assign(httpConnectionManager, ExpressionFactory._new(ref(MultiThreadedHttpConnectionManager.class)));
+        initialise.body().add(httpConnectionManager.invoke("getParams").invoke("setDefaultMaxConnectionsPerHost").arg(maxConnectionsPerHost));
+        initialise.body().add(httpConnectionManager.invoke("getParams").invoke("setMaxTotalConnections").arg(maxTotalConnections));
         if (!typeElement.hasFieldAnnotatedWith(RestHttpClient.class)) {
-            initialise.body().assign((FieldVariable) httpClient, ExpressionFactory._new(ref(HttpClient.class)));
+            initialise.body().assign((FieldVariable) httpClient, ExpressionFactory._new(ref(HttpClient.class)).arg(httpConnectionManager));
         } else {
-            initialise.body().invoke("set" + StringUtils.capitalize(typeElement.getFieldsAnnotatedWith(RestHttpClient.class).get(0).getSimpleName().toString())).arg(ExpressionFactory._new(ref(HttpClient.class)));
+            initialise.body().invoke("set" + StringUtils.capitalize(typeElement.getFieldsAnnotatedWith(RestHttpClient.class).get(0).getSimpleName().toString())).arg(ExpressionFactory._new(ref(HttpClient.class)).arg(httpConnectionManager));
         }
         initialise.body().add(httpClient.invoke("getParams").invoke("setParameter").arg("http.protocol.version").arg(ref(HttpVersion.class).staticRef("HTTP_1_1")));
         initialise.body().add(httpClient.invoke("getParams").invoke("setParameter").arg("http.socket.timeout").arg(responseTimeout));
         initialise.body().add(httpClient.invoke("getParams").invoke("setParameter").arg("http.protocol.content-charset").arg("UTF-8"));
         initialise.body().add(httpClient.invoke("getParams").invoke("setCookiePolicy").arg(ref(CookiePolicy.class).staticRef("BROWSER_COMPATIBILITY")));
 
+        Block ifEvictIdle = initialise.body()._if(Op.gt(idleConnectionTimeout, ExpressionFactory.lit(0L)))._then();
+        ifEvictIdle.assign(idleConnectionTimeoutThread, ExpressionFactory._new(ref(IdleConnectionTimeoutThread.class)));
+        ifEvictIdle.add(idleConnectionTimeoutThread.invoke("setConnectionTimeout").arg(idleConnectionTimeout));
+        ifEvictIdle.add(idleConnectionTimeoutThread.invoke("setTimeoutInterval").arg(idleConnectionCheckInterval));
+        ifEvictIdle.add(idleConnectionTimeoutThread.invoke("addConnectionManager").arg(httpConnectionManager));
+        ifEvictIdle.add(idleConnectionTimeoutThread.invoke("start"));
+
+        Method dispose = restClientAdapterClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "dispose");
+        dispose.annotate(ref(Override.class));
+        dispose.body().add(ExpressionFactory._super().invoke("dispose"));
+        dispose.body()._if(Op.ne(idleConnectionTimeoutThread, ExpressionFactory._null()))._then().add(idleConnectionTimeoutThread.invoke("shutdown"));
+        dispose.body()._if(Op.ne(httpConnectionManager, ExpressionFactory._null()))._then().add(httpConnectionManager.invoke("shutdown"));
+
         generateSetter(restClientAdapterClass, responseTimeout);
+        generateSetter(restClientAdapterClass, maxConnectionsPerHost);
+        generateSetter(restClientAdapterClass, maxTotalConnections);
+        generateSetter(restClientAdapterClass, idleConnectionTimeout);
+        generateSetter(restClientAdapterClass, idleConnectionCheckInterval);
 
         generateRestCallImplementations(typeElement, httpClient, muleContext, restClientAdapterClass);
     }
@@ -208,11 +251,19 @@ public class RestAdapterGenerator extends AbstractModuleGenerator {
                 }
             }
 
-            Variable statusCode = override.body().decl(context.getCodeModel().INT, "statusCode", httpClient.invoke("executeMethod").arg(method));
+            if (isStreamingReturnType(executableElement.getReturnType())) {
+                generateStreamingResponseCode(executableElement, override, httpClient, method, capabilitiesAdapter);
+                continue;
+            }
+
+            // the connection goes back to the shared connection manager once the response has been read
+            TryStatement tryExecute = override.body()._try();
+            Variable statusCode = tryExecute.body().decl(context.getCodeModel().INT, "statusCode", httpClient.invoke("executeMethod").arg(method));
 
-            generateParseResponseCode(typeElement, executableElement, override, method, statusCode, muleContext);
+            generateParseResponseCode(typeElement, executableElement, tryExecute.body(), method, statusCode, muleContext);
 
-            override.body()._return(ExpressionFactory._null());
+            tryExecute.body()._return(ExpressionFactory._null());
+            tryExecute._finally().add(method.invoke("releaseConnection"));
         }
     }
 
@@ -298,26 +349,93 @@ public class RestAdapterGenerator extends AbstractModuleGenerator {
         }
     }
 
-    private void generateParseResponseCode(TypeElement typeElement, ExecutableElement executableElement, Method override, Variable method, Variable statusCode, Variable muleContext) {
-        Conditional ifMethodExecuted = override.body()._if(Op.cand(Op.ne(method, ExpressionFactory._null()), method.invoke("hasBeenUsed")));
-        Variable bufferedReader = ifMethodExecuted._then().decl(ref(BufferedReader.class), "bufferedReader", ExpressionFactory._null());
+    private boolean isStreamingReturnType(TypeMirror returnType) {
+        String returnTypeName = returnType.toString();
+        return returnTypeName.equals(InputStream.class.getName()) ||
+                returnTypeName.equals(Reader.class.getName()) ||
+                returnTypeName.equals("byte[]");
+    }
+
+    private void generateStreamingResponseCode(ExecutableElement executableElement, Method override, Expression httpClient, Variable method, DefinedClass restClientAdapterClass) {
+        String returnTypeName = executableElement.getReturnType().toString();
+        Variable streaming = override.body().decl(context.getCodeModel().BOOLEAN, "streaming", ExpressionFactory.FALSE);
+
+        // unless the response body is handed out as a stream, the connection goes back to the shared
+        // connection manager before returning. A stream hands it back when closed.
+        TryStatement tryExecute = override.body()._try();
+        Variable statusCode = tryExecute.body().decl(context.getCodeModel().INT, "statusCode", httpClient.invoke("executeMethod").arg(method));
+
+        generateExeptionOnBlock(executableElement, statusCode, tryExecute.body(), method.invoke("getResponseBodyAsString"));
+
+        if (returnTypeName.equals("byte[]")) {
+            tryExecute.body()._return(method.invoke("getResponseBody"));
+        } else {
+            Variable responseBody = tryExecute.body().decl(ref(InputStream.class), "responseBody", method.invoke("getResponseBodyAsStream"));
+            tryExecute.body()._if(Op.eq(responseBody, ExpressionFactory._null()))._then()._return(ExpressionFactory._null());
+
+            Expression releasingStream = ExpressionFactory._new(generateReleasingInputStreamClass(restClientAdapterClass)).arg(responseBody).arg(method);
+            if (returnTypeName.equals(Reader.class.getName())) {
+                // decode with the charset the response declares, ISO-8859-1 when it declares none
+                Variable reader = tryExecute.body().decl(ref(Reader.class), "reader", ExpressionFactory._new(ref(InputStreamReader.class)).arg(releasingStream).arg(
+                        ExpressionFactory.cast(ref(HttpMethodBase.class), method).invoke("getResponseCharSet")));
+                tryExecute.body().assign(streaming, ExpressionFactory.TRUE);
+                tryExecute.body()._return(reader);
+            } else {
+                tryExecute.body().assign(streaming, ExpressionFactory.TRUE);
+                tryExecute.body()._return(releasingStream);
+            }
+        }
+
+        tryExecute._finally()._if(Op.not(streaming))._then().add(method.invoke("releaseConnection"));
+    }
+
+    private DefinedClass generateReleasingInputStreamClass(DefinedClass restClientAdapterClass) {
+        DefinedClass releasingInputStreamClass;
+        try {
+            releasingInputStreamClass = restClientAdapterClass._class(Modifier.PRIVATE | Modifier.STATIC, NamingContants.RELEASING_INPUT_STREAM_CLASS_NAME_SUFFIX);
+        } catch (ClassAlreadyExistsException e) {
+            return e.getExistingClass();
+        }
+        releasingInputStreamClass._extends(FilterInputStream.class);
+        releasingInputStreamClass.javadoc().add("Response body of a rest call that releases the connection of the call when closed");
+
+        FieldVariable httpMethod = releasingInputStreamClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(org.apache.commons.httpclient.HttpMethod.class), "method");
+        Method constructor = releasingInputStreamClass.constructor(Modifier.PUBLIC);
+        Variable in = constructor.param(ref(InputStream.class), "in");
+        Variable methodParam = constructor.param(ref(org.apache.commons.httpclient.HttpMethod.class), "method");
+        constructor.body().invoke("super").arg(in);
+        constructor.body().assign(ExpressionFactory._this().ref(httpMethod), methodParam);
+
+        Method close = releasingInputStreamClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "close");
+        close.annotate(ref(Override.class));
+        close._throws(ref(IOException.class));
+        TryStatement tryClose = close.body()._try();
+        tryClose.body().add(ExpressionFactory._super().invoke("close"));
+        tryClose._finally().add(httpMethod.invoke("releaseConnection"));
+
+        return releasingInputStreamClass;
+    }
+
+    private void generateParseResponseCode(TypeElement typeElement, ExecutableElement executableElement, Block block, Variable method, Variable statusCode, Variable muleContext) {
+        Conditional ifMethodExecuted = block._if(Op.cand(Op.ne(method, ExpressionFactory._null()), method.invoke("hasBeenUsed")));
+        Variable reader = ifMethodExecuted._then().decl(ref(Reader.class), "reader", ExpressionFactory._null());
         Variable stringWriter = ifMethodExecuted._then().decl(ref(StringWriter.class), "stringWriter", ExpressionFactory._new(ref(StringWriter.class)));
-        Variable bufferedWriter = ifMethodExecuted._then().decl(ref(BufferedWriter.class), "bufferedWriter", ExpressionFactory._new(ref(BufferedWriter.class)).arg(stringWriter).arg(ExpressionFactory.lit(8192)));
 
+        // copy the body as it is, a buffer at a time, instead of line by line
         TryStatement readStream = ifMethodExecuted._then()._try();
-        Variable line = readStream.body().decl(ref(String.class), "line", ExpressionFactory.lit(""));
-        readStream.body().assign(bufferedReader, ExpressionFactory._new(ref(BufferedReader.class)).arg(ExpressionFactory._new(ref(InputStreamReader.class)).arg(method.invoke("getResponseBodyAsStream"))));
-        WhileLoop whileLoop = readStream.body()._while(Op.ne(ExpressionFactory.assign(line, bufferedReader.invoke("readLine")), ExpressionFactory._null()));
-        whileLoop.body().add(bufferedWriter.invoke("write").arg(line));
-        whileLoop.body().add(bufferedWriter.invoke("newLine"));
+        Variable responseBody = readStream.body().decl(ref(InputStream.class), "responseBody", method.invoke("getResponseBodyAsStream"));
+        Block ifResponseBody = readStream.body()._if(Op.ne(responseBody, ExpressionFactory._null()))._then();
+        ifResponseBody.assign(reader, ExpressionFactory._new(ref(InputStreamReader.class)).arg(responseBody));
+        Variable buffer = ifResponseBody.decl(context.getCodeModel().CHAR.array(), "buffer", ExpressionFactory.newArray(context.getCodeModel().CHAR, 8192));
+        Variable read = ifResponseBody.decl(context.getCodeModel().INT, "read", ExpressionFactory.lit(0));
+        WhileLoop whileLoop = ifResponseBody._while(Op.ne(ExpressionFactory.assign(read, reader.invoke("read").arg(buffer)), ExpressionFactory.lit(-1)));
+        whileLoop.body().add(stringWriter.invoke("write").arg(buffer).arg(ExpressionFactory.lit(0)).arg(read));
 
-        readStream._finally().add(bufferedWriter.invoke("flush"));
-        readStream._finally().add(bufferedWriter.invoke("close"));
-        readStream._finally()._if(Op.ne(bufferedReader, ExpressionFactory._null()))._then().add(bufferedReader.invoke("close"));
+        readStream._finally()._if(Op.ne(reader, ExpressionFactory._null()))._then().add(reader.invoke("close"));
 
         Variable output = ifMethodExecuted._then().decl(ref(String.class), "output", ref(StringEscapeUtils.class).staticInvoke("unescapeHtml").arg(stringWriter.invoke("toString")));
 
-        generateExeptionOnBlock(executableElement, statusCode, ifMethodExecuted, output);
+        generateExeptionOnBlock(executableElement, statusCode, ifMethodExecuted._then(), output);
 
         generateTransformAndReturn(typeElement, executableElement, muleContext, ifMethodExecuted, output);
     }
@@ -373,7 +491,7 @@ public class RestAdapterGenerator extends AbstractModuleGenerator {
         shouldTransform._else()._return(ExpressionFactory.cast(ref(executableElement.getReturnType()), ExpressionFactory.cast(ref(Object.class), output)));
     }
 
-    private void generateExeptionOnBlock(ExecutableElement executableElement, Variable statusCode, Conditional block, Variable message) {
+    private void generateExeptionOnBlock(ExecutableElement executableElement, Variable statusCode, Block block, Expression message) {
         RestExceptionOn restExceptionOn = executableElement.getAnnotation(RestExceptionOn.class);
         final String restExceptionOnAnnotationName = RestExceptionOn.class.getName();
         DeclaredType exception = null;
@@ -392,7 +510,7 @@ public class RestAdapterGenerator extends AbstractModuleGenerator {
 
         if (restExceptionOn != null && restExceptionOn.statusCodeIs().length > 0) {
             for (int expectedStatusCode : restExceptionOn.statusCodeIs()) {
-                Conditional ifStatusCode = block._then()._if(Op.eq(statusCode, ExpressionFactory.lit(expectedStatusCode)));
+                Conditional ifStatusCode = block._if(Op.eq(statusCode, ExpressionFactory.lit(expectedStatusCode)));
                 if (exception == null) {
                     ifStatusCode._then()._throw(ExpressionFactory._new(ref(RuntimeException.class)).arg(message));
                 } else {
@@ -409,7 +527,7 @@ public class RestAdapterGenerator extends AbstractModuleGenerator {
                     notEq = Op.cand(notEq, Op.ne(statusCode, ExpressionFactory.lit(expectedStatusCode)));
                 }
             }
-            Conditional ifStatusCode = block._then()._if(notEq);
+            Conditional ifStatusCode = block._if(notEq);
             if (exception == null) {
                 ifStatusCode._then()._throw(ExpressionFactory._new(ref(RuntimeException.class)).arg(message));
             } else {
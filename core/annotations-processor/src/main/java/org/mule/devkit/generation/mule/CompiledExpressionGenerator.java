@@ -0,0 +1,132 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.generation.mule;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.annotations.Connector;
+import org.mule.api.annotations.Module;
+import org.mule.api.annotations.Processor;
+import org.mule.api.expression.ExpressionManager;
+import org.mule.devkit.generation.AbstractModuleGenerator;
+import org.mule.devkit.generation.DevKitTypeElement;
+import org.mule.devkit.generation.GenerationException;
+import org.mule.devkit.generation.NamingContants;
+import org.mule.devkit.model.code.ClassAlreadyExistsException;
+import org.mule.devkit.model.code.Conditional;
+import org.mule.devkit.model.code.DefinedClass;
+import org.mule.devkit.model.code.ExpressionFactory;
+import org.mule.devkit.model.code.FieldVariable;
+import org.mule.devkit.model.code.Method;
+import org.mule.devkit.model.code.Modifier;
+import org.mule.devkit.model.code.Op;
+import org.mule.devkit.model.code.Variable;
+import org.mule.devkit.model.code.builders.FieldBuilder;
+import org.mule.util.TemplateParser;
+
+public class CompiledExpressionGenerator extends AbstractModuleGenerator {
+
+    public static final String ROLE = "CompiledExpression";
+
+    @Override
+    protected boolean shouldGenerate(DevKitTypeElement typeElement) {
+        return (typeElement.hasAnnotation(Module.class) || typeElement.hasAnnotation(Connector.class)) &&
+                typeElement.hasMethodsAnnotatedWith(Processor.class);
+    }
+
+    @Override
+    protected void doGenerate(DevKitTypeElement typeElement) throws GenerationException {
+        String compiledExpressionClassName = context.getNameUtils().generateClassNameInPackage(typeElement, NamingContants.CONFIG_NAMESPACE, NamingContants.COMPILED_EXPRESSION_CLASS_NAME);
+        org.mule.devkit.model.code.Package pkg = context.getCodeModel()._package(context.getNameUtils().getPackageName(compiledExpressionClassName));
+        DefinedClass compiledExpressionClass;
+        try {
+            compiledExpressionClass = pkg._class(Modifier.PUBLIC, context.getNameUtils().getClassName(compiledExpressionClassName));
+        } catch (ClassAlreadyExistsException e) {
+            // another module in the same package already generated it
+            context.setClassRole(ROLE, e.getExistingClass());
+            return;
+        }
+        compiledExpressionClass.javadoc().add("A configured attribute value classified once as a literal, a single expression or a template, ");
+        compiledExpressionClass.javadoc().add("so that evaluating it does not need to inspect the string again.");
+
+        FieldVariable literal = FieldBuilder.newConstantFieldBuilder(compiledExpressionClass).
+                type(context.getCodeModel().INT).
+                name("LITERAL").
+                initialValue(0).
+                build();
+        FieldVariable expressionKind = FieldBuilder.newConstantFieldBuilder(compiledExpressionClass).
+                type(context.getCodeModel().INT).
+                name("EXPRESSION").
+                initialValue(1).
+                build();
+        FieldVariable template = FieldBuilder.newConstantFieldBuilder(compiledExpressionClass).
+                type(context.getCodeModel().INT).
+                name("TEMPLATE").
+                initialValue(2).
+                build();
+
+        FieldVariable source = compiledExpressionClass.field(Modifier.PRIVATE, ref(String.class), "source");
+        source.javadoc().add("Attribute value as configured");
+        FieldVariable kind = compiledExpressionClass.field(Modifier.PRIVATE, context.getCodeModel().INT, "kind");
+        kind.javadoc().add("Whether the value is a literal, a single expression or a template");
+        FieldVariable evaluator = compiledExpressionClass.field(Modifier.PRIVATE, ref(String.class), "evaluator");
+        evaluator.javadoc().add("Name of the evaluator for single expressions");
+        FieldVariable expression = compiledExpressionClass.field(Modifier.PRIVATE, ref(String.class), "expression");
+        expression.javadoc().add("Expression handed to the evaluator for single expressions");
+
+        Method constructor = compiledExpressionClass.constructor(Modifier.PUBLIC);
+        constructor.javadoc().add("Classifies the given attribute value");
+        constructor.javadoc().addParam("source Attribute value");
+        constructor.javadoc().addParam("patternInfo Expression pattern in use");
+        Variable sourceParam = constructor.param(ref(String.class), "source");
+        Variable patternInfo = constructor.param(ref(TemplateParser.PatternInfo.class), "patternInfo");
+        constructor.body().assign(ExpressionFactory._this().ref(source), sourceParam);
+
+        Conditional ifExpression = constructor.body()._if(Op.cand(
+                sourceParam.invoke("startsWith").arg(patternInfo.invoke("getPrefix")),
+                sourceParam.invoke("endsWith").arg(patternInfo.invoke("getSuffix"))));
+        Variable inner = ifExpression._then().decl(ref(String.class), "inner", sourceParam.invoke("substring").
+                arg(patternInfo.invoke("getPrefix").invoke("length")).
+                arg(Op.minus(sourceParam.invoke("length"), patternInfo.invoke("getSuffix").invoke("length"))));
+        Variable separator = ifExpression._then().decl(context.getCodeModel().INT, "separator", inner.invoke("indexOf").arg(":"));
+        Conditional ifSeparator = ifExpression._then()._if(Op.gt(separator, ExpressionFactory.lit(-1)));
+        ifSeparator._then().assign(evaluator, inner.invoke("substring").arg(ExpressionFactory.lit(0)).arg(separator));
+        ifSeparator._then().assign(expression, inner.invoke("substring").arg(Op.plus(separator, ExpressionFactory.lit(1))));
+        ifSeparator._else().assign(evaluator, inner);
+        ifExpression._then().assign(kind, expressionKind);
+
+        Conditional ifTemplate = ifExpression._elseif(Op.gt(sourceParam.invoke("indexOf").arg(patternInfo.invoke("getPrefix")), ExpressionFactory.lit(-1)));
+        ifTemplate._then().assign(kind, template);
+        ifTemplate._else().assign(kind, literal);
+
+        Method evaluate = compiledExpressionClass.method(Modifier.PUBLIC, ref(Object.class), "evaluate");
+        evaluate.javadoc().add("Evaluates this value against the given message. Literals are returned as they are, single expressions ");
+        evaluate.javadoc().add("go straight to their evaluator and templates are parsed.");
+        evaluate.javadoc().addParam("muleMessage Message to evaluate against");
+        evaluate.javadoc().addParam("expressionManager Mule Expression Manager");
+        evaluate.javadoc().addReturn("The evaluated value");
+        Variable muleMessage = evaluate.param(ref(MuleMessage.class), "muleMessage");
+        Variable expressionManager = evaluate.param(ref(ExpressionManager.class), "expressionManager");
+        evaluate.body()._if(Op.eq(kind, expressionKind))._then()._return(
+                expressionManager.invoke("evaluate").arg(expression).arg(evaluator).arg(muleMessage).arg(ExpressionFactory.FALSE));
+        evaluate.body()._if(Op.eq(kind, template))._then()._return(
+                expressionManager.invoke("parse").arg(source).arg(muleMessage));
+        evaluate.body()._return(source);
+
+        context.setClassRole(ROLE, compiledExpressionClass);
+    }
+}
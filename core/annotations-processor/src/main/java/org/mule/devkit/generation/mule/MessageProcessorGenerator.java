@@ -34,6 +34,7 @@ import org.mule.api.annotations.oauth.OAuthAccessTokenSecret;
 import org.mule.api.annotations.param.CorrelationGroupSize;
 import org.mule.api.annotations.param.CorrelationId;
 import org.mule.api.annotations.param.CorrelationSequence;
+import org.mule.api.annotations.param.DatePattern;
 import org.mule.api.annotations.param.ExceptionPayload;
 import org.mule.api.annotations.param.InboundHeaders;
 import org.mule.api.annotations.param.InvocationHeaders;
@@ -44,14 +45,15 @@ import org.mule.api.annotations.param.Payload;
 import org.mule.api.annotations.param.SessionHeaders;
 import org.mule.api.callback.HttpCallback;
 import org.mule.api.callback.SourceCallback;
+import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.processor.MessageProcessor;
-import org.mule.api.transformer.DataType;
 import org.mule.api.transformer.Transformer;
 import org.mule.api.transformer.TransformerException;
 import org.mule.api.transport.PropertyScope;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.devkit.generation.AbstractMessageGenerator;
 import org.mule.devkit.generation.DevKitTypeElement;
+import org.mule.devkit.generation.mule.transfomer.StringToDateTransformerGenerator;
 import org.mule.devkit.model.code.Block;
 import org.mule.devkit.model.code.Cast;
 import org.mule.devkit.model.code.CatchBlock;
@@ -69,11 +71,11 @@ import org.mule.devkit.model.code.TryStatement;
 import org.mule.devkit.model.code.Type;
 import org.mule.devkit.model.code.TypeReference;
 import org.mule.devkit.model.code.Variable;
+import org.mule.devkit.model.code.builders.FieldBuilder;
 import org.mule.expression.MessageHeaderExpressionEvaluator;
 import org.mule.expression.MessageHeadersExpressionEvaluator;
 import org.mule.expression.MessageHeadersListExpressionEvaluator;
 import org.mule.transformer.TransformerTemplate;
-import org.mule.transformer.types.DataTypeFactory;
 import org.mule.transport.NullPayload;
 
 import javax.lang.model.element.AnnotationMirror;
@@ -131,6 +133,16 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
             connectFields = generateProcessorFieldForEachParameter(messageProcessorClass, connectMethod);
         }
 
+        // add a field to hold the resolved generic type of each argument
+        Map<String, FieldVariable> genericTypes = generateGenericTypeFieldForEachParameter(messageProcessorClass, fields);
+        if (connectFields != null) {
+            genericTypes.putAll(generateGenericTypeFieldForEachParameter(messageProcessorClass, connectFields));
+        }
+        Map<String, FieldVariable> compiledExpressions = generateCompiledExpressionFieldForEachParameter(messageProcessorClass, fields);
+        if (connectFields != null) {
+            compiledExpressions.putAll(generateCompiledExpressionFieldForEachParameter(messageProcessorClass, connectFields));
+        }
+
         // add standard fields
         FieldVariable logger = generateLoggerField(messageProcessorClass);
         FieldVariable object = generateFieldForModuleObject(messageProcessorClass, typeElement);
@@ -138,8 +150,11 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
         FieldVariable expressionManager = generateFieldForExpressionManager(messageProcessorClass);
         FieldVariable patternInfo = generateFieldForPatternInfo(messageProcessorClass);
         FieldVariable flowConstruct = generateFieldForFlowConstruct(messageProcessorClass);
-        FieldVariable retryCount = generateRetryCountField(messageProcessorClass);
         FieldVariable retryMax = generateRetryMaxField(messageProcessorClass);
+        FieldVariable retryBackoff = generateRetryBackoffField(messageProcessorClass);
+        FieldVariable retryMaxBackoff = generateRetryMaxBackoffField(messageProcessorClass);
+        FieldVariable retryJitter = generateRetryJitterField(messageProcessorClass);
+        FieldVariable transformerCache = generateFieldForTransformerCache(messageProcessorClass);
 
         FieldVariable messageProcessorListener = null;
         if (intercepting) {
@@ -147,7 +162,10 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
         }
 
         // add initialise
-        generateInitialiseMethod(messageProcessorClass, fields, typeElement, muleContext, expressionManager, patternInfo, object, retryCount, !typeElement.needsConfig());
+        Method initialise = generateInitialiseMethod(messageProcessorClass, fields, typeElement, muleContext, expressionManager, patternInfo, object, !typeElement.needsConfig());
+        generateResolveGenericTypes(initialise, messageProcessorClass, fields, connectFields, genericTypes);
+        generateInitialiseTransformerCache(initialise, transformerCache, muleContext);
+        generateCompileExpressions(initialise, fields, connectFields, compiledExpressions, patternInfo);
 
         // add start
         generateStartMethod(messageProcessorClass, fields);
@@ -156,7 +174,8 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
         generateStopMethod(messageProcessorClass, fields);
 
         // add dispose
-        generateDiposeMethod(messageProcessorClass, fields);
+        Method dispose = generateDiposeMethod(messageProcessorClass, fields);
+        generateDisposeTransformerCache(dispose, transformerCache);
 
         // add setmulecontext
         generateSetMuleContextMethod(messageProcessorClass, muleContext, fields);
@@ -172,23 +191,43 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
             generateSourceCallbackProcessMethod(messageProcessorClass, messageProcessorListener, muleContext, flowConstruct);
             generateSourceCallbackProcessWithPropertiesMethod(messageProcessorClass, messageProcessorListener, muleContext, flowConstruct);
             generateSourceCallbackProcessMethodWithNoPayload(messageProcessorClass, messageProcessorListener, muleContext, flowConstruct);
+            generateSourceCallbackProcessBatchMethod(messageProcessorClass);
+            generateSourceCallbackProcessIteratorMethod(messageProcessorClass, messageProcessorListener, muleContext, flowConstruct);
+        }
+
+        // add a field caching the connection key when no connection parameter is an expression
+        FieldVariable cachedConnectionKey = null;
+        if (connectMethod != null) {
+            DefinedClass connectionKeyClass = context.getClassForRole(context.getNameUtils().generateConnectionParametersRoleKey(typeElement));
+            cachedConnectionKey = messageProcessorClass.field(Modifier.PRIVATE | Modifier.VOLATILE, connectionKeyClass, "cachedConnectionKey");
+            cachedConnectionKey.javadoc().add("Connection key reused across events when no connection parameter is an expression. Reset by ");
+            cachedConnectionKey.javadoc().add("the setters of the module object and of the connection parameters.");
         }
 
         // add setobject
-        generateSetModuleObjectMethod(messageProcessorClass, object);
+        Method setModuleObject = generateSetModuleObjectMethod(messageProcessorClass, object);
+        if (cachedConnectionKey != null) {
+            setModuleObject.body().assign(cachedConnectionKey, ExpressionFactory._null());
+        }
 
-        // add setRetryMax
+        // add setRetryMax, setRetryBackoff, setRetryMaxBackoff and setRetryJitter
         generateSetter(messageProcessorClass, retryMax);
+        generateSetter(messageProcessorClass, retryBackoff);
+        generateSetter(messageProcessorClass, retryMaxBackoff);
+        generateSetter(messageProcessorClass, retryJitter);
 
         // generate setters for all parameters
         for (String fieldName : fields.keySet()) {
-            generateSetter(messageProcessorClass, fields.get(fieldName).getField());
+            Method setter = generateSetter(messageProcessorClass, fields.get(fieldName).getField());
+            generateRecompileExpression(setter, fields.get(fieldName), compiledExpressions.get(fieldName), patternInfo);
         }
 
         // generate setters for connectivity fields
         if (connectFields != null) {
             for (String fieldName : connectFields.keySet()) {
-                generateSetter(messageProcessorClass, connectFields.get(fieldName).getField());
+                Method setter = generateSetter(messageProcessorClass, connectFields.get(fieldName).getField());
+                setter.body().assign(cachedConnectionKey, ExpressionFactory._null());
+                generateRecompileExpression(setter, connectFields.get(fieldName), compiledExpressions.get(fieldName), patternInfo);
             }
         }
 
@@ -200,21 +239,173 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
         generateIsMapMethod(messageProcessorClass);
         generateIsAssignableFrom(messageProcessorClass);
         generateEvaluateMethod(messageProcessorClass, patternInfo, expressionManager);
-        generateEvaluateAndTransformMethod(messageProcessorClass, muleContext);
+        generateEvaluateAndTransformMethod(messageProcessorClass, transformerCache);
+
+        // generate the backoff between retries of an invalidated connection
+        if (connectMethod != null && executableElement.getAnnotation(InvalidateConnectionOn.class) != null) {
+            generateWaitBeforeRetryMethod(messageProcessorClass, retryBackoff, retryMaxBackoff, retryJitter);
+        }
 
         // get pool object if poolable
         if (typeElement.isPoolable()) {
             DefinedClass poolObjectClass = context.getClassForRole(context.getNameUtils().generatePoolObjectRoleKey(typeElement));
 
             // add process method
-            generateProcessMethod(executableElement, messageProcessorClass, fields, connectFields, messageProcessorListener, muleContext, object, poolObjectClass, logger, retryCount, retryMax);
+            generateProcessMethod(executableElement, messageProcessorClass, fields, connectFields, genericTypes, compiledExpressions, messageProcessorListener, muleContext, object, poolObjectClass, logger, retryMax, cachedConnectionKey);
         } else {
             // add process method
-            generateProcessMethod(executableElement, messageProcessorClass, fields, connectFields, messageProcessorListener, muleContext, object, logger, retryCount, retryMax);
+            generateProcessMethod(executableElement, messageProcessorClass, fields, connectFields, genericTypes, compiledExpressions, messageProcessorListener, muleContext, object, logger, retryMax, cachedConnectionKey);
+        }
+    }
+
+    private Map<String, FieldVariable> generateGenericTypeFieldForEachParameter(DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields) {
+        Map<String, FieldVariable> genericTypes = new HashMap<String, FieldVariable>();
+        for (String fieldName : fields.keySet()) {
+            VariableElement variableElement = fields.get(fieldName).getVariableElement();
+            if (context.getTypeMirrorUtils().isNestedProcessor(variableElement.asType()) ||
+                    variableElement.asType().toString().startsWith(HttpCallback.class.getName())) {
+                continue;
+            }
+
+            FieldVariable genericType = new FieldBuilder(messageProcessorClass).
+                    privateVisibility().
+                    type(java.lang.reflect.Type.class).
+                    name("_" + fieldName + "GenericType").
+                    javadoc("Generic type of " + fieldName + ", resolved once during initialisation").
+                    build();
+            genericTypes.put(fieldName, genericType);
+        }
+        return genericTypes;
+    }
+
+    private void generateResolveGenericTypes(Method initialise, DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectFields, Map<String, FieldVariable> genericTypes) {
+        if (genericTypes.isEmpty()) {
+            return;
+        }
+
+        TryStatement tryResolve = initialise.body()._try();
+        for (String fieldName : genericTypes.keySet()) {
+            FieldVariableElement variableElement = fields.get(fieldName);
+            if (variableElement == null) {
+                variableElement = connectFields.get(fieldName);
+            }
+
+            tryResolve.body().assign(genericTypes.get(fieldName), messageProcessorClass.dotclass().invoke("getDeclaredField").arg(
+                    ExpressionFactory.lit(variableElement.getFieldType().name())
+            ).invoke("getGenericType"));
+        }
+
+        CatchBlock catchBlock = tryResolve._catch(ref(NoSuchFieldException.class));
+        Variable exception = catchBlock.param("e");
+        Invocation initialisationFailure = ref(CoreMessages.class).staticInvoke("initialisationFailure");
+        initialisationFailure.arg(messageProcessorClass.fullName());
+        catchBlock.body()._throw(ExpressionFactory._new(ref(InitialisationException.class)).
+                arg(initialisationFailure).arg(exception).arg(ExpressionFactory._this()));
+    }
+
+    private Map<String, FieldVariable> generateCompiledExpressionFieldForEachParameter(DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields) {
+        Map<String, FieldVariable> compiledExpressions = new HashMap<String, FieldVariable>();
+        for (String fieldName : fields.keySet()) {
+            VariableElement variableElement = fields.get(fieldName).getVariableElement();
+            if (context.getTypeMirrorUtils().isNestedProcessor(variableElement.asType()) ||
+                    variableElement.asType().toString().startsWith(HttpCallback.class.getName()) ||
+                    variableElement.getAnnotation(OutboundHeaders.class) != null ||
+                    variableElement.getAnnotation(ExceptionPayload.class) != null ||
+                    variableElement.getAnnotation(CorrelationId.class) != null ||
+                    variableElement.getAnnotation(CorrelationSequence.class) != null ||
+                    variableElement.getAnnotation(CorrelationGroupSize.class) != null ||
+                    variableElement.getAnnotation(MessageRootId.class) != null ||
+                    variableElement.getAnnotation(MessageUniqueId.class) != null) {
+                continue;
+            }
+
+            FieldVariable compiledExpression = new FieldBuilder(messageProcessorClass).
+                    privateVisibility().
+                    type(context.getClassForRole(CompiledExpressionGenerator.ROLE)).
+                    name("_" + fieldName + "Expression").
+                    javadoc("Value of " + fieldName + ", classified during initialisation and again whenever it is set").
+                    build();
+            compiledExpressions.put(fieldName, compiledExpression);
+        }
+        return compiledExpressions;
+    }
+
+    private void generateCompileExpressions(Method initialise, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectFields, Map<String, FieldVariable> compiledExpressions, FieldVariable patternInfo) {
+        DefinedClass compiledExpressionClass = context.getClassForRole(CompiledExpressionGenerator.ROLE);
+
+        for (String fieldName : compiledExpressions.keySet()) {
+            FieldVariableElement variableElement = fields.get(fieldName);
+            if (variableElement == null) {
+                variableElement = connectFields.get(fieldName);
+            }
+
+            String expression = getExpressionForAnnotatedParameter(variableElement.getVariableElement());
+            if (expression != null) {
+                initialise.body().assign(compiledExpressions.get(fieldName),
+                        ExpressionFactory._new(compiledExpressionClass).arg(expression).arg(patternInfo));
+            } else {
+                Conditional ifString = initialise.body()._if(Op._instanceof(variableElement.getField(), ref(String.class)));
+                ifString._then().assign(compiledExpressions.get(fieldName),
+                        ExpressionFactory._new(compiledExpressionClass).arg(
+                                ExpressionFactory.cast(ref(String.class), variableElement.getField())).arg(patternInfo));
+            }
+        }
+    }
+
+    private void generateRecompileExpression(Method setter, FieldVariableElement variableElement, FieldVariable compiledExpression, FieldVariable patternInfo) {
+        // annotated parameters always evaluate the same expression, whatever value they are set to
+        if (compiledExpression == null || getExpressionForAnnotatedParameter(variableElement.getVariableElement()) != null) {
+            return;
+        }
+
+        // before initialisation the value is compiled by initialise
+        Conditional ifCompilable = setter.body()._if(Op.cand(Op._instanceof(variableElement.getField(), ref(String.class)),
+                Op.ne(patternInfo, ExpressionFactory._null())));
+        ifCompilable._then().assign(compiledExpression, ExpressionFactory._new(context.getClassForRole(CompiledExpressionGenerator.ROLE)).arg(
+                ExpressionFactory.cast(ref(String.class), variableElement.getField())).arg(patternInfo));
+        ifCompilable._else().assign(compiledExpression, ExpressionFactory._null());
+    }
+
+    private String getExpressionForAnnotatedParameter(VariableElement variable) {
+        InboundHeaders inboundHeaders = variable.getAnnotation(InboundHeaders.class);
+        InvocationHeaders invocationHeaders = variable.getAnnotation(InvocationHeaders.class);
+        SessionHeaders sessionHeaders = variable.getAnnotation(SessionHeaders.class);
+
+        String scope;
+        String headers;
+        if (inboundHeaders != null) {
+            scope = "INBOUND";
+            headers = inboundHeaders.value();
+        } else if (invocationHeaders != null) {
+            scope = "INVOCATION";
+            headers = invocationHeaders.value();
+        } else if (sessionHeaders != null) {
+            scope = "SESSION";
+            headers = sessionHeaders.value();
+        } else if (variable.getAnnotation(Payload.class) != null) {
+            return "#[payload]";
+        } else {
+            return null;
+        }
+
+        if (context.getTypeMirrorUtils().isArrayOrList(variable.asType())) {
+            return "#[" + MessageHeadersListExpressionEvaluator.NAME + ":" + scope + ":" + headers + "]";
+        } else if (context.getTypeMirrorUtils().isMap(variable.asType())) {
+            return "#[" + MessageHeadersExpressionEvaluator.NAME + ":" + scope + ":" + headers + "]";
+        } else {
+            return "#[" + MessageHeaderExpressionEvaluator.NAME + ":" + scope + ":" + headers + "]";
         }
     }
 
-    private void generateEvaluateAndTransformMethod(DefinedClass messageProcessorClass, FieldVariable muleContext) {
+    private Expression compiledExpressionOrField(FieldVariable compiledExpression, FieldVariable field) {
+        if (compiledExpression == null) {
+            return field;
+        }
+
+        return Op.cond(Op.ne(compiledExpression, ExpressionFactory._null()), compiledExpression, field);
+    }
+
+    private void generateEvaluateAndTransformMethod(DefinedClass messageProcessorClass, FieldVariable transformerCache) {
         Method evaluateAndTransform = messageProcessorClass.method(Modifier.PRIVATE, ref(Object.class), "evaluateAndTransform");
         evaluateAndTransform._throws(ref(TransformerException.class));
         Variable muleMessage = evaluateAndTransform.param(ref(MuleMessage.class), "muleMessage");
@@ -288,19 +479,8 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
                 Op.not(ExpressionFactory.invoke("isAssignableFrom").arg(expectedType).arg(target.invoke("getClass")))
         ));
 
-        Variable sourceDataType = shouldTransform._then().decl(ref(DataType.class), "sourceDataType",
-                ref(DataTypeFactory.class).staticInvoke("create").arg(target.invoke("getClass")));
-        Variable targetDataType = shouldTransform._then().decl(ref(DataType.class), "targetDataType", ExpressionFactory._null());
-        
-        Conditional ifExpectedMimeTypeNotNull = shouldTransform._then()._if(Op.ne(expectedMimeType, ExpressionFactory._null()));
-        ifExpectedMimeTypeNotNull._then().assign(targetDataType, ref(DataTypeFactory.class).staticInvoke("create").arg(
-                                ExpressionFactory.cast(ref(Class.class), expectedType)).arg(expectedMimeType));
-
-        ifExpectedMimeTypeNotNull._else().assign(targetDataType, ref(DataTypeFactory.class).staticInvoke("create").arg(
-                                ExpressionFactory.cast(ref(Class.class), expectedType)));
-        
         Variable transformer = shouldTransform._then().decl(ref(Transformer.class), "t",
-                muleContext.invoke("getRegistry").invoke("lookupTransformer").arg(sourceDataType).arg(targetDataType));
+                transformerCache.invoke("lookupTransformer").arg(target.invoke("getClass")).arg(expectedType).arg(expectedMimeType));
 
         shouldTransform._then()._return(transformer.invoke("transform").arg(target));
 
@@ -308,11 +488,42 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
     }
 
 
+    private void generateWaitBeforeRetryMethod(DefinedClass messageProcessorClass, FieldVariable retryBackoff, FieldVariable retryMaxBackoff, FieldVariable retryJitter) {
+        Method waitBeforeRetry = messageProcessorClass.method(Modifier.PRIVATE, context.getCodeModel().BOOLEAN, "waitBeforeRetry");
+        waitBeforeRetry.javadoc().add("Waits before attempting the given retry. The wait starts at retryBackoff and doubles on every retry ");
+        waitBeforeRetry.javadoc().add("up to retryMaxBackoff. If jitter is enabled a random wait of up to half that time is used instead.");
+        waitBeforeRetry.javadoc().addParam("retryCount Number of the retry about to be attempted");
+        waitBeforeRetry.javadoc().addReturn("<code>false</code> if the thread was interrupted while waiting and the retry must be abandoned, <code>true</code> otherwise");
+        Variable retryCount = waitBeforeRetry.param(context.getCodeModel().INT, "retryCount");
+
+        waitBeforeRetry.body()._if(Op.lte(retryBackoff, ExpressionFactory.lit(0)))._then()._return(ExpressionFactory.TRUE);
+
+        Variable delay = waitBeforeRetry.body().decl(context.getCodeModel().LONG, "delay", ExpressionFactory.cast(context.getCodeModel().LONG,
+                ref(Math.class).staticInvoke("min").arg(
+                        Op.mul(retryBackoff, ref(Math.class).staticInvoke("pow").arg(ExpressionFactory.lit(2)).arg(Op.minus(retryCount, ExpressionFactory.lit(1))))).arg(
+                        retryMaxBackoff)));
+        waitBeforeRetry.body()._if(retryJitter)._then().assign(delay, Op.minus(delay,
+                ExpressionFactory.cast(context.getCodeModel().LONG, Op.mul(ref(Math.class).staticInvoke("random"), Op.div(delay, ExpressionFactory.lit(2))))));
+
+        TryStatement trySleep = waitBeforeRetry.body()._try();
+        trySleep.body().add(ref(Thread.class).staticInvoke("sleep").arg(delay));
+        CatchBlock catchInterrupted = trySleep._catch(ref(InterruptedException.class));
+        catchInterrupted.param("e");
+        catchInterrupted.body().add(ref(Thread.class).staticInvoke("currentThread").invoke("interrupt"));
+        catchInterrupted.body()._return(ExpressionFactory.FALSE);
+
+        waitBeforeRetry.body()._return(ExpressionFactory.TRUE);
+    }
+
     private void generateEvaluateMethod(DefinedClass messageProcessorClass, FieldVariable patternInfo, FieldVariable expressionManager) {
         Method evaluate = messageProcessorClass.method(Modifier.PRIVATE, ref(Object.class), "evaluate");
         Variable muleMessage = evaluate.param(ref(MuleMessage.class), "muleMessage");
         Variable source = evaluate.param(ref(Object.class), "source");
 
+        DefinedClass compiledExpressionClass = context.getClassForRole(CompiledExpressionGenerator.ROLE);
+        evaluate.body()._if(Op._instanceof(source, compiledExpressionClass))._then()._return(
+                ExpressionFactory.cast(compiledExpressionClass, source).invoke("evaluate").arg(muleMessage).arg(expressionManager));
+
         Block ifString = evaluate.body()._if(Op._instanceof(source, ref(String.class)))._then();
         Variable stringSource = ifString.decl(ref(String.class), "stringSource", ExpressionFactory.cast(ref(String.class), source));
         Conditional isPattern = ifString._if(Op.cand(
@@ -345,11 +556,11 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
         messageProcessorClass.javadoc().add(" where possible to the expected argument type.");
     }
 
-    private void generateProcessMethod(ExecutableElement executableElement, DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectionFields, FieldVariable messageProcessorListener, FieldVariable muleContext, FieldVariable object, FieldVariable logger, FieldVariable retryCount, FieldVariable retryMax) {
-        generateProcessMethod(executableElement, messageProcessorClass, fields, connectionFields, messageProcessorListener, muleContext, object, null, logger, retryCount, retryMax);
+    private void generateProcessMethod(ExecutableElement executableElement, DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectionFields, Map<String, FieldVariable> genericTypes, Map<String, FieldVariable> compiledExpressions, FieldVariable messageProcessorListener, FieldVariable muleContext, FieldVariable object, FieldVariable logger, FieldVariable retryMax, FieldVariable cachedConnectionKey) {
+        generateProcessMethod(executableElement, messageProcessorClass, fields, connectionFields, genericTypes, compiledExpressions, messageProcessorListener, muleContext, object, null, logger, retryMax, cachedConnectionKey);
     }
 
-    private void generateProcessMethod(ExecutableElement executableElement, DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectionFields, FieldVariable messageProcessorListener, FieldVariable muleContext, FieldVariable object, DefinedClass poolObjectClass, FieldVariable logger, FieldVariable retryCount, FieldVariable retryMax) {
+    private void generateProcessMethod(ExecutableElement executableElement, DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectionFields, Map<String, FieldVariable> genericTypes, Map<String, FieldVariable> compiledExpressions, FieldVariable messageProcessorListener, FieldVariable muleContext, FieldVariable object, DefinedClass poolObjectClass, FieldVariable logger, FieldVariable retryMax, FieldVariable cachedConnectionKey) {
         String methodName = executableElement.getSimpleName().toString();
         Type muleEvent = ref(MuleEvent.class);
 
@@ -372,32 +583,50 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
         Variable connection = addConnectionVariableIfNeeded(executableElement, process);
 
         ExecutableElement connectMethod = connectForMethod(executableElement);
+        DefinedClass connectionKeyClass = null;
+        Variable connectionKey = null;
+        if (connectMethod != null) {
+            connectionKeyClass = context.getClassForRole(context.getNameUtils().generateConnectionParametersRoleKey((TypeElement) executableElement.getEnclosingElement()));
+            connectionKey = process.body().decl(connectionKeyClass, "_connectionKey", cachedConnectionKey);
+        }
         ExecutableElement connectionIdentifierMethod = connectionIdentifierForMethod(executableElement);
-        TryStatement callProcessor = process.body()._try();
+        InvalidateConnectionOn invalidateConnectionOn = executableElement.getAnnotation(InvalidateConnectionOn.class);
+        boolean retryable = connectMethod != null && invalidateConnectionOn != null;
+
+        TryStatement callProcessor;
+        Variable retryCount = null;
+        if (retryable) {
+            retryCount = process.body().decl(context.getCodeModel().INT, "_retryCount", ExpressionFactory.lit(0));
+            callProcessor = process.body()._while(ExpressionFactory.TRUE).body()._try();
+        } else {
+            callProcessor = process.body()._try();
+        }
 
         if (connectMethod != null) {
+            // connection parameters are only evaluated when the key could not be cached
+            Block resolveConnectionKey = callProcessor.body()._if(Op.eq(connectionKey, ExpressionFactory._null()))._then();
+            Invocation expressionManager = muleContext.invoke("getExpressionManager");
+            Expression connectionKeyIsStatic = ExpressionFactory.TRUE;
             for (VariableElement variable : connectMethod.getParameters()) {
                 String fieldName = variable.getSimpleName().toString();
 
-                Conditional ifNotNull = callProcessor.body()._if(Op.ne(connectionFields.get(fieldName).getField(),
+                Conditional ifNotNull = resolveConnectionKey._if(Op.ne(connectionFields.get(fieldName).getField(),
                         ExpressionFactory._null()));
 
                 Type type = ref(connectionFields.get(fieldName).getVariableElement().asType()).boxify();
 
                 Variable transformed = (Variable) connectionParameters.get(fieldName);
 
-                Invocation getGenericType = messageProcessorClass.dotclass().invoke("getDeclaredField").arg(
-                        ExpressionFactory.lit(connectionFields.get(fieldName).getFieldType().name())
-                ).invoke("getGenericType");
-                Invocation evaluateAndTransform = ExpressionFactory.invoke("evaluateAndTransform").arg(muleMessage).arg(getGenericType).arg(ExpressionFactory._null());
+                FieldVariable genericType = genericTypes.get(fieldName);
+                Invocation evaluateAndTransform = ExpressionFactory.invoke("evaluateAndTransform").arg(muleMessage).arg(genericType).arg(ExpressionFactory._null());
 
-                evaluateAndTransform.arg(connectionFields.get(fieldName).getField());
+                evaluateAndTransform.arg(compiledExpressionOrField(compiledExpressions.get(fieldName), connectionFields.get(fieldName).getField()));
 
                 Cast cast = ExpressionFactory.cast(type, evaluateAndTransform);
 
                 ifNotNull._then().assign(transformed, cast);
 
-                Invocation evaluateAndTransformLocal = ExpressionFactory.invoke("evaluateAndTransform").arg(muleMessage).arg(getGenericType).arg(ExpressionFactory._null());
+                Invocation evaluateAndTransformLocal = ExpressionFactory.invoke("evaluateAndTransform").arg(muleMessage).arg(genericType).arg(ExpressionFactory._null());
 
                 evaluateAndTransformLocal.arg(moduleObject.invoke("get" + StringUtils.capitalize(fieldName)));
 
@@ -419,7 +648,22 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
 
                 ifNotNull._else().assign(transformed, castLocal);
 
+                FieldVariable field = connectionFields.get(fieldName).getField();
+                Expression fieldIsStatic = Op.not(Op.cand(Op._instanceof(field, ref(String.class)),
+                        expressionManager.invoke("isExpression").arg(ExpressionFactory.cast(ref(String.class), field))));
+                Expression configIsStatic = ExpressionFactory.TRUE;
+                if (variable.asType().toString().equals(String.class.getName())) {
+                    configIsStatic = Op.not(expressionManager.invoke("isExpression").arg(moduleObject.invoke("get" + StringUtils.capitalize(fieldName))));
+                }
+                connectionKeyIsStatic = Op.cand(connectionKeyIsStatic, Op.cond(Op.ne(field, ExpressionFactory._null()), fieldIsStatic, configIsStatic));
+            }
+
+            Invocation newKey = ExpressionFactory._new(connectionKeyClass);
+            for (VariableElement variable : connectMethod.getParameters()) {
+                newKey.arg(connectionParameters.get(variable.getSimpleName().toString()));
             }
+            resolveConnectionKey.assign(connectionKey, newKey);
+            resolveConnectionKey._if(connectionKeyIsStatic)._then().assign(cachedConnectionKey, connectionKey);
         }
 
         List<Expression> parameters = new ArrayList<Expression>();
@@ -441,30 +685,23 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
             } else if (variable.asType().toString().startsWith(MuleMessage.class.getName())) {
                 parameters.add(muleMessage);
             } else {
-                outboundHeadersMap = declareStandardParameter(messageProcessorClass, fields, muleMessage, callProcessor, parameters, outboundHeadersMap, variable, fieldName);
+                outboundHeadersMap = declareStandardParameter(genericTypes, compiledExpressions, fields, muleMessage, callProcessor, parameters, outboundHeadersMap, variable, fieldName);
             }
         }
 
         if (connectMethod != null) {
-            DefinedClass connectionKey = context.getClassForRole(context.getNameUtils().generateConnectionParametersRoleKey((TypeElement) executableElement.getEnclosingElement()));
-
             Conditional ifDebugEnabled = callProcessor.body()._if(logger.invoke("isDebugEnabled"));
             Variable messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "_messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Attempting to acquire a connection using "));
             for (String field : connectionParameters.keySet()) {
                 ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("[" + field + " = ")));
-                ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(connectionParameters.get(field)));
+                ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(connectionKey.invoke("get" + StringUtils.capitalize(field))));
                 ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg(ExpressionFactory.lit("] ")));
             }
             ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
 
-            Invocation newKey = ExpressionFactory._new(connectionKey);
             Invocation createConnection = moduleObject.invoke("acquireConnection");
-            for (VariableElement variable : connectMethod.getParameters()) {
-                String fieldName = variable.getSimpleName().toString();
-                newKey.arg(connectionParameters.get(fieldName));
-            }
-            createConnection.arg(newKey);
+            createConnection.arg(connectionKey);
             callProcessor.body().assign(connection, createConnection);
 
             Conditional ifConnectionIsNull = callProcessor.body()._if(Op.eq(connection, ExpressionFactory._null()));
@@ -494,16 +731,12 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
 
         Type returnType = ref(executableElement.getReturnType());
 
-        callProcessor.body().add(retryCount.invoke("getAndIncrement"));
-
         if (connectMethod != null) {
             generateMethodCall(callProcessor.body(), connection, methodName, parameters, event, returnType, poolObject, interceptCallback, messageProcessorListener);
         } else {
             generateMethodCall(callProcessor.body(), moduleObject, methodName, parameters, event, returnType, poolObject, interceptCallback, messageProcessorListener);
         }
 
-        callProcessor.body().add(retryCount.invoke("set").arg(ExpressionFactory.lit(0)));
-
         for (VariableElement variable : executableElement.getParameters()) {
             OutboundHeaders outboundHeaders = variable.getAnnotation(OutboundHeaders.class);
             if (outboundHeaders != null) {
@@ -524,9 +757,7 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
 
         callProcessor.body()._return(event);
 
-        InvalidateConnectionOn invalidateConnectionOn = executableElement.getAnnotation(InvalidateConnectionOn.class);
-        if (connectMethod != null &&
-                invalidateConnectionOn != null) {
+        if (retryable) {
 
             final String transformerAnnotationName = InvalidateConnectionOn.class.getName();
             DeclaredType exception = null;
@@ -560,15 +791,8 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
 
             TryStatement innerTry = catchBlock.body()._try();
 
-            DefinedClass connectionKey = context.getClassForRole(context.getNameUtils().generateConnectionParametersRoleKey((TypeElement) executableElement.getEnclosingElement()));
-            Invocation newKey = ExpressionFactory._new(connectionKey);
-            for (VariableElement variable : connectMethod.getParameters()) {
-                String fieldName = variable.getSimpleName().toString();
-                newKey.arg(connectionParameters.get(fieldName));
-            }
-
             Invocation destroySession = moduleObject.invoke("destroyConnection");
-            destroySession.arg(newKey);
+            destroySession.arg(connectionKey);
             destroySession.arg(connection);
 
             innerTry.body().add(destroySession);
@@ -578,7 +802,8 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
             Variable destroyException = logException.param("e");
             logException.body().add(logger.invoke("error").arg(destroyException.invoke("getMessage")).arg(destroyException));
 
-            Conditional ifRetryMaxNotReached = catchBlock.body()._if(Op.lte(retryCount.invoke("get"), retryMax));
+            Conditional ifRetryMaxNotReached = catchBlock.body()._if(Op.lt(retryCount, retryMax));
+            ifRetryMaxNotReached._then().assignPlus(retryCount, ExpressionFactory.lit(1));
             ifDebugEnabled = ifRetryMaxNotReached._then()._if(logger.invoke("isDebugEnabled"));
             messageStringBuilder = ifDebugEnabled._then().decl(ref(StringBuilder.class), "_messageStringBuilder", ExpressionFactory._new(ref(StringBuilder.class)));
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("Forcing a retry [time="));
@@ -588,7 +813,7 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
             ifDebugEnabled._then().add(messageStringBuilder.invoke("append").arg("]."));
             ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
 
-            ifRetryMaxNotReached._then()._return(ExpressionFactory.invoke("process").arg(event));
+            ifRetryMaxNotReached._then()._if(ExpressionFactory.invoke("waitBeforeRetry").arg(retryCount))._then()._continue();
 
             Variable invalidConnection = catchBlock.param("invalidConnection");
             TypeReference coreMessages = ref(CoreMessages.class);
@@ -612,6 +837,7 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
             Block fin = callProcessor._finally();
             Block poolObjectNotNull = fin._if(Op.ne(poolObject, ExpressionFactory._null()))._then();
             poolObjectNotNull.add(moduleObject.invoke("getLifecyleEnabledObjectPool").invoke("returnObject").arg(poolObject));
+            poolObjectNotNull.assign(poolObject, ExpressionFactory._null());
         }
 
         if (connectMethod != null) {
@@ -632,18 +858,12 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
             ifDebugEnabled._then().add(logger.invoke("debug").arg(messageStringBuilder.invoke("toString")));
 
 
-            DefinedClass connectionKey = context.getClassForRole(context.getNameUtils().generateConnectionParametersRoleKey((TypeElement) executableElement.getEnclosingElement()));
-            Invocation newKey = ExpressionFactory._new(connectionKey);
-            for (VariableElement variable : connectMethod.getParameters()) {
-                String fieldName = variable.getSimpleName().toString();
-                newKey.arg(connectionParameters.get(fieldName));
-            }
-
             Invocation returnConnection = moduleObject.invoke("releaseConnection");
-            returnConnection.arg(newKey);
+            returnConnection.arg(connectionKey);
             returnConnection.arg(connection);
 
             ifConnectionNotNull._then().add(returnConnection);
+            ifConnectionNotNull._then().assign(connection, ExpressionFactory._null());
 
             generateThrow("failedToInvoke", MessagingException.class,
                     tryToReleaseConnection._catch(ref(Exception.class)), event, methodName);
@@ -651,7 +871,7 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
 
     }
 
-    private Variable declareStandardParameter(DefinedClass messageProcessorClass, Map<String, FieldVariableElement> fields, Variable muleMessage, TryStatement callProcessor, List<Expression> parameters, Variable outboundHeadersMap, VariableElement variable, String fieldName) {
+    private Variable declareStandardParameter(Map<String, FieldVariable> genericTypes, Map<String, FieldVariable> compiledExpressions, Map<String, FieldVariableElement> fields, Variable muleMessage, TryStatement callProcessor, List<Expression> parameters, Variable outboundHeadersMap, VariableElement variable, String fieldName) {
         InboundHeaders inboundHeaders = variable.getAnnotation(InboundHeaders.class);
         OutboundHeaders outboundHeaders = variable.getAnnotation(OutboundHeaders.class);
         InvocationHeaders invocationHeaders = variable.getAnnotation(InvocationHeaders.class);
@@ -667,64 +887,52 @@ public class MessageProcessorGenerator extends AbstractMessageGenerator {
         if (outboundHeaders == null) {
             Type type = ref(fields.get(fieldName).getVariableElement().asType()).boxify();
             String name = "_transformed" + StringUtils.capitalize(fieldName);
-            Invocation getGenericType = messageProcessorClass.dotclass().invoke("getDeclaredField").arg(
-                    ExpressionFactory.lit(fields.get(fieldName).getFieldType().name())
-            ).invoke("getGenericType");
-            Invocation evaluateAndTransform = ExpressionFactory.invoke("evaluateAndTransform").arg(muleMessage).arg(getGenericType);
-            
+
+            Expression expectedMimeType = ExpressionFactory._null();
             Mime mime = fields.get(fieldName).getVariableElement().getAnnotation(Mime.class);
             if( mime != null ) {
-                evaluateAndTransform.arg(ExpressionFactory.lit(mime.value()));
-            } else {
-                evaluateAndTransform.arg(ExpressionFactory._null());
+                expectedMimeType = ExpressionFactory.lit(mime.value());
             }
 
-            if (inboundHeaders != null) {
-                if (context.getTypeMirrorUtils().isArrayOrList(fields.get(fieldName).getVariableElement().asType())) {
-                    evaluateAndTransform.arg("#[" + MessageHeadersListExpressionEvaluator.NAME + ":INBOUND:" + inboundHeaders.value() + "]");
-                } else if (context.getTypeMirrorUtils().isMap(fields.get(fieldName).getVariableElement().asType())) {
-                    evaluateAndTransform.arg("#[" + MessageHeadersExpressionEvaluator.NAME + ":INBOUND:" + inboundHeaders.value() + "]");
-                } else {
-                    evaluateAndTransform.arg("#[" + MessageHeaderExpressionEvaluator.NAME + ":INBOUND:" + inboundHeaders.value() + "]");
-                }
-            } else if (invocationHeaders != null) {
-                if (context.getTypeMirrorUtils().isArrayOrList(fields.get(fieldName).getVariableElement().asType())) {
-                    evaluateAndTransform.arg("#[" + MessageHeadersListExpressionEvaluator.NAME + ":INVOCATION:" + invocationHeaders.value() + "]");
-                } else if (context.getTypeMirrorUtils().isMap(fields.get(fieldName).getVariableElement().asType())) {
-                    evaluateAndTransform.arg("#[" + MessageHeadersExpressionEvaluator.NAME + ":INVOCATION:" + invocationHeaders.value() + "]");
-                } else {
-                    evaluateAndTransform.arg("#[" + MessageHeaderExpressionEvaluator.NAME + ":INVOCATION:" + invocationHeaders.value() + "]");
-                }
-            } else if (sessionHeaders != null) {
-                if (context.getTypeMirrorUtils().isArrayOrList(fields.get(fieldName).getVariableElement().asType())) {
-                    evaluateAndTransform.arg("#[" + MessageHeadersListExpressionEvaluator.NAME + ":SESSION:" + sessionHeaders.value() + "]");
-                } else if (context.getTypeMirrorUtils().isMap(fields.get(fieldName).getVariableElement().asType())) {
-                    evaluateAndTransform.arg("#[" + MessageHeadersExpressionEvaluator.NAME + ":SESSION:" + sessionHeaders.value() + "]");
-                } else {
-                    evaluateAndTransform.arg("#[" + MessageHeaderExpressionEvaluator.NAME + ":SESSION:" + sessionHeaders.value() + "]");
-                }
-            } else if (payload != null) {
-                evaluateAndTransform.arg("#[payload]");
+            Expression source;
+            if (inboundHeaders != null || invocationHeaders != null || sessionHeaders != null || payload != null) {
+                source = compiledExpressions.get(fieldName);
             } else if (exceptionPayload != null) {
-                evaluateAndTransform.arg(muleMessage.invoke("getExceptionPayload"));
+                source = muleMessage.invoke("getExceptionPayload");
             } else if (correlationId != null) {
-                evaluateAndTransform.arg(muleMessage.invoke("getCorrelationId"));
+                source = muleMessage.invoke("getCorrelationId");
             } else if (correlationSequence != null) {
-                evaluateAndTransform.arg(muleMessage.invoke("getCorrelationSequence"));
+                source = muleMessage.invoke("getCorrelationSequence");
             } else if (correlationGroupSize != null) {
-                evaluateAndTransform.arg(muleMessage.invoke("getCorrelationGroupSize"));
+                source = muleMessage.invoke("getCorrelationGroupSize");
             } else if (messageRootId != null) {
-                evaluateAndTransform.arg(muleMessage.invoke("getMessageRootId"));
+                source = muleMessage.invoke("getMessageRootId");
             } else if (messageUniqueId != null) {
-                evaluateAndTransform.arg(muleMessage.invoke("getUniqueId"));
+                source = muleMessage.invoke("getUniqueId");
             } else {
-                evaluateAndTransform.arg(fields.get(fieldName).getField());
+                source = compiledExpressionOrField(compiledExpressions.get(fieldName), fields.get(fieldName).getField());
             }
 
-            Cast cast = ExpressionFactory.cast(type, evaluateAndTransform);
+            DatePattern datePattern = variable.getAnnotation(DatePattern.class);
+            if (datePattern != null) {
+                // evaluate without transforming, so that strings are parsed with the pattern of this parameter
+                Variable evaluated = callProcessor.body().decl(ref(Object.class), "_evaluated" + StringUtils.capitalize(fieldName),
+                        ExpressionFactory.invoke("evaluateAndTransform").arg(muleMessage).arg(ref(Object.class).dotclass()).arg(expectedMimeType).arg(source));
+                Variable transformed = callProcessor.body().decl(type, name, ExpressionFactory._null());
+                Conditional ifString = callProcessor.body()._if(Op._instanceof(evaluated, ref(String.class)));
+                ifString._then().assign(transformed, context.getClassForRole(StringToDateTransformerGenerator.ROLE).staticInvoke("parse").
+                        arg(ExpressionFactory.cast(ref(String.class), evaluated)).arg(datePattern.value()));
+                ifString._else().assign(transformed, ExpressionFactory.cast(type, ExpressionFactory.invoke("evaluateAndTransform").
+                        arg(muleMessage).arg(genericTypes.get(fieldName)).arg(expectedMimeType).arg(evaluated)));
+                parameters.add(transformed);
+            } else {
+                Invocation evaluateAndTransform = ExpressionFactory.invoke("evaluateAndTransform").arg(muleMessage).arg(genericTypes.get(fieldName)).
+                        arg(expectedMimeType).arg(source);
+                Cast cast = ExpressionFactory.cast(type, evaluateAndTransform);
 
-            Variable transformed = callProcessor.body().decl(type, name, cast);
-            parameters.add(transformed);
+                Variable transformed = callProcessor.body().decl(type, name, cast);
+                parameters.add(transformed);
+            }
         } else {
             Type type = ref(HashMap.class).narrow(ref(String.class), ref(Object.class));
             String name = "_transformed" + StringUtils.capitalize(fieldName);
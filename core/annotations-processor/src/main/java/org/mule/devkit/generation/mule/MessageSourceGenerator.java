@@ -27,13 +27,17 @@ import org.mule.api.annotations.Source;
 import org.mule.api.annotations.SourceThreadingModel;
 import org.mule.api.callback.SourceCallback;
 import org.mule.api.callback.StopSourceCallback;
+import org.mule.api.context.notification.CustomNotificationListener;
+import org.mule.api.context.notification.ServerNotification;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.devkit.generation.AbstractMessageGenerator;
 import org.mule.devkit.generation.DevKitTypeElement;
+import org.mule.devkit.generation.NamingContants;
 import org.mule.devkit.generation.spring.SchemaTypeConversion;
 import org.mule.devkit.model.code.Block;
 import org.mule.devkit.model.code.Cast;
 import org.mule.devkit.model.code.CatchBlock;
+import org.mule.devkit.model.code.ClassAlreadyExistsException;
 import org.mule.devkit.model.code.Conditional;
 import org.mule.devkit.model.code.DefinedClass;
 import org.mule.devkit.model.code.Expression;
@@ -47,7 +51,8 @@ import org.mule.devkit.model.code.TryStatement;
 import org.mule.devkit.model.code.Type;
 import org.mule.devkit.model.code.TypeReference;
 import org.mule.devkit.model.code.Variable;
-import org.mule.devkit.model.code.WhileLoop;
+import org.mule.util.concurrent.DaemonThreadFactory;
+import org.mule.util.concurrent.NamedThreadFactory;
 
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
@@ -56,8 +61,21 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class MessageSourceGenerator extends AbstractMessageGenerator {
+    public static final String WORKER_THREADS_FIELD_NAME = "workerThreads";
+    public static final String WORKER_QUEUE_SIZE_FIELD_NAME = "workerQueueSize";
+    private static final long WORKER_SHUTDOWN_TIMEOUT = 30000L;
+    private static final long PRIMARY_NODE_CHECK_INTERVAL = 5000L;
 
     @Override
     protected boolean shouldGenerate(DevKitTypeElement typeElement) {
@@ -75,7 +93,7 @@ public class MessageSourceGenerator extends AbstractMessageGenerator {
     private void generateMessageSource(DevKitTypeElement typeElement, ExecutableElement executableElement) {
         // get class
         Source sourceAnnotation = executableElement.getAnnotation(Source.class);
-        DefinedClass messageSourceClass = getMessageSourceClass(executableElement, sourceAnnotation.threadingModel() == SourceThreadingModel.SINGLE_THREAD);
+        DefinedClass messageSourceClass = getMessageSourceClass(executableElement, sourceAnnotation.threadingModel() != SourceThreadingModel.NONE);
 
         messageSourceClass.javadoc().add(messageSourceClass.name() + " wraps ");
         messageSourceClass.javadoc().add("{@link " + ((TypeElement) executableElement.getEnclosingElement()).getQualifiedName().toString() + "#");
@@ -115,13 +133,30 @@ public class MessageSourceGenerator extends AbstractMessageGenerator {
         }
 
         FieldVariable thread = null;
-        if (sourceAnnotation.threadingModel() == SourceThreadingModel.SINGLE_THREAD) {
+        if (sourceAnnotation.threadingModel() != SourceThreadingModel.NONE) {
             thread = messageSourceClass.field(Modifier.PRIVATE, ref(Thread.class), "thread");
             thread.javadoc().add("Thread under which this message source will execute");
         }
 
+        FieldVariable workerThreads = null;
+        FieldVariable workerQueueSize = null;
+        FieldVariable workerPool = null;
+        FieldVariable workerPermits = null;
+        if (sourceAnnotation.threadingModel() == SourceThreadingModel.WORKER_POOL) {
+            workerThreads = messageSourceClass.field(Modifier.PRIVATE, context.getCodeModel().INT, WORKER_THREADS_FIELD_NAME,
+                    ExpressionFactory.lit(sourceAnnotation.workerThreads()));
+            workerThreads.javadoc().add("Number of threads processing the messages generated by this message source");
+            workerQueueSize = messageSourceClass.field(Modifier.PRIVATE, context.getCodeModel().INT, WORKER_QUEUE_SIZE_FIELD_NAME,
+                    ExpressionFactory.lit(sourceAnnotation.workerQueueSize()));
+            workerQueueSize.javadoc().add("Number of messages that can wait for a worker thread before the receiving thread is blocked");
+            workerPool = messageSourceClass.field(Modifier.PRIVATE, ref(ExecutorService.class), "workerPool");
+            workerPool.javadoc().add("Threads processing the messages generated by this message source");
+            workerPermits = messageSourceClass.field(Modifier.PRIVATE, ref(Semaphore.class), "workerPermits");
+            workerPermits.javadoc().add("One permit for every message that can be running or waiting in the worker pool");
+        }
+
         // add initialise
-        generateInitialiseMethod(messageSourceClass, fields, typeElement, muleContext, null, null, object, null, !typeElement.needsConfig());
+        generateInitialiseMethod(messageSourceClass, fields, typeElement, muleContext, null, null, object, !typeElement.needsConfig());
 
         // add setmulecontext
         generateSetMuleContextMethod(messageSourceClass, muleContext);
@@ -147,32 +182,55 @@ public class MessageSourceGenerator extends AbstractMessageGenerator {
             }
         }
 
+        // generate setters for the worker pool
+        Method dispatch = null;
+        if (sourceAnnotation.threadingModel() == SourceThreadingModel.WORKER_POOL) {
+            generateSetter(messageSourceClass, workerThreads);
+            generateSetter(messageSourceClass, workerQueueSize);
+
+            DefinedClass workerClass = generateWorkerClass(messageSourceClass, messageProcessor, muleContext, flowConstruct, workerPermits);
+            dispatch = generateDispatchMethod(messageSourceClass, workerClass, workerPool, workerPermits);
+        }
+
         // add process method
-        generateSourceCallbackProcessMethod(messageSourceClass, messageProcessor, muleContext, flowConstruct);
-        generateSourceCallbackProcessWithPropertiesMethod(messageSourceClass, messageProcessor, muleContext, flowConstruct);
-        generateSourceCallbackProcessMethodWithNoPayload(messageSourceClass, messageProcessor, muleContext, flowConstruct);
+        generateSourceCallbackProcessMethod(messageSourceClass, messageProcessor, muleContext, flowConstruct, dispatch);
+        generateSourceCallbackProcessWithPropertiesMethod(messageSourceClass, messageProcessor, muleContext, flowConstruct, dispatch);
+        generateSourceCallbackProcessMethodWithNoPayload(messageSourceClass, messageProcessor, muleContext, flowConstruct, dispatch);
+        generateSourceCallbackProcessBatchMethod(messageSourceClass);
+        generateSourceCallbackProcessIteratorMethod(messageSourceClass, messageProcessor, muleContext, flowConstruct, dispatch);
+
+        // add start and stop methods
+        Method start = messageSourceClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "start");
+        start.javadoc().add("Method to be called when Mule instance gets started.");
+        start._throws(ref(MuleException.class));
+        Method stop = messageSourceClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "stop");
+        stop.javadoc().add("Method to be called when Mule instance gets stopped.");
+        stop._throws(ref(MuleException.class));
+
+        Block startSource = start.body();
+        if (sourceAnnotation.primaryNodeOnly()) {
+            startSource = generatePrimaryNodeOnlyStartAndStop(messageSourceClass, start, stop, muleContext).body();
+        }
 
         if (sourceAnnotation.threadingModel() == SourceThreadingModel.SINGLE_THREAD) {
-            // add start method
-            generateSingleThreadStartMethod(messageSourceClass, thread);
-            // add stop method
-            generateSingleThreadStopMethod(messageSourceClass, thread);
+            generateStartReceivingThread(startSource, thread);
+            stop.body().add(thread.invoke("interrupt"));
+        } else if (sourceAnnotation.threadingModel() == SourceThreadingModel.WORKER_POOL) {
+            generateStartWorkerPool(startSource, executableElement, workerThreads, workerQueueSize, workerPool, workerPermits);
+            generateStartReceivingThread(startSource, thread);
+            stop.javadoc().add(" Messages already handed to the worker pool are given some time to finish before the workers are interrupted.");
+            generateStopWorkerPool(stop.body(), thread, workerPool);
         } else {
             // get pool object if poolable
+            DefinedClass poolObjectClass = null;
             if (typeElement.isPoolable()) {
-                DefinedClass poolObjectClass = context.getClassForRole(context.getNameUtils().generatePoolObjectRoleKey(typeElement));
-
-                // add start method method
-                generateNoThreadStartMethod(messageSourceClass, executableElement, fields, connectFields, object, muleContext, poolObjectClass, flowConstruct, stopSourceCallback);
-            } else {
-                // add start method method
-                generateNoThreadStartMethod(messageSourceClass, executableElement, fields, connectFields, object, muleContext, flowConstruct, stopSourceCallback);
+                poolObjectClass = context.getClassForRole(context.getNameUtils().generatePoolObjectRoleKey(typeElement));
             }
-            // add stop method
-            generateNoThreadStopMethod(messageSourceClass, stopSourceCallback, executableElement);
+            generateSourceExecution(startSource, executableElement, fields, connectFields, object, muleContext, poolObjectClass, flowConstruct, executableElement.getSimpleName().toString(), stopSourceCallback);
+            generateStopSourceCallback(stop.body(), stopSourceCallback, executableElement);
         }
 
-        if (sourceAnnotation.threadingModel() == SourceThreadingModel.SINGLE_THREAD) {
+        if (sourceAnnotation.threadingModel() != SourceThreadingModel.NONE) {
             // get pool object if poolable
             if (typeElement.isPoolable()) {
                 DefinedClass poolObjectClass = context.getClassForRole(context.getNameUtils().generatePoolObjectRoleKey(typeElement));
@@ -193,14 +251,13 @@ public class MessageSourceGenerator extends AbstractMessageGenerator {
 
     private void generateRunMethod(DefinedClass messageSourceClass, ExecutableElement executableElement, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectFields, FieldVariable object, FieldVariable muleContext, DefinedClass poolObjectClass, FieldVariable flowConstruct, FieldVariable stopSourceCallback) {
         String methodName = executableElement.getSimpleName().toString();
-        Source sourceAnnotation = executableElement.getAnnotation(Source.class);
         Method run = messageSourceClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "run");
         run.javadoc().add("Implementation {@link Runnable#run()} that will invoke the method on the pojo that this message source wraps.");
 
-        generateSourceExecution(run.body(), executableElement, fields, connectFields, object, muleContext, poolObjectClass, flowConstruct, methodName, sourceAnnotation, stopSourceCallback);
+        generateSourceExecution(run.body(), executableElement, fields, connectFields, object, muleContext, poolObjectClass, flowConstruct, methodName, stopSourceCallback);
     }
 
-    private void generateSourceExecution(Block body, ExecutableElement executableElement, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectFields, FieldVariable object, FieldVariable muleContext, DefinedClass poolObjectClass, FieldVariable flowConstruct, String methodName, Source sourceAnnotation, FieldVariable stopSourceCallback) {
+    private void generateSourceExecution(Block body, ExecutableElement executableElement, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectFields, FieldVariable object, FieldVariable muleContext, DefinedClass poolObjectClass, FieldVariable flowConstruct, String methodName, FieldVariable stopSourceCallback) {
         DefinedClass moduleObjectClass = context.getClassForRole(context.getNameUtils().generateModuleObjectRoleKey((TypeElement) executableElement.getEnclosingElement()));
         Variable moduleObject = body.decl(moduleObjectClass, "castedModuleObject", ExpressionFactory._null());
 
@@ -230,11 +287,6 @@ public class MessageSourceGenerator extends AbstractMessageGenerator {
 
         TryStatement callSource = body._try();
 
-        if (sourceAnnotation.primaryNodeOnly()) {
-            WhileLoop ifNotPrimary = callSource.body()._while(Op.not(muleContext.invoke("isPrimaryPollingInstance")));
-            ifNotPrimary.body().add(ref(Thread.class).staticInvoke("sleep").arg(ExpressionFactory.lit(5000)));
-        }
-
         findConfig(callSource.body(), muleContext, object, methodName, null, moduleObjectClass, moduleObject);
 
         if (connectMethod != null) {
@@ -335,11 +387,6 @@ public class MessageSourceGenerator extends AbstractMessageGenerator {
             callSource.body().add(methodCall);
         }
 
-        if (sourceAnnotation.primaryNodeOnly()) {
-            // catch interrupted exception and do nothing
-            callSource._catch(ref(InterruptedException.class));
-        }
-
         CatchBlock catchMessagingException = callSource._catch(ref(MessagingException.class));
         Variable messagingException = catchMessagingException.param("e");
         catchMessagingException.body().add(flowConstruct.invoke("getExceptionListener").invoke("handleException").arg(messagingException).arg(messagingException.invoke("getEvent")));
@@ -376,51 +423,193 @@ public class MessageSourceGenerator extends AbstractMessageGenerator {
         }
     }
 
-    private void generateSingleThreadStartMethod(DefinedClass messageSourceClass, FieldVariable thread) {
-        Method start = messageSourceClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "start");
-        start.javadoc().add("Method to be called when Mule instance gets started.");
-        start._throws(ref(MuleException.class));
-        Conditional ifNoThread = start.body()._if(Op.eq(thread, ExpressionFactory._null()));
+    private Method generatePrimaryNodeOnlyStartAndStop(DefinedClass messageSourceClass, Method start, Method stop, FieldVariable muleContext) {
+        DefinedClass notificationClass = context.getClassForRole(PrimaryNodeNotificationGenerator.ROLE);
+
+        FieldVariable primaryNodeChecks = messageSourceClass.field(Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, ref(ScheduledExecutorService.class), "PRIMARY_NODE_CHECKS",
+                ref(Executors.class).staticInvoke("newSingleThreadScheduledExecutor").arg(ExpressionFactory._new(ref(DaemonThreadFactory.class)).arg(messageSourceClass.name() + " Primary Node Check")));
+        primaryNodeChecks.javadoc().add("Thread shared by all the instances of this source to check whether their node became the primary node");
+        FieldVariable sourceStarted = messageSourceClass.field(Modifier.PRIVATE | Modifier.VOLATILE, context.getCodeModel().BOOLEAN, "sourceStarted");
+        sourceStarted.javadoc().add("Whether the source is running on this node");
+        FieldVariable primaryNodeListener = messageSourceClass.field(Modifier.PRIVATE, ref(CustomNotificationListener.class).narrow(notificationClass), "primaryNodeListener");
+        primaryNodeListener.javadoc().add("Listener waiting for this node to become the primary node");
+        FieldVariable primaryNodeCheck = messageSourceClass.field(Modifier.PRIVATE | Modifier.VOLATILE, ref(ScheduledFuture.class).narrow(ref(Object.class).wildcard()), "primaryNodeCheck");
+        primaryNodeCheck.javadoc().add("Periodic check for runtimes that never fire the primary node notification");
+
+        Method startSource = messageSourceClass.method(Modifier.PRIVATE | Modifier.SYNCHRONIZED, context.getCodeModel().VOID, "startSource");
+        startSource.javadoc().add("Starts the source unless it is already running.");
+        startSource._throws(ref(MuleException.class));
+        startSource.body()._if(sourceStarted)._then()._return();
+        startSource.body().assign(sourceStarted, ExpressionFactory.TRUE);
+        generateCancelPrimaryNodeCheck(startSource.body(), primaryNodeCheck);
+
+        DefinedClass listenerClass = generatePrimaryNodeListenerClass(messageSourceClass, notificationClass, startSource, muleContext);
+        DefinedClass checkClass = generatePrimaryNodeCheckClass(messageSourceClass, startSource, muleContext);
+
+        start.javadoc().add(" The source is only started once this node is the primary node.");
+        Conditional ifPrimary = start.body()._if(muleContext.invoke("isPrimaryPollingInstance"));
+        ifPrimary._then().invoke(startSource);
+        Block ifNotPrimary = ifPrimary._else();
+        ifNotPrimary.assign(primaryNodeListener, ExpressionFactory._new(listenerClass));
+        ifNotPrimary.add(muleContext.invoke("registerListener").arg(primaryNodeListener));
+        ifNotPrimary.assign(primaryNodeCheck, primaryNodeChecks.invoke("scheduleWithFixedDelay").arg(ExpressionFactory._new(checkClass))
+                .arg(ExpressionFactory.lit(PRIMARY_NODE_CHECK_INTERVAL)).arg(ExpressionFactory.lit(PRIMARY_NODE_CHECK_INTERVAL))
+                .arg(ref(TimeUnit.class).staticRef("MILLISECONDS")));
+        // this node may have been promoted before the listener was registered
+        ifNotPrimary._if(muleContext.invoke("isPrimaryPollingInstance"))._then().invoke(startSource);
+
+        generateCancelPrimaryNodeCheck(stop.body(), primaryNodeCheck);
+        Block ifListener = stop.body()._if(Op.ne(primaryNodeListener, ExpressionFactory._null()))._then();
+        ifListener.add(muleContext.invoke("unregisterListener").arg(primaryNodeListener));
+        ifListener.assign(primaryNodeListener, ExpressionFactory._null());
+        stop.body()._if(Op.not(sourceStarted))._then()._return();
+        stop.body().assign(sourceStarted, ExpressionFactory.FALSE);
+
+        return startSource;
+    }
+
+    private void generateCancelPrimaryNodeCheck(Block block, FieldVariable primaryNodeCheck) {
+        Block ifCheck = block._if(Op.ne(primaryNodeCheck, ExpressionFactory._null()))._then();
+        ifCheck.add(primaryNodeCheck.invoke("cancel").arg(ExpressionFactory.FALSE));
+        ifCheck.assign(primaryNodeCheck, ExpressionFactory._null());
+    }
+
+    private DefinedClass generatePrimaryNodeListenerClass(DefinedClass messageSourceClass, DefinedClass notificationClass, Method startSource, FieldVariable muleContext) {
+        DefinedClass listenerClass;
+        try {
+            listenerClass = messageSourceClass._class(Modifier.PRIVATE, NamingContants.PRIMARY_NODE_LISTENER_CLASS_NAME_SUFFIX);
+        } catch (ClassAlreadyExistsException e) {
+            return e.getExistingClass();
+        }
+        listenerClass._implements(ref(CustomNotificationListener.class).narrow(notificationClass));
+        listenerClass.javadoc().add("Starts the source when this node becomes the primary node");
+
+        Method onNotification = listenerClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "onNotification");
+        Variable notification = onNotification.param(ref(ServerNotification.class), "notification");
+        Block ifPrimaryNode = onNotification.body()._if(Op._instanceof(notification, notificationClass))._then();
+        generateInvokeStartSource(ifPrimaryNode, startSource, muleContext);
+
+        return listenerClass;
+    }
+
+    private DefinedClass generatePrimaryNodeCheckClass(DefinedClass messageSourceClass, Method startSource, FieldVariable muleContext) {
+        DefinedClass checkClass;
+        try {
+            checkClass = messageSourceClass._class(Modifier.PRIVATE, NamingContants.PRIMARY_NODE_CHECK_CLASS_NAME_SUFFIX);
+        } catch (ClassAlreadyExistsException e) {
+            return e.getExistingClass();
+        }
+        checkClass._implements(Runnable.class);
+        checkClass.javadoc().add("Starts the source if this node became the primary node without a notification being fired");
+
+        Method run = checkClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "run");
+        Block ifPrimaryNode = run.body()._if(muleContext.invoke("isPrimaryPollingInstance"))._then();
+        generateInvokeStartSource(ifPrimaryNode, startSource, muleContext);
+
+        return checkClass;
+    }
+
+    private void generateInvokeStartSource(Block block, Method startSource, FieldVariable muleContext) {
+        TryStatement tryStart = block._try();
+        tryStart.body().invoke(startSource);
+        CatchBlock catchMuleException = tryStart._catch(ref(MuleException.class));
+        Variable e = catchMuleException.param("e");
+        catchMuleException.body().add(muleContext.invoke("getExceptionListener").invoke("handleException").arg(e));
+    }
+
+    private void generateStartReceivingThread(Block block, FieldVariable thread) {
+        Conditional ifNoThread = block._if(Op.eq(thread, ExpressionFactory._null()));
         Invocation newThread = ExpressionFactory._new(ref(Thread.class));
         newThread.arg(ExpressionFactory._this());
         newThread.arg("Receiving Thread");
         ifNoThread._then().assign(thread, newThread);
 
-        start.body().add(thread.invoke("start"));
+        block.add(thread.invoke("start"));
     }
 
-
-    private void generateSingleThreadStopMethod(DefinedClass messageSourceClass, FieldVariable thread) {
-        Method stop = messageSourceClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "stop");
-        stop.javadoc().add("Method to be called when Mule instance gets stopped.");
-        stop._throws(ref(MuleException.class));
-
-        stop.body().add(thread.invoke("interrupt"));
+    private void generateStartWorkerPool(Block block, ExecutableElement executableElement, FieldVariable workerThreads, FieldVariable workerQueueSize, FieldVariable workerPool, FieldVariable workerPermits) {
+        block.assign(workerPermits, ExpressionFactory._new(ref(Semaphore.class)).arg(Op.plus(workerThreads, workerQueueSize)));
+        Invocation newWorkerPool = ExpressionFactory._new(ref(ThreadPoolExecutor.class));
+        newWorkerPool.arg(workerThreads);
+        newWorkerPool.arg(workerThreads);
+        newWorkerPool.arg(ExpressionFactory.lit(0L));
+        newWorkerPool.arg(ref(TimeUnit.class).staticRef("MILLISECONDS"));
+        newWorkerPool.arg(ExpressionFactory._new(ref(ArrayBlockingQueue.class).narrow(Runnable.class)).arg(workerQueueSize));
+        newWorkerPool.arg(ExpressionFactory._new(ref(NamedThreadFactory.class)).arg(executableElement.getSimpleName().toString() + " Worker"));
+        block.assign(workerPool, newWorkerPool);
     }
 
-    private void generateNoThreadStartMethod(DefinedClass messageSourceClass, ExecutableElement executableElement, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectFields, FieldVariable object, FieldVariable muleContext, FieldVariable flowConstruct, FieldVariable stopSourceCallback) {
-        generateNoThreadStartMethod(messageSourceClass, executableElement, fields, connectFields, object, muleContext, null, flowConstruct, stopSourceCallback);
+    private void generateStopWorkerPool(Block block, FieldVariable thread, FieldVariable workerPool) {
+        block.add(thread.invoke("interrupt"));
+
+        Block ifWorkerPool = block._if(Op.ne(workerPool, ExpressionFactory._null()))._then();
+        ifWorkerPool.add(workerPool.invoke("shutdown"));
+        TryStatement tryAwait = ifWorkerPool._try();
+        Invocation awaitTermination = workerPool.invoke("awaitTermination").arg(ExpressionFactory.lit(WORKER_SHUTDOWN_TIMEOUT)).arg(ref(TimeUnit.class).staticRef("MILLISECONDS"));
+        tryAwait.body()._if(Op.not(awaitTermination))._then().add(workerPool.invoke("shutdownNow"));
+        CatchBlock catchInterrupted = tryAwait._catch(ref(InterruptedException.class));
+        catchInterrupted.param("e");
+        catchInterrupted.body().add(workerPool.invoke("shutdownNow"));
+        catchInterrupted.body().add(ref(Thread.class).staticInvoke("currentThread").invoke("interrupt"));
     }
 
-    private void generateNoThreadStartMethod(DefinedClass messageSourceClass, ExecutableElement executableElement, Map<String, FieldVariableElement> fields, Map<String, FieldVariableElement> connectFields, FieldVariable object, FieldVariable muleContext, DefinedClass poolObjectClass, FieldVariable flowConstruct, FieldVariable stopSourceCallback) {
-        String methodName = executableElement.getSimpleName().toString();
-        Source sourceAnnotation = executableElement.getAnnotation(Source.class);
-        Method start = messageSourceClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "start");
-        start.javadoc().add("Method to be called when Mule instance gets started.");
-        start._throws(ref(MuleException.class));
+    private DefinedClass generateWorkerClass(DefinedClass messageSourceClass, FieldVariable messageProcessor, FieldVariable muleContext, FieldVariable flowConstruct, FieldVariable workerPermits) {
+        DefinedClass workerClass;
+        try {
+            workerClass = messageSourceClass._class(Modifier.PRIVATE, NamingContants.WORKER_CLASS_NAME_SUFFIX);
+        } catch (ClassAlreadyExistsException e) {
+            return e.getExistingClass();
+        }
+        workerClass._implements(Runnable.class);
+        workerClass.javadoc().add("Processes a single event generated by the source in a worker thread");
+
+        FieldVariable event = workerClass.field(Modifier.PRIVATE, ref(MuleEvent.class), "event");
+        Method constructor = workerClass.constructor(Modifier.PUBLIC);
+        Variable eventParam = constructor.param(ref(MuleEvent.class), "event");
+        constructor.body().assign(ExpressionFactory._this().ref(event), eventParam);
+
+        Method run = workerClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "run");
+        TryStatement tryProcess = run.body()._try();
+        tryProcess.body().add(messageProcessor.invoke("process").arg(event));
 
-        generateSourceExecution(start.body(), executableElement, fields, connectFields, object, muleContext, poolObjectClass, flowConstruct, methodName, sourceAnnotation, stopSourceCallback);
+        CatchBlock catchMessagingException = tryProcess._catch(ref(MessagingException.class));
+        Variable messagingException = catchMessagingException.param("e");
+        catchMessagingException.body().add(flowConstruct.invoke("getExceptionListener").invoke("handleException").arg(messagingException).arg(messagingException.invoke("getEvent")));
+
+        CatchBlock catchException = tryProcess._catch(ref(Exception.class));
+        Variable exception = catchException.param("e");
+        catchException.body().add(muleContext.invoke("getExceptionListener").invoke("handleException").arg(exception));
+
+        tryProcess._finally().add(workerPermits.invoke("release"));
+
+        return workerClass;
+    }
+
+    private Method generateDispatchMethod(DefinedClass messageSourceClass, DefinedClass workerClass, FieldVariable workerPool, FieldVariable workerPermits) {
+        Method dispatch = messageSourceClass.method(Modifier.PRIVATE, context.getCodeModel().VOID, "dispatch");
+        dispatch.javadoc().add("Hands the event over to the worker pool, blocking the calling thread while the pool is full.");
+        dispatch.javadoc().addParam("event Event to be processed");
+        dispatch.javadoc().addThrows(ref(InterruptedException.class)).add("If interrupted while waiting for room in the pool");
+        dispatch._throws(ref(InterruptedException.class));
+        Variable event = dispatch.param(ref(MuleEvent.class), "event");
+
+        dispatch.body().add(workerPermits.invoke("acquire"));
+        TryStatement tryExecute = dispatch.body()._try();
+        tryExecute.body().add(workerPool.invoke("execute").arg(ExpressionFactory._new(workerClass).arg(event)));
+        CatchBlock catchRejected = tryExecute._catch(ref(RejectedExecutionException.class));
+        Variable e = catchRejected.param("e");
+        catchRejected.body().add(workerPermits.invoke("release"));
+        catchRejected.body()._throw(e);
+
+        return dispatch;
     }
 
 
-    private void generateNoThreadStopMethod(DefinedClass messageSourceClass, FieldVariable stopSourceCallback, ExecutableElement executableElement) {
+    private void generateStopSourceCallback(Block block, FieldVariable stopSourceCallback, ExecutableElement executableElement) {
         String methodName = executableElement.getSimpleName().toString();
-        Method stop = messageSourceClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "stop");
-        stop.javadoc().add("Method to be called when Mule instance gets stopped.");
-        stop._throws(ref(MuleException.class));
 
         if( stopSourceCallback != null ) {
-            Conditional ifStopCallbackNotNull = stop.body()._if(Op.ne(stopSourceCallback, ExpressionFactory._null()));
+            Conditional ifStopCallbackNotNull = block._if(Op.ne(stopSourceCallback, ExpressionFactory._null()));
             TryStatement tryToStop = ifStopCallbackNotNull._then()._try();
             tryToStop.body().add(stopSourceCallback.invoke("stop"));
             CatchBlock catchException = tryToStop._catch(ref(Exception.class));
@@ -0,0 +1,87 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.devkit.generation.mule;
+
+import org.mule.api.annotations.Connector;
+import org.mule.api.annotations.Module;
+import org.mule.api.annotations.Source;
+import org.mule.context.notification.CustomNotification;
+import org.mule.devkit.generation.AbstractModuleGenerator;
+import org.mule.devkit.generation.DevKitTypeElement;
+import org.mule.devkit.generation.GenerationException;
+import org.mule.devkit.generation.NamingContants;
+import org.mule.devkit.model.code.ClassAlreadyExistsException;
+import org.mule.devkit.model.code.DefinedClass;
+import org.mule.devkit.model.code.ExpressionFactory;
+import org.mule.devkit.model.code.FieldVariable;
+import org.mule.devkit.model.code.Method;
+import org.mule.devkit.model.code.Modifier;
+import org.mule.devkit.model.code.Op;
+import org.mule.devkit.model.code.Variable;
+
+import javax.lang.model.element.ExecutableElement;
+
+public class PrimaryNodeNotificationGenerator extends AbstractModuleGenerator {
+
+    public static final String ROLE = "PrimaryNodeNotification";
+    private static final int PRIMARY_NODE_SELECTED_ACTION_OFFSET = 3001;
+
+    @Override
+    protected boolean shouldGenerate(DevKitTypeElement typeElement) {
+        if (!typeElement.hasAnnotation(Module.class) && !typeElement.hasAnnotation(Connector.class)) {
+            return false;
+        }
+
+        for (ExecutableElement executableElement : typeElement.getMethodsAnnotatedWith(Source.class)) {
+            if (executableElement.getAnnotation(Source.class).primaryNodeOnly()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    protected void doGenerate(DevKitTypeElement typeElement) throws GenerationException {
+        String notificationClassName = context.getNameUtils().generateClassNameInPackage(typeElement, NamingContants.MESSAGE_SOURCE_NAMESPACE, NamingContants.PRIMARY_NODE_NOTIFICATION_CLASS_NAME);
+        org.mule.devkit.model.code.Package pkg = context.getCodeModel()._package(context.getNameUtils().getPackageName(notificationClassName));
+        DefinedClass notificationClass;
+        try {
+            notificationClass = pkg._class(Modifier.PUBLIC, context.getNameUtils().getClassName(notificationClassName));
+        } catch (ClassAlreadyExistsException e) {
+            // another module in the same package already generated it
+            context.setClassRole(ROLE, e.getExistingClass());
+            return;
+        }
+        notificationClass._extends(CustomNotification.class);
+        notificationClass.javadoc().add("Notification fired when this node becomes the primary node of the cluster. Message sources ");
+        notificationClass.javadoc().add("that only run on the primary node start as soon as they receive it instead of waiting for their next check of ");
+        notificationClass.javadoc().add("{@link org.mule.api.MuleContext#isPrimaryPollingInstance()}.");
+
+        FieldVariable primaryNodeSelected = notificationClass.field(Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL, context.getCodeModel().INT, "PRIMARY_NODE_SELECTED",
+                Op.plus(ref(CustomNotification.class).staticRef("CUSTOM_EVENT_ACTION_START_RANGE"), ExpressionFactory.lit(PRIMARY_NODE_SELECTED_ACTION_OFFSET)));
+        primaryNodeSelected.javadoc().add("Action of the notification");
+
+        Method constructor = notificationClass.constructor(Modifier.PUBLIC);
+        constructor.javadoc().add("Create a new notification");
+        constructor.javadoc().addParam("source Object firing the notification");
+        Variable source = constructor.param(ref(Object.class), "source");
+        constructor.body().invoke("super").arg(source).arg(primaryNodeSelected);
+
+        context.setClassRole(ROLE, notificationClass);
+    }
+}
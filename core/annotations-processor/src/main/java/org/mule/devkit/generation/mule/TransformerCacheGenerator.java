@@ -0,0 +1,254 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.generation.mule;
+
+import org.mule.api.MuleContext;
+import org.mule.api.annotations.Connector;
+import org.mule.api.annotations.ExpressionEnricher;
+import org.mule.api.annotations.ExpressionEvaluator;
+import org.mule.api.annotations.ExpressionLanguage;
+import org.mule.api.annotations.Module;
+import org.mule.api.annotations.Processor;
+import org.mule.api.registry.RegistrationException;
+import org.mule.api.registry.TransformerResolver;
+import org.mule.api.transformer.DataType;
+import org.mule.api.transformer.Transformer;
+import org.mule.api.transformer.TransformerException;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.devkit.generation.AbstractModuleGenerator;
+import org.mule.devkit.generation.DevKitTypeElement;
+import org.mule.devkit.generation.GenerationException;
+import org.mule.devkit.generation.NamingContants;
+import org.mule.devkit.model.code.CatchBlock;
+import org.mule.devkit.model.code.ClassAlreadyExistsException;
+import org.mule.devkit.model.code.Conditional;
+import org.mule.devkit.model.code.DefinedClass;
+import org.mule.devkit.model.code.Expression;
+import org.mule.devkit.model.code.ExpressionFactory;
+import org.mule.devkit.model.code.FieldVariable;
+import org.mule.devkit.model.code.Method;
+import org.mule.devkit.model.code.Modifier;
+import org.mule.devkit.model.code.Op;
+import org.mule.devkit.model.code.TryStatement;
+import org.mule.devkit.model.code.Variable;
+import org.mule.devkit.model.code.builders.FieldBuilder;
+import org.mule.transformer.types.DataTypeFactory;
+import org.mule.util.UUID;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class TransformerCacheGenerator extends AbstractModuleGenerator {
+
+    public static final String ROLE = "TransformerCache";
+
+    @Override
+    protected boolean shouldGenerate(DevKitTypeElement typeElement) {
+        boolean hasProcessors = (typeElement.hasAnnotation(Module.class) || typeElement.hasAnnotation(Connector.class)) &&
+                typeElement.hasMethodsAnnotatedWith(Processor.class);
+        boolean hasExpressions = typeElement.hasAnnotation(ExpressionLanguage.class) &&
+                (typeElement.hasMethodsAnnotatedWith(ExpressionEvaluator.class) || typeElement.hasMethodsAnnotatedWith(ExpressionEnricher.class));
+
+        return hasProcessors || hasExpressions;
+    }
+
+    @Override
+    protected void doGenerate(DevKitTypeElement typeElement) throws GenerationException {
+        String transformerCacheClassName = context.getNameUtils().generateClassNameInPackage(typeElement, NamingContants.CONFIG_NAMESPACE, NamingContants.TRANSFORMER_CACHE_CLASS_NAME);
+        org.mule.devkit.model.code.Package pkg = context.getCodeModel()._package(context.getNameUtils().getPackageName(transformerCacheClassName));
+        DefinedClass transformerCacheClass;
+        try {
+            transformerCacheClass = pkg._class(Modifier.PUBLIC, context.getNameUtils().getClassName(transformerCacheClassName));
+        } catch (ClassAlreadyExistsException e) {
+            // another module in the same package already generated it
+            context.setClassRole(ROLE, e.getExistingClass());
+            return;
+        }
+        transformerCacheClass._implements(ref(TransformerResolver.class));
+        transformerCacheClass.javadoc().add("Caches the transformers resolved from the registry for a given source class and expected type, ");
+        transformerCacheClass.javadoc().add("including the pairs for which no transformer could be found. The cache registers itself as a ");
+        transformerCacheClass.javadoc().add(ref(TransformerResolver.class));
+        transformerCacheClass.javadoc().add(" so it gets cleared whenever a transformer is added to or removed from the registry.");
+
+        DefinedClass keyClass = generateKeyClass(transformerCacheClass);
+
+        FieldVariable notFound = FieldBuilder.newConstantFieldBuilder(transformerCacheClass).
+                type(Object.class).
+                name("NOT_FOUND").
+                initialValue(ExpressionFactory._new(ref(Object.class))).
+                build();
+        notFound.javadoc().add("Marker stored for the pairs for which the registry holds no transformer");
+
+        FieldVariable muleContext = transformerCacheClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(MuleContext.class), "muleContext");
+        muleContext.javadoc().add("Mule Context");
+
+        FieldVariable name = transformerCacheClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(String.class), "name");
+        name.javadoc().add("Name under which this cache is registered");
+
+        FieldVariable transformers = transformerCacheClass.field(Modifier.PRIVATE | Modifier.FINAL,
+                ref(ConcurrentMap.class).narrow(keyClass).narrow(ref(Object.class)), "transformers",
+                ExpressionFactory._new(ref(ConcurrentHashMap.class).narrow(keyClass).narrow(ref(Object.class))));
+        transformers.javadoc().add("Resolved transformers");
+
+        Method constructor = transformerCacheClass.constructor(Modifier.PUBLIC);
+        Variable muleContextParam = constructor.param(ref(MuleContext.class), "muleContext");
+        constructor.body().assign(ExpressionFactory._this().ref(muleContext), muleContextParam);
+        constructor.body().assign(ExpressionFactory._this().ref(name),
+                Op.plus(transformerCacheClass.dotclass().invoke("getName"), Op.plus(ExpressionFactory.lit("."), ref(UUID.class).staticInvoke("getUUID"))));
+
+        generateRegisterMethod(transformerCacheClass, muleContext, name);
+        generateUnregisterMethod(transformerCacheClass, muleContext, name);
+        generateLookupTransformerMethod(transformerCacheClass, keyClass, notFound, muleContext, transformers);
+        generateResolveMethod(transformerCacheClass);
+        generateTransformerChangeMethod(transformerCacheClass, transformers);
+
+        context.setClassRole(ROLE, transformerCacheClass);
+    }
+
+    private void generateRegisterMethod(DefinedClass transformerCacheClass, FieldVariable muleContext, FieldVariable name) {
+        Method register = transformerCacheClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "register");
+        register.javadoc().add("Registers this cache in the Mule registry so it gets notified of transformer changes");
+        register.javadoc().addThrows(ref(RegistrationException.class)).add("If the cache cannot be registered");
+        register._throws(ref(RegistrationException.class));
+        register.body().add(muleContext.invoke("getRegistry").invoke("registerObject").arg(name).arg(ExpressionFactory._this()));
+    }
+
+    private void generateUnregisterMethod(DefinedClass transformerCacheClass, FieldVariable muleContext, FieldVariable name) {
+        Method unregister = transformerCacheClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "unregister");
+        unregister.javadoc().add("Removes this cache from the Mule registry");
+
+        TryStatement tryUnregister = unregister.body()._try();
+        tryUnregister.body().add(muleContext.invoke("getRegistry").invoke("unregisterObject").arg(name));
+        CatchBlock catchBlock = tryUnregister._catch(ref(RegistrationException.class));
+        catchBlock.param("e");
+        catchBlock.body().directStatement("// the registry is being disposed, nothing left to notify us");
+    }
+
+    private void generateLookupTransformerMethod(DefinedClass transformerCacheClass, DefinedClass keyClass, FieldVariable notFound, FieldVariable muleContext, FieldVariable transformers) {
+        Method lookupTransformer = transformerCacheClass.method(Modifier.PUBLIC, ref(Transformer.class), "lookupTransformer");
+        lookupTransformer.javadoc().add("Finds a transformer able to convert instances of the source class into the expected type. ");
+        lookupTransformer.javadoc().add("The registry is only queried the first time a given pair is requested.");
+        lookupTransformer.javadoc().addParam("sourceClass Class of the value to be transformed");
+        lookupTransformer.javadoc().addParam("expectedType Type the value needs to be transformed into");
+        lookupTransformer.javadoc().addParam("expectedMimeType Mime type of the transformed value, or null if any");
+        lookupTransformer.javadoc().addReturn("A transformer");
+        lookupTransformer.javadoc().addThrows(ref(TransformerException.class)).add("If there is no transformer for the given pair");
+        lookupTransformer._throws(ref(TransformerException.class));
+        Variable sourceClass = lookupTransformer.param(ref(Class.class), "sourceClass");
+        Variable expectedType = lookupTransformer.param(ref(java.lang.reflect.Type.class), "expectedType");
+        Variable expectedMimeType = lookupTransformer.param(ref(String.class), "expectedMimeType");
+
+        Variable key = lookupTransformer.body().decl(keyClass, "key",
+                ExpressionFactory._new(keyClass).arg(sourceClass).arg(expectedType).arg(expectedMimeType));
+        Variable transformer = lookupTransformer.body().decl(ref(Object.class), "transformer", transformers.invoke("get").arg(key));
+        lookupTransformer.body()._if(Op.cand(Op.ne(transformer, ExpressionFactory._null()), Op.ne(transformer, notFound)))._then().
+                _return(ExpressionFactory.cast(ref(Transformer.class), transformer));
+
+        Variable targetClass = lookupTransformer.body().decl(ref(java.lang.reflect.Type.class), "targetClass", expectedType);
+        Conditional ifParameterizedType = lookupTransformer.body()._if(Op._instanceof(targetClass, ref(ParameterizedType.class)));
+        ifParameterizedType._then().assign(targetClass, ExpressionFactory.cast(ref(ParameterizedType.class), targetClass).invoke("getRawType"));
+
+        Variable sourceDataType = lookupTransformer.body().decl(ref(DataType.class), "sourceDataType",
+                ref(DataTypeFactory.class).staticInvoke("create").arg(sourceClass));
+        Variable targetDataType = lookupTransformer.body().decl(ref(DataType.class), "targetDataType", ExpressionFactory._null());
+        Conditional ifExpectedMimeTypeNotNull = lookupTransformer.body()._if(Op.ne(expectedMimeType, ExpressionFactory._null()));
+        ifExpectedMimeTypeNotNull._then().assign(targetDataType, ref(DataTypeFactory.class).staticInvoke("create").arg(
+                ExpressionFactory.cast(ref(Class.class), targetClass)).arg(expectedMimeType));
+        ifExpectedMimeTypeNotNull._else().assign(targetDataType, ref(DataTypeFactory.class).staticInvoke("create").arg(
+                ExpressionFactory.cast(ref(Class.class), targetClass)));
+
+        lookupTransformer.body()._if(Op.eq(transformer, notFound))._then()._throw(ExpressionFactory._new(ref(TransformerException.class)).arg(
+                ref(CoreMessages.class).staticInvoke("noTransformerFoundForMessage").arg(sourceDataType).arg(targetDataType)));
+
+        TryStatement tryLookup = lookupTransformer.body()._try();
+        tryLookup.body().assign(transformer, muleContext.invoke("getRegistry").invoke("lookupTransformer").arg(sourceDataType).arg(targetDataType));
+        CatchBlock catchNotFound = tryLookup._catch(ref(TransformerException.class));
+        Variable e = catchNotFound.param("e");
+        catchNotFound.body().add(transformers.invoke("put").arg(key).arg(notFound));
+        catchNotFound.body()._throw(e);
+
+        Conditional ifNull = lookupTransformer.body()._if(Op.eq(transformer, ExpressionFactory._null()));
+        ifNull._then().add(transformers.invoke("put").arg(key).arg(notFound));
+        ifNull._then()._throw(ExpressionFactory._new(ref(TransformerException.class)).arg(
+                ref(CoreMessages.class).staticInvoke("noTransformerFoundForMessage").arg(sourceDataType).arg(targetDataType)));
+
+        lookupTransformer.body().add(transformers.invoke("put").arg(key).arg(transformer));
+        lookupTransformer.body()._return(ExpressionFactory.cast(ref(Transformer.class), transformer));
+    }
+
+    private void generateResolveMethod(DefinedClass transformerCacheClass) {
+        Method resolve = transformerCacheClass.method(Modifier.PUBLIC, ref(Transformer.class), "resolve");
+        resolve.javadoc().add("This cache does not resolve transformers on behalf of the registry");
+        resolve.param(ref(DataType.class), "source");
+        resolve.param(ref(DataType.class), "result");
+        resolve.body()._return(ExpressionFactory._null());
+    }
+
+    private void generateTransformerChangeMethod(DefinedClass transformerCacheClass, FieldVariable transformers) {
+        Method transformerChange = transformerCacheClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "transformerChange");
+        transformerChange.javadoc().add("Clears the cache since a previous lookup may now resolve differently");
+        transformerChange.param(ref(Transformer.class), "transformer");
+        transformerChange.param(ref(TransformerResolver.RegistryAction.class), "registryAction");
+        transformerChange.body().add(transformers.invoke("clear"));
+    }
+
+    private DefinedClass generateKeyClass(DefinedClass transformerCacheClass) throws GenerationException {
+        DefinedClass keyClass;
+        try {
+            keyClass = transformerCacheClass._class(Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, "Key");
+        } catch (ClassAlreadyExistsException e) {
+            throw new GenerationException(e);
+        }
+        keyClass.javadoc().add("A source class, expected type and mime type tuple");
+
+        FieldVariable sourceClass = keyClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(Class.class), "sourceClass");
+        FieldVariable expectedType = keyClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(java.lang.reflect.Type.class), "expectedType");
+        FieldVariable expectedMimeType = keyClass.field(Modifier.PRIVATE | Modifier.FINAL, ref(String.class), "expectedMimeType");
+        FieldVariable hash = keyClass.field(Modifier.PRIVATE | Modifier.FINAL, context.getCodeModel().INT, "hash");
+
+        Method constructor = keyClass.constructor(Modifier.PUBLIC);
+        Variable sourceClassParam = constructor.param(ref(Class.class), "sourceClass");
+        Variable expectedTypeParam = constructor.param(ref(java.lang.reflect.Type.class), "expectedType");
+        Variable expectedMimeTypeParam = constructor.param(ref(String.class), "expectedMimeType");
+        constructor.body().assign(ExpressionFactory._this().ref(sourceClass), sourceClassParam);
+        constructor.body().assign(ExpressionFactory._this().ref(expectedType), expectedTypeParam);
+        constructor.body().assign(ExpressionFactory._this().ref(expectedMimeType), expectedMimeTypeParam);
+        Expression hashValue = Op.plus(Op.mul(sourceClassParam.invoke("hashCode"), ExpressionFactory.lit(31)), expectedTypeParam.invoke("hashCode"));
+        hashValue = Op.plus(Op.mul(hashValue, ExpressionFactory.lit(31)),
+                Op.cond(Op.eq(expectedMimeTypeParam, ExpressionFactory._null()), ExpressionFactory.lit(0), expectedMimeTypeParam.invoke("hashCode")));
+        constructor.body().assign(ExpressionFactory._this().ref(hash), hashValue);
+
+        Method hashCode = keyClass.method(Modifier.PUBLIC, context.getCodeModel().INT, "hashCode");
+        hashCode.body()._return(hash);
+
+        Method equals = keyClass.method(Modifier.PUBLIC, context.getCodeModel().BOOLEAN, "equals");
+        Variable obj = equals.param(ref(Object.class), "obj");
+        equals.body()._if(Op.not(Op._instanceof(obj, keyClass)))._then()._return(ExpressionFactory.FALSE);
+        Variable other = equals.body().decl(keyClass, "other", ExpressionFactory.cast(keyClass, obj));
+        Expression sameMimeType = Op.cond(Op.eq(expectedMimeType, ExpressionFactory._null()),
+                Op.eq(other.ref(expectedMimeType), ExpressionFactory._null()),
+                expectedMimeType.invoke("equals").arg(other.ref(expectedMimeType)));
+        equals.body()._return(Op.cand(Op.cand(
+                Op.eq(sourceClass, other.ref(sourceClass)),
+                expectedType.invoke("equals").arg(other.ref(expectedType))),
+                sameMimeType));
+
+        return keyClass;
+    }
+}
@@ -64,9 +64,6 @@ import org.mule.expression.ExpressionUtils;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
-import javax.lang.model.type.TypeKind;
-import java.lang.reflect.Type;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -120,9 +117,12 @@ public class ExpressionEnricherGenerator extends AbstractMessageGenerator {
         context.note("Generating message enricher " + enricherClass.fullName() + " for language at class " + typeElement.getSimpleName().toString());
 
         FieldVariable module = generateModuleField(moduleObject, enricherClass);
+        FieldVariable muleContextField = generateFieldForMuleContext(enricherClass);
+        FieldVariable transformerCache = generateFieldForTransformerCache(enricherClass);
 
         Method setMuleContext = enricherClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "setMuleContext");
         Variable muleContext = setMuleContext.param(ref(MuleContext.class), "muleContext");
+        setMuleContext.body().assign(ExpressionFactory._this().ref(muleContextField), muleContext);
         Conditional ifModuleIsContextAware = setMuleContext.body()._if(Op._instanceof(module, ref(MuleContextAware.class)));
         ifModuleIsContextAware._then().add(ExpressionFactory.cast(ref(MuleContextAware.class), module).invoke("setMuleContext").arg(muleContext));
 
@@ -140,12 +140,15 @@ public class ExpressionEnricherGenerator extends AbstractMessageGenerator {
         init._throws(ref(InitialisationException.class));
         Conditional ifModuleIsInitialisable = init.body()._if(Op._instanceof(module, ref(Initialisable.class)));
         ifModuleIsInitialisable._then().add(ExpressionFactory.cast(ref(Initialisable.class), module).invoke("initialise"));
+        generateInitialiseTransformerCache(init, transformerCache, muleContextField);
 
         Method dispose = enricherClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "dispose");
         Conditional ifModuleIsDisposable = dispose.body()._if(Op._instanceof(module, ref(Disposable.class)));
         ifModuleIsDisposable._then().add(ExpressionFactory.cast(ref(Disposable.class), module).invoke("dispose"));
+        generateDisposeTransformerCache(dispose, transformerCache);
 
-        generateConstructor(moduleObject, enricherClass, module);
+        Method constructor = generateConstructor(moduleObject, enricherClass, module);
+        List<FieldVariable> types = generateFieldsForGenericParameterTypes(enricherClass, constructor, moduleObject, executableElement);
 
         generateGetName(name, enricherClass);
 
@@ -157,7 +160,7 @@ public class ExpressionEnricherGenerator extends AbstractMessageGenerator {
         generateIsListMethod(enricherClass);
         generateIsMapMethod(enricherClass);
         generateIsAssignableFrom(enricherClass);
-        generateTransformMethod(enricherClass);
+        generateTransformMethod(enricherClass, transformerCache);
 
         Method enrich = enricherClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "enrich");
         Variable expression = enrich.param(ref(String.class), "expression");
@@ -166,32 +169,7 @@ public class ExpressionEnricherGenerator extends AbstractMessageGenerator {
 
         TryStatement tryStatement = enrich.body()._try();
 
-        Invocation newArray = ExpressionFactory._new(ref(Class.class).array());
-        for (VariableElement parameter : executableElement.getParameters()) {
-            if( parameter.asType().getKind() == TypeKind.BOOLEAN ||
-                    parameter.asType().getKind() == TypeKind.BYTE ||
-                    parameter.asType().getKind() == TypeKind.SHORT ||
-                    parameter.asType().getKind() == TypeKind.CHAR ||
-                    parameter.asType().getKind() == TypeKind.INT ||
-                    parameter.asType().getKind() == TypeKind.FLOAT ||
-                    parameter.asType().getKind() == TypeKind.LONG ||
-                    parameter.asType().getKind() == TypeKind.DOUBLE) {
-                newArray.arg(ref(parameter.asType()).boxify().staticRef("TYPE"));
-            } else {
-                newArray.arg(ref(parameter.asType()).boxify().dotclass());
-            }
-        }
-        Variable parameterClasses = tryStatement.body().decl(ref(Class.class).array(), "parameterClasses", newArray);
         int argCount = 0;
-        Invocation getMethod = module.invoke("getClass").invoke("getMethod").arg(executableElement.getSimpleName().toString()).arg(parameterClasses);
-        Variable moduleEvaluate = tryStatement.body().decl(ref(java.lang.reflect.Method.class), "evaluateMethod", getMethod);
-        List<Variable> types = new ArrayList<Variable>();
-        for (VariableElement parameter : executableElement.getParameters()) {
-            Variable var = tryStatement.body().decl(ref(Type.class), parameter.getSimpleName().toString() + "Type", moduleEvaluate.invoke("getGenericParameterTypes").component(ExpressionFactory.lit(types.size())));
-            types.add(var);
-        }
-
-        argCount = 0;
         Variable invocationHeadersVar = null;
         Variable inboundHeadersVar = null;
         Variable outboundHeadersVar = null;
@@ -318,7 +296,6 @@ public class ExpressionEnricherGenerator extends AbstractMessageGenerator {
             forEach.body().add(message.invoke("setProperty").arg(forEach.var()).arg(invocationHeadersVar.invoke("get").arg(forEach.var())).arg(ref(PropertyScope.class).staticRef("INVOCATION")));
         }
 
-        catchAndRethrowAsRuntimeException(tryStatement, NoSuchMethodException.class);
         catchAndRethrowAsRuntimeException(tryStatement, TransformerException.class);
 
         context.registerAtBoot(enricherClass);
@@ -426,9 +403,11 @@ public class ExpressionEnricherGenerator extends AbstractMessageGenerator {
         return evaluatorClass.field(Modifier.PRIVATE, typeElement, "module", ExpressionFactory._null());
     }
 
-    private void generateConstructor(TypeReference typeRef, DefinedClass evaluatorClass, FieldVariable module) {
+    private Method generateConstructor(TypeReference typeRef, DefinedClass evaluatorClass, FieldVariable module) {
         Method constructor = evaluatorClass.constructor(Modifier.PUBLIC);
         constructor.body().assign(module, ExpressionFactory._new(typeRef));
+
+        return constructor;
     }
 
     private void generateGetName(String name, DefinedClass evaluatorClass) {
@@ -60,9 +60,6 @@ import org.mule.expression.ExpressionUtils;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
-import javax.lang.model.type.TypeKind;
-import java.lang.reflect.Type;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -84,9 +81,12 @@ public class ExpressionEvaluatorGenerator extends AbstractMessageGenerator {
         context.note("Generating expression evaluator " + evaluatorClass.fullName() + " for language at class " + typeElement.getSimpleName().toString());
 
         FieldVariable module = generateModuleField(moduleObject, evaluatorClass);
+        FieldVariable muleContextField = generateFieldForMuleContext(evaluatorClass);
+        FieldVariable transformerCache = generateFieldForTransformerCache(evaluatorClass);
 
         Method setMuleContext = evaluatorClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "setMuleContext");
         Variable muleContext = setMuleContext.param(ref(MuleContext.class), "muleContext");
+        setMuleContext.body().assign(ExpressionFactory._this().ref(muleContextField), muleContext);
         Conditional ifModuleIsContextAware = setMuleContext.body()._if(Op._instanceof(module, ref(MuleContextAware.class)));
         ifModuleIsContextAware._then().add(ExpressionFactory.cast(ref(MuleContextAware.class), module).invoke("setMuleContext").arg(muleContext));
 
@@ -104,12 +104,15 @@ public class ExpressionEvaluatorGenerator extends AbstractMessageGenerator {
         init._throws(ref(InitialisationException.class));
         Conditional ifModuleIsInitialisable = init.body()._if(Op._instanceof(module, ref(Initialisable.class)));
         ifModuleIsInitialisable._then().add(ExpressionFactory.cast(ref(Initialisable.class), module).invoke("initialise"));
+        generateInitialiseTransformerCache(init, transformerCache, muleContextField);
 
         Method dispose = evaluatorClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "dispose");
         Conditional ifModuleIsDisposable = dispose.body()._if(Op._instanceof(module, ref(Disposable.class)));
         ifModuleIsDisposable._then().add(ExpressionFactory.cast(ref(Disposable.class), module).invoke("dispose"));
+        generateDisposeTransformerCache(dispose, transformerCache);
 
-        generateConstructor(moduleObject, evaluatorClass, module);
+        Method constructor = generateConstructor(moduleObject, evaluatorClass, module);
+        List<FieldVariable> types = generateFieldsForGenericParameterTypes(evaluatorClass, constructor, moduleObject, executableElement);
 
         generateGetName(name, evaluatorClass);
 
@@ -121,7 +124,7 @@ public class ExpressionEvaluatorGenerator extends AbstractMessageGenerator {
         generateIsListMethod(evaluatorClass);
         generateIsMapMethod(evaluatorClass);
         generateIsAssignableFrom(evaluatorClass);
-        generateTransformMethod(evaluatorClass);
+        generateTransformMethod(evaluatorClass, transformerCache);
 
         Method evaluate = evaluatorClass.method(Modifier.PUBLIC, ref(Object.class), "evaluate");
         Variable expression = evaluate.param(ref(String.class), "expression");
@@ -129,34 +132,7 @@ public class ExpressionEvaluatorGenerator extends AbstractMessageGenerator {
 
         TryStatement tryStatement = evaluate.body()._try();
 
-        Invocation newArray = ExpressionFactory._new(ref(Class.class).array());
-        for (VariableElement parameter : executableElement.getParameters()) {
-            //tryStatement.body().assign(parameterClasses.component(ExpressionFactory.lit(argCount)), ref(parameter.asType()).boxify().dotclass());
-            if (parameter.asType().getKind() == TypeKind.BOOLEAN ||
-                    parameter.asType().getKind() == TypeKind.BYTE ||
-                    parameter.asType().getKind() == TypeKind.SHORT ||
-                    parameter.asType().getKind() == TypeKind.CHAR ||
-                    parameter.asType().getKind() == TypeKind.INT ||
-                    parameter.asType().getKind() == TypeKind.FLOAT ||
-                    parameter.asType().getKind() == TypeKind.LONG ||
-                    parameter.asType().getKind() == TypeKind.DOUBLE) {
-                newArray.arg(ref(parameter.asType()).boxify().staticRef("TYPE"));
-            } else {
-                newArray.arg(ref(parameter.asType()).boxify().dotclass());
-            }
-            //argCount++;
-        }
-        Variable parameterClasses = tryStatement.body().decl(ref(Class.class).array(), "parameterClasses", newArray);
         int argCount = 0;
-        Invocation getMethod = module.invoke("getClass").invoke("getMethod").arg(executableElement.getSimpleName().toString()).arg(parameterClasses);
-        Variable moduleEvaluate = tryStatement.body().decl(ref(java.lang.reflect.Method.class), "evaluateMethod", getMethod);
-        List<Variable> types = new ArrayList<Variable>();
-        for (VariableElement parameter : executableElement.getParameters()) {
-            Variable var = tryStatement.body().decl(ref(Type.class), parameter.getSimpleName().toString() + "Type", moduleEvaluate.invoke("getGenericParameterTypes").component(ExpressionFactory.lit(types.size())));
-            types.add(var);
-        }
-
-        argCount = 0;
         Invocation evaluateInvoke = module.invoke(executableElement.getSimpleName().toString());
         for (VariableElement parameter : executableElement.getParameters()) {
             if (parameter.getAnnotation(Payload.class) != null) {
@@ -244,7 +220,6 @@ public class ExpressionEvaluatorGenerator extends AbstractMessageGenerator {
 
         tryStatement.body()._return(evaluateInvoke);
 
-        catchAndRethrowAsRuntimeException(tryStatement, NoSuchMethodException.class);
         catchAndRethrowAsRuntimeException(tryStatement, TransformerException.class);
 
         context.registerAtBoot(evaluatorClass);
@@ -260,9 +235,11 @@ public class ExpressionEvaluatorGenerator extends AbstractMessageGenerator {
         return evaluatorClass.field(Modifier.PRIVATE, typeElement, "module", ExpressionFactory._null());
     }
 
-    private void generateConstructor(TypeReference typeElement, DefinedClass evaluatorClass, FieldVariable module) {
+    private Method generateConstructor(TypeReference typeElement, DefinedClass evaluatorClass, FieldVariable module) {
         Method constructor = evaluatorClass.constructor(Modifier.PUBLIC);
         constructor.body().assign(module, ExpressionFactory._new(typeElement));
+
+        return constructor;
     }
 
     private void generateGetName(String name, DefinedClass evaluatorClass) {
@@ -28,7 +28,9 @@ import org.mule.devkit.generation.AbstractModuleGenerator;
 import org.mule.devkit.generation.DevKitTypeElement;
 import org.mule.devkit.generation.NamingContants;
 import org.mule.devkit.model.code.CatchBlock;
+import org.mule.devkit.model.code.Conditional;
 import org.mule.devkit.model.code.DefinedClass;
+import org.mule.devkit.model.code.Expression;
 import org.mule.devkit.model.code.ExpressionFactory;
 import org.mule.devkit.model.code.FieldVariable;
 import org.mule.devkit.model.code.Invocation;
@@ -37,27 +39,45 @@ import org.mule.devkit.model.code.Modifier;
 import org.mule.devkit.model.code.Op;
 import org.mule.devkit.model.code.Package;
 import org.mule.devkit.model.code.TryStatement;
+import org.mule.devkit.model.code.TypeReference;
 import org.mule.devkit.model.code.Variable;
+import org.mule.devkit.model.code.builders.FieldBuilder;
 import org.mule.transformer.AbstractTransformer;
 import org.mule.transformer.types.DataTypeFactory;
+import org.w3c.dom.Node;
 
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchema;
 import javax.xml.bind.annotation.XmlType;
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamSource;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public class JaxbTransformerGenerator extends AbstractModuleGenerator {
 
+    private static final String XML_DEFAULT_NAMESPACE = "##default";
+    private static final int POOL_SIZE = 16;
+
     @Override
     protected boolean shouldGenerate(DevKitTypeElement typeElement) {
         return typeElement.hasAnnotation(Module.class) || typeElement.hasAnnotation(Connector.class);
@@ -80,11 +100,14 @@ public class JaxbTransformerGenerator extends AbstractModuleGenerator {
                     // declare JAXB context
                     FieldVariable jaxbContext = jaxbTransformerClass.field(Modifier.PRIVATE | Modifier.STATIC, JAXBContext.class, "JAXB_CONTEXT", ExpressionFactory.invoke(loadJaxbContext).arg(ref(variable.asType()).boxify().dotclass()));
 
+                    // declare unmarshaller pool
+                    FieldVariable unmarshallers = generatePoolField(jaxbTransformerClass, Unmarshaller.class, "UNMARSHALLERS");
+
                     //generate constructor
                     generateConstructor(jaxbTransformerClass, variable);
 
                     // doTransform
-                    generateDoTransform(jaxbTransformerClass, jaxbContext, variable);
+                    generateDoTransform(jaxbTransformerClass, jaxbContext, unmarshallers, variable);
 
                     // set and get weight
                     generateGetPriorityWeighting(jaxbTransformerClass, weighting);
@@ -94,10 +117,41 @@ public class JaxbTransformerGenerator extends AbstractModuleGenerator {
                     context.registerJaxbElement(variable.asType());
                 }
             }
+
+            TypeMirror returnType = executableElement.getReturnType();
+            if (context.getTypeMirrorUtils().isXmlType(returnType) && !context.isJaxbMarshallerRegistered(returnType)) {
+                DefinedClass jaxbMarshallerClass = getJaxbMarshallerClass(executableElement, returnType);
+
+                FieldVariable weighting = jaxbMarshallerClass.field(Modifier.PRIVATE, context.getCodeModel().INT, "weighting", Op.plus(ref(DiscoverableTransformer.class).staticRef("DEFAULT_PRIORITY_WEIGHTING"), ExpressionFactory.lit(1)));
+                Method loadJaxbContext = generateLoadJaxbContext(jaxbMarshallerClass);
+                FieldVariable jaxbContext = jaxbMarshallerClass.field(Modifier.PRIVATE | Modifier.STATIC, JAXBContext.class, "JAXB_CONTEXT", ExpressionFactory.invoke(loadJaxbContext).arg(ref(returnType).boxify().dotclass()));
+                FieldVariable marshallers = generatePoolField(jaxbMarshallerClass, Marshaller.class, "MARSHALLERS");
+
+                generateMarshallerConstructor(jaxbMarshallerClass, returnType);
+                generateMarshallerDoTransform(jaxbMarshallerClass, jaxbContext, marshallers, returnType);
+
+                generateGetPriorityWeighting(jaxbMarshallerClass, weighting);
+                generateSetPriorityWeighting(jaxbMarshallerClass, weighting);
+
+                context.registerAtBoot(jaxbMarshallerClass);
+                context.registerJaxbMarshaller(returnType);
+            }
         }
 
     }
 
+    private FieldVariable generatePoolField(DefinedClass transformerClass, Class<?> pooledClass, String name) {
+        TypeReference poolType = ref(BlockingQueue.class).narrow(ref(pooledClass));
+        FieldVariable pool = FieldBuilder.newConstantFieldBuilder(transformerClass).
+                type(poolType).
+                name(name).
+                initialValue(ExpressionFactory._new(ref(ArrayBlockingQueue.class).narrow(ref(pooledClass))).arg(ExpressionFactory.lit(POOL_SIZE))).
+                build();
+        pool.javadoc().add("Idle instances created from JAXB_CONTEXT. They are expensive to create and not thread-safe, so each ");
+        pool.javadoc().add("transformation takes one out and hands it back afterwards, up to the capacity of the queue.");
+        return pool;
+    }
+
     private void generateSetPriorityWeighting(DefinedClass jaxbTransformerClass, FieldVariable weighting) {
         Method setPriorityWeighting = jaxbTransformerClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "setPriorityWeighting");
         Variable localWeighting = setPriorityWeighting.param(context.getCodeModel().INT, "weighting");
@@ -109,45 +163,109 @@ public class JaxbTransformerGenerator extends AbstractModuleGenerator {
         getPriorityWeighting.body()._return(weighting);
     }
 
-    private void generateDoTransform(DefinedClass jaxbTransformerClass, FieldVariable jaxbContext, VariableElement variable) {
+    private void generateDoTransform(DefinedClass jaxbTransformerClass, FieldVariable jaxbContext, FieldVariable unmarshallers, VariableElement variable) {
         Method doTransform = jaxbTransformerClass.method(Modifier.PROTECTED, Object.class, "doTransform");
         doTransform._throws(TransformerException.class);
         Variable src = doTransform.param(Object.class, "src");
-        Variable encoding = doTransform.param(String.class, "encoding");
+        doTransform.param(String.class, "encoding");
 
         Variable result = doTransform.body().decl(ref(variable.asType()).boxify(), "result", ExpressionFactory._null());
 
+        // hand streams, readers and DOM nodes straight to JAXB instead of going through a String
+        Variable source = doTransform.body().decl(ref(Source.class), "source");
+        Conditional ifString = doTransform.body()._if(Op._instanceof(src, ref(String.class)));
+        ifString._then().assign(source, ExpressionFactory._new(ref(StreamSource.class)).arg(
+                ExpressionFactory._new(ref(StringReader.class)).arg(ExpressionFactory.cast(ref(String.class), src))));
+        Conditional ifByteArray = ifString._elseif(Op._instanceof(src, context.getCodeModel().BYTE.array()));
+        ifByteArray._then().assign(source, ExpressionFactory._new(ref(StreamSource.class)).arg(
+                ExpressionFactory._new(ref(ByteArrayInputStream.class)).arg(ExpressionFactory.cast(context.getCodeModel().BYTE.array(), src))));
+        Conditional ifInputStream = ifByteArray._elseif(Op._instanceof(src, ref(InputStream.class)));
+        ifInputStream._then().assign(source, ExpressionFactory._new(ref(StreamSource.class)).arg(ExpressionFactory.cast(ref(InputStream.class), src)));
+        Conditional ifReader = ifInputStream._elseif(Op._instanceof(src, ref(Reader.class)));
+        ifReader._then().assign(source, ExpressionFactory._new(ref(StreamSource.class)).arg(ExpressionFactory.cast(ref(Reader.class), src)));
+        ifReader._else().assign(source, ExpressionFactory._new(ref(DOMSource.class)).arg(ExpressionFactory.cast(ref(Node.class), src)));
+
+        Variable unmarshaller = doTransform.body().decl(ref(Unmarshaller.class), "unmarshaller", unmarshallers.invoke("poll"));
         TryStatement tryBlock = doTransform.body()._try();
-        Variable unmarshaller = tryBlock.body().decl(ref(Unmarshaller.class), "unmarshaller");
-        tryBlock.body().assign(unmarshaller, jaxbContext.invoke("createUnmarshaller"));
-        Variable inputStream = tryBlock.body().decl(ref(InputStream.class), "is", ExpressionFactory._new(ref(ByteArrayInputStream.class)).arg(
-                ExpressionFactory.invoke(ExpressionFactory.cast(ref(String.class), src), "getBytes").arg(encoding)
-        ));
+        tryBlock.body()._if(Op.eq(unmarshaller, ExpressionFactory._null()))._then().assign(unmarshaller, jaxbContext.invoke("createUnmarshaller"));
 
-        Variable streamSource = tryBlock.body().decl(ref(StreamSource.class), "ss", ExpressionFactory._new(ref(StreamSource.class)).arg(inputStream));
         Invocation unmarshal = unmarshaller.invoke("unmarshal");
-        unmarshal.arg(streamSource);
+        unmarshal.arg(source);
         unmarshal.arg(ExpressionFactory.dotclass(ref(variable.asType()).boxify()));
 
         tryBlock.body().assign(result, unmarshal.invoke("getValue"));
 
-        CatchBlock unsupportedEncodingCatch = tryBlock._catch(ref(UnsupportedEncodingException.class));
-        Variable unsupportedEncoding = unsupportedEncodingCatch.param("unsupportedEncoding");
+        CatchBlock jaxbExceptionCatch = tryBlock._catch(ref(JAXBException.class));
+        Variable jaxbException = jaxbExceptionCatch.param("jaxbException");
+
+        generateThrowTransformFailedException(jaxbExceptionCatch, jaxbException, src.invoke("getClass").invoke("getName"), ExpressionFactory.lit(ref(variable.asType()).boxify().fullName()));
+
+        tryBlock._finally()._if(Op.ne(unmarshaller, ExpressionFactory._null()))._then().add(unmarshallers.invoke("offer").arg(unmarshaller));
+
+        doTransform.body()._return(result);
+    }
 
-        generateThrowTransformFailedException(unsupportedEncodingCatch, unsupportedEncoding, variable);
+    private void generateMarshallerDoTransform(DefinedClass jaxbMarshallerClass, FieldVariable jaxbContext, FieldVariable marshallers, TypeMirror type) {
+        Method doTransform = jaxbMarshallerClass.method(Modifier.PROTECTED, Object.class, "doTransform");
+        doTransform._throws(TransformerException.class);
+        Variable src = doTransform.param(Object.class, "src");
+        doTransform.param(String.class, "encoding");
+
+        TypeReference boxedType = ref(type).boxify();
+        Variable writer = doTransform.body().decl(ref(StringWriter.class), "writer", ExpressionFactory._new(ref(StringWriter.class)));
+        Variable marshaller = doTransform.body().decl(ref(Marshaller.class), "marshaller", marshallers.invoke("poll"));
+        TryStatement tryBlock = doTransform.body()._try();
+        tryBlock.body()._if(Op.eq(marshaller, ExpressionFactory._null()))._then().assign(marshaller, jaxbContext.invoke("createMarshaller"));
+
+        DeclaredType declaredType = (DeclaredType) type;
+        if (declaredType.asElement().getAnnotation(XmlRootElement.class) != null) {
+            tryBlock.body().add(marshaller.invoke("marshal").arg(src).arg(writer));
+        } else {
+            // types without a root element need one to be marshalled on their own
+            Expression element = ExpressionFactory._new(ref(JAXBElement.class).narrow(boxedType)).
+                    arg(ExpressionFactory._new(ref(QName.class)).arg(getXmlNamespace(declaredType)).arg(getXmlElementName(declaredType))).
+                    arg(ExpressionFactory.dotclass(boxedType)).
+                    arg(ExpressionFactory.cast(boxedType, src));
+            tryBlock.body().add(marshaller.invoke("marshal").arg(element).arg(writer));
+        }
 
         CatchBlock jaxbExceptionCatch = tryBlock._catch(ref(JAXBException.class));
         Variable jaxbException = jaxbExceptionCatch.param("jaxbException");
 
-        generateThrowTransformFailedException(jaxbExceptionCatch, jaxbException, variable);
+        generateThrowTransformFailedException(jaxbExceptionCatch, jaxbException, ExpressionFactory.lit(boxedType.fullName()), ExpressionFactory.lit("String"));
 
-        doTransform.body()._return(result);
+        tryBlock._finally()._if(Op.ne(marshaller, ExpressionFactory._null()))._then().add(marshallers.invoke("offer").arg(marshaller));
+
+        doTransform.body()._return(writer.invoke("toString"));
+    }
+
+    private String getXmlNamespace(DeclaredType declaredType) {
+        XmlType xmlType = declaredType.asElement().getAnnotation(XmlType.class);
+        if (!XML_DEFAULT_NAMESPACE.equals(xmlType.namespace())) {
+            return xmlType.namespace();
+        }
+
+        XmlSchema xmlSchema = context.getElementsUtils().getPackageOf(declaredType.asElement()).getAnnotation(XmlSchema.class);
+        if (xmlSchema != null) {
+            return xmlSchema.namespace();
+        }
+
+        return "";
+    }
+
+    private String getXmlElementName(DeclaredType declaredType) {
+        XmlType xmlType = declaredType.asElement().getAnnotation(XmlType.class);
+        if (!StringUtils.isEmpty(xmlType.name()) && !XML_DEFAULT_NAMESPACE.equals(xmlType.name())) {
+            return xmlType.name();
+        }
+
+        return StringUtils.uncapitalize(declaredType.asElement().getSimpleName().toString());
     }
 
-    private void generateThrowTransformFailedException(CatchBlock catchBlock, Variable exception, VariableElement variable) {
+    private void generateThrowTransformFailedException(CatchBlock catchBlock, Variable exception, Expression from, Expression to) {
         Invocation transformFailedInvoke = ref(CoreMessages.class).staticInvoke("transformFailed");
-        transformFailedInvoke.arg("String");
-        transformFailedInvoke.arg(ExpressionFactory.lit(ref(variable.asType()).boxify().fullName()));
+        transformFailedInvoke.arg(from);
+        transformFailedInvoke.arg(to);
 
         Invocation transformerException = ExpressionFactory._new(ref(TransformerException.class));
         transformerException.arg(transformFailedInvoke);
@@ -177,7 +295,7 @@ public class JaxbTransformerGenerator extends AbstractModuleGenerator {
         Method constructor = jaxbTransformerClass.constructor(Modifier.PUBLIC);
 
         // register source data type
-        registerSourceType(constructor);
+        registerSourceTypes(constructor);
 
         // register destination data type
         registerDestinationType(constructor, variable);
@@ -188,14 +306,24 @@ public class JaxbTransformerGenerator extends AbstractModuleGenerator {
         constructor.body().invoke("setName").arg(StringUtils.capitalize(xmlType.name()) + "JaxbTransformer");
     }
 
+    private void generateMarshallerConstructor(DefinedClass jaxbMarshallerClass, TypeMirror type) {
+        Method constructor = jaxbMarshallerClass.constructor(Modifier.PUBLIC);
+        constructor.body().invoke("registerSourceType").arg(ref(DataTypeFactory.class).staticInvoke("create").arg(ExpressionFactory.dotclass(ref(type).boxify())));
+        constructor.body().invoke("setReturnClass").arg(ref(String.class).dotclass());
+        constructor.body().invoke("setName").arg(jaxbMarshallerClass.name());
+    }
+
     private void registerDestinationType(Method constructor, VariableElement variable) {
         Invocation setReturnClass = constructor.body().invoke("setReturnClass");
         setReturnClass.arg(ExpressionFactory.dotclass(ref(variable.asType()).boxify()));
     }
 
-    private void registerSourceType(Method constructor) {
-        Invocation registerSourceType = constructor.body().invoke("registerSourceType");
-        registerSourceType.arg(ref(DataTypeFactory.class).staticRef("STRING"));
+    private void registerSourceTypes(Method constructor) {
+        constructor.body().invoke("registerSourceType").arg(ref(DataTypeFactory.class).staticRef("STRING"));
+        constructor.body().invoke("registerSourceType").arg(ref(DataTypeFactory.class).staticRef("BYTE_ARRAY"));
+        constructor.body().invoke("registerSourceType").arg(ref(DataTypeFactory.class).staticRef("INPUT_STREAM"));
+        constructor.body().invoke("registerSourceType").arg(ref(DataTypeFactory.class).staticInvoke("create").arg(ref(Reader.class).dotclass()));
+        constructor.body().invoke("registerSourceType").arg(ref(DataTypeFactory.class).staticInvoke("create").arg(ref(Node.class).dotclass()));
     }
 
     private DefinedClass getJaxbTransformerClass(ExecutableElement executableElement, VariableElement variable) {
@@ -207,4 +335,13 @@ public class JaxbTransformerGenerator extends AbstractModuleGenerator {
 
         return pkg._class(StringUtils.capitalize(xmlType.name()) + "JaxbTransformer", AbstractTransformer.class, new Class<?>[]{DiscoverableTransformer.class});
     }
-}
\ No newline at end of file
+
+    private DefinedClass getJaxbMarshallerClass(ExecutableElement executableElement, TypeMirror type) {
+        DeclaredType declaredType = (DeclaredType) type;
+        TypeElement parentClass = ElementFilter.typesIn(Arrays.asList(executableElement.getEnclosingElement())).get(0);
+        String packageName = context.getNameUtils().getPackageName(context.getNameUtils().getBinaryName(parentClass)) + NamingContants.TRANSFORMERS_NAMESPACE;
+        Package pkg = context.getCodeModel()._package(packageName);
+
+        return pkg._class(declaredType.asElement().getSimpleName().toString() + "JaxbMarshallerTransformer", AbstractTransformer.class, new Class<?>[]{DiscoverableTransformer.class});
+    }
+}
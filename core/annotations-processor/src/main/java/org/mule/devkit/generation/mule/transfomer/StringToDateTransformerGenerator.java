@@ -24,6 +24,7 @@ import org.mule.config.i18n.MessageFactory;
 import org.mule.devkit.generation.AbstractMessageGenerator;
 import org.mule.devkit.generation.DevKitTypeElement;
 import org.mule.devkit.generation.NamingContants;
+import org.mule.devkit.model.code.Block;
 import org.mule.devkit.model.code.CatchBlock;
 import org.mule.devkit.model.code.DefinedClass;
 import org.mule.devkit.model.code.ExpressionFactory;
@@ -31,6 +32,7 @@ import org.mule.devkit.model.code.FieldVariable;
 import org.mule.devkit.model.code.Invocation;
 import org.mule.devkit.model.code.Method;
 import org.mule.devkit.model.code.Modifier;
+import org.mule.devkit.model.code.Op;
 import org.mule.devkit.model.code.Package;
 import org.mule.devkit.model.code.TryStatement;
 import org.mule.devkit.model.code.TypeReference;
@@ -43,11 +45,15 @@ import javax.lang.model.element.TypeElement;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 public class StringToDateTransformerGenerator extends AbstractMessageGenerator {
 
+    public static final String ROLE = "StringToDateTransformer";
     private static final String PATTERN = "yyyy-MM-dd'T'hh:mm:ss";
-    private static final String SIMPLE_DATE_FORMAT_FIELD_NAME = "SIMPLE_DATE_FORMAT";
+    private static final String PATTERN_FIELD_NAME = "PATTERN";
+    private static final String DATE_FORMATS_FIELD_NAME = "DATE_FORMATS";
 
     @Override
     protected boolean shouldGenerate(DevKitTypeElement typeElement) {
@@ -61,24 +67,63 @@ public class StringToDateTransformerGenerator extends AbstractMessageGenerator {
         context.note("Generating String to Date transformer as " + transformerClass.fullName());
 
         FieldVariable muleContext = generateFieldForMuleContext(transformerClass);
-        FieldVariable simpleDateFormat = generateSimpleDateFormatField(transformerClass);
+        FieldVariable pattern = generatePatternField(transformerClass);
+        FieldVariable dateFormats = generateDateFormatsField(transformerClass);
+        Method parse = generateParseMethod(transformerClass, dateFormats);
         FieldVariable weighting = transformerClass.field(Modifier.PRIVATE, context.getCodeModel().INT, "weighting", ref(DiscoverableTransformer.class).staticRef("DEFAULT_PRIORITY_WEIGHTING"));
         generateConstructor(transformerClass);
         generateSetMuleContextMethod(transformerClass, muleContext);
-        generateDoTransform(transformerClass, simpleDateFormat);
+        generateDoTransform(transformerClass, parse, pattern);
         generateGetPriorityWeighting(transformerClass, weighting);
         generateSetPriorityWeighting(transformerClass, weighting);
 
         context.registerAtBoot(transformerClass);
+        context.setClassRole(ROLE, transformerClass);
     }
 
-    private FieldVariable generateSimpleDateFormatField(DefinedClass transformerClass) {
+    private FieldVariable generatePatternField(DefinedClass transformerClass) {
         return FieldBuilder.newConstantFieldBuilder(transformerClass).
-                type(SimpleDateFormat.class).name(SIMPLE_DATE_FORMAT_FIELD_NAME).
-                initialValue(ExpressionFactory._new(ref(SimpleDateFormat.class)).arg(PATTERN)).
+                type(String.class).name(PATTERN_FIELD_NAME).
+                initialValue(PATTERN).
                 build();
     }
 
+    private FieldVariable generateDateFormatsField(DefinedClass transformerClass) {
+        FieldVariable dateFormats = FieldBuilder.newConstantFieldBuilder(transformerClass).
+                type(ref(ThreadLocal.class).narrow(ref(Map.class).narrow(ref(String.class), ref(SimpleDateFormat.class)))).
+                name(DATE_FORMATS_FIELD_NAME).
+                initialValue(ExpressionFactory._new(ref(ThreadLocal.class).narrow(ref(Map.class).narrow(ref(String.class), ref(SimpleDateFormat.class))))).
+                build();
+        dateFormats.javadoc().add("Formats already created by each thread, by pattern. SimpleDateFormat is not thread-safe, so each thread parses with its own.");
+        return dateFormats;
+    }
+
+    private Method generateParseMethod(DefinedClass transformerClass, FieldVariable dateFormats) {
+        Method parse = transformerClass.method(Modifier.PUBLIC | Modifier.STATIC, ref(Date.class), "parse");
+        parse._throws(ParseException.class);
+        parse.javadoc().add("Parses the given string using a format for the given pattern owned by the calling thread");
+        parse.javadoc().addParam("source String to parse");
+        parse.javadoc().addParam("pattern SimpleDateFormat pattern");
+        parse.javadoc().addReturn("The parsed date");
+        parse.javadoc().addThrows(ParseException.class).add("If the string does not match the pattern");
+        Variable source = parse.param(ref(String.class), "source");
+        Variable pattern = parse.param(ref(String.class), "pattern");
+
+        Variable formats = parse.body().decl(ref(Map.class).narrow(ref(String.class), ref(SimpleDateFormat.class)), "formats", dateFormats.invoke("get"));
+        Block ifNoFormats = parse.body()._if(Op.eq(formats, ExpressionFactory._null()))._then();
+        ifNoFormats.assign(formats, ExpressionFactory._new(ref(HashMap.class).narrow(ref(String.class), ref(SimpleDateFormat.class))));
+        ifNoFormats.add(dateFormats.invoke("set").arg(formats));
+
+        Variable format = parse.body().decl(ref(SimpleDateFormat.class), "format", formats.invoke("get").arg(pattern));
+        Block ifNoFormat = parse.body()._if(Op.eq(format, ExpressionFactory._null()))._then();
+        ifNoFormat.assign(format, ExpressionFactory._new(ref(SimpleDateFormat.class)).arg(pattern));
+        ifNoFormat.add(formats.invoke("put").arg(pattern).arg(format));
+
+        parse.body()._return(format.invoke("parse").arg(source));
+
+        return parse;
+    }
+
     private void generateSetPriorityWeighting(DefinedClass transformerClass, FieldVariable weighting) {
         Method setPriorityWeighting = transformerClass.method(Modifier.PUBLIC, context.getCodeModel().VOID, "setPriorityWeighting");
         Variable localWeighting = setPriorityWeighting.param(context.getCodeModel().INT, "weighting");
@@ -90,18 +135,18 @@ public class StringToDateTransformerGenerator extends AbstractMessageGenerator {
         getPriorityWeighting.body()._return(weighting);
     }
 
-    private void generateDoTransform(DefinedClass definedClass, FieldVariable simpleDateFormat) {
+    private void generateDoTransform(DefinedClass definedClass, Method parse, FieldVariable pattern) {
         Method doTransform = definedClass.method(Modifier.PROTECTED, ref(Object.class), "doTransform");
         doTransform._throws(TransformerException.class);
         Variable src = doTransform.param(ref(Object.class), "src");
         doTransform.param(ref(String.class), "encoding");
 
         TryStatement tryStatement = doTransform.body()._try();
-        tryStatement.body()._return(simpleDateFormat.invoke("parse").arg(src.invoke("toString")));
+        tryStatement.body()._return(ExpressionFactory.invoke(parse).arg(src.invoke("toString")).arg(pattern));
         CatchBlock catchBlock = tryStatement._catch(ref(ParseException.class));
         Variable exceptionCaught = catchBlock.param("e");
         Invocation errorMessage = ref(MessageFactory.class).staticInvoke("createStaticMessage").
-                arg(ref(String.class).staticInvoke("format").arg("Could not parse %s using the format %s").arg(src).arg(simpleDateFormat.invoke("toPattern")));
+                arg(ref(String.class).staticInvoke("format").arg("Could not parse %s using the format %s").arg(src).arg(pattern));
         catchBlock.body()._throw(ExpressionFactory._new(
                 ref(TransformerException.class)).
                 arg(errorMessage).
@@ -27,6 +27,7 @@ import org.mule.api.annotations.Source;
 import org.mule.api.annotations.SourceThreadingModel;
 import org.mule.api.annotations.oauth.OAuth;
 import org.mule.api.annotations.oauth.OAuth2;
+import org.mule.api.annotations.rest.RestCall;
 import org.mule.api.callback.HttpCallback;
 import org.mule.api.callback.SourceCallback;
 import org.mule.api.lifecycle.Disposable;
@@ -37,8 +38,12 @@ import org.mule.config.spring.factories.MessageProcessorChainFactoryBean;
 import org.mule.config.spring.parsers.generic.AutoIdUtils;
 import org.mule.config.spring.util.SpringXMLUtils;
 import org.mule.devkit.generation.AbstractMessageGenerator;
+import org.mule.devkit.generation.AbstractOAuthAdapterGenerator;
 import org.mule.devkit.generation.DevKitTypeElement;
 import org.mule.devkit.generation.adapter.HttpCallbackAdapterGenerator;
+import org.mule.devkit.generation.adapter.OAuth2AdapterGenerator;
+import org.mule.devkit.generation.adapter.RestAdapterGenerator;
+import org.mule.devkit.generation.mule.MessageSourceGenerator;
 import org.mule.devkit.generation.mule.oauth.DefaultRestoreAccessTokenCallbackFactoryGenerator;
 import org.mule.devkit.generation.mule.oauth.DefaultSaveAccessTokenCallbackFactoryGenerator;
 import org.mule.devkit.model.code.Block;
@@ -239,14 +244,40 @@ public class BeanDefinitionParserGenerator extends AbstractMessageGenerator {
             generateParseNestedProcessor(parse.body(), element, parserContext, builder, "oauthSaveAccessToken", false, false, false, saveAccessTokenCallbackFactory);
             generateParseNestedProcessor(parse.body(), element, parserContext, builder, "oauthRestoreAccessToken", false, false, false, restoreAccessTokenCallbackFactory);
 
+            Invocation getTokenStoreAttribute = element.invoke("getAttribute").arg(AbstractOAuthAdapterGenerator.OAUTH_TOKEN_STORE_FIELD_NAME + "-ref");
+            Conditional ifTokenStoreNotNull = parse.body()._if(Op.cand(Op.ne(getTokenStoreAttribute, ExpressionFactory._null()),
+                    Op.not(ref(StringUtils.class).staticInvoke("isBlank").arg(
+                            getTokenStoreAttribute
+                    ))));
+            ifTokenStoreNotNull._then().add(builder.invoke("addPropertyValue").arg(AbstractOAuthAdapterGenerator.OAUTH_TOKEN_STORE_FIELD_NAME).arg(
+                    ExpressionFactory._new(ref(RuntimeBeanReference.class)).arg(element.invoke("getAttribute").arg(AbstractOAuthAdapterGenerator.OAUTH_TOKEN_STORE_FIELD_NAME + "-ref"))
+            ));
+            generateParseSupportedType(parse.body(), element, builder, AbstractOAuthAdapterGenerator.TOKEN_REQUEST_TIMEOUT_FIELD_NAME);
+            if (typeElement.hasAnnotation(OAuth2.class)) {
+                generateParseSupportedType(parse.body(), element, builder, OAuth2AdapterGenerator.TOKEN_REFRESH_FRACTION_FIELD_NAME);
+                generateParseSupportedType(parse.body(), element, builder, OAuth2AdapterGenerator.TOKEN_CONNECTION_TIMEOUT_FIELD_NAME);
+                generateParseSupportedType(parse.body(), element, builder, OAuth2AdapterGenerator.TOKEN_RESPONSE_TIMEOUT_FIELD_NAME);
+            }
+
             generateGenerateChildBeanNameMethod(beanDefinitionparser);
         }
         if (typeElement.hasProcessorMethodWithParameter(HttpCallback.class)) {
             generateParseHttpCallback(SchemaGenerator.HTTP_CALLBACK_CONFIG_ELEMENT_NAME, parse, element, builder);
         }
 
+        if (typeElement.hasMethodsAnnotatedWith(RestCall.class)) {
+            generateParseSupportedType(parse.body(), element, builder, RestAdapterGenerator.MAX_CONNECTIONS_PER_HOST_FIELD_NAME);
+            generateParseSupportedType(parse.body(), element, builder, RestAdapterGenerator.MAX_TOTAL_CONNECTIONS_FIELD_NAME);
+            generateParseSupportedType(parse.body(), element, builder, RestAdapterGenerator.IDLE_CONNECTION_TIMEOUT_FIELD_NAME);
+            generateParseSupportedType(parse.body(), element, builder, RestAdapterGenerator.IDLE_CONNECTION_CHECK_INTERVAL_FIELD_NAME);
+        }
+
         if (connect != null) {
-            generateParsePoolingProfile("connection-pooling-profile", "connectionPoolingProfile", parse, element, builder);
+            Variable connectionPoolingProfileElement = generateParsePoolingProfile("connection-pooling-profile", "connectionPoolingProfile", parse, element, builder);
+            generateParseConnectionPoolingAttribute(parse, connectionPoolingProfileElement, builder, "strategy", "connectionPoolStrategy");
+            generateParseConnectionPoolingAttribute(parse, connectionPoolingProfileElement, builder, "validationIdleTime", "connectionValidationIdleTime");
+            generateParseConnectionPoolingAttribute(parse, connectionPoolingProfileElement, builder, "evictionCheckInterval", "connectionEvictionCheckInterval");
+            generateParseConnectionPoolingAttribute(parse, connectionPoolingProfileElement, builder, "minIdle", "connectionMinIdle");
         }
 
         if (typeElement.isPoolable()) {
@@ -281,7 +312,7 @@ public class BeanDefinitionParserGenerator extends AbstractMessageGenerator {
         ));
     }
 
-    private void generateParsePoolingProfile(String elementName, String propertyName, Method parse, Variable element, Variable builder) {
+    private Variable generateParsePoolingProfile(String elementName, String propertyName, Method parse, Variable element, Variable builder) {
         Variable poolingProfileBuilder = parse.body().decl(ref(BeanDefinitionBuilder.class), propertyName + "Builder",
                 ref(BeanDefinitionBuilder.class).staticInvoke("rootBeanDefinition").arg(ref(PoolingProfile.class).dotclass().invoke("getName")));
 
@@ -315,13 +346,26 @@ public class BeanDefinitionParserGenerator extends AbstractMessageGenerator {
         ifElementNotNull._then().add(builder.invoke("addPropertyValue").arg(propertyName).arg(
                 poolingProfileBuilder.invoke("getBeanDefinition")
         ));
+
+        return poolingProfileElement;
+    }
+
+    private void generateParseConnectionPoolingAttribute(Method parse, Variable poolingProfileElement, Variable builder, String attributeName, String propertyName) {
+        Invocation getAttribute = poolingProfileElement.invoke("getAttribute").arg(attributeName);
+        Conditional ifNotNull = parse.body()._if(Op.cand(Op.ne(poolingProfileElement, ExpressionFactory._null()),
+                Op.not(ref(StringUtils.class).staticInvoke("isBlank").arg(
+                        getAttribute
+                ))));
+        ifNotNull._then().add(builder.invoke("addPropertyValue").arg(propertyName).arg(
+                getAttribute
+        ));
     }
 
     private void generateBeanDefinitionParserForSource(ExecutableElement executableElement) {
         // get class
         Source sourceAnnotation = executableElement.getAnnotation(Source.class);
         DefinedClass beanDefinitionparser = getBeanDefinitionParserClass(executableElement);
-        DefinedClass messageSourceClass = getMessageSourceClass(executableElement, sourceAnnotation.threadingModel() == SourceThreadingModel.SINGLE_THREAD);
+        DefinedClass messageSourceClass = getMessageSourceClass(executableElement, sourceAnnotation.threadingModel() != SourceThreadingModel.NONE);
 
         FieldVariable patternInfo = generateFieldForPatternInfo(beanDefinitionparser);
 
@@ -479,6 +523,9 @@ public class BeanDefinitionParserGenerator extends AbstractMessageGenerator {
         ExecutableElement connectMethod = connectForMethod(executableElement);
         if (connectMethod != null) {
             generateParseSupportedType(parse.body(), element, builder, "retryMax");
+            generateParseSupportedType(parse.body(), element, builder, "retryBackoff");
+            generateParseSupportedType(parse.body(), element, builder, "retryMaxBackoff");
+            generateParseSupportedType(parse.body(), element, builder, "retryJitter");
 
             for (VariableElement variable : connectMethod.getParameters()) {
                 String fieldName = variable.getSimpleName().toString();
@@ -515,6 +562,12 @@ public class BeanDefinitionParserGenerator extends AbstractMessageGenerator {
             }
         }
 
+        Source sourceAnnotation = executableElement.getAnnotation(Source.class);
+        if (sourceAnnotation != null && sourceAnnotation.threadingModel() == SourceThreadingModel.WORKER_POOL) {
+            generateParseSupportedType(parse.body(), element, builder, MessageSourceGenerator.WORKER_THREADS_FIELD_NAME);
+            generateParseSupportedType(parse.body(), element, builder, MessageSourceGenerator.WORKER_QUEUE_SIZE_FIELD_NAME);
+        }
+
         Variable definition = parse.body().decl(ref(BeanDefinition.class), "definition", builder.invoke("getBeanDefinition"));
 
         parse.body().add(definition.invoke("setAttribute").arg(
@@ -22,17 +22,25 @@ import org.mule.api.annotations.Connector;
 import org.mule.api.annotations.Module;
 import org.mule.api.annotations.Processor;
 import org.mule.api.annotations.Source;
+import org.mule.api.annotations.SourceThreadingModel;
 import org.mule.api.annotations.Transformer;
 import org.mule.api.annotations.oauth.OAuth;
 import org.mule.api.annotations.oauth.OAuth2;
 import org.mule.api.annotations.param.Default;
 import org.mule.api.annotations.param.Optional;
+import org.mule.api.annotations.rest.RestCall;
 import org.mule.api.callback.HttpCallback;
+import org.mule.api.oauth.OAuthTokenStore;
 import org.mule.devkit.generation.AbstractModuleGenerator;
+import org.mule.devkit.generation.AbstractOAuthAdapterGenerator;
 import org.mule.devkit.generation.DevKitTypeElement;
 import org.mule.devkit.generation.GenerationException;
 import org.mule.devkit.generation.NamingContants;
+import org.mule.devkit.generation.adapter.ConnectionManagerGenerator;
 import org.mule.devkit.generation.adapter.HttpCallbackAdapterGenerator;
+import org.mule.devkit.generation.adapter.OAuth2AdapterGenerator;
+import org.mule.devkit.generation.adapter.RestAdapterGenerator;
+import org.mule.devkit.generation.mule.MessageSourceGenerator;
 import org.mule.devkit.model.code.DefinedClass;
 import org.mule.devkit.model.schema.Annotation;
 import org.mule.devkit.model.schema.Any;
@@ -97,6 +105,9 @@ public class SchemaGenerator extends AbstractModuleGenerator {
     private static final String ATTRIBUTE_NAME_VALUE_REF = "value-ref";
     private static final String ATTRIBUTE_NAME_KEY_REF = "key-ref";
     private static final String ATTRIBUTE_RETRY_MAX = "retryMax";
+    private static final String ATTRIBUTE_RETRY_BACKOFF = "retryBackoff";
+    private static final String ATTRIBUTE_RETRY_MAX_BACKOFF = "retryMaxBackoff";
+    private static final String ATTRIBUTE_RETRY_JITTER = "retryJitter";
     private static final String XSD_EXTENSION = ".xsd";
     private static final String ENUM_TYPE_SUFFIX = "EnumType";
     private static final String TYPE_SUFFIX = "Type";
@@ -108,10 +119,32 @@ public class SchemaGenerator extends AbstractModuleGenerator {
     private static final String PORT_DEFAULT_VALUE = "${http.port}";
     private static final String ASYNC_DEFAULT_VALUE = "true";
     private static final String ATTRIBUTE_RETRY_MAX_DESCRIPTION = "Specify how many times this operation can be retried automatically.";
+    private static final String ATTRIBUTE_RETRY_BACKOFF_DESCRIPTION = "Milliseconds to wait before the first retry. The wait doubles on every subsequent retry.";
+    private static final String ATTRIBUTE_RETRY_MAX_BACKOFF_DESCRIPTION = "Maximum number of milliseconds to wait between retries.";
+    private static final String ATTRIBUTE_RETRY_JITTER_DESCRIPTION = "Randomize the wait between retries so that concurrent failures do not retry at the same time.";
     private static final String ATTRIBUTE_NAME_REF_DESCRIPTION = "The reference object for this parameter";
     private static final String ATTRIBUTE_NAME_NAME_DESCRIPTION = "Give a name to this configuration so it can be later referenced by config-ref.";
     private static final String CONNECTION_POOLING_PROFILE = "connection-pooling-profile";
     private static final String CONNECTION_POOLING_PROFILE_ELEMENT_DESCRIPTION = "Characteristics of the connection pool.";
+    private static final String ATTRIBUTE_POOL_STRATEGY = "strategy";
+    private static final String ATTRIBUTE_POOL_STRATEGY_DESCRIPTION = "Pool implementation. " + ConnectionManagerGenerator.COMMONS_POOL_STRATEGY + " uses a commons-pool keyed pool, " + ConnectionManagerGenerator.CONCURRENT_POOL_STRATEGY + " uses a pool that does not lock across connection keys and scales better with many concurrent flows.";
+    private static final String ATTRIBUTE_VALIDATION_IDLE_TIME = "validationIdleTime";
+    private static final String ATTRIBUTE_VALIDATION_IDLE_TIME_DESCRIPTION = "Milliseconds that must pass since a connection was last validated before it is validated again when borrowed. Zero validates on every borrow.";
+    private static final String ATTRIBUTE_EVICTION_CHECK_INTERVAL = "evictionCheckInterval";
+    private static final String ATTRIBUTE_EVICTION_CHECK_INTERVAL_DESCRIPTION = "Milliseconds between background runs that validate idle connections and destroy the broken ones. Zero disables them.";
+    private static final String ATTRIBUTE_MIN_IDLE = "minIdle";
+    private static final String ATTRIBUTE_MIN_IDLE_DESCRIPTION = "Number of idle connections to keep open for each set of connection parameters. Connections for the parameters of this configuration are opened in the background on startup, and replacements are opened in the background whenever a connection is destroyed.";
+    private static final String ATTRIBUTE_MAX_CONNECTIONS_PER_HOST_DESCRIPTION = "Maximum number of HTTP connections kept open to a single host by the REST calls of this configuration.";
+    private static final String ATTRIBUTE_MAX_TOTAL_CONNECTIONS_DESCRIPTION = "Maximum number of HTTP connections kept open by the REST calls of this configuration.";
+    private static final String ATTRIBUTE_IDLE_CONNECTION_TIMEOUT_DESCRIPTION = "Milliseconds an HTTP connection can stay idle before it is closed. Zero keeps idle connections open.";
+    private static final String ATTRIBUTE_IDLE_CONNECTION_CHECK_INTERVAL_DESCRIPTION = "Milliseconds between checks for idle HTTP connections. Only used when idleConnectionTimeout is greater than zero.";
+    private static final String ATTRIBUTE_WORKER_THREADS_DESCRIPTION = "Number of threads processing the messages generated by this message source.";
+    private static final String ATTRIBUTE_OAUTH_TOKEN_STORE_REF_DESCRIPTION = "Reference to an org.mule.api.oauth.OAuthTokenStore holding the access tokens of each user, keyed by the " + OAuthTokenStore.ACCESS_TOKEN_ID_PROPERTY + " invocation property. Defaults to an in-memory cache in front of an in-memory object store.";
+    private static final String ATTRIBUTE_TOKEN_REQUEST_TIMEOUT_DESCRIPTION = "Milliseconds to wait for an access token being restored or fetched by another thread before giving up.";
+    private static final String ATTRIBUTE_TOKEN_REFRESH_FRACTION_DESCRIPTION = "Fraction of the lifetime of an access token after which it is refreshed in the background using its refresh token. Zero disables proactive refresh.";
+    private static final String ATTRIBUTE_TOKEN_CONNECTION_TIMEOUT_DESCRIPTION = "Milliseconds to wait for a connection to the access token endpoint.";
+    private static final String ATTRIBUTE_TOKEN_RESPONSE_TIMEOUT_DESCRIPTION = "Milliseconds to wait for the access token endpoint to respond.";
+    private static final String ATTRIBUTE_WORKER_QUEUE_SIZE_DESCRIPTION = "Number of messages that can wait for a worker thread before the message source is blocked.";
     private static final String POOLING_PROFILE_ELEMENT = "pooling-profile";
     private static final String POOLING_PROFILE_ELEMENT_DESCRIPTION = "Characteristics of the object pool.";
     private static final String OAUTH_SAVE_ACCESS_TOKEN_ELEMENT = "oauth-save-access-token";
@@ -352,10 +385,25 @@ public class SchemaGenerator extends AbstractModuleGenerator {
     }
 
     private void registerSourceType(Schema schema, String targetNamespace, String name, ExecutableElement element) {
-        registerExtendedType(schema, SchemaConstants.MULE_ABSTRACT_INBOUND_ENDPOINT_TYPE, targetNamespace, name, element);
+        ExtensionType source = registerExtendedType(schema, SchemaConstants.MULE_ABSTRACT_INBOUND_ENDPOINT_TYPE, targetNamespace, name, element);
+
+        Source sourceAnnotation = element.getAnnotation(Source.class);
+        if (sourceAnnotation.threadingModel() == SourceThreadingModel.WORKER_POOL) {
+            generateWorkerPoolAttributes(source, sourceAnnotation);
+        }
+    }
+
+    private void generateWorkerPoolAttributes(ExtensionType source, Source sourceAnnotation) {
+        Attribute workerThreads = createAttribute(MessageSourceGenerator.WORKER_THREADS_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_WORKER_THREADS_DESCRIPTION);
+        workerThreads.setDefault(String.valueOf(sourceAnnotation.workerThreads()));
+        source.getAttributeOrAttributeGroup().add(workerThreads);
+
+        Attribute workerQueueSize = createAttribute(MessageSourceGenerator.WORKER_QUEUE_SIZE_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_WORKER_QUEUE_SIZE_DESCRIPTION);
+        workerQueueSize.setDefault(String.valueOf(sourceAnnotation.workerQueueSize()));
+        source.getAttributeOrAttributeGroup().add(workerQueueSize);
     }
 
-    private void registerExtendedType(Schema schema, QName base, String targetNamespace, String name, ExecutableElement element) {
+    private ExtensionType registerExtendedType(Schema schema, QName base, String targetNamespace, String name, ExecutableElement element) {
         TopLevelComplexType complexType = new TopLevelComplexType();
         complexType.setName(name);
 
@@ -420,6 +468,18 @@ public class SchemaGenerator extends AbstractModuleGenerator {
                         Attribute retryMaxAttr = createAttribute(ATTRIBUTE_RETRY_MAX, true, SchemaConstants.STRING, ATTRIBUTE_RETRY_MAX_DESCRIPTION);
                         retryMaxAttr.setDefault("1");
                         complexContentExtension.getAttributeOrAttributeGroup().add(retryMaxAttr);
+
+                        Attribute retryBackoffAttr = createAttribute(ATTRIBUTE_RETRY_BACKOFF, true, SchemaConstants.STRING, ATTRIBUTE_RETRY_BACKOFF_DESCRIPTION);
+                        retryBackoffAttr.setDefault("0");
+                        complexContentExtension.getAttributeOrAttributeGroup().add(retryBackoffAttr);
+
+                        Attribute retryMaxBackoffAttr = createAttribute(ATTRIBUTE_RETRY_MAX_BACKOFF, true, SchemaConstants.STRING, ATTRIBUTE_RETRY_MAX_BACKOFF_DESCRIPTION);
+                        retryMaxBackoffAttr.setDefault("30000");
+                        complexContentExtension.getAttributeOrAttributeGroup().add(retryMaxBackoffAttr);
+
+                        Attribute retryJitterAttr = createAttribute(ATTRIBUTE_RETRY_JITTER, true, SchemaConstants.STRING, ATTRIBUTE_RETRY_JITTER_DESCRIPTION);
+                        retryJitterAttr.setDefault("true");
+                        complexContentExtension.getAttributeOrAttributeGroup().add(retryJitterAttr);
                     }
 
                     for (VariableElement connectVariable : connectExecutableElement.getParameters()) {
@@ -439,6 +499,7 @@ public class SchemaGenerator extends AbstractModuleGenerator {
 
         schema.getSimpleTypeOrComplexTypeOrGroup().add(complexType);
 
+        return complexContentExtension;
     }
 
     private void generateNestedProcessorElement(ExplicitGroup all, VariableElement variable) {
@@ -644,6 +705,44 @@ public class SchemaGenerator extends AbstractModuleGenerator {
         return null;
     }
 
+    private LocalComplexType generateConnectionPoolingProfileType() {
+        LocalComplexType complexType = new LocalComplexType();
+        ComplexContent complexContent = new ComplexContent();
+        complexType.setComplexContent(complexContent);
+        ExtensionType complexContentExtension = new ExtensionType();
+        complexContentExtension.setBase(SchemaConstants.MULE_POOLING_PROFILE_TYPE);
+        complexContent.setExtension(complexContentExtension);
+
+        LocalSimpleType strategyValues = new LocalSimpleType();
+        Restriction restriction = new Restriction();
+        restriction.setBase(SchemaConstants.STRING);
+        strategyValues.setRestriction(restriction);
+        for (String strategy : new String[]{ConnectionManagerGenerator.COMMONS_POOL_STRATEGY, ConnectionManagerGenerator.CONCURRENT_POOL_STRATEGY}) {
+            NoFixedFacet noFixedFacet = objectFactory.createNoFixedFacet();
+            noFixedFacet.setValue(strategy);
+            restriction.getFacets().add(objectFactory.createEnumeration(noFixedFacet));
+        }
+
+        Attribute strategyAttr = createAttribute(ATTRIBUTE_POOL_STRATEGY, true, null, ATTRIBUTE_POOL_STRATEGY_DESCRIPTION);
+        strategyAttr.setSimpleType(strategyValues);
+        strategyAttr.setDefault(ConnectionManagerGenerator.COMMONS_POOL_STRATEGY);
+        complexContentExtension.getAttributeOrAttributeGroup().add(strategyAttr);
+
+        Attribute validationIdleTimeAttr = createAttribute(ATTRIBUTE_VALIDATION_IDLE_TIME, true, SchemaConstants.STRING, ATTRIBUTE_VALIDATION_IDLE_TIME_DESCRIPTION);
+        validationIdleTimeAttr.setDefault("0");
+        complexContentExtension.getAttributeOrAttributeGroup().add(validationIdleTimeAttr);
+
+        Attribute evictionCheckIntervalAttr = createAttribute(ATTRIBUTE_EVICTION_CHECK_INTERVAL, true, SchemaConstants.STRING, ATTRIBUTE_EVICTION_CHECK_INTERVAL_DESCRIPTION);
+        evictionCheckIntervalAttr.setDefault("0");
+        complexContentExtension.getAttributeOrAttributeGroup().add(evictionCheckIntervalAttr);
+
+        Attribute minIdleAttr = createAttribute(ATTRIBUTE_MIN_IDLE, true, SchemaConstants.STRING, ATTRIBUTE_MIN_IDLE_DESCRIPTION);
+        minIdleAttr.setDefault("0");
+        complexContentExtension.getAttributeOrAttributeGroup().add(minIdleAttr);
+
+        return complexType;
+    }
+
     private LocalComplexType genereateEnumComplexType(TypeMirror genericType, String targetNamespace) {
         LocalComplexType complexType = new LocalComplexType();
         SimpleContent simpleContent = new SimpleContent();
@@ -749,7 +848,7 @@ public class SchemaGenerator extends AbstractModuleGenerator {
 
             TopLevelElement poolingProfile = new TopLevelElement();
             poolingProfile.setName(CONNECTION_POOLING_PROFILE);
-            poolingProfile.setType(SchemaConstants.MULE_POOLING_PROFILE_TYPE);
+            poolingProfile.setComplexType(generateConnectionPoolingProfileType());
             poolingProfile.setMinOccurs(BigInteger.valueOf(0L));
 
             Annotation annotation = new Annotation();
@@ -762,12 +861,36 @@ public class SchemaGenerator extends AbstractModuleGenerator {
             all.getParticle().add(objectFactory.createElement(poolingProfile));
         }
 
+        if (typeElement.hasMethodsAnnotatedWith(RestCall.class)) {
+            generateRestClientAttributes(config);
+        }
+
         // add oauth callback configuration
         if (typeElement.hasAnnotation(OAuth.class) || typeElement.hasAnnotation(OAuth2.class)) {
             generateHttpCallbackElement(OAUTH_CALLBACK_CONFIG_ELEMENT_NAME, all);
 
             generateOAuthSaveAccessTokenElement(all);
             generateOAuthRestoreAccessTokenElement(all);
+
+            config.getAttributeOrAttributeGroup().add(createAttribute(AbstractOAuthAdapterGenerator.OAUTH_TOKEN_STORE_FIELD_NAME + "-ref", true, SchemaConstants.STRING, ATTRIBUTE_OAUTH_TOKEN_STORE_REF_DESCRIPTION));
+
+            Attribute tokenRequestTimeout = createAttribute(AbstractOAuthAdapterGenerator.TOKEN_REQUEST_TIMEOUT_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_TOKEN_REQUEST_TIMEOUT_DESCRIPTION);
+            tokenRequestTimeout.setDefault(String.valueOf(AbstractOAuthAdapterGenerator.DEFAULT_TOKEN_REQUEST_TIMEOUT));
+            config.getAttributeOrAttributeGroup().add(tokenRequestTimeout);
+
+            if (typeElement.hasAnnotation(OAuth2.class)) {
+                Attribute tokenRefreshFraction = createAttribute(OAuth2AdapterGenerator.TOKEN_REFRESH_FRACTION_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_TOKEN_REFRESH_FRACTION_DESCRIPTION);
+                tokenRefreshFraction.setDefault(String.valueOf(OAuth2AdapterGenerator.DEFAULT_TOKEN_REFRESH_FRACTION));
+                config.getAttributeOrAttributeGroup().add(tokenRefreshFraction);
+
+                Attribute tokenConnectionTimeout = createAttribute(OAuth2AdapterGenerator.TOKEN_CONNECTION_TIMEOUT_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_TOKEN_CONNECTION_TIMEOUT_DESCRIPTION);
+                tokenConnectionTimeout.setDefault(String.valueOf(OAuth2AdapterGenerator.DEFAULT_TOKEN_CONNECTION_TIMEOUT));
+                config.getAttributeOrAttributeGroup().add(tokenConnectionTimeout);
+
+                Attribute tokenResponseTimeout = createAttribute(OAuth2AdapterGenerator.TOKEN_RESPONSE_TIMEOUT_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_TOKEN_RESPONSE_TIMEOUT_DESCRIPTION);
+                tokenResponseTimeout.setDefault(String.valueOf(OAuth2AdapterGenerator.DEFAULT_TOKEN_RESPONSE_TIMEOUT));
+                config.getAttributeOrAttributeGroup().add(tokenResponseTimeout);
+            }
         }
         if (typeElement.hasProcessorMethodWithParameter(HttpCallback.class)) {
             generateHttpCallbackElement(HTTP_CALLBACK_CONFIG_ELEMENT_NAME, all);
@@ -802,6 +925,24 @@ public class SchemaGenerator extends AbstractModuleGenerator {
         }
     }
 
+    private void generateRestClientAttributes(ExtensionType config) {
+        Attribute maxConnectionsPerHost = createAttribute(RestAdapterGenerator.MAX_CONNECTIONS_PER_HOST_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_MAX_CONNECTIONS_PER_HOST_DESCRIPTION);
+        maxConnectionsPerHost.setDefault(String.valueOf(RestAdapterGenerator.DEFAULT_MAX_CONNECTIONS_PER_HOST));
+        config.getAttributeOrAttributeGroup().add(maxConnectionsPerHost);
+
+        Attribute maxTotalConnections = createAttribute(RestAdapterGenerator.MAX_TOTAL_CONNECTIONS_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_MAX_TOTAL_CONNECTIONS_DESCRIPTION);
+        maxTotalConnections.setDefault(String.valueOf(RestAdapterGenerator.DEFAULT_MAX_TOTAL_CONNECTIONS));
+        config.getAttributeOrAttributeGroup().add(maxTotalConnections);
+
+        Attribute idleConnectionTimeout = createAttribute(RestAdapterGenerator.IDLE_CONNECTION_TIMEOUT_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_IDLE_CONNECTION_TIMEOUT_DESCRIPTION);
+        idleConnectionTimeout.setDefault(String.valueOf(RestAdapterGenerator.DEFAULT_IDLE_CONNECTION_TIMEOUT));
+        config.getAttributeOrAttributeGroup().add(idleConnectionTimeout);
+
+        Attribute idleConnectionCheckInterval = createAttribute(RestAdapterGenerator.IDLE_CONNECTION_CHECK_INTERVAL_FIELD_NAME, true, SchemaConstants.STRING, ATTRIBUTE_IDLE_CONNECTION_CHECK_INTERVAL_DESCRIPTION);
+        idleConnectionCheckInterval.setDefault(String.valueOf(RestAdapterGenerator.DEFAULT_IDLE_CONNECTION_CHECK_INTERVAL));
+        config.getAttributeOrAttributeGroup().add(idleConnectionCheckInterval);
+    }
+
     private void generateOAuthSaveAccessTokenElement(ExplicitGroup all) {
         TopLevelElement collectionElement = new TopLevelElement();
         all.getParticle().add(objectFactory.createElement(collectionElement));
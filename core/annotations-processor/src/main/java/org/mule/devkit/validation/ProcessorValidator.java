@@ -21,6 +21,7 @@ import org.mule.api.annotations.Processor;
 import org.mule.api.annotations.param.CorrelationGroupSize;
 import org.mule.api.annotations.param.CorrelationId;
 import org.mule.api.annotations.param.CorrelationSequence;
+import org.mule.api.annotations.param.DatePattern;
 import org.mule.api.annotations.param.ExceptionPayload;
 import org.mule.api.annotations.param.InboundHeaders;
 import org.mule.api.annotations.param.InvocationHeaders;
@@ -37,6 +38,8 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
 
 public class ProcessorValidator implements Validator {
@@ -108,10 +111,29 @@ public class ProcessorValidator implements Validator {
                 if (parameter.getAnnotation(Payload.class) == null && parameter.asType().getKind() == TypeKind.ARRAY) {
                     throw new ValidationException(parameter, "@Processor parameter cannot be arrays, use List instead");
                 }
+
+                validateDatePattern(parameter);
             }
         }
     }
 
+    private void validateDatePattern(VariableElement parameter) throws ValidationException {
+        DatePattern datePattern = parameter.getAnnotation(DatePattern.class);
+        if (datePattern == null) {
+            return;
+        }
+
+        if (!parameter.asType().toString().equals(Date.class.getName())) {
+            throw new ValidationException(parameter, "@DatePattern can only be applied to parameters of type " + Date.class.getName());
+        }
+
+        try {
+            new SimpleDateFormat(datePattern.value());
+        } catch (IllegalArgumentException iae) {
+            throw new ValidationException(parameter, "@DatePattern value is not a valid date pattern: " + iae.getMessage());
+        }
+    }
+
     private void validateIntercepting(ExecutableElement method) throws ValidationException {
         if (method.getAnnotation(Processor.class).intercepting()) {
             boolean containsSourceCallback = false;
@@ -18,6 +18,7 @@
 package org.mule.devkit.validation;
 
 import org.mule.api.annotations.Source;
+import org.mule.api.annotations.SourceThreadingModel;
 import org.mule.api.callback.SourceCallback;
 import org.mule.devkit.GeneratorContext;
 import org.mule.devkit.generation.DevKitTypeElement;
@@ -63,6 +64,17 @@ public class SourceValidator implements Validator {
             if (!containsSourceCallback) {
                 throw new ValidationException(method, "@Source method must contain a SourceCallback as one of its parameters");
             }
+
+            Source source = method.getAnnotation(Source.class);
+            if (source.threadingModel() == SourceThreadingModel.WORKER_POOL) {
+                if (source.workerThreads() <= 0) {
+                    throw new ValidationException(method, "@Source workerThreads must be greater than zero");
+                }
+
+                if (source.workerQueueSize() <= 0) {
+                    throw new ValidationException(method, "@Source workerQueueSize must be greater than zero");
+                }
+            }
         }
     }
 }
\ No newline at end of file
@@ -57,6 +57,17 @@ public @interface Source {
      */
     SourceThreadingModel threadingModel() default SourceThreadingModel.SINGLE_THREAD;
 
+    /**
+     * Default number of worker threads processing messages. Only used by {@link SourceThreadingModel#WORKER_POOL}.
+     */
+    int workerThreads() default 4;
+
+    /**
+     * Default number of messages that can wait for a worker thread before the receiving thread is blocked. Only
+     * used by {@link SourceThreadingModel#WORKER_POOL}.
+     */
+    int workerQueueSize() default 100;
+
     /**
      * Message exchange pattern
      */
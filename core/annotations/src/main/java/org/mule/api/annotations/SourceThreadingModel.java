@@ -17,6 +17,20 @@
 package org.mule.api.annotations;
 
 public enum SourceThreadingModel {
+    /**
+     * The source method is invoked from the thread that starts the message source.
+     */
     NONE,
-    SINGLE_THREAD;
+    /**
+     * The source method is invoked in its own receiving thread and every message it generates is processed
+     * in that same thread.
+     */
+    SINGLE_THREAD,
+    /**
+     * The source method is invoked in its own receiving thread, which hands every message it generates to a
+     * bounded pool of worker threads. When all workers are busy and the queue is full the receiving thread
+     * blocks until there is room again. Messages are processed asynchronously, so
+     * {@link org.mule.api.callback.SourceCallback} returns null to the source.
+     */
+    WORKER_POOL;
 }
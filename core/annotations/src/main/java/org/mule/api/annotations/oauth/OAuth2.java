@@ -49,7 +49,8 @@ public @interface OAuth2 {
     String verifierRegex() default "code=([^&]+)";
 
     /**
-     * A Java regular expression used to extract the Access Token from the Service Provider response.
+     * A Java regular expression used to extract the Access Token from the Service Provider response. Only used
+     * if the response is not a JSON object or a form with an access_token parameter.
      */
     String accessTokenRegex() default "\"access_token\":\"([^&]+?)\"";
 
@@ -57,10 +58,18 @@ public @interface OAuth2 {
      * A Java regular expression used to extract the expiration time of the Access Token (in seconds) from the
      * Service Provider response. If the this regular expression is not found in the Service Provider response
      * (whether the regular expression is wrong or the Access Token never expires), the Access Token will be
-     * treated as if it would never expire.
+     * treated as if it would never expire. Only used if the response has no expires_in parameter, an empty
+     * expression disables expiration tracking.
      */
     String expirationRegex() default "\"expires_in\":([^&]+?),";
 
+    /**
+     * A Java regular expression used to extract the Refresh Token from the Service Provider response. If the
+     * Refresh Token is found, the Access Token will be refreshed in the background before it expires. Only used
+     * if the response has no refresh_token parameter, an empty expression disables refreshing.
+     */
+    String refreshTokenRegex() default "\"refresh_token\":\"([^&]+?)\"";
+
     /**
      * In case the Service Provider only accepts a known redirect URL, assign this parameter to the path inside
      * your domain (denoted by the 'fullDomain' environment variable) that will be registered with Service Provider
@@ -17,6 +17,8 @@
 
 package org.mule.api.callback;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -47,4 +49,21 @@ public interface SourceCallback {
      */
     Object process(Object payload, Map<String, Object> properties) throws Exception;
 
+    /**
+     * Dispatch a single message to the flow carrying the whole batch as its payload
+     *
+     * @param payloads The payloads to be processed together
+     * @return The response of the flow
+     */
+    Object processBatch(List<?> payloads) throws Exception;
+
+    /**
+     * Dispatch a message to the flow for each payload returned by the iterator. Payloads are pulled from the
+     * iterator one at a time and all the messages share the same session.
+     *
+     * @param payloads The payloads to be processed one after the other
+     * @return The number of messages dispatched
+     */
+    int process(Iterator<?> payloads) throws Exception;
+
 }
@@ -0,0 +1,151 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import org.mule.api.store.ObjectStoreException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link OAuthTokenStore} that keeps a bounded, least recently used in-memory cache in
+ * front of another token store. Cached entries are dropped once they are older than the
+ * configured time to live, so the delegate is only consulted on a cache miss.
+ * <p/>
+ * Expired tokens are never handed out unless they carry a refresh token, in which case
+ * the caller is expected to exchange it for a new access token.
+ */
+public class CachingOAuthTokenStore implements OAuthTokenStore {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_TIME_TO_LIVE = 5 * 60 * 1000L;
+
+    private final OAuthTokenStore delegate;
+    private final long timeToLive;
+    private final Map<String, CachedToken> cache;
+
+    /**
+     * Create a cache with the default size and time to live
+     *
+     * @param delegate Token store to read through and write through to
+     */
+    public CachingOAuthTokenStore(OAuthTokenStore delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Create a new cache
+     *
+     * @param delegate   Token store to read through and write through to
+     * @param maxEntries Maximum number of tokens kept in memory
+     * @param timeToLive Milliseconds a token is kept in memory, zero or less to keep it until evicted
+     */
+    public CachingOAuthTokenStore(OAuthTokenStore delegate, final int maxEntries, long timeToLive) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cannot be null");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be greater than zero");
+        }
+        this.delegate = delegate;
+        this.timeToLive = timeToLive;
+        this.cache = new LinkedHashMap<String, CachedToken>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedToken> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public OAuthTokenStore getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public OAuthToken retrieve(String accessTokenId) throws ObjectStoreException {
+        synchronized (cache) {
+            CachedToken cached = cache.get(accessTokenId);
+            if (cached != null) {
+                if (!cached.isStale()) {
+                    return cached.token;
+                }
+                cache.remove(accessTokenId);
+            }
+        }
+
+        OAuthToken token = delegate.retrieve(accessTokenId);
+        if (token == null || !isUsable(token)) {
+            return null;
+        }
+        synchronized (cache) {
+            cache.put(accessTokenId, new CachedToken(token));
+        }
+        return token;
+    }
+
+    @Override
+    public void store(String accessTokenId, OAuthToken token) throws ObjectStoreException {
+        delegate.store(accessTokenId, token);
+        synchronized (cache) {
+            cache.put(accessTokenId, new CachedToken(token));
+        }
+    }
+
+    @Override
+    public void remove(String accessTokenId) throws ObjectStoreException {
+        synchronized (cache) {
+            cache.remove(accessTokenId);
+        }
+        delegate.remove(accessTokenId);
+    }
+
+    /**
+     * Drop every token from memory, leaving the delegate untouched
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Number of tokens currently kept in memory
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static boolean isUsable(OAuthToken token) {
+        return !token.isExpired() || token.getRefreshToken() != null;
+    }
+
+    private class CachedToken {
+        private final OAuthToken token;
+        private final long cachedAt;
+
+        CachedToken(OAuthToken token) {
+            this.token = token;
+            this.cachedAt = System.currentTimeMillis();
+        }
+
+        boolean isStale() {
+            return !isUsable(token) || (timeToLive > 0 && System.currentTimeMillis() - cachedAt > timeToLive);
+        }
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.mule.api.oauth;
 
+import java.util.Map;
+
 /**
  * Adds OAuth 1.0a capabilities to the pojo
  */
@@ -33,4 +35,20 @@ public interface OAuth1Adapter extends OAuthAdapter {
      */
     void setAccessTokenSecret(String value);
 
+    /**
+     * Retrieve the signer shared by every request of this consumer
+     */
+    OAuthRequestSigner getRequestSigner();
+
+    /**
+     * Sign a request to a protected resource with the access token of the current user
+     *
+     * @param method     HTTP method of the request
+     * @param url        URL of the request, including its query string
+     * @param parameters Form parameters of the request, null if none
+     * @return The value of the Authorization header, or the signed url when signing in the query string
+     * @throws NotAuthorizedException If no access token is available
+     */
+    String signRequest(String method, String url, Map<String, String> parameters) throws NotAuthorizedException;
+
 }
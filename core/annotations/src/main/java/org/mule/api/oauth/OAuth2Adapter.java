@@ -23,4 +23,17 @@ public interface OAuth2Adapter extends OAuthAdapter {
     void setExpiration(Date value);
 
     boolean hasTokenExpired();
+
+    /**
+     * Exchange the refresh token for a new access token
+     *
+     * @throws UnableToAcquireAccessTokenException
+     *
+     */
+    void refreshAccessToken() throws UnableToAcquireAccessTokenException;
+
+    /**
+     * Retrieve the outcome of the access token refreshes
+     */
+    TokenRefreshStatistics getTokenRefreshStatistics();
 }
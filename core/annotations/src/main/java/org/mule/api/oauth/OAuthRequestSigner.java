@@ -0,0 +1,355 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import org.mule.api.annotations.oauth.OAuthMessageSigner;
+import org.mule.api.annotations.oauth.OAuthSigningStrategy;
+import org.mule.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Signs OAuth 1.0a requests on behalf of a consumer.
+ * <p/>
+ * Instances are thread-safe and meant to be shared by every request of a consumer. The HMAC key derived
+ * from the consumer secret and each token secret is initialised once and cached, so signing a request only
+ * clones an initialised {@link Mac} instead of creating and initialising a new one.
+ */
+public class OAuthRequestSigner {
+
+    public static final int DEFAULT_MAX_CACHED_KEYS = 1000;
+    private static final String ENCODING = "UTF-8";
+    private static final String HMAC_SHA1 = "HmacSHA1";
+    private static final String OAUTH_VERSION = "1.0";
+    /**
+     * Orders encoded parameters by name and then by value, as required by section 9.1.1 of the OAuth 1.0a specification
+     */
+    private static final Comparator<String[]> PARAMETER_ORDER = new Comparator<String[]>() {
+        @Override
+        public int compare(String[] parameter, String[] otherParameter) {
+            int byName = parameter[0].compareTo(otherParameter[0]);
+            return byName != 0 ? byName : parameter[1].compareTo(otherParameter[1]);
+        }
+    };
+
+    private final String consumerKey;
+    private final String consumerSecret;
+    private final OAuthMessageSigner messageSigner;
+    private final OAuthSigningStrategy signingStrategy;
+    private final int maxCachedKeys;
+    private final ConcurrentMap<String, Mac> keys = new ConcurrentHashMap<String, Mac>();
+    private final Random random = new Random();
+
+    /**
+     * Create a signer using HMAC-SHA1 signatures sent in the Authorization header
+     *
+     * @param consumerKey    Consumer key
+     * @param consumerSecret Consumer secret
+     */
+    public OAuthRequestSigner(String consumerKey, String consumerSecret) {
+        this(consumerKey, consumerSecret, OAuthMessageSigner.HMAC_SHA1, OAuthSigningStrategy.AUTHORIZATION_HEADER, DEFAULT_MAX_CACHED_KEYS);
+    }
+
+    /**
+     * Create a new signer
+     *
+     * @param consumerKey     Consumer key
+     * @param consumerSecret  Consumer secret
+     * @param messageSigner   Signature method
+     * @param signingStrategy Where the signature is written to
+     */
+    public OAuthRequestSigner(String consumerKey, String consumerSecret, OAuthMessageSigner messageSigner, OAuthSigningStrategy signingStrategy) {
+        this(consumerKey, consumerSecret, messageSigner, signingStrategy, DEFAULT_MAX_CACHED_KEYS);
+    }
+
+    /**
+     * Create a new signer
+     *
+     * @param consumerKey     Consumer key
+     * @param consumerSecret  Consumer secret
+     * @param messageSigner   Signature method
+     * @param signingStrategy Where the signature is written to
+     * @param maxCachedKeys   Maximum number of token secrets whose keys are kept initialised
+     */
+    public OAuthRequestSigner(String consumerKey, String consumerSecret, OAuthMessageSigner messageSigner, OAuthSigningStrategy signingStrategy, int maxCachedKeys) {
+        if (consumerKey == null) {
+            throw new IllegalArgumentException("consumerKey cannot be null");
+        }
+        if (maxCachedKeys <= 0) {
+            throw new IllegalArgumentException("maxCachedKeys must be greater than zero");
+        }
+        this.consumerKey = consumerKey;
+        this.consumerSecret = consumerSecret != null ? consumerSecret : "";
+        this.messageSigner = messageSigner;
+        this.signingStrategy = signingStrategy;
+        this.maxCachedKeys = maxCachedKeys;
+    }
+
+    public String getConsumerKey() {
+        return consumerKey;
+    }
+
+    public OAuthMessageSigner getMessageSigner() {
+        return messageSigner;
+    }
+
+    public OAuthSigningStrategy getSigningStrategy() {
+        return signingStrategy;
+    }
+
+    /**
+     * Sign a request according to the signing strategy of this signer
+     *
+     * @param method      HTTP method of the request
+     * @param url         URL of the request, including its query string
+     * @param parameters  Form parameters of the request, null if none
+     * @param token       Access token, null while acquiring a request token
+     * @param tokenSecret Access token secret, null while acquiring a request token
+     * @return The value of the Authorization header when signing in the header, or the url with the
+     *         OAuth parameters appended to its query string otherwise
+     */
+    public String sign(String method, String url, Map<String, String> parameters, String token, String tokenSecret) {
+        Map<String, String> oauthParameters = signatureParameters(method, url, parameters, token, tokenSecret);
+        if (signingStrategy == OAuthSigningStrategy.QUERY_STRING) {
+            return toQueryString(url, oauthParameters);
+        }
+        return toAuthorizationHeader(oauthParameters);
+    }
+
+    /**
+     * Compute the OAuth protocol parameters of a request, including its signature
+     *
+     * @param method      HTTP method of the request
+     * @param url         URL of the request, including its query string
+     * @param parameters  Form parameters of the request, null if none
+     * @param token       Access token, null while acquiring a request token
+     * @param tokenSecret Access token secret, null while acquiring a request token
+     * @return The OAuth parameters in the order they should be sent
+     */
+    public Map<String, String> signatureParameters(String method, String url, Map<String, String> parameters, String token, String tokenSecret) {
+        return signatureParameters(method, url, parameters, token, tokenSecret,
+                String.valueOf(System.currentTimeMillis() / 1000), Long.toString(random.nextLong() & Long.MAX_VALUE, 36));
+    }
+
+    Map<String, String> signatureParameters(String method, String url, Map<String, String> parameters, String token, String tokenSecret, String timestamp, String nonce) {
+        Map<String, String> oauthParameters = new LinkedHashMap<String, String>();
+        oauthParameters.put("oauth_consumer_key", consumerKey);
+        if (token != null) {
+            oauthParameters.put("oauth_token", token);
+        }
+        oauthParameters.put("oauth_signature_method", getSignatureMethod());
+        oauthParameters.put("oauth_timestamp", timestamp);
+        oauthParameters.put("oauth_nonce", nonce);
+        oauthParameters.put("oauth_version", OAUTH_VERSION);
+
+        String baseString = messageSigner == OAuthMessageSigner.PLAIN_TEXT ? null : signatureBaseString(method, url, parameters, oauthParameters);
+        oauthParameters.put("oauth_signature", signBaseString(baseString, tokenSecret));
+        return oauthParameters;
+    }
+
+    /**
+     * Sign an already built signature base string, for callers that normalize requests themselves
+     *
+     * @param baseString  Signature base string, ignored by plain text signatures
+     * @param tokenSecret Token secret, null while acquiring a request token
+     * @return The signature
+     */
+    public String signBaseString(String baseString, String tokenSecret) {
+        if (messageSigner == OAuthMessageSigner.PLAIN_TEXT) {
+            return keyString(tokenSecret);
+        }
+        return hmacSha1(tokenSecret, baseString);
+    }
+
+    /**
+     * Name of the signature method as sent in the oauth_signature_method parameter
+     */
+    public String getSignatureMethod() {
+        return messageSigner == OAuthMessageSigner.PLAIN_TEXT ? "PLAINTEXT" : "HMAC-SHA1";
+    }
+
+    /**
+     * Build the signature base string of a request as defined in section 9.1 of the OAuth 1.0a specification
+     */
+    String signatureBaseString(String method, String url, Map<String, String> parameters, Map<String, String> oauthParameters) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid url " + url, e);
+        }
+
+        List<String[]> normalized = new ArrayList<String[]>();
+        if (uri.getRawQuery() != null) {
+            for (String pair : uri.getRawQuery().split("&")) {
+                if (pair.length() > 0) {
+                    int separator = pair.indexOf('=');
+                    String name = separator < 0 ? pair : pair.substring(0, separator);
+                    String value = separator < 0 ? "" : pair.substring(separator + 1);
+                    normalized.add(new String[]{percentEncode(decode(name)), percentEncode(decode(value))});
+                }
+            }
+        }
+        if (parameters != null) {
+            for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+                normalized.add(new String[]{percentEncode(parameter.getKey()), percentEncode(parameter.getValue())});
+            }
+        }
+        for (Map.Entry<String, String> parameter : oauthParameters.entrySet()) {
+            normalized.add(new String[]{percentEncode(parameter.getKey()), percentEncode(parameter.getValue())});
+        }
+        Collections.sort(normalized, PARAMETER_ORDER);
+
+        StringBuilder normalizedParameters = new StringBuilder();
+        for (String[] parameter : normalized) {
+            if (normalizedParameters.length() > 0) {
+                normalizedParameters.append('&');
+            }
+            normalizedParameters.append(parameter[0]).append('=').append(parameter[1]);
+        }
+
+        String scheme = uri.getScheme().toLowerCase();
+        StringBuilder normalizedUrl = new StringBuilder(scheme).append("://").append(uri.getHost().toLowerCase());
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && "http".equals(scheme)) && !(port == 443 && "https".equals(scheme))) {
+            normalizedUrl.append(':').append(port);
+        }
+        normalizedUrl.append(uri.getRawPath() == null || uri.getRawPath().length() == 0 ? "/" : uri.getRawPath());
+
+        return method.toUpperCase() + "&" + percentEncode(normalizedUrl.toString()) + "&" + percentEncode(normalizedParameters.toString());
+    }
+
+    /**
+     * Format OAuth parameters as the value of an Authorization header
+     */
+    public static String toAuthorizationHeader(Map<String, String> oauthParameters) {
+        StringBuilder header = new StringBuilder("OAuth ");
+        boolean first = true;
+        for (Map.Entry<String, String> parameter : oauthParameters.entrySet()) {
+            if (!first) {
+                header.append(", ");
+            }
+            header.append(percentEncode(parameter.getKey())).append("=\"").append(percentEncode(parameter.getValue())).append('"');
+            first = false;
+        }
+        return header.toString();
+    }
+
+    /**
+     * Append OAuth parameters to the query string of a url
+     */
+    public static String toQueryString(String url, Map<String, String> oauthParameters) {
+        StringBuilder signedUrl = new StringBuilder(url);
+        char separator = url.indexOf('?') < 0 ? '?' : '&';
+        for (Map.Entry<String, String> parameter : oauthParameters.entrySet()) {
+            signedUrl.append(separator).append(percentEncode(parameter.getKey())).append('=').append(percentEncode(parameter.getValue()));
+            separator = '&';
+        }
+        return signedUrl.toString();
+    }
+
+    /**
+     * Number of token secrets whose keys are currently initialised
+     */
+    public int getCachedKeys() {
+        return keys.size();
+    }
+
+    private String hmacSha1(String tokenSecret, String baseString) {
+        try {
+            return Base64.encodeBytes(mac(tokenSecret).doFinal(baseString.getBytes(ENCODING)), Base64.DONT_BREAK_LINES);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Mac mac(String tokenSecret) {
+        String cacheKey = tokenSecret != null ? tokenSecret : "";
+        Mac initialised = keys.get(cacheKey);
+        if (initialised == null) {
+            initialised = newMac(tokenSecret);
+            if (keys.size() >= maxCachedKeys) {
+                // cheaper than tracking usage on every signature, the working set is re-initialised on demand
+                keys.clear();
+            }
+            Mac existing = keys.putIfAbsent(cacheKey, initialised);
+            if (existing != null) {
+                initialised = existing;
+            }
+        }
+        try {
+            return (Mac) initialised.clone();
+        } catch (CloneNotSupportedException e) {
+            return newMac(tokenSecret);
+        }
+    }
+
+    private Mac newMac(String tokenSecret) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA1);
+            mac.init(new SecretKeySpec(keyString(tokenSecret).getBytes(ENCODING), HMAC_SHA1));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + HMAC_SHA1, e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String keyString(String tokenSecret) {
+        return percentEncode(consumerSecret) + "&" + percentEncode(tokenSecret != null ? tokenSecret : "");
+    }
+
+    /**
+     * Percent encode a value as defined in section 5.1 of the OAuth 1.0a specification
+     */
+    public static String percentEncode(String value) {
+        if (value == null) {
+            return "";
+        }
+        try {
+            return URLEncoder.encode(value, ENCODING).replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * An immutable OAuth access token, as kept by an {@link OAuthTokenStore}.
+ */
+public class OAuthToken implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String accessToken;
+    private final String accessTokenSecret;
+    private final Date expiration;
+    private final String refreshToken;
+    private final long issuedAt;
+
+    /**
+     * Create a new token
+     *
+     * @param accessToken       Access token
+     * @param accessTokenSecret Access token secret, null for OAuth 2
+     * @param expiration        Moment in which the token expires, null if unknown
+     */
+    public OAuthToken(String accessToken, String accessTokenSecret, Date expiration) {
+        this(accessToken, accessTokenSecret, expiration, null);
+    }
+
+    /**
+     * Create a new token
+     *
+     * @param accessToken       Access token
+     * @param accessTokenSecret Access token secret, null for OAuth 2
+     * @param expiration        Moment in which the token expires, null if unknown
+     * @param refreshToken      Token that can be exchanged for a new access token, null if none
+     */
+    public OAuthToken(String accessToken, String accessTokenSecret, Date expiration, String refreshToken) {
+        this.accessToken = accessToken;
+        this.accessTokenSecret = accessTokenSecret;
+        this.expiration = expiration != null ? new Date(expiration.getTime()) : null;
+        this.refreshToken = refreshToken;
+        this.issuedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Retrieve access token
+     */
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    /**
+     * Retrieve access token secret
+     */
+    public String getAccessTokenSecret() {
+        return accessTokenSecret;
+    }
+
+    /**
+     * Retrieve the moment in which the token expires, null if unknown
+     */
+    public Date getExpiration() {
+        return expiration != null ? new Date(expiration.getTime()) : null;
+    }
+
+    /**
+     * Retrieve the token that can be exchanged for a new access token, null if none
+     */
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    /**
+     * Retrieve the moment in which this token was created
+     */
+    public Date getIssuedAt() {
+        return new Date(issuedAt);
+    }
+
+    /**
+     * Milliseconds from now until the specified fraction of the lifetime of this token has passed
+     *
+     * @param fraction Fraction of the lifetime, between 0 and 1
+     * @return The delay, zero if it has already passed or -1 if the expiration is unknown
+     */
+    public long getRefreshDelay(double fraction) {
+        if (expiration == null) {
+            return -1;
+        }
+        long refreshAt = issuedAt + (long) ((expiration.getTime() - issuedAt) * fraction);
+        return Math.max(0, refreshAt - System.currentTimeMillis());
+    }
+
+    /**
+     * Returns true if the token has a known expiration and the specified fraction of its lifetime has passed
+     *
+     * @param fraction Fraction of the lifetime, between 0 and 1
+     */
+    public boolean isDueForRefresh(double fraction) {
+        return getRefreshDelay(fraction) == 0;
+    }
+
+    /**
+     * Returns true if the token has a known expiration and it has already passed
+     */
+    public boolean isExpired() {
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import org.mule.api.store.ObjectStoreException;
+
+/**
+ * Keeps the access tokens of an OAuth enabled connector keyed by an access token id, so
+ * a single connector configuration can act on behalf of many users.
+ * <p/>
+ * The id of the token to use on each invocation is taken from the
+ * {@link #ACCESS_TOKEN_ID_PROPERTY} invocation property of the current event.
+ */
+public interface OAuthTokenStore {
+
+    /**
+     * Name of the invocation property holding the id of the access token to use
+     */
+    String ACCESS_TOKEN_ID_PROPERTY = "OAuthAccessTokenId";
+
+    /**
+     * Retrieve the token stored under the specified id
+     *
+     * @param accessTokenId Access token id
+     * @return The stored token or null if there is none
+     * @throws ObjectStoreException If the underlying store cannot be read
+     */
+    OAuthToken retrieve(String accessTokenId) throws ObjectStoreException;
+
+    /**
+     * Store a token under the specified id, replacing any previous one
+     *
+     * @param accessTokenId Access token id
+     * @param token         Token to store
+     * @throws ObjectStoreException If the underlying store cannot be written
+     */
+    void store(String accessTokenId, OAuthToken token) throws ObjectStoreException;
+
+    /**
+     * Remove the token stored under the specified id, if any
+     *
+     * @param accessTokenId Access token id
+     * @throws ObjectStoreException If the underlying store cannot be written
+     */
+    void remove(String accessTokenId) throws ObjectStoreException;
+}
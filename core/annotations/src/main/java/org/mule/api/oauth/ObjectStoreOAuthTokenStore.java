@@ -0,0 +1,83 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStore;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.util.store.SimpleMemoryObjectStore;
+
+/**
+ * {@link OAuthTokenStore} backed by a Mule {@link ObjectStore}. Use a persistent object
+ * store to keep tokens across restarts.
+ */
+public class ObjectStoreOAuthTokenStore implements OAuthTokenStore {
+
+    private final ObjectStore<OAuthToken> objectStore;
+
+    /**
+     * Create a token store backed by an in-memory object store
+     */
+    public ObjectStoreOAuthTokenStore() {
+        this(new SimpleMemoryObjectStore<OAuthToken>());
+    }
+
+    /**
+     * Create a token store backed by the specified object store
+     *
+     * @param objectStore Object store where tokens will be kept
+     */
+    public ObjectStoreOAuthTokenStore(ObjectStore<OAuthToken> objectStore) {
+        if (objectStore == null) {
+            throw new IllegalArgumentException("objectStore cannot be null");
+        }
+        this.objectStore = objectStore;
+    }
+
+    public ObjectStore<OAuthToken> getObjectStore() {
+        return objectStore;
+    }
+
+    @Override
+    public OAuthToken retrieve(String accessTokenId) throws ObjectStoreException {
+        if (!objectStore.contains(accessTokenId)) {
+            return null;
+        }
+        try {
+            return objectStore.retrieve(accessTokenId);
+        } catch (ObjectDoesNotExistException e) {
+            // removed after the check
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void store(String accessTokenId, OAuthToken token) throws ObjectStoreException {
+        // object stores refuse to overwrite an existing key
+        if (objectStore.contains(accessTokenId)) {
+            objectStore.remove(accessTokenId);
+        }
+        objectStore.store(accessTokenId, token);
+    }
+
+    @Override
+    public synchronized void remove(String accessTokenId) throws ObjectStoreException {
+        if (objectStore.contains(accessTokenId)) {
+            objectStore.remove(accessTokenId);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes sure that concurrent requests for the same key are only executed once. The first
+ * caller executes the request in its own thread, while the rest wait for its outcome for a
+ * bounded amount of time. Once a request completes, the next caller starts a new one.
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<String, FutureTask<?>> inFlight = new ConcurrentHashMap<String, FutureTask<?>>();
+
+    /**
+     * Execute the request unless one for the same key is already in flight, in which case
+     * wait for that one instead
+     *
+     * @param key     Key identifying the request
+     * @param request Request to execute
+     * @param timeout Milliseconds to wait for a request executed by another thread, zero or less to wait indefinitely
+     * @return The outcome of the request
+     * @throws java.util.concurrent.TimeoutException If the request executed by another thread did not complete in time
+     * @throws Exception        The exception thrown by the request
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String key, Callable<V> request, long timeout) throws Exception {
+        FutureTask<V> task = new FutureTask<V>(request);
+        FutureTask<V> existing = (FutureTask<V>) inFlight.putIfAbsent(key, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            return outcome(task, 0);
+        }
+        return outcome(existing, timeout);
+    }
+
+    /**
+     * Returns true if a request for the specified key is in flight
+     *
+     * @param key Key identifying the request
+     */
+    public boolean isInFlight(String key) {
+        return inFlight.containsKey(key);
+    }
+
+    private <V> V outcome(FutureTask<V> task, long timeout) throws Exception {
+        try {
+            return timeout > 0 ? task.get(timeout, TimeUnit.MILLISECONDS) : task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
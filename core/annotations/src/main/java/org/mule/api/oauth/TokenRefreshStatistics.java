@@ -0,0 +1,86 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcome of the access token refreshes performed by an OAuth 2 adapter.
+ */
+public class TokenRefreshStatistics {
+
+    private final AtomicLong successfulRefreshes = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+    private volatile Date lastRefresh;
+    private volatile Date lastFailure;
+    private volatile String lastFailureMessage;
+
+    /**
+     * Record a successful refresh
+     */
+    public void refreshSucceeded() {
+        successfulRefreshes.incrementAndGet();
+        lastRefresh = new Date();
+    }
+
+    /**
+     * Record a failed refresh
+     *
+     * @param cause Reason why the refresh failed
+     */
+    public void refreshFailed(Throwable cause) {
+        failedRefreshes.incrementAndGet();
+        lastFailure = new Date();
+        lastFailureMessage = cause != null ? cause.getMessage() : null;
+    }
+
+    /**
+     * Retrieve the number of access tokens refreshed successfully
+     */
+    public long getSuccessfulRefreshes() {
+        return successfulRefreshes.get();
+    }
+
+    /**
+     * Retrieve the number of refreshes that failed
+     */
+    public long getFailedRefreshes() {
+        return failedRefreshes.get();
+    }
+
+    /**
+     * Retrieve the moment of the last successful refresh, null if there was none
+     */
+    public Date getLastRefresh() {
+        return lastRefresh;
+    }
+
+    /**
+     * Retrieve the moment of the last failed refresh, null if there was none
+     */
+    public Date getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Retrieve the message of the last failure, null if there was none
+     */
+    public String getLastFailureMessage() {
+        return lastFailureMessage;
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The parameters of a response to an access token request, either a JSON object or a form encoded body.
+ * <p/>
+ * The response is parsed as it is read. Only top level parameters are kept, nested objects and arrays are
+ * skipped. Parsing is lenient: a malformed response yields the parameters found before the error, while
+ * the raw body is still available for extracting them by other means.
+ */
+public class TokenResponse {
+
+    private static final int EOF = -1;
+
+    private final Map<String, String> parameters;
+    private final String body;
+
+    private TokenResponse(Map<String, String> parameters, String body) {
+        this.parameters = Collections.unmodifiableMap(parameters);
+        this.body = body;
+    }
+
+    /**
+     * Parse the response read from the specified stream
+     *
+     * @param in      Response body, may be null if the response has none
+     * @param charset Character set of the response
+     * @return The parsed response
+     * @throws IOException If the response cannot be read
+     */
+    public static TokenResponse parse(InputStream in, String charset) throws IOException {
+        if (in == null) {
+            return new TokenResponse(new HashMap<String, String>(), "");
+        }
+        Reader reader = new InputStreamReader(in, charset);
+        try {
+            return parse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parse the response read from the specified reader
+     *
+     * @param reader Response body
+     * @return The parsed response
+     * @throws IOException If the response cannot be read
+     */
+    public static TokenResponse parse(Reader reader) throws IOException {
+        Parser parser = new Parser(reader);
+        Map<String, String> parameters = new HashMap<String, String>();
+        int c = parser.skipWhitespace();
+        if (c == '{') {
+            parser.parseObject(parameters);
+        } else if (c != EOF) {
+            parser.parseForm(c, parameters);
+        }
+        parser.drain();
+        return new TokenResponse(parameters, parser.body.toString());
+    }
+
+    /**
+     * Retrieve the value of a top level parameter, null if it was not present or was null
+     *
+     * @param name Name of the parameter
+     */
+    public String getParameter(String name) {
+        return parameters.get(name);
+    }
+
+    /**
+     * Retrieve all the top level parameters
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Retrieve the raw body of the response
+     */
+    public String getBody() {
+        return body;
+    }
+
+    private static class Parser {
+
+        private final Reader reader;
+        private final StringBuilder body = new StringBuilder();
+
+        Parser(Reader reader) {
+            this.reader = reader;
+        }
+
+        int read() throws IOException {
+            int c = reader.read();
+            if (c != EOF) {
+                body.append((char) c);
+            }
+            return c;
+        }
+
+        int skipWhitespace() throws IOException {
+            int c = read();
+            while (c != EOF && Character.isWhitespace(c)) {
+                c = read();
+            }
+            return c;
+        }
+
+        void drain() throws IOException {
+            char[] buffer = new char[256];
+            int n;
+            while ((n = reader.read(buffer)) != EOF) {
+                body.append(buffer, 0, n);
+            }
+        }
+
+        void parseObject(Map<String, String> parameters) throws IOException {
+            int c = skipWhitespace();
+            while (c == '"') {
+                String name = readString();
+                if (name == null || skipWhitespace() != ':') {
+                    return;
+                }
+                c = skipWhitespace();
+                if (c == '"') {
+                    String value = readString();
+                    if (value == null) {
+                        return;
+                    }
+                    parameters.put(name, value);
+                    c = skipWhitespace();
+                } else if (c == '{' || c == '[') {
+                    if (!skipNested()) {
+                        return;
+                    }
+                    c = skipWhitespace();
+                } else {
+                    StringBuilder literal = new StringBuilder();
+                    while (c != EOF && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                        literal.append((char) c);
+                        c = read();
+                    }
+                    if (Character.isWhitespace(c)) {
+                        c = skipWhitespace();
+                    }
+                    if (!"null".equals(literal.toString())) {
+                        parameters.put(name, literal.toString());
+                    }
+                }
+                if (c != ',') {
+                    return;
+                }
+                c = skipWhitespace();
+            }
+        }
+
+        String readString() throws IOException {
+            StringBuilder value = new StringBuilder();
+            int c = read();
+            while (c != '"') {
+                if (c == EOF) {
+                    return null;
+                }
+                if (c == '\\') {
+                    c = read();
+                    switch (c) {
+                        case 'b':
+                            value.append('\b');
+                            break;
+                        case 'f':
+                            value.append('\f');
+                            break;
+                        case 'n':
+                            value.append('\n');
+                            break;
+                        case 'r':
+                            value.append('\r');
+                            break;
+                        case 't':
+                            value.append('\t');
+                            break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < hex.length; i++) {
+                                int h = read();
+                                if (h == EOF) {
+                                    return null;
+                                }
+                                hex[i] = (char) h;
+                            }
+                            try {
+                                value.append((char) Integer.parseInt(new String(hex), 16));
+                            } catch (NumberFormatException e) {
+                                return null;
+                            }
+                            break;
+                        case EOF:
+                            return null;
+                        default:
+                            value.append((char) c);
+                    }
+                } else {
+                    value.append((char) c);
+                }
+                c = read();
+            }
+            return value.toString();
+        }
+
+        boolean skipNested() throws IOException {
+            int depth = 1;
+            while (depth > 0) {
+                int c = read();
+                if (c == EOF) {
+                    return false;
+                } else if (c == '"') {
+                    if (readString() == null) {
+                        return false;
+                    }
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            }
+            return true;
+        }
+
+        void parseForm(int c, Map<String, String> parameters) throws IOException {
+            StringBuilder pair = new StringBuilder();
+            while (c != EOF) {
+                if (c == '&') {
+                    addPair(pair.toString(), parameters);
+                    pair.setLength(0);
+                } else if (!Character.isWhitespace(c)) {
+                    pair.append((char) c);
+                }
+                c = read();
+            }
+            addPair(pair.toString(), parameters);
+        }
+
+        void addPair(String pair, Map<String, String> parameters) throws IOException {
+            int separator = pair.indexOf('=');
+            if (separator <= 0) {
+                return;
+            }
+            try {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"), URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+            } catch (IllegalArgumentException e) {
+                // malformed escape, leave it to the caller to extract it from the body
+            }
+        }
+    }
+}
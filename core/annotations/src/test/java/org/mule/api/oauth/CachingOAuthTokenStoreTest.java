@@ -0,0 +1,125 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.store.ObjectStoreException;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CachingOAuthTokenStoreTest {
+
+    private CountingTokenStore delegate;
+
+    @Before
+    public void setUp() {
+        delegate = new CountingTokenStore();
+    }
+
+    @Test
+    public void testRetrieveHitsDelegateOnlyOnMiss() throws Exception {
+        OAuthToken token = new OAuthToken("token", "secret", null);
+        delegate.store("user", token);
+        CachingOAuthTokenStore store = new CachingOAuthTokenStore(delegate);
+
+        assertSame(token, store.retrieve("user"));
+        assertSame(token, store.retrieve("user"));
+        assertEquals(1, delegate.retrieves);
+    }
+
+    @Test
+    public void testStoreWritesThrough() throws Exception {
+        CachingOAuthTokenStore store = new CachingOAuthTokenStore(delegate);
+        OAuthToken token = new OAuthToken("token", null, null);
+        store.store("user", token);
+
+        assertSame(token, delegate.retrieve("user"));
+        assertSame(token, store.retrieve("user"));
+        assertEquals(1, delegate.retrieves);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        CachingOAuthTokenStore store = new CachingOAuthTokenStore(delegate, 2, 0);
+        store.store("a", new OAuthToken("a", null, null));
+        store.store("b", new OAuthToken("b", null, null));
+        store.retrieve("a");
+        store.store("c", new OAuthToken("c", null, null));
+
+        assertEquals(2, store.size());
+        store.retrieve("a");
+        store.retrieve("c");
+        assertEquals(0, delegate.retrieves);
+        store.retrieve("b");
+        assertEquals(1, delegate.retrieves);
+    }
+
+    @Test
+    public void testStaleEntriesAreReloaded() throws Exception {
+        CachingOAuthTokenStore store = new CachingOAuthTokenStore(delegate, 10, 1);
+        store.store("user", new OAuthToken("token", null, null));
+        Thread.sleep(10);
+
+        store.retrieve("user");
+        assertEquals(1, delegate.retrieves);
+    }
+
+    @Test
+    public void testExpiredTokensAreMisses() throws Exception {
+        CachingOAuthTokenStore store = new CachingOAuthTokenStore(delegate);
+        store.store("user", new OAuthToken("token", null, new Date(System.currentTimeMillis() - 1000)));
+
+        assertNull(store.retrieve("user"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testExpiredTokensWithRefreshTokenAreHandedOut() throws Exception {
+        CachingOAuthTokenStore store = new CachingOAuthTokenStore(delegate);
+        OAuthToken token = new OAuthToken("token", null, new Date(System.currentTimeMillis() - 1000), "refresh");
+        delegate.store("user", token);
+
+        assertSame(token, store.retrieve("user"));
+        assertSame(token, store.retrieve("user"));
+        assertEquals(1, delegate.retrieves);
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        CachingOAuthTokenStore store = new CachingOAuthTokenStore(delegate);
+        store.store("user", new OAuthToken("token", null, null));
+        store.remove("user");
+
+        assertNull(store.retrieve("user"));
+        assertNull(delegate.retrieve("user"));
+    }
+
+    private static class CountingTokenStore extends ObjectStoreOAuthTokenStore {
+        private int retrieves;
+
+        @Override
+        public OAuthToken retrieve(String accessTokenId) throws ObjectStoreException {
+            retrieves++;
+            return super.retrieve(accessTokenId);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import org.junit.Test;
+import org.mule.api.annotations.oauth.OAuthMessageSigner;
+import org.mule.api.annotations.oauth.OAuthSigningStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OAuthRequestSignerTest {
+
+    private static final String CONSUMER_KEY = "dpf43f3p2l4k3l03";
+    private static final String CONSUMER_SECRET = "kd94hf93k423kf44";
+    private static final String TOKEN = "nnch734d00sl2jdk";
+    private static final String TOKEN_SECRET = "pfkkdhi9sl3r4s00";
+    private static final String URL = "http://photos.example.net/photos?file=vacation.jpg&size=original";
+
+    private static final int THREADS = 8;
+    private static final int SIGNATURES_PER_THREAD = 200;
+    private static final int TOKEN_SECRETS = 16;
+
+    @Test
+    public void testHmacSha1Signature() {
+        OAuthRequestSigner signer = new OAuthRequestSigner(CONSUMER_KEY, CONSUMER_SECRET);
+        Map<String, String> parameters = signer.signatureParameters("GET", URL, null, TOKEN, TOKEN_SECRET, "1191242096", "kllo9940pd9333jh");
+
+        // example from appendix A.5 of the OAuth 1.0 specification
+        assertEquals("tR3+Ty81lMeYAr/Fid0kMTYa/WM=", parameters.get("oauth_signature"));
+        assertEquals("HMAC-SHA1", parameters.get("oauth_signature_method"));
+    }
+
+    @Test
+    public void testSignatureIsStableAcrossCachedKeys() {
+        OAuthRequestSigner signer = new OAuthRequestSigner(CONSUMER_KEY, CONSUMER_SECRET);
+        String first = signer.signatureParameters("GET", URL, null, TOKEN, TOKEN_SECRET, "1191242096", "kllo9940pd9333jh").get("oauth_signature");
+        signer.signatureParameters("GET", URL, null, "other", "otherSecret", "1191242096", "kllo9940pd9333jh");
+        String second = signer.signatureParameters("GET", URL, null, TOKEN, TOKEN_SECRET, "1191242096", "kllo9940pd9333jh").get("oauth_signature");
+
+        assertEquals(first, second);
+        assertEquals(2, signer.getCachedKeys());
+    }
+
+    @Test
+    public void testCachedKeysAreBounded() {
+        OAuthRequestSigner signer = new OAuthRequestSigner(CONSUMER_KEY, CONSUMER_SECRET, OAuthMessageSigner.HMAC_SHA1, OAuthSigningStrategy.AUTHORIZATION_HEADER, 4);
+        for (int i = 0; i < 10; i++) {
+            signer.sign("GET", URL, null, TOKEN, "secret" + i);
+        }
+
+        assertTrue(signer.getCachedKeys() <= 4);
+    }
+
+    @Test
+    public void testPlainTextSignature() {
+        OAuthRequestSigner signer = new OAuthRequestSigner(CONSUMER_KEY, CONSUMER_SECRET, OAuthMessageSigner.PLAIN_TEXT, OAuthSigningStrategy.AUTHORIZATION_HEADER);
+        Map<String, String> parameters = signer.signatureParameters("GET", URL, null, TOKEN, TOKEN_SECRET);
+
+        assertEquals(CONSUMER_SECRET + "&" + TOKEN_SECRET, parameters.get("oauth_signature"));
+        assertEquals("PLAINTEXT", parameters.get("oauth_signature_method"));
+    }
+
+    @Test
+    public void testAuthorizationHeaderStrategy() {
+        OAuthRequestSigner signer = new OAuthRequestSigner(CONSUMER_KEY, CONSUMER_SECRET, OAuthMessageSigner.HMAC_SHA1, OAuthSigningStrategy.AUTHORIZATION_HEADER);
+        String header = signer.sign("GET", URL, null, TOKEN, TOKEN_SECRET);
+
+        assertTrue(header.startsWith("OAuth oauth_consumer_key=\"" + CONSUMER_KEY + "\", oauth_token=\"" + TOKEN + "\""));
+        assertTrue(header.contains("oauth_signature=\""));
+    }
+
+    @Test
+    public void testQueryStringStrategy() {
+        OAuthRequestSigner signer = new OAuthRequestSigner(CONSUMER_KEY, CONSUMER_SECRET, OAuthMessageSigner.HMAC_SHA1, OAuthSigningStrategy.QUERY_STRING);
+        String url = signer.sign("GET", URL, null, TOKEN, TOKEN_SECRET);
+
+        assertTrue(url.startsWith(URL + "&oauth_consumer_key=" + CONSUMER_KEY + "&oauth_token=" + TOKEN));
+        assertTrue(url.contains("&oauth_signature="));
+    }
+
+    @Test
+    public void testFormParametersAreSigned() {
+        OAuthRequestSigner signer = new OAuthRequestSigner(CONSUMER_KEY, CONSUMER_SECRET);
+        Map<String, String> form = new LinkedHashMap<String, String>();
+        form.put("status", "hello world");
+        String withForm = signer.signatureParameters("POST", URL, form, TOKEN, TOKEN_SECRET, "1191242096", "nonce").get("oauth_signature");
+        String withoutForm = signer.signatureParameters("POST", URL, null, TOKEN, TOKEN_SECRET, "1191242096", "nonce").get("oauth_signature");
+
+        assertTrue(!withForm.equals(withoutForm));
+    }
+
+    @Test
+    public void testParametersAreSortedByNameThenValue() {
+        OAuthRequestSigner signer = new OAuthRequestSigner(CONSUMER_KEY, CONSUMER_SECRET);
+        Map<String, String> form = new LinkedHashMap<String, String>();
+        form.put("file.name", "a");
+        form.put("file", "b");
+        String baseString = signer.signatureBaseString("GET", "http://example.net/?page2=1&page=10&page=2", form, Collections.<String, String>emptyMap());
+
+        // sorting the encoded name=value pairs as strings would put page2 before page and file.name before file
+        assertEquals("GET&http%3A%2F%2Fexample.net%2F&file%3Db%26file.name%3Da%26page%3D10%26page%3D2%26page2%3D1", baseString);
+    }
+
+    @Test
+    public void testConcurrentSigning() throws Exception {
+        for (OAuthSigningStrategy strategy : OAuthSigningStrategy.values()) {
+            OAuthRequestSigner signer = new OAuthRequestSigner(CONSUMER_KEY, CONSUMER_SECRET, OAuthMessageSigner.HMAC_SHA1, strategy);
+
+            signConcurrently(signer, SIGNATURES_PER_THREAD);
+
+            assertEquals(TOKEN_SECRETS, signer.getCachedKeys());
+        }
+    }
+
+    private void signConcurrently(final OAuthRequestSigner signer, final int signaturesPerThread) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        Map<String, String> form = Collections.singletonMap("status", "hello world");
+                        start.await();
+                        for (int j = 0; j < signaturesPerThread; j++) {
+                            assertTrue(signer.sign("POST", URL, form, TOKEN + (j % TOKEN_SECRETS), TOKEN_SECRET + (j % TOKEN_SECRETS)).length() > 0);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OAuthTokenTest {
+
+    private static final long LIFETIME = 3600000;
+
+    @Test
+    public void testRefreshDelayWithoutExpiration() {
+        OAuthToken token = new OAuthToken("token", null, null, "refresh");
+
+        assertEquals(-1, token.getRefreshDelay(0.8));
+        assertFalse(token.isDueForRefresh(0.8));
+    }
+
+    @Test
+    public void testRefreshDelayIsFractionOfLifetime() {
+        OAuthToken token = new OAuthToken("token", null, new Date(System.currentTimeMillis() + LIFETIME), "refresh");
+
+        long delay = token.getRefreshDelay(0.5);
+        assertTrue(delay <= LIFETIME / 2);
+        assertTrue(delay > LIFETIME / 2 - 1000);
+        assertFalse(token.isDueForRefresh(0.5));
+    }
+
+    @Test
+    public void testDueForRefreshOnceFractionHasPassed() {
+        OAuthToken token = new OAuthToken("token", null, new Date(System.currentTimeMillis() - 1000), "refresh");
+
+        assertEquals(0, token.getRefreshDelay(0.8));
+        assertTrue(token.isDueForRefresh(0.8));
+        assertTrue(token.isExpired());
+    }
+
+    @Test
+    public void testRefreshOutcomesAreRecorded() {
+        TokenRefreshStatistics statistics = new TokenRefreshStatistics();
+        statistics.refreshSucceeded();
+        statistics.refreshFailed(new IllegalStateException("No refresh token is available"));
+
+        assertEquals(1, statistics.getSuccessfulRefreshes());
+        assertEquals(1, statistics.getFailedRefreshes());
+        assertEquals("No refresh token is available", statistics.getLastFailureMessage());
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void testConcurrentRequestsAreExecutedOnce() throws Exception {
+        final SingleFlight singleFlight = new SingleFlight();
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Callable<String> request = new Callable<String>() {
+            public String call() throws Exception {
+                executions.incrementAndGet();
+                Thread.sleep(200);
+                return "token";
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        start.await();
+                        return singleFlight.execute("key", request, 10000);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("token", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+        assertFalse(singleFlight.isInFlight("key"));
+    }
+
+    @Test
+    public void testCompletedRequestsAreExecutedAgain() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        final AtomicInteger executions = new AtomicInteger();
+        Callable<Integer> request = new Callable<Integer>() {
+            public Integer call() throws Exception {
+                return executions.incrementAndGet();
+            }
+        };
+
+        assertEquals(Integer.valueOf(1), singleFlight.execute("key", request, 0));
+        assertEquals(Integer.valueOf(2), singleFlight.execute("key", request, 0));
+    }
+
+    @Test
+    public void testExceptionIsThrownToEveryCaller() throws Exception {
+        final SingleFlight singleFlight = new SingleFlight();
+        final IllegalStateException failure = new IllegalStateException();
+        final CountDownLatch executing = new CountDownLatch(1);
+        final Callable<Object> request = new Callable<Object>() {
+            public Object call() throws Exception {
+                executing.countDown();
+                Thread.sleep(200);
+                throw failure;
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> leader = executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    return singleFlight.execute("key", request, 0);
+                }
+            });
+            executing.await();
+            try {
+                singleFlight.execute("key", request, 10000);
+                fail();
+            } catch (IllegalStateException e) {
+                assertSame(failure, e);
+            }
+            try {
+                leader.get(10, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testWaitIsBounded() throws Exception {
+        final SingleFlight singleFlight = new SingleFlight();
+        final CountDownLatch executing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    return singleFlight.execute("key", new Callable<Object>() {
+                        public Object call() throws Exception {
+                            executing.countDown();
+                            release.await();
+                            return null;
+                        }
+                    }, 0);
+                }
+            });
+            executing.await();
+            singleFlight.execute("key", new Callable<Object>() {
+                public Object call() throws Exception {
+                    return null;
+                }
+            }, 100);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
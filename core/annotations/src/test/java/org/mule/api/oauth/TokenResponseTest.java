@@ -0,0 +1,83 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mule.api.oauth;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TokenResponseTest {
+
+    @Test
+    public void testJsonResponse() throws Exception {
+        String body = "{\n" +
+                "  \"access_token\":\"2YotnFZFEjr1zCsicMWpAA\",\n" +
+                "  \"token_type\":\"example\",\n" +
+                "  \"expires_in\":3600,\n" +
+                "  \"refresh_token\":\"tGzv3JOkF0XG5Qx2TlKWIA\",\n" +
+                "  \"example_parameter\":\"example_value\"\n" +
+                "}";
+        TokenResponse response = TokenResponse.parse(new StringReader(body));
+
+        assertEquals("2YotnFZFEjr1zCsicMWpAA", response.getParameter("access_token"));
+        assertEquals("3600", response.getParameter("expires_in"));
+        assertEquals("tGzv3JOkF0XG5Qx2TlKWIA", response.getParameter("refresh_token"));
+        assertEquals(body, response.getBody());
+    }
+
+    @Test
+    public void testJsonEscapesAndNestedValues() throws Exception {
+        TokenResponse response = TokenResponse.parse(new StringReader(
+                "{\"scope\":[\"read\",\"write\"],\"user\":{\"id\":\"}\"},\"access_token\":\"a\\\"b\\u0063\\/d\",\"id_token\":null}"));
+
+        assertEquals("a\"bc/d", response.getParameter("access_token"));
+        assertNull(response.getParameter("scope"));
+        assertNull(response.getParameter("user"));
+        assertNull(response.getParameter("id_token"));
+    }
+
+    @Test
+    public void testFormResponse() throws Exception {
+        TokenResponse response = TokenResponse.parse(new ByteArrayInputStream("access_token=a%2Bb&expires=5183999".getBytes("UTF-8")), "UTF-8");
+
+        assertEquals("a+b", response.getParameter("access_token"));
+        assertEquals("5183999", response.getParameter("expires"));
+    }
+
+    @Test
+    public void testMalformedResponseKeepsBody() throws Exception {
+        String body = "{\"expires_in\":3600, access_token: \"abc\"}";
+        TokenResponse response = TokenResponse.parse(new StringReader(body));
+
+        assertEquals("3600", response.getParameter("expires_in"));
+        assertNull(response.getParameter("access_token"));
+        assertEquals(body, response.getBody());
+    }
+
+    @Test
+    public void testEmptyResponse() throws Exception {
+        TokenResponse response = TokenResponse.parse(null, "UTF-8");
+
+        assertTrue(response.getParameters().isEmpty());
+        assertEquals("", response.getBody());
+    }
+}
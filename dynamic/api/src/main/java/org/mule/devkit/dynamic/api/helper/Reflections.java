@@ -19,24 +19,165 @@ package org.mule.devkit.dynamic.api.helper;
 import org.mule.util.StringUtils;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Helper methods for reflection.
+ * <br />
+ * Setters, getters and fields used by {@link #get(Object, String)} and {@link #set(Object, String, Object)} are resolved
+ * once per {@link Class} and property then cached, so repeated accesses neither look them up again nor rely on exceptions.
+ * Properties with no accessor at all are not cached. Cached accessors reference their {@link Class} and so its
+ * {@link ClassLoader}: use {@link #evict(ClassLoader)} once classes loaded by a {@link ClassLoader} are no longer used.
  */
 public final class Reflections {
 
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<String, Property>> PROPERTIES = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Property>>();
+
+    /**
+     * Accessors resolved for a property of a {@link Class}. Any of them might be missing.
+     */
+    private static final class Property {
+
+        private final Method getter;
+        private final Method[] setters;
+        private final Field field;
+
+        private Property(final Class<?> clazz, final String propertyName) {
+            final String getterName = Reflections.getterMethodName(propertyName);
+            final String setterName = Reflections.setterMethodName(propertyName);
+            Method getter = null;
+            final List<Method> setters = new ArrayList<Method>();
+            for (final Method method : clazz.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                if (getterName.equals(method.getName()) && method.getParameterTypes().length == 0) {
+                    getter = method;
+                } else if (setterName.equals(method.getName()) && method.getParameterTypes().length == 1) {
+                    setters.add(method);
+                }
+            }
+            this.getter = getter;
+            this.setters = setters.toArray(new Method[setters.size()]);
+            this.field = findField(clazz, propertyName);
+        }
+
+        private boolean isEmpty() {
+            return this.getter == null && this.setters.length == 0 && this.field == null;
+        }
+
+        private static Field findField(final Class<?> clazz, final String propertyName) {
+            for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+                for (final Field field : current.getDeclaredFields()) {
+                    if (propertyName.equals(field.getName())) {
+                        field.setAccessible(true);
+                        return field;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param value
+         * @return the setter whose parameter type matches `value` type, the first one accepting it otherwise. null if none does
+         */
+        private Method setterFor(final Object value) {
+            if (this.setters.length == 1) {
+                return Reflections.accepts(this.setters[0], value) ? this.setters[0] : null;
+            }
+            Method assignableSetter = null;
+            for (final Method setter : this.setters) {
+                if (value != null && Reflections.asType(setter.getParameterTypes()[0]).equals(value.getClass())) {
+                    return setter;
+                }
+                if (assignableSetter == null && Reflections.accepts(setter, value)) {
+                    assignableSetter = setter;
+                }
+            }
+            return assignableSetter;
+        }
+
+    }
+
     private Reflections() {
     }
 
-    public static Field setAccessible(final Object object, final String propertyName) {
+    private static boolean accepts(final Method setter, final Object value) {
+        final Class<?> parameterType = setter.getParameterTypes()[0];
+        if (value == null) {
+            return !parameterType.isPrimitive();
+        }
+        return Reflections.asType(parameterType).isInstance(value);
+    }
+
+    private static Property property(final Class<?> clazz, final String propertyName) {
+        ConcurrentMap<String, Property> properties = Reflections.PROPERTIES.get(clazz);
+        if (properties == null) {
+            final ConcurrentMap<String, Property> newProperties = new ConcurrentHashMap<String, Property>();
+            properties = Reflections.PROPERTIES.putIfAbsent(clazz, newProperties);
+            if (properties == null) {
+                properties = newProperties;
+            }
+        }
+        Property property = properties.get(propertyName);
+        if (property == null) {
+            final Property newProperty = new Property(clazz, propertyName);
+            if (newProperty.isEmpty()) {
+                //Do not let lookups of arbitrary names grow the cache.
+                return newProperty;
+            }
+            property = properties.putIfAbsent(propertyName, newProperty);
+            if (property == null) {
+                property = newProperty;
+            }
+        }
+        return property;
+    }
+
+    private static Object invoke(final Object object, final Method method, final Object... arguments) {
         try {
-            final Field field = object.getClass().getDeclaredField(propertyName);
-            field.setAccessible(true);
-            return field;
-        } catch (NoSuchFieldException e) {
-            throw new RuntimeException("Failed to make <"+propertyName+"> accessible", e);
+            return method.invoke(object, arguments);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to invoke <"+method.getName()+"> on <"+object+">", e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Failed to invoke <"+method.getName()+"> on <"+object+">", e.getCause());
+        }
+    }
+
+    /**
+     * Forgets accessors cached for classes loaded by specified {@link ClassLoader} or one of its descendants.
+     * @param classLoader
+     */
+    public static void evict(final ClassLoader classLoader) {
+        if (classLoader == null) {
+            throw new IllegalArgumentException("null classLoader");
+        }
+
+        for (final Iterator<Class<?>> iterator = Reflections.PROPERTIES.keySet().iterator(); iterator.hasNext();) {
+            for (ClassLoader current = iterator.next().getClassLoader(); current != null; current = current.getParent()) {
+                if (current == classLoader) {
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    public static Field setAccessible(final Object object, final String propertyName) {
+        final Field field = Reflections.property(object.getClass(), propertyName).field;
+        if (field == null) {
+            throw new RuntimeException("Failed to make <"+propertyName+"> accessible: no such field on <"+object.getClass().getName()+">");
         }
+        return field;
     }
 
     /**
@@ -48,20 +189,21 @@ public final class Reflections {
     }
 
     /**
-     * Get value of property for specified object.
+     * Get value of property for specified object, using its getter if any or its field otherwise.
      * @param object
      * @param propertyName
      */
     public static Object get(final Object object, final String propertyName) {
+        final Property property = Reflections.property(object.getClass(), propertyName);
+        if (property.getter != null) {
+            return Reflections.invoke(object, property.getter);
+        }
+
+        final Field field = Reflections.setAccessible(object, propertyName);
         try {
-            return Reflections.invoke(object, Reflections.getterMethodName(propertyName), void.class);
-        } catch (RuntimeException e) {
-            final Field field = Reflections.setAccessible(object, propertyName);
-            try {
-                return field.get(object);
-            } catch(IllegalAccessException ee) {
-                throw new RuntimeException(ee);
-            }
+            return field.get(object);
+        } catch(IllegalAccessException e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -74,34 +216,42 @@ public final class Reflections {
     }
 
     /**
-     * Sets property to value for specified object.
+     * Sets property to value for specified object, using a setter accepting value if any or its field otherwise.
      * @param object
      * @param propertyName
      * @param value 
      */
     public static void set(final Object object, final String propertyName, final Object value) {
+        final Property property = Reflections.property(object.getClass(), propertyName);
+        final Method setter = property.setterFor(value);
+        if (setter != null) {
+            Reflections.invoke(object, setter, value);
+            return;
+        }
+
+        final Field field = Reflections.setAccessible(object, propertyName);
         try {
-            Reflections.invoke(object, Reflections.setterMethodName(propertyName), value);
-        } catch (RuntimeException e) {
-            final Field field = Reflections.setAccessible(object, propertyName);
-            try {
-                field.set(object, value);
-            } catch(IllegalAccessException ee) {
-                throw new RuntimeException(ee);
-            }
+            field.set(object, value);
+        } catch(IllegalAccessException e) {
+            throw new RuntimeException(e);
         }
     }
 
     /**
-     * Sets parameters for specified object.
+     * Sets parameters for specified object using their setters.
      * @param object
      * @param parameters
      */
     public static void set(final Object object, final Map<String, Object> parameters) {
+        final Class<?> clazz = object.getClass();
         for (final Map.Entry<String, Object> entry : parameters.entrySet()) {
             final String parameterName = entry.getKey();
+            final Method setter = Reflections.property(clazz, parameterName).setterFor(entry.getValue());
+            if (setter == null) {
+                throw new RuntimeException("Failed to set parameter <"+parameterName+">: no setter accepting <"+entry.getValue()+"> on <"+clazz.getName()+">");
+            }
             try {
-                Reflections.invoke(object, Reflections.setterMethodName(parameterName), entry.getValue(), Object.class);
+                Reflections.invoke(object, setter, entry.getValue());
             } catch (Exception e) {
                 throw new RuntimeException("Failed to set parameter <"+parameterName+">", e);
             }
@@ -30,18 +30,25 @@ import org.mule.api.transformer.Transformer;
 import org.mule.api.transformer.TransformerException;
 import org.mule.devkit.dynamic.api.helper.LifeCycles;
 import org.mule.devkit.dynamic.api.helper.MuleContexts;
-import org.mule.devkit.dynamic.api.helper.Parameters;
 import org.mule.devkit.dynamic.api.helper.Reflections;
 import org.mule.devkit.dynamic.api.model.Module;
 import org.mule.transformer.types.DataTypeFactory;
+import org.mule.util.concurrent.DaemonThreadFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,8 +75,18 @@ public class DynamicModule implements Disposable {
     private static final String MODULE_OBJECT_REGISTRY_KEY = "moduleObject";
     private final int retryMax;
     protected static final int DEFAULT_RETRY_MAX = 5;
+    protected static final int DEFAULT_EXECUTOR_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    protected static final long DEFAULT_DISPOSE_TIMEOUT = 10000;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Set<InvocationFuture<?>> pendingInvocations = Collections.newSetFromMap(new ConcurrentHashMap<InvocationFuture<?>, Boolean>());
+    private volatile boolean disposed;
     private final Map<String, Object> parameters;
-    private final Map<Class<?>, Invoker> invokerCache = new HashMap<Class<?>, Invoker>();
+    private final Map<String, Module.Processor> processors = new HashMap<String, Module.Processor>();
+    private final Map<String, InvocationPlan> processorPlans = new HashMap<String, InvocationPlan>();
+    private final Map<String, Module.Source> sources = new HashMap<String, Module.Source>();
+    private final Map<String, InvocationPlan> sourcePlans = new HashMap<String, InvocationPlan>();
+    private final ConcurrentMap<Class<?>, Invoker> invokerCache = new ConcurrentHashMap<Class<?>, Invoker>();
     private final Map<Class<?>, Registrar> registrarCache = new HashMap<Class<?>, Registrar>();
 
     public DynamicModule(final Module module) {
@@ -81,6 +98,16 @@ public class DynamicModule implements Disposable {
     }
 
     public DynamicModule(final Module module, final Map<String, Object> overriddenParameters, final int retryMax) {
+        this(module, overriddenParameters, retryMax, null);
+    }
+
+    /**
+     * @param module
+     * @param overriddenParameters
+     * @param retryMax
+     * @param executor {@link ExecutorService} running asynchronous invocations. If null a pool of {@link #DEFAULT_EXECUTOR_THREADS} daemon threads is created and shut down by {@link #dispose()}.
+     */
+    public DynamicModule(final Module module, final Map<String, Object> overriddenParameters, final int retryMax, final ExecutorService executor) {
         if (module == null) {
             throw new IllegalArgumentException("null module");
         }
@@ -101,8 +128,18 @@ public class DynamicModule implements Disposable {
         }
         this.module = module;
         this.retryMax = retryMax;
+        this.ownsExecutor = executor == null;
+        this.executor = this.ownsExecutor ? Executors.newFixedThreadPool(DynamicModule.DEFAULT_EXECUTOR_THREADS, new DaemonThreadFactory("DynamicModule")) : executor;
         this.parameters = allParameters(module.getParameters(), overriddenParameters);
-        
+        for (final Module.Processor processor : module.getProcessors()) {
+            this.processors.put(processor.getName(), processor);
+            this.processorPlans.put(processor.getName(), createInvocationPlan(processor.getParameters()));
+        }
+        for (final Module.Source source : module.getSources()) {
+            this.sources.put(source.getName(), source);
+            this.sourcePlans.put(source.getName(), createInvocationPlan(source.getParameters()));
+        }
+
         try {
             initialise();
         } catch (Exception e) {
@@ -114,6 +151,10 @@ public class DynamicModule implements Disposable {
         return this.context;
     }
 
+    protected final ExecutorService getExecutor() {
+        return this.executor;
+    }
+
     private void initialise() throws InitialisationException, RegistrationException, MuleException {
         final Capabilities capabilities = this.module.getModule();
         if (capabilities.isCapableOf(Capability.LIFECYCLE_CAPABLE)) {
@@ -134,42 +175,11 @@ public class DynamicModule implements Disposable {
     }
 
     protected final void validateParameterTypeCorrectness(final List<Module.Parameter> defaultParameters, final Map<String, Object> overriddenParameters) {
-        final List<String> incorrectParameterTypes = new LinkedList<String>();
-        //Ensure all overridden parameter types are correct.
-        for (final Map.Entry<String, Object> entry : overriddenParameters.entrySet()) {
-            final String parameterName = entry.getKey();
-            final Module.Parameter parameter = Parameters.getParameter(defaultParameters, parameterName);
-            if (parameter == null) {
-                continue;
-            }
-
-            final Class<?> expectedType = Reflections.asType(parameter.getType());
-            final Class<?> type = entry.getValue().getClass();
-            if (!expectedType.isAssignableFrom(type)) {
-                final StringBuilder details = new StringBuilder(parameterName);
-                details.append("(type ").append(type.getCanonicalName()).append(" is not assignable to ").append(expectedType.getCanonicalName()).append(")");
-                incorrectParameterTypes.add(details.toString());
-            }
-        }
-        if (!incorrectParameterTypes.isEmpty()) {
-            final String terminaison = incorrectParameterTypes.size()>1?"s":"";
-            throw new IllegalArgumentException("Incorrect type"+terminaison+" for parameter"+terminaison+" <"+incorrectParameterTypes+">");
-        }
+        new InvocationPlan(defaultParameters, Collections.<String, Object>emptyMap()).validateParameterTypeCorrectness(overriddenParameters);
     }
 
     protected final void ensureNoMissingParameters(final List<Module.Parameter> defaultParameters, final Map<String, Object> overriddenParameters) {
-        final List<String> missingMandatoryParameters = new LinkedList<String>();
-        //Ensure all mandatory parameter values are provided.
-        for (final Module.Parameter parameter : defaultParameters) {
-            if (!parameter.isOptional() && parameter.getDefaultValue() == null
-                && !overriddenParameters.containsKey(parameter.getName())) {
-                missingMandatoryParameters.add(parameter.getName());
-            }
-        }
-        if (!missingMandatoryParameters.isEmpty()) {
-            final String terminaison = missingMandatoryParameters.size()>1?"s":"";
-            throw new IllegalArgumentException("Value"+terminaison+" for parameter"+terminaison+" <"+missingMandatoryParameters+"> must be provided");
-        }
+        new InvocationPlan(defaultParameters, Collections.<String, Object>emptyMap()).ensureNoMissingParameters(overriddenParameters);
     }
 
     /**
@@ -178,35 +188,27 @@ public class DynamicModule implements Disposable {
      * @return 
      */
     protected final Map<String, Object> allParameters(final List<Module.Parameter> defaultParameters, final Map<String, Object> overriddenParameters) {
-        final Map<String, Object> allParameters = new HashMap<String, Object>();
-        final Set<String> defaultParameterNames = new HashSet<String>();
-        for (final Module.Parameter parameter : defaultParameters) {
+        return createInvocationPlan(defaultParameters).allParameters(overriddenParameters);
+    }
+
+    /**
+     * @param parameters
+     * @return an {@link InvocationPlan} for `parameters` with their default values transformed to their type
+     */
+    private InvocationPlan createInvocationPlan(final List<Module.Parameter> parameters) {
+        final Map<String, Object> defaultValues = new HashMap<String, Object>();
+        for (final Module.Parameter parameter : parameters) {
             //Only add default values
             if (parameter.getDefaultValue() != null) {
                 try {
                     final Transformer transformer = this.context.getRegistry().lookupTransformer(DataType.STRING_DATA_TYPE, DataTypeFactory.create(parameter.getType()));
-                    allParameters.put(parameter.getName(), transformer.transform(parameter.getDefaultValue()));
+                    defaultValues.put(parameter.getName(), transformer.transform(parameter.getDefaultValue()));
                 } catch (TransformerException e) {
                     throw new RuntimeException("Failed to transform <"+parameter.getDefaultValue()+">", e);
                 }
-                
             }
-            defaultParameterNames.add(parameter.getName());
-        }
-        for (final Map.Entry<String, Object> entry : overriddenParameters.entrySet()) {
-            //Only add existing parameters
-            final String parameterName = entry.getKey();
-            if (!defaultParameterNames.contains(parameterName)) {
-                if (DynamicModule.LOGGER.isLoggable(Level.WARNING)) {
-                    DynamicModule.LOGGER.log(Level.WARNING, "Value has been provided for unknown parameter <{0}>; it will be ignored", parameterName);
-                }
-
-                continue;
-            }
-
-            allParameters.put(parameterName, entry.getValue());
         }
-        return allParameters;
+        return new InvocationPlan(parameters, defaultValues);
     }
 
     /**
@@ -214,34 +216,38 @@ public class DynamicModule implements Disposable {
      * @return {@link Module.Processor} extracted from {@link Module$Processor}with specified name, null otherwise
      */
     protected final Module.Processor findProcessor(final String processorName) {
-        for (final Module.Processor processor : this.module.getProcessors()) {
-            if (processorName.equals(processor.getName())) {
-                return processor;
-            }
-        }
-        return null;
+        return this.processors.get(processorName);
     }
 
     /**
      * @param messageProcessor
      * @return an {@link Invoker} for {@link MessageProcessor}. Creates it if needed.
+     * Lookups of existing {@link Invoker}s do not lock; only creation is serialized as it initialises `messageProcessor`.
      * @throws InitialisationException
      * @throws MuleException
-     * @see #createInvoker(org.mule.api.processor.MessageProcessor) 
      */
-    protected synchronized final Invoker getInvoker(final MessageProcessor messageProcessor) throws InitialisationException, MuleException {
+    protected final Invoker getInvoker(final MessageProcessor messageProcessor) throws InitialisationException, MuleException {
         final Class<?> key = messageProcessor.getClass();
-        if (this.invokerCache.containsKey(key)) {
-            return this.invokerCache.get(key);
+        final Invoker cachedInvoker = this.invokerCache.get(key);
+        if (cachedInvoker != null) {
+            return cachedInvoker;
         }
 
-        final Invoker invoker = new Invoker(this.context, messageProcessor, this.retryMax);
-        this.invokerCache.put(key, invoker);
-        return invoker;
+        synchronized (this.invokerCache) {
+            final Invoker existingInvoker = this.invokerCache.get(key);
+            if (existingInvoker != null) {
+                return existingInvoker;
+            }
+
+            final Invoker invoker = new Invoker(this.context, messageProcessor, this.retryMax);
+            this.invokerCache.put(key, invoker);
+            return invoker;
+        }
     }
 
     /**
      * Invoke `processorName` with provided `overriddenParameters`. Non overridden parameters will rely on default value.
+     * Can be called concurrently: each invocation uses its own {@link MessageProcessor} instance.
      * @param <T>
      * @param processorName
      * @param overriddenParameters
@@ -250,26 +256,171 @@ public class DynamicModule implements Disposable {
      * @throws MuleException 
      */
     public final <T> T invoke(final String processorName, final Map<String, Object> overriddenParameters) throws InitialisationException, MuleException {
+        final Module.Processor processor = findProcessorOrFail(processorName);
+        return this.<T>invoke(processor.getMessageProcessor(), planParameters(processorName, overriddenParameters));
+    }
+
+    protected <T> T invoke(final MessageProcessor messageProcessor, final Map<String, Object> parameters) throws InitialisationException, MuleException {
+        return getInvoker(messageProcessor).<T>invoke(parameters);
+    }
+
+    /**
+     * Asynchronously invoke `processorName` with provided `overriddenParameters`. Non overridden parameters will rely on default value.
+     * Parameters are validated right away; the invocation itself runs on the {@link ExecutorService} of this module.
+     * Once this module is disposed the returned {@link Future} fails with a {@link RejectedExecutionException}.
+     * @param <T>
+     * @param processorName
+     * @param overriddenParameters
+     * @return a {@link Future} of the invocation result
+     */
+    public final <T> Future<T> invokeAsync(final String processorName, final Map<String, Object> overriddenParameters) {
+        final Module.Processor processor = findProcessorOrFail(processorName);
+        return this.<T>startAsync(processor.getMessageProcessor(), planParameters(processorName, overriddenParameters));
+    }
+
+    /**
+     * Asynchronously invoke `processorName` once per element of `overriddenParametersList`, running at most `parallelism` invocations at a time.
+     * Invocations are started in order as previous ones complete; no thread waits in between.
+     * @param <T>
+     * @param processorName
+     * @param overriddenParametersList
+     * @param parallelism
+     * @return a {@link Future} per invocation, in the order of `overriddenParametersList`
+     */
+    public final <T> List<Future<T>> invokeAll(final String processorName, final List<Map<String, Object>> overriddenParametersList, final int parallelism) {
+        if (overriddenParametersList == null) {
+            throw new IllegalArgumentException("null overriddenParametersList");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be > 0");
+        }
+
+        final Module.Processor processor = findProcessorOrFail(processorName);
+        final List<Map<String, Object>> parametersList = new ArrayList<Map<String, Object>>(overriddenParametersList.size());
+        final List<InvocationFuture<T>> futures = new ArrayList<InvocationFuture<T>>(overriddenParametersList.size());
+        for (final Map<String, Object> overriddenParameters : overriddenParametersList) {
+            parametersList.add(planParameters(processorName, overriddenParameters));
+            futures.add(new InvocationFuture<T>());
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        //Counts requested starts. Only the thread bringing it up from 0 starts invocations, others leave their request to it.
+        //This keeps invocations completing right away (direct executor, rejection) from recursing once per element.
+        final AtomicInteger pendingStarts = new AtomicInteger();
+        final Runnable startNext = new Runnable() {
+            @Override
+            public void run() {
+                if (pendingStarts.getAndIncrement() != 0) {
+                    return;
+                }
+
+                final Runnable startNextRunnable = this;
+                do {
+                    final int index = next.getAndIncrement();
+                    if (index >= parametersList.size()) {
+                        continue;
+                    }
+
+                    final InvocationFuture<T> invocation = DynamicModule.this.<T>startAsync(processor.getMessageProcessor(), parametersList.get(index));
+                    invocation.addListener(new Runnable() {
+                        @Override
+                        public void run() {
+                            futures.get(index).completeWith(invocation);
+                            startNextRunnable.run();
+                        }
+                    });
+                } while (pendingStarts.decrementAndGet() != 0);
+            }
+        };
+        for (int i = 0; i < Math.min(parallelism, parametersList.size()); i++) {
+            startNext.run();
+        }
+        return new ArrayList<Future<T>>(futures);
+    }
+
+    /**
+     * Start an asynchronous invocation unless this module has been disposed and keep track of it until it completes.
+     * @see #dispose()
+     */
+    private <T> InvocationFuture<T> startAsync(final MessageProcessor messageProcessor, final Map<String, Object> parameters) {
+        if (this.disposed) {
+            final InvocationFuture<T> future = new InvocationFuture<T>();
+            future.setException(new RejectedExecutionException("DynamicModule has been disposed"));
+            return future;
+        }
+
+        final InvocationFuture<T> future = this.<T>invokeAsync(messageProcessor, parameters);
+        this.pendingInvocations.add(future);
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                DynamicModule.this.pendingInvocations.remove(future);
+            }
+        });
+        //dispose() might have gone through pending invocations before this one was added.
+        if (this.disposed) {
+            future.cancel(false);
+        }
+        return future;
+    }
+
+    /**
+     * Run an invocation of `messageProcessor` on the {@link ExecutorService} of this module.
+     * @param <T>
+     * @param messageProcessor
+     * @param parameters
+     * @return an {@link InvocationFuture} completed with the invocation result, or with a {@link RejectedExecutionException} if the {@link ExecutorService} does not accept it
+     */
+    protected <T> InvocationFuture<T> invokeAsync(final MessageProcessor messageProcessor, final Map<String, Object> parameters) {
+        final InvocationFuture<T> future = new InvocationFuture<T>();
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (future.isDone()) {
+                        //Cancelled while queued.
+                        return;
+                    }
+
+                    try {
+                        future.set(DynamicModule.this.<T>invoke(messageProcessor, parameters));
+                    } catch (Throwable t) {
+                        future.setException(t);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.setException(e);
+        }
+        return future;
+    }
+
+    private Module.Processor findProcessorOrFail(final String processorName) {
         if (processorName == null) {
             throw new IllegalArgumentException("The processor name cannot be null");
         }
-        if (overriddenParameters == null) {
-            throw new IllegalArgumentException("The overridenParameters cannot be null");
-        }
 
         final Module.Processor processor = findProcessor(processorName);
         if (processor == null) {
             throw new IllegalArgumentException("Cannot find a Processor named <"+processorName+">");
         }
-
-        validateParameterTypeCorrectness(processor.getParameters(), overriddenParameters);
-        ensureNoMissingParameters(processor.getParameters(), overriddenParameters);
-
-        return this.<T>invoke(processor.getMessageProcessor(), allParameters(processor.getParameters(), overriddenParameters));
+        return processor;
     }
 
-    protected <T> T invoke(final MessageProcessor messageProcessor, final Map<String, Object> parameters) throws InitialisationException, MuleException {
-        return getInvoker(messageProcessor).<T>invoke(parameters);
+    /**
+     * @param processorName
+     * @param overriddenParameters
+     * @return all parameters of `processorName` once `overriddenParameters` have been validated
+     */
+    private Map<String, Object> planParameters(final String processorName, final Map<String, Object> overriddenParameters) {
+        if (overriddenParameters == null) {
+            throw new IllegalArgumentException("The overridenParameters cannot be null");
+        }
+
+        final InvocationPlan plan = this.processorPlans.get(processorName);
+        plan.validateParameterTypeCorrectness(overriddenParameters);
+        plan.ensureNoMissingParameters(overriddenParameters);
+        return plan.allParameters(overriddenParameters);
     }
 
     /**
@@ -277,12 +428,7 @@ public class DynamicModule implements Disposable {
      * @return {@link Module.Source} extracted from {@link Module$Source}with specified name, null otherwise
      */
     protected final Module.Source findSource(final String sourceName) {
-        for (final Module.Source source : this.module.getSources()) {
-            if (sourceName.equals(source.getName())) {
-                return source;
-            }
-        }
-        return null;
+        return this.sources.get(sourceName);
     }
 
     /**
@@ -329,14 +475,15 @@ public class DynamicModule implements Disposable {
             throw new IllegalArgumentException("Cannot find a Source named <"+sourceName+">");
         }
 
-        validateParameterTypeCorrectness(source.getParameters(), overriddenParameters);
-        ensureNoMissingParameters(source.getParameters(), overriddenParameters);
+        final InvocationPlan plan = this.sourcePlans.get(sourceName);
+        plan.validateParameterTypeCorrectness(overriddenParameters);
+        plan.ensureNoMissingParameters(overriddenParameters);
 
         final Registrar registrar = getRegistrar(source.getMessageSource());
         if (registrar != null) {
             throw new IllegalStateException("Source <"+sourceName+"> is already subscribed");
         }
-        createAndCacheRegistrar(source.getMessageSource()).start(allParameters(source.getParameters(), overriddenParameters), listener);
+        createAndCacheRegistrar(source.getMessageSource()).start(plan.allParameters(overriddenParameters), listener);
     }
 
     /**
@@ -362,14 +509,51 @@ public class DynamicModule implements Disposable {
         registrar.stop();
     }
 
+    /**
+     * Hook to release resources used by asynchronous invocations. Called by {@link #dispose()}.
+     */
+    protected void disposeAsync() {
+    }
+
+    /**
+     * Shut down the {@link ExecutorService} created by this module, if any, waiting up to {@link #DEFAULT_DISPOSE_TIMEOUT} ms for running invocations to complete.
+     * Invocations still running after that are interrupted.
+     */
+    private void shutdownExecutor() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(DynamicModule.DEFAULT_DISPOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                if (DynamicModule.LOGGER.isLoggable(Level.WARNING)) {
+                    DynamicModule.LOGGER.log(Level.WARNING, "Asynchronous invocations did not complete within <"+DynamicModule.DEFAULT_DISPOSE_TIMEOUT+"> ms, interrupting them");
+                }
+                this.executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Cleanup all internal resources:
+     * * reject new asynchronous invocations
+     * * shut down the {@link ExecutorService} created by this module, if any, once running invocations completed (see {@link #shutdownExecutor()})
+     * * cancel asynchronous invocations not completed yet
      * * call {@link Invoker#dispose()} for all cached {@link Invoker}
      * * call {@link Registrar#stop()} for all cached {@link Registrar}
      * * call {@link MuleContext#dispose()}
+     * * evict accessors cached by {@link Reflections} for classes of the module
      */
     @Override
     public final void dispose() {
+        this.disposed = true;
+        if (this.ownsExecutor) {
+            shutdownExecutor();
+        }
+        disposeAsync();
+        for (final InvocationFuture<?> pendingInvocation : this.pendingInvocations) {
+            pendingInvocation.cancel(false);
+        }
         for (final Invoker invoker : this.invokerCache.values()) {
             invoker.dispose();
         }
@@ -383,6 +567,9 @@ public class DynamicModule implements Disposable {
             }
         }
         this.context.dispose();
+        if (this.module.getClassLoader() != null) {
+            Reflections.evict(this.module.getClassLoader());
+        }
     }
 
 }
\ No newline at end of file
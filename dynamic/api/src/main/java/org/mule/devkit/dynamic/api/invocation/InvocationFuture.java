@@ -0,0 +1,111 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.dynamic.api.invocation;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * {@link Future} of an asynchronous invocation, completed by whoever runs the invocation.
+ * <br />
+ * Listeners can be registered to be called once it completes so that invocations can be chained without blocking a thread.
+ * @param <T>
+ */
+public final class InvocationFuture<T> extends FutureTask<T> {
+
+    private static final Callable<Object> NO_CALLABLE = new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+            throw new IllegalStateException("InvocationFuture is completed through set/setException");
+        }
+    };
+
+    private final Queue<Runnable> listeners = new ConcurrentLinkedQueue<Runnable>();
+
+    public InvocationFuture() {
+        super((Callable<T>) InvocationFuture.NO_CALLABLE);
+    }
+
+    @Override
+    public void run() {
+        throw new UnsupportedOperationException("InvocationFuture is completed through set/setException");
+    }
+
+    @Override
+    public void set(final T result) {
+        super.set(result);
+    }
+
+    @Override
+    public void setException(final Throwable throwable) {
+        super.setException(throwable);
+    }
+
+    /**
+     * Completes this {@link InvocationFuture} the same way `future` completed.
+     * @param future a completed {@link Future}
+     */
+    void completeWith(final Future<T> future) {
+        try {
+            set(future.get());
+        } catch (CancellationException e) {
+            cancel(false);
+        } catch (ExecutionException e) {
+            setException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            setException(e);
+        }
+    }
+
+    /**
+     * Registers `listener` to be called once this {@link InvocationFuture} completes. It is called right away if already completed.
+     * <br />
+     * Listeners run on the thread completing the {@link InvocationFuture} and must not block.
+     * @param listener
+     */
+    public void addListener(final Runnable listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("null listener");
+        }
+
+        this.listeners.add(listener);
+        if (isDone()) {
+            runListeners();
+        }
+    }
+
+    @Override
+    protected void done() {
+        runListeners();
+    }
+
+    private void runListeners() {
+        //Each listener is polled once so it runs once even if done() and addListener() race.
+        Runnable listener;
+        while ((listener = this.listeners.poll()) != null) {
+            listener.run();
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.dynamic.api.invocation;
+
+import org.mule.devkit.dynamic.api.helper.Reflections;
+import org.mule.devkit.dynamic.api.model.Module;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Everything needed to check and complete the parameters of an invocation, computed once from a list of {@link Module.Parameter}:
+ * expected parameter types, mandatory parameters and already transformed default values.
+ */
+final class InvocationPlan {
+
+    private static final Logger LOGGER = Logger.getLogger(InvocationPlan.class.getPackage().getName());
+
+    private final Map<String, Class<?>> expectedTypes = new HashMap<String, Class<?>>();
+    private final Set<String> mandatoryParameterNames = new HashSet<String>();
+    private final Map<String, Object> defaultValues;
+
+    /**
+     * @param parameters
+     * @param defaultValues default values of `parameters`, already transformed to their type
+     */
+    InvocationPlan(final List<Module.Parameter> parameters, final Map<String, Object> defaultValues) {
+        for (final Module.Parameter parameter : parameters) {
+            this.expectedTypes.put(parameter.getName(), Reflections.asType(parameter.getType()));
+            if (!parameter.isOptional() && parameter.getDefaultValue() == null) {
+                this.mandatoryParameterNames.add(parameter.getName());
+            }
+        }
+        this.defaultValues = Collections.unmodifiableMap(new HashMap<String, Object>(defaultValues));
+    }
+
+    void validateParameterTypeCorrectness(final Map<String, Object> overriddenParameters) {
+        List<String> incorrectParameterTypes = null;
+        //Ensure all overridden parameter types are correct.
+        for (final Map.Entry<String, Object> entry : overriddenParameters.entrySet()) {
+            final String parameterName = entry.getKey();
+            final Class<?> expectedType = this.expectedTypes.get(parameterName);
+            if (expectedType == null) {
+                continue;
+            }
+
+            final Class<?> type = entry.getValue().getClass();
+            if (!expectedType.isAssignableFrom(type)) {
+                if (incorrectParameterTypes == null) {
+                    incorrectParameterTypes = new LinkedList<String>();
+                }
+                final StringBuilder details = new StringBuilder(parameterName);
+                details.append("(type ").append(type.getCanonicalName()).append(" is not assignable to ").append(expectedType.getCanonicalName()).append(")");
+                incorrectParameterTypes.add(details.toString());
+            }
+        }
+        if (incorrectParameterTypes != null) {
+            final String terminaison = incorrectParameterTypes.size()>1?"s":"";
+            throw new IllegalArgumentException("Incorrect type"+terminaison+" for parameter"+terminaison+" <"+incorrectParameterTypes+">");
+        }
+    }
+
+    void ensureNoMissingParameters(final Map<String, Object> overriddenParameters) {
+        if (overriddenParameters.keySet().containsAll(this.mandatoryParameterNames)) {
+            return;
+        }
+
+        final List<String> missingMandatoryParameters = new LinkedList<String>();
+        //Ensure all mandatory parameter values are provided.
+        for (final String parameterName : this.mandatoryParameterNames) {
+            if (!overriddenParameters.containsKey(parameterName)) {
+                missingMandatoryParameters.add(parameterName);
+            }
+        }
+        final String terminaison = missingMandatoryParameters.size()>1?"s":"";
+        throw new IllegalArgumentException("Value"+terminaison+" for parameter"+terminaison+" <"+missingMandatoryParameters+"> must be provided");
+    }
+
+    /**
+     * Aggregate all parameters: default and overridden ones.
+     * Overridden parameters take precedence over default ones.
+     * @param overriddenParameters
+     * @return 
+     */
+    Map<String, Object> allParameters(final Map<String, Object> overriddenParameters) {
+        final Map<String, Object> allParameters = new HashMap<String, Object>(this.defaultValues);
+        for (final Map.Entry<String, Object> entry : overriddenParameters.entrySet()) {
+            //Only add existing parameters
+            final String parameterName = entry.getKey();
+            if (!this.expectedTypes.containsKey(parameterName)) {
+                if (InvocationPlan.LOGGER.isLoggable(Level.WARNING)) {
+                    InvocationPlan.LOGGER.log(Level.WARNING, "Value has been provided for unknown parameter <{0}>; it will be ignored", parameterName);
+                }
+
+                continue;
+            }
+
+            allParameters.put(parameterName, entry.getValue());
+        }
+        return allParameters;
+    }
+
+}
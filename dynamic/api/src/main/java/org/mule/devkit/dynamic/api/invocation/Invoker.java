@@ -23,18 +23,35 @@ import org.mule.api.context.MuleContextAware;
 import org.mule.api.lifecycle.Disposable;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.processor.MessageProcessor;
+import org.mule.devkit.dynamic.api.helper.Classes;
 import org.mule.devkit.dynamic.api.helper.LifeCycles;
 import org.mule.devkit.dynamic.api.helper.MuleEvents;
 import org.mule.devkit.dynamic.api.helper.Reflections;
 
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Invokes a {@link MessageProcessor} with a set of parameters.
+ * <br />
+ * Generated {@link MessageProcessor}s hold their parameters in fields, so each invocation checks out a dedicated instance
+ * (created from the {@link MessageProcessor} class if none is idle) and returns it once done.
+ * Concurrent invocations never share an instance and {@link #invoke(java.util.Map)} can be called from many threads.
+ * Instances are kept until {@link #dispose()}, so there are as many as the peak number of concurrent invocations.
+ * An instance keeps the parameters of the invocation that last used it; those not provided are not reset.
+ */
 public class Invoker implements Disposable {
 
     private final MuleContext context;
-    private final MessageProcessor messageProcessor;
+    private final Class<? extends MessageProcessor> messageProcessorClass;
+    private final Queue<MessageProcessor> idleMessageProcessors = new ConcurrentLinkedQueue<MessageProcessor>();
+    private final Queue<MessageProcessor> messageProcessors = new ConcurrentLinkedQueue<MessageProcessor>();
     private final int retryMax;
     private static final String RETRY_MAX_FIELD_NAME = "retryMax";
+    private static final Logger LOGGER = Logger.getLogger(Invoker.class.getPackage().getName());
 
     public Invoker(final MuleContext context, final MessageProcessor messageProcessor, final int retryMax) {
         if (context == null) {
@@ -45,22 +62,42 @@ public class Invoker implements Disposable {
         }
 
         this.context = context;
-        this.messageProcessor = messageProcessor;
+        this.messageProcessorClass = messageProcessor.getClass();
         this.retryMax = retryMax;
 
         try {
-            initialise();
+            initialise(messageProcessor);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        this.idleMessageProcessors.add(messageProcessor);
+    }
+
+    private void initialise(final MessageProcessor messageProcessor) throws InitialisationException, MuleException {
+        Reflections.set(messageProcessor, Invoker.RETRY_MAX_FIELD_NAME, this.retryMax);
+
+        MuleContextAware.class.cast(messageProcessor).setMuleContext(this.context);
+        LifeCycles.initialise(messageProcessor);
+        LifeCycles.start(messageProcessor);
+        this.messageProcessors.add(messageProcessor);
     }
 
-    private void initialise() throws InitialisationException, MuleException {
-        Reflections.set(this.messageProcessor, Invoker.RETRY_MAX_FIELD_NAME, this.retryMax);
+    /**
+     * @return an idle {@link MessageProcessor}, a new initialised one if none is available
+     * @throws MuleException
+     */
+    private MessageProcessor checkOut() throws MuleException {
+        final MessageProcessor messageProcessor = this.idleMessageProcessors.poll();
+        if (messageProcessor != null) {
+            return messageProcessor;
+        }
 
-        MuleContextAware.class.cast(this.messageProcessor).setMuleContext(this.context);
-        LifeCycles.initialise(this.messageProcessor);
-        LifeCycles.start(this.messageProcessor);
+        final MessageProcessor newMessageProcessor = Classes.newInstance(this.messageProcessorClass);
+        if (newMessageProcessor == null) {
+            throw new IllegalStateException("Failed to instantiate MessageProcessor class <"+this.messageProcessorClass.getCanonicalName()+">");
+        }
+        initialise(newMessageProcessor);
+        return newMessageProcessor;
     }
 
     public final <T> T invoke(final Map<String, Object> processorParameters) throws MuleException {
@@ -68,21 +105,39 @@ public class Invoker implements Disposable {
             throw new IllegalArgumentException("null processorParameters");
         }
 
-        //Set all parameter values on the MessageProcessor.
-        Reflections.set(this.messageProcessor, processorParameters);
+        final MessageProcessor messageProcessor = checkOut();
+        try {
+            //Set all parameter values on the MessageProcessor.
+            Reflections.set(messageProcessor, processorParameters);
 
-        final MuleEvent muleEvent = MuleEvents.defaultMuleEvent(processorParameters, this.context);
-        return (T) this.messageProcessor.process(muleEvent).getMessage().getPayload();
+            final MuleEvent muleEvent = MuleEvents.defaultMuleEvent(processorParameters, this.context);
+            return (T) messageProcessor.process(muleEvent).getMessage().getPayload();
+        } finally {
+            this.idleMessageProcessors.add(messageProcessor);
+        }
     }
 
     @Override
     public final void dispose() {
-        try {
-            LifeCycles.stop(this.messageProcessor);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        this.idleMessageProcessors.clear();
+        //Keep going on failure so that every MessageProcessor gets a chance to release its resources.
+        for (final MessageProcessor messageProcessor : this.messageProcessors) {
+            try {
+                LifeCycles.stop(messageProcessor);
+            } catch (Exception e) {
+                if (Invoker.LOGGER.isLoggable(Level.WARNING)) {
+                    Invoker.LOGGER.log(Level.WARNING, "Got exception while stopping <"+messageProcessor+">", e);
+                }
+            }
+            try {
+                LifeCycles.dispose(messageProcessor);
+            } catch (RuntimeException e) {
+                if (Invoker.LOGGER.isLoggable(Level.WARNING)) {
+                    Invoker.LOGGER.log(Level.WARNING, "Got exception while disposing <"+messageProcessor+">", e);
+                }
+            }
         }
-        LifeCycles.dispose(this.messageProcessor);
+        this.messageProcessors.clear();
     }
 
-}
\ No newline at end of file
+}
@@ -24,23 +24,38 @@ import org.mule.api.retry.RetryContext;
 import org.mule.api.retry.RetryPolicyTemplate;
 import org.mule.devkit.dynamic.api.model.Module;
 import org.mule.retry.policies.AbstractPolicyTemplate;
+import org.mule.retry.policies.SimpleRetryPolicyTemplate;
+import org.mule.util.concurrent.DaemonThreadFactory;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * {@link DynamicModule} specialization relying on a {@link RetryPolicyTemplate} to implement retry capacity.
+ * <br />
+ * Asynchronous invocations with a {@link SimpleRetryPolicyTemplate} schedule each retry after its frequency instead of
+ * sleeping, so no thread is held between attempts. Other policies run their whole retry loop on the {@link ExecutorService}.
  */
 public class RetryingDynamicModule extends DynamicModule {
 
     private final AbstractPolicyTemplate retryPolicyTemplate;
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("RetryingDynamicModule"));
 
     public RetryingDynamicModule(final Module module, final Map<String, Object> overriddenParameters, final AbstractPolicyTemplate retryPolicyTemplate) {
         this(module, overriddenParameters, DynamicModule.DEFAULT_RETRY_MAX, retryPolicyTemplate);
     }
 
     public RetryingDynamicModule(final Module module, final Map<String, Object> overriddenParameters, final int retryMax, final AbstractPolicyTemplate retryPolicyTemplate) {
-        super(module, overriddenParameters, retryMax);
+        this(module, overriddenParameters, retryMax, retryPolicyTemplate, null);
+    }
+
+    public RetryingDynamicModule(final Module module, final Map<String, Object> overriddenParameters, final int retryMax, final AbstractPolicyTemplate retryPolicyTemplate, final ExecutorService executor) {
+        super(module, overriddenParameters, retryMax, executor);
 
         if (retryPolicyTemplate == null) {
             throw new IllegalArgumentException("null retryPolicyTemplate");
@@ -79,4 +94,64 @@ public class RetryingDynamicModule extends DynamicModule {
         }
     }
 
+    @Override
+    protected <T> InvocationFuture<T> invokeAsync(final MessageProcessor messageProcessor, final Map<String, Object> parameters) {
+        if (!(this.retryPolicyTemplate instanceof SimpleRetryPolicyTemplate)) {
+            //Backoff of other policies is not known: they might block between attempts.
+            return super.invokeAsync(messageProcessor, parameters);
+        }
+
+        final SimpleRetryPolicyTemplate simpleRetryPolicyTemplate = (SimpleRetryPolicyTemplate) this.retryPolicyTemplate;
+        final InvocationFuture<T> future = new InvocationFuture<T>();
+        attempt(messageProcessor, parameters, future, 0, simpleRetryPolicyTemplate.getCount(), simpleRetryPolicyTemplate.getFrequency());
+        return future;
+    }
+
+    /**
+     * Run an invocation attempt on the {@link ExecutorService}. On failure the next attempt is scheduled after `frequency` until `count` retries have been made.
+     */
+    private <T> void attempt(final MessageProcessor messageProcessor, final Map<String, Object> parameters, final InvocationFuture<T> future, final int retries, final int count, final long frequency) {
+        final Runnable attempt = new Runnable() {
+            @Override
+            public void run() {
+                if (future.isDone()) {
+                    //Cancelled while queued or waiting for a retry.
+                    return;
+                }
+
+                try {
+                    future.set(RetryingDynamicModule.super.<T>invoke(messageProcessor, parameters));
+                } catch (InitialisationException e) {
+                    future.setException(e);
+                } catch (Throwable t) {
+                    if (count != SimpleRetryPolicyTemplate.RETRY_COUNT_FOREVER && retries >= count) {
+                        future.setException(t);
+                        return;
+                    }
+
+                    try {
+                        RetryingDynamicModule.this.retryScheduler.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                attempt(messageProcessor, parameters, future, retries + 1, count, frequency);
+                            }
+                        }, frequency, TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException e) {
+                        future.setException(t);
+                    }
+                }
+            }
+        };
+        try {
+            getExecutor().execute(attempt);
+        } catch (RejectedExecutionException e) {
+            future.setException(e);
+        }
+    }
+
+    @Override
+    protected void disposeAsync() {
+        this.retryScheduler.shutdownNow();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.dynamic.api.helper;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ReflectionsTest {
+
+    private static final int ITERATIONS = 1000;
+
+    public static class Bean {
+
+        private Object value;
+        private int retryMax;
+        private String challenge = "challenge";
+
+        public Object getValue() {
+            return this.value;
+        }
+
+        public void setValue(final Object value) {
+            this.value = value;
+        }
+
+    }
+
+    @Test
+    public void testSetAndGetThroughAccessors() {
+        final Bean bean = new Bean();
+        Reflections.set(bean, "value", "a value");
+        assertEquals("a value", bean.getValue());
+        assertEquals("a value", Reflections.get(bean, "value"));
+    }
+
+    @Test
+    public void testSetAndGetThroughFields() {
+        final Bean bean = new Bean();
+        Reflections.set(bean, "retryMax", 5);
+        assertEquals(5, bean.retryMax);
+        assertEquals(5, Reflections.get(bean, "retryMax"));
+
+        Reflections.set(bean, "challenge", null);
+        assertNull(bean.challenge);
+    }
+
+    @Test
+    public void testSetParameters() {
+        final Bean bean = new Bean();
+        final Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("value", 12);
+        Reflections.set(bean, parameters);
+        assertEquals(12, bean.getValue());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testSetParametersWithoutSetter() {
+        final Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("retryMax", 5);
+        Reflections.set(new Bean(), parameters);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testSetUnknownProperty() {
+        Reflections.set(new Bean(), "unknown", "a value");
+    }
+
+    @Test
+    public void testAccessAfterEviction() {
+        final Bean bean = new Bean();
+        Reflections.set(bean, "value", "a value");
+        Reflections.evict(Bean.class.getClassLoader());
+        Reflections.set(bean, "value", "another value");
+        assertEquals("another value", Reflections.get(bean, "value"));
+    }
+
+    @Test
+    public void testRepeatedAccessThroughCachedAccessors() {
+        final Bean bean = new Bean();
+        for (int i = 0; i < ReflectionsTest.ITERATIONS; i++) {
+            Reflections.set(bean, "value", i);
+            Reflections.set(bean, "retryMax", i);
+        }
+        assertEquals(ReflectionsTest.ITERATIONS - 1, bean.getValue());
+        assertEquals(ReflectionsTest.ITERATIONS - 1, bean.retryMax);
+    }
+
+}
@@ -0,0 +1,324 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.dynamic.api.invocation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.Capabilities;
+import org.mule.api.Capability;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.context.MuleContextAware;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.devkit.dynamic.api.model.Module;
+import org.mule.retry.policies.SimpleRetryPolicyTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DynamicModuleTest {
+
+    private static final long TIMEOUT = 10;
+    private static final int FAILURES_BEFORE_SUCCESS = 2;
+    private static final int MANY_INVOCATIONS = 5000;
+
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+    private static final AtomicInteger MAX_RUNNING = new AtomicInteger();
+    private static final AtomicInteger ATTEMPTS = new AtomicInteger();
+
+    public static class Capable implements Capabilities {
+
+        public boolean isCapableOf(final Capability capability) {
+            return false;
+        }
+
+    }
+
+    public static class EchoMessageProcessor implements MessageProcessor, MuleContextAware {
+
+        private int retryMax;
+        private Object value;
+
+        public void setMuleContext(final MuleContext context) {
+        }
+
+        public void setValue(final Object value) {
+            this.value = value;
+        }
+
+        public MuleEvent process(final MuleEvent event) throws MuleException {
+            final int running = RUNNING.incrementAndGet();
+            try {
+                int maxRunning = MAX_RUNNING.get();
+                while (running > maxRunning && !MAX_RUNNING.compareAndSet(maxRunning, running)) {
+                    maxRunning = MAX_RUNNING.get();
+                }
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                RUNNING.decrementAndGet();
+            }
+            event.getMessage().setPayload(this.value);
+            return event;
+        }
+
+    }
+
+    public static class PassThroughMessageProcessor implements MessageProcessor, MuleContextAware {
+
+        private int retryMax;
+        private Object value;
+
+        public void setMuleContext(final MuleContext context) {
+        }
+
+        public void setValue(final Object value) {
+            this.value = value;
+        }
+
+        public MuleEvent process(final MuleEvent event) throws MuleException {
+            event.getMessage().setPayload(this.value);
+            return event;
+        }
+
+    }
+
+    /**
+     * Runs tasks on the calling thread.
+     */
+    private static class DirectExecutorService extends AbstractExecutorService {
+
+        private volatile boolean shutdown;
+
+        public void execute(final Runnable command) {
+            command.run();
+        }
+
+        public void shutdown() {
+            this.shutdown = true;
+        }
+
+        public List<Runnable> shutdownNow() {
+            this.shutdown = true;
+            return Collections.emptyList();
+        }
+
+        public boolean isShutdown() {
+            return this.shutdown;
+        }
+
+        public boolean isTerminated() {
+            return this.shutdown;
+        }
+
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+            return this.shutdown;
+        }
+
+    }
+
+    public static class FlakyMessageProcessor implements MessageProcessor, MuleContextAware {
+
+        private int retryMax;
+
+        public void setMuleContext(final MuleContext context) {
+        }
+
+        public MuleEvent process(final MuleEvent event) throws MuleException {
+            if (ATTEMPTS.incrementAndGet() <= FAILURES_BEFORE_SUCCESS) {
+                throw new IllegalStateException("Failing attempt");
+            }
+            event.getMessage().setPayload("success");
+            return event;
+        }
+
+    }
+
+    private DynamicModule dynamicModule;
+    private RetryingDynamicModule retryingDynamicModule;
+
+    @Before
+    public void setUpModules() {
+        RUNNING.set(0);
+        MAX_RUNNING.set(0);
+        ATTEMPTS.set(0);
+        this.dynamicModule = new DynamicModule(createModule());
+        this.retryingDynamicModule = new RetryingDynamicModule(createModule(), Collections.<String, Object>emptyMap(), new SimpleRetryPolicyTemplate(10, FAILURES_BEFORE_SUCCESS));
+    }
+
+    private Module createModule() {
+        final Module.Parameter value = new Module.Parameter("value", Object.class, true, null);
+        final Module.Processor echo = new Module.Processor("echo", new EchoMessageProcessor(), Arrays.asList(value), false);
+        final Module.Processor passThrough = new Module.Processor("passThrough", new PassThroughMessageProcessor(), Arrays.asList(value), false);
+        final Module.Processor flaky = new Module.Processor("flaky", new FlakyMessageProcessor(), Collections.<Module.Parameter>emptyList(), false);
+        return new Module("test", "3.2", new Capable(), Collections.<Module.Parameter>emptyList(), Arrays.asList(echo, passThrough, flaky),
+                Collections.<Module.Source>emptyList(), Collections.<Module.Transformer>emptyList(), null, getClass().getClassLoader());
+    }
+
+    @After
+    public void disposeModules() {
+        this.dynamicModule.dispose();
+        this.retryingDynamicModule.dispose();
+    }
+
+    @Test
+    public void testInvokeAsync() throws Exception {
+        final Future<String> result = this.dynamicModule.invokeAsync("echo", Collections.<String, Object>singletonMap("value", "a value"));
+        assertEquals("a value", result.get(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvokeAsyncUnknownProcessor() {
+        this.dynamicModule.invokeAsync("unknown", Collections.<String, Object>emptyMap());
+    }
+
+    @Test
+    public void testInvokeAllBoundsParallelism() throws Exception {
+        final List<Map<String, Object>> parametersList = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < 20; i++) {
+            parametersList.add(Collections.<String, Object>singletonMap("value", i));
+        }
+
+        final List<Future<Integer>> results = this.dynamicModule.invokeAll("echo", parametersList, 2);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(Integer.valueOf(i), results.get(i).get(TIMEOUT, TimeUnit.SECONDS));
+        }
+        assertTrue("At most 2 invocations should run at a time but " + MAX_RUNNING.get() + " did", MAX_RUNNING.get() <= 2);
+    }
+
+    @Test
+    public void testInvokeAsyncRetries() throws Exception {
+        final Future<String> result = this.retryingDynamicModule.invokeAsync("flaky", Collections.<String, Object>emptyMap());
+        assertEquals("success", result.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(FAILURES_BEFORE_SUCCESS + 1, ATTEMPTS.get());
+    }
+
+    private static List<Map<String, Object>> parametersList(final int size) {
+        final List<Map<String, Object>> parametersList = new ArrayList<Map<String, Object>>(size);
+        for (int i = 0; i < size; i++) {
+            parametersList.add(Collections.<String, Object>singletonMap("value", i));
+        }
+        return parametersList;
+    }
+
+    @Test
+    public void testInvokeAllOnDirectExecutor() throws Exception {
+        final DynamicModule directDynamicModule = new DynamicModule(createModule(), Collections.<String, Object>emptyMap(), 1, new DirectExecutorService());
+        try {
+            final List<Future<Integer>> results = directDynamicModule.invokeAll("passThrough", parametersList(MANY_INVOCATIONS), 2);
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(Integer.valueOf(i), results.get(i).get(TIMEOUT, TimeUnit.SECONDS));
+            }
+        } finally {
+            directDynamicModule.dispose();
+        }
+    }
+
+    @Test
+    public void testInvokeAllFailsInvocationsRejectedByExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final DynamicModule rejectingDynamicModule = new DynamicModule(createModule(), Collections.<String, Object>emptyMap(), 1, executor);
+        try {
+            final List<Future<Integer>> results = rejectingDynamicModule.invokeAll("passThrough", parametersList(MANY_INVOCATIONS), 2);
+            assertEquals(MANY_INVOCATIONS, results.size());
+            for (final Future<Integer> result : results) {
+                try {
+                    result.get(TIMEOUT, TimeUnit.SECONDS);
+                    fail("Invocation should have been rejected");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof RejectedExecutionException);
+                }
+            }
+        } finally {
+            rejectingDynamicModule.dispose();
+        }
+    }
+
+    @Test
+    public void testDisposeCancelsQueuedInvocations() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            final DynamicModule queuedDynamicModule = new DynamicModule(createModule(), Collections.<String, Object>emptyMap(), 1, executor);
+            final Future<String> result = queuedDynamicModule.invokeAsync("echo", Collections.<String, Object>singletonMap("value", "a value"));
+
+            queuedDynamicModule.dispose();
+
+            assertTrue(result.isCancelled());
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(TIMEOUT, TimeUnit.SECONDS));
+            assertEquals(0, MAX_RUNNING.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDisposeWaitsForRunningInvocations() throws Exception {
+        final DynamicModule disposedDynamicModule = new DynamicModule(createModule());
+        final Future<String> result = disposedDynamicModule.invokeAsync("echo", Collections.<String, Object>singletonMap("value", "a value"));
+
+        disposedDynamicModule.dispose();
+
+        assertTrue(result.isDone());
+        assertEquals("a value", result.get());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testInvokeAsyncAfterDispose() throws Throwable {
+        final DynamicModule disposedDynamicModule = new DynamicModule(createModule());
+        disposedDynamicModule.dispose();
+
+        try {
+            disposedDynamicModule.invokeAsync("echo", Collections.<String, Object>singletonMap("value", "a value")).get(TIMEOUT, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.dynamic.api.invocation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.devkit.dynamic.api.model.Module;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class InvocationPlanTest {
+
+    private InvocationPlan plan;
+
+    @Before
+    public void setUpPlan() {
+        final Module.Parameter mandatory = new Module.Parameter("mandatory", String.class, false, null);
+        final Module.Parameter optional = new Module.Parameter("optional", int.class, true, null);
+        final Module.Parameter defaulted = new Module.Parameter("defaulted", int.class, false, "5");
+        this.plan = new InvocationPlan(Arrays.asList(mandatory, optional, defaulted), Collections.<String, Object>singletonMap("defaulted", 5));
+    }
+
+    @Test
+    public void testValidParameters() {
+        final Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("mandatory", "value");
+        parameters.put("optional", 2);
+        this.plan.validateParameterTypeCorrectness(parameters);
+        this.plan.ensureNoMissingParameters(parameters);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncorrectParameterType() {
+        this.plan.validateParameterTypeCorrectness(Collections.<String, Object>singletonMap("optional", "2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingMandatoryParameter() {
+        this.plan.ensureNoMissingParameters(Collections.<String, Object>singletonMap("optional", 2));
+    }
+
+    @Test
+    public void testAllParameters() {
+        final Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("mandatory", "value");
+        parameters.put("unknown", "ignored");
+        final Map<String, Object> allParameters = this.plan.allParameters(parameters);
+        assertEquals("value", allParameters.get("mandatory"));
+        assertEquals(5, allParameters.get("defaulted"));
+        assertFalse(allParameters.containsKey("unknown"));
+
+        assertEquals(7, this.plan.allParameters(Collections.<String, Object>singletonMap("defaulted", 7)).get("defaulted"));
+    }
+
+}
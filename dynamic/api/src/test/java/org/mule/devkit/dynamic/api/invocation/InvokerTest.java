@@ -0,0 +1,175 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.dynamic.api.invocation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.context.MuleContextAware;
+import org.mule.api.lifecycle.Disposable;
+import org.mule.api.lifecycle.Stoppable;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.devkit.dynamic.api.helper.MuleContexts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class InvokerTest {
+
+    private static final int THREADS = 8;
+    private static final int INVOCATIONS_PER_THREAD = 2000;
+
+    private MuleContext context;
+    private Invoker invoker;
+
+    public static class EchoMessageProcessor implements MessageProcessor, MuleContextAware {
+
+        private int retryMax;
+        private Object value;
+
+        public void setMuleContext(final MuleContext context) {
+        }
+
+        public void setValue(final Object value) {
+            this.value = value;
+        }
+
+        public MuleEvent process(final MuleEvent event) throws MuleException {
+            //Give other threads a chance to overwrite value if this instance were shared.
+            Thread.yield();
+            event.getMessage().setPayload(this.value);
+            return event;
+        }
+
+    }
+
+    public static class FailingStopMessageProcessor implements MessageProcessor, MuleContextAware, Stoppable, Disposable {
+
+        //Holds invocations until two of them run at once so that two instances get created.
+        private static final CyclicBarrier BARRIER = new CyclicBarrier(2);
+        private static final AtomicInteger STOPS = new AtomicInteger();
+        private static final AtomicInteger DISPOSALS = new AtomicInteger();
+
+        private int retryMax;
+
+        public void setMuleContext(final MuleContext context) {
+        }
+
+        public MuleEvent process(final MuleEvent event) throws MuleException {
+            try {
+                FailingStopMessageProcessor.BARRIER.await();
+            } catch (Exception e) {
+                throw new DefaultMuleException(e);
+            }
+            return event;
+        }
+
+        public void stop() throws MuleException {
+            if (FailingStopMessageProcessor.STOPS.incrementAndGet() == 1) {
+                throw new DefaultMuleException("Failed to stop");
+            }
+        }
+
+        public void dispose() {
+            FailingStopMessageProcessor.DISPOSALS.incrementAndGet();
+        }
+
+    }
+
+    @Before
+    public void setUpInvoker() throws Exception {
+        this.context = MuleContexts.defaultMuleContext();
+        this.invoker = new Invoker(this.context, new EchoMessageProcessor(), 1);
+    }
+
+    @After
+    public void disposeInvoker() {
+        this.invoker.dispose();
+        this.context.dispose();
+    }
+
+    @Test
+    public void testConcurrentInvocationsKeepTheirParameters() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(InvokerTest.THREADS);
+        try {
+            final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(InvokerTest.THREADS);
+            for (int i = 0; i < InvokerTest.THREADS; i++) {
+                final int thread = i;
+                tasks.add(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        int mismatches = 0;
+                        for (int j = 0; j < InvokerTest.INVOCATIONS_PER_THREAD; j++) {
+                            final String value = thread + "-" + j;
+                            final Map<String, Object> parameters = Collections.<String, Object>singletonMap("value", value);
+                            if (!value.equals(invoker.<String>invoke(parameters))) {
+                                mismatches++;
+                            }
+                        }
+                        return mismatches;
+                    }
+                });
+            }
+
+            int mismatches = 0;
+            for (final Future<Integer> result : executor.invokeAll(tasks)) {
+                mismatches += result.get();
+            }
+            assertEquals(0, mismatches);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDisposeGoesOnWhenAMessageProcessorFailsToStop() throws Exception {
+        final Invoker failingInvoker = new Invoker(this.context, new FailingStopMessageProcessor(), 1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Callable<Object> task = new Callable<Object>() {
+                public Object call() throws Exception {
+                    return failingInvoker.invoke(Collections.<String, Object>emptyMap());
+                }
+            };
+            for (final Future<Object> result : executor.invokeAll(Collections.nCopies(2, task))) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        failingInvoker.dispose();
+
+        assertEquals(2, FailingStopMessageProcessor.STOPS.get());
+        assertEquals(2, FailingStopMessageProcessor.DISPOSALS.get());
+    }
+
+}
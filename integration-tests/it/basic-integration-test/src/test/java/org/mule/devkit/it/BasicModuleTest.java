@@ -17,6 +17,8 @@
 
 package org.mule.devkit.it;
 
+import org.mule.devkit.it.processors.PassthruStringMessageProcessor;
+
 public class BasicModuleTest extends AbstractModuleTest {
 
     public BasicModuleTest() {
@@ -37,6 +39,16 @@ public class BasicModuleTest extends AbstractModuleTest {
         runFlow("passthruStringFlow", "mulesoft");
     }
 
+    public void testStringSetAfterInitialise() throws Exception {
+        PassthruStringMessageProcessor processor = (PassthruStringMessageProcessor) lookupFlowConstruct("passthruStringFlow").getMessageProcessors().get(0);
+
+        processor.setValue("apple");
+        runFlow("passthruStringFlow", "apple");
+
+        processor.setValue("#[string:orange]");
+        runFlow("passthruStringFlow", "orange");
+    }
+
     public void testInteger() throws Exception {
         runFlow("passthruIntegerFlow", 3);
     }
@@ -26,6 +26,9 @@ import org.mule.api.annotations.param.Optional;
 import org.mule.api.callback.SourceCallback;
 
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Connector(name = "connector")
 public class ConnectorModule {
@@ -39,6 +42,11 @@ public class ConnectorModule {
     private String username;
     private String password;
     private static int retryCount = 0;
+    private static int backoffRetryCount = 0;
+    private static final ConcurrentMap<String, AtomicInteger> connectionsOpened = new ConcurrentHashMap<String, AtomicInteger>();
+    private static final ConcurrentMap<String, AtomicInteger> connectionsOpen = new ConcurrentHashMap<String, AtomicInteger>();
+    private int validationCount = 0;
+    private long connectedAt;
 
     @Source
     public void stream(SourceCallback callback) {
@@ -62,6 +70,17 @@ public class ConnectorModule {
         return this.sessionId != null;
     }    
 
+    @Processor
+    @InvalidateConnectionOn(exception = RuntimeException.class)
+    public boolean invalidateConnectionUntilSecondRetry() {
+        if( backoffRetryCount < 2 ) {
+            backoffRetryCount++;
+            throw new RuntimeException("API failed");
+        }
+
+        return this.sessionId != null;
+    }
+
     @Processor
     public boolean verifySession() {
         return this.sessionId != null;
@@ -96,6 +115,9 @@ public class ConnectorModule {
 
         this.username = username;
         this.password = password;
+        this.connectedAt = System.currentTimeMillis();
+        counter(connectionsOpened, username).incrementAndGet();
+        counter(connectionsOpen, username).incrementAndGet();
 
         Random generator = new Random();
         this.sessionId = generator.nextInt();
@@ -103,16 +125,47 @@ public class ConnectorModule {
 
     @Disconnect
     public void disconnect() {
+        if (this.sessionId != null) {
+            counter(connectionsOpen, this.username).decrementAndGet();
+        }
         this.sessionId = null;
     }
+
+    static int getConnectionsOpened(String username) {
+        return counter(connectionsOpened, username).get();
+    }
+
+    static int getConnectionsOpen(String username) {
+        return counter(connectionsOpen, username).get();
+    }
+
+    private static AtomicInteger counter(ConcurrentMap<String, AtomicInteger> counters, String username) {
+        AtomicInteger counter = counters.get(username);
+        if (counter == null) {
+            counters.putIfAbsent(username, new AtomicInteger());
+            counter = counters.get(username);
+        }
+        return counter;
+    }
     
     @ConnectionIdentifier
     public String connectionId() {
         return Integer.toHexString(this.sessionId);
     }
 
+    @Processor
+    public long getConnectedAt() {
+        return this.connectedAt;
+    }
+
+    @Processor
+    public int getValidationCount() {
+        return this.validationCount;
+    }
+
     @ValidateConnection
     public boolean isConnected() {
+        this.validationCount++;
         return this.sessionId != null;
     }
 
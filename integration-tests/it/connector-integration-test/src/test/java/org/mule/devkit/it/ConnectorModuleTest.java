@@ -20,11 +20,18 @@ package org.mule.devkit.it;
 import org.mule.api.Capabilities;
 import org.mule.api.Capability;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class ConnectorModuleTest extends AbstractModuleTest {
 
+    private static final String WARM_POOL_USERNAME = "warmup";
+    private static final int WARM_POOL_MIN_IDLE = 2;
+    private static final long WARM_UP_TIMEOUT = 10000;
+
     @Override
     protected String getConfigResources() {
         return "connector.xml";
@@ -84,6 +91,87 @@ public class ConnectorModuleTest extends AbstractModuleTest {
         runFlow("testInvalidateConnectionUntilThirdRetry", true);
     }
 
+    public void testInvalidateConnectionWithBackoff() throws Exception {
+        long start = System.currentTimeMillis();
+        runFlow("testInvalidateConnectionWithBackoff", true);
+
+        assertTrue(System.currentTimeMillis() - start >= 300);
+    }
+
+    public void testConcurrentPoolReusesConnections() throws Exception {
+        final Set<Integer> sessionIds = Collections.synchronizedSet(new HashSet<Integer>());
+        final Set<Exception> failures = Collections.synchronizedSet(new HashSet<Exception>());
+
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 25; j++) {
+                            Integer sessionId = runFlow("testGetSessionIdFromConcurrentPool");
+                            sessionIds.add(sessionId);
+                        }
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty());
+        assertTrue(sessionIds.size() <= 2);
+    }
+
+    public void testValidationSkippedWithinIdleTime() throws Exception {
+        Integer validationCount = runFlow("testGetValidationCount");
+        for (int i = 0; i < 5; i++) {
+            runFlow("testGetValidationCount", validationCount);
+        }
+    }
+
+    public void testMinIdleConnectionsOpenedOnStartup() throws Exception {
+        waitForOpenConnections(WARM_POOL_USERNAME, WARM_POOL_MIN_IDLE);
+        int opened = ConnectorModule.getConnectionsOpened(WARM_POOL_USERNAME);
+
+        long start = System.currentTimeMillis();
+        Long connectedAt = runFlow("testGetConnectedAtFromWarmPool");
+
+        assertTrue(connectedAt < start);
+        assertEquals(opened, ConnectorModule.getConnectionsOpened(WARM_POOL_USERNAME));
+    }
+
+    public void testMinIdleConnectionsReplenishedAfterDestroy() throws Exception {
+        waitForOpenConnections(WARM_POOL_USERNAME, WARM_POOL_MIN_IDLE);
+        int opened = ConnectorModule.getConnectionsOpened(WARM_POOL_USERNAME);
+
+        try {
+            runFlow("testInvalidateWarmConnectionOnException");
+            fail("Connection should have been invalidated");
+        } catch (Exception e) {
+        }
+
+        long deadline = System.currentTimeMillis() + WARM_UP_TIMEOUT;
+        while (ConnectorModule.getConnectionsOpened(WARM_POOL_USERNAME) == opened && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(opened + 1, ConnectorModule.getConnectionsOpened(WARM_POOL_USERNAME));
+        waitForOpenConnections(WARM_POOL_USERNAME, WARM_POOL_MIN_IDLE);
+    }
+
+    private void waitForOpenConnections(String username, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WARM_UP_TIMEOUT;
+        while (ConnectorModule.getConnectionsOpen(username) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(expected, ConnectorModule.getConnectionsOpen(username));
+    }
+
     public void testVerifyDifferentSession() throws Exception {
         Integer sessionIdA = runFlow("testGetSessionId");
         try {
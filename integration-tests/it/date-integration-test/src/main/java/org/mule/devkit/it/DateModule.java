@@ -19,6 +19,7 @@ package org.mule.devkit.it;
 
 import org.mule.api.annotations.Module;
 import org.mule.api.annotations.Processor;
+import org.mule.api.annotations.param.DatePattern;
 import org.mule.api.annotations.param.Optional;
 
 import java.util.Date;
@@ -42,4 +43,14 @@ public class DateModule {
     public Date getDate() {
         return date;
     }
+
+    @Processor
+    public Date echoDate(Date date) {
+        return date;
+    }
+
+    @Processor
+    public Date echoDateWithPattern(@DatePattern("dd/MM/yyyy HH:mm") Date date) {
+        return date;
+    }
 }
\ No newline at end of file
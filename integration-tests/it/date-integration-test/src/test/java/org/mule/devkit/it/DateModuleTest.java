@@ -23,7 +23,13 @@ import org.mule.tck.AbstractMuleTestCase;
 import org.mule.tck.FunctionalTestCase;
 import org.mule.transport.NullPayload;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class DateModuleTest extends FunctionalTestCase {
 
@@ -44,6 +50,36 @@ public class DateModuleTest extends FunctionalTestCase {
         assertEquals(NullPayload.class, responsePayload.getClass());
     }
 
+    public void testSetDateWithPattern() throws Exception {
+        Object responsePayload = runFlow("echoDateWithPattern", "10/08/2011 23:59");
+        assertEquals(new Date(2011 - 1900, 8 - 1, 10, 23, 59, 0), responsePayload);
+    }
+
+    public void testConcurrentDateParsing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 400; i++) {
+                final int day = (i % 28) + 1;
+                // the default pattern reads 12-hour "hh" fields, where 12 means midnight, so keep to hours 1 to 11
+                final int hour = (i % 11) + 1;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        Date expected = new Date(2011 - 1900, 8 - 1, day, hour, 30, 0);
+                        Object parsed = runFlow("echoDate", String.format("2011-08-%02dT%02d:30:00", day, hour));
+                        Object parsedWithPattern = runFlow("echoDateWithPattern", String.format("%02d/08/2011 %02d:30", day, hour));
+                        return expected.equals(parsed) && expected.equals(parsedWithPattern);
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private Flow lookupFlowConstruct(String name) {
         return (Flow) AbstractMuleTestCase.muleContext.getRegistry().lookupFlowConstruct(name);
     }
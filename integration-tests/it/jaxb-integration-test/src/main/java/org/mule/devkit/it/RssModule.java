@@ -32,4 +32,9 @@ public class RssModule {
     public int itemCount2(RssChannel channel) {
         return channel.getItem().size();
     }
+
+    @Processor
+    public RssChannel echoChannel(RssChannel channel) {
+        return channel;
+    }
 }
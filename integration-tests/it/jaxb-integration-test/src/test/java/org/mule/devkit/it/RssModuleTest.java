@@ -17,8 +17,22 @@
 
 package org.mule.devkit.it;
 
+import org.mule.api.MuleEvent;
+import org.mule.api.transformer.Transformer;
+import org.mule.devkit.it.rss.RssChannel;
+import org.mule.tck.AbstractMuleTestCase;
+import org.mule.transformer.types.DataTypeFactory;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
 public class RssModuleTest extends AbstractModuleTest {
 
+    private static final String CHANNEL = "<channel><title>Sample Feed</title><description>Sample</description>" +
+            "<link>http://www.mulesoft.org</link><item><title>First</title></item><item><title>Second</title></item></channel>";
+
     @Override
     protected String getConfigResources() {
         return "rss.xml";
@@ -27,4 +41,34 @@ public class RssModuleTest extends AbstractModuleTest {
     public void testJAXB() throws Exception {
         runFlow("feedCountFlow", 1);
     }
+
+    public void testUnmarshalFromStreamReaderBytesAndNode() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(CHANNEL.getBytes("UTF-8")));
+        Object[] sources = new Object[]{
+                new ByteArrayInputStream(CHANNEL.getBytes("UTF-8")),
+                new StringReader(CHANNEL),
+                CHANNEL.getBytes("UTF-8"),
+                document};
+
+        for (Object source : sources) {
+            Transformer transformer = AbstractMuleTestCase.muleContext.getRegistry().lookupTransformer(
+                    DataTypeFactory.createFromObject(source), DataTypeFactory.create(RssChannel.class));
+            RssChannel channel = (RssChannel) transformer.transform(source);
+            assertEquals(2, channel.getItem().size());
+        }
+    }
+
+    public void testMarshalReturnedChannel() throws Exception {
+        MuleEvent responseEvent = lookupFlowConstruct("echoChannelFlow").process(AbstractMuleTestCase.getTestEvent(""));
+        RssChannel channel = (RssChannel) responseEvent.getMessage().getPayload();
+
+        Transformer marshaller = AbstractMuleTestCase.muleContext.getRegistry().lookupTransformer(
+                DataTypeFactory.create(RssChannel.class), DataTypeFactory.STRING);
+        String xml = (String) marshaller.transform(channel);
+        assertTrue(xml.contains("FeedForAll Sample Feed"));
+
+        Transformer unmarshaller = AbstractMuleTestCase.muleContext.getRegistry().lookupTransformer(
+                DataTypeFactory.STRING, DataTypeFactory.create(RssChannel.class));
+        assertEquals(1, ((RssChannel) unmarshaller.transform(xml)).getItem().size());
+    }
 }
\ No newline at end of file
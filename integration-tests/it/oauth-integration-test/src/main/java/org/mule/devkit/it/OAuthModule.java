@@ -40,6 +40,7 @@ public class OAuthModule {
     public static final String REQUEST_TOKEN_URL = "http://localhost:" + PORT + "/requestToken";
     public static final String AUTHORIZATION_URL = "http://localhost:" + PORT + "/authorize";
     public static final String ACCESS_TOKEN_URL = "http://localhost:" + PORT + "/accessToken";
+    public static final String PROTECTED_RESOURCE_URL = "http://localhost:" + PORT + "/protectedResource";
     public static final String PROTECTED_RESOURCE = "protected resource";
     public static final String NON_PROTECTED_RESOURCE = "non protected resource";
 
@@ -23,6 +23,7 @@ import org.mule.api.MessagingException;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.construct.Flow;
+import org.mule.devkit.it.adapters.OAuthModuleOAuth1Adapter;
 import org.mule.tck.AbstractMuleTestCase;
 import org.mule.tck.FunctionalTestCase;
 
@@ -80,6 +81,21 @@ public class OAuthModuleTest extends FunctionalTestCase {
         verifiyProtectedResourceWasAccessed(responseEvent);
     }
 
+    @Test
+    public void testSignRequest() throws Exception {
+        OAuthModuleOAuth1Adapter oauthAdapter = muleContext.getRegistry().lookupObject("oauth-signing");
+        oauthAdapter.setAccessToken(Constants.ACCESS_TOKEN);
+        oauthAdapter.setAccessTokenSecret(Constants.ACCESS_TOKEN_SECRET);
+
+        String authorization = oauthAdapter.signRequest("GET", OAuthModule.PROTECTED_RESOURCE_URL, null);
+        assertTrue(authorization.startsWith("OAuth oauth_consumer_key=\"consumerKey123\", oauth_token=\"" + Constants.ACCESS_TOKEN + "\""));
+        assertTrue(authorization.contains("oauth_signature_method=\"HMAC-SHA1\""));
+        assertEquals(1, oauthAdapter.getRequestSigner().getCachedKeys());
+
+        oauthAdapter.signRequest("GET", OAuthModule.PROTECTED_RESOURCE_URL, null);
+        assertEquals(1, oauthAdapter.getRequestSigner().getCachedKeys());
+    }
+
     private void verifiyProtectedResourceWasAccessed(MuleEvent responseEvent) throws MuleException {
         assertEquals(OAuthModule.PROTECTED_RESOURCE, responseEvent.getMessageAsString());
         if (RequestTokenComponent.timesCalled < 1) {
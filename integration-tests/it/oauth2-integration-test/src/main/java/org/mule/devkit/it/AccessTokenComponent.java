@@ -19,9 +19,14 @@ package org.mule.devkit.it;
 import org.mule.api.MuleEventContext;
 import org.mule.api.lifecycle.Callable;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class AccessTokenComponent implements Callable {
 
-    public static int timesCalled;
+    public static final AtomicInteger timesCalled = new AtomicInteger();
+    public static final AtomicInteger refreshesRequested = new AtomicInteger();
+    // slow enough for concurrent token requests to overlap
+    private static final long RESPONSE_DELAY = 250;
     private static final String RESPONSE = "{" +
             "       \"access_token\":\"" + Constants.ACCESS_TOKEN + "\"," +
             "       \"token_type\":\"example\"," +
@@ -32,7 +37,11 @@ public class AccessTokenComponent implements Callable {
 
     @Override
     public Object onCall(MuleEventContext eventContext) throws Exception {
-        timesCalled++;
+        timesCalled.incrementAndGet();
+        if (eventContext.getMessageAsString().contains("grant_type=refresh_token")) {
+            refreshesRequested.incrementAndGet();
+        }
+        Thread.sleep(RESPONSE_DELAY);
         return RESPONSE;
     }
 }
\ No newline at end of file
@@ -22,6 +22,8 @@ import org.mule.api.Capability;
 import org.mule.api.MessagingException;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
+import org.mule.api.oauth.OAuthToken;
+import org.mule.api.oauth.OAuthTokenStore;
 import org.mule.api.registry.RegistrationException;
 import org.mule.construct.Flow;
 import org.mule.devkit.it.adapters.OAuthModuleOAuth2Adapter;
@@ -31,10 +33,22 @@ import org.mule.tck.FunctionalTestCase;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class OAuthModuleTest extends FunctionalTestCase {
 
+    private static final int CONCURRENT_CALLBACKS = 8;
+    private static final long REFRESH_TIMEOUT = 10000;
+
     @Override
     protected String getConfigResources() {
         return "oauth.xml";
@@ -83,6 +97,64 @@ public class OAuthModuleTest extends FunctionalTestCase {
         verifiyProtectedResourceWasAccessed(responseEvent);
     }
     
+    @Test
+    public void testConcurrentCallbacksFetchAccessTokenOnce() throws Exception {
+        MuleEvent responseEvent = runFlow("authorizeConcurrent");
+        String url = verifyUserIsRedirectedToAuthorizationUrl(responseEvent);
+        int timesCalled = AccessTokenComponent.timesCalled.get();
+
+        List<String> urls = new ArrayList<String>();
+        for (int i = 0; i < CONCURRENT_CALLBACKS; i++) {
+            urls.add(url);
+        }
+        simulateConcurrentCallbacks(urls);
+
+        assertEquals(1, AccessTokenComponent.timesCalled.get() - timesCalled);
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceConcurrent"));
+    }
+
+    @Test
+    public void testConcurrentCallbacksFetchAccessTokenOncePerAccessTokenId() throws Exception {
+        String url9 = verifyUserIsRedirectedToAuthorizationUrl(runFlow("authorizeRefreshPerUser", "user9"));
+        String url10 = verifyUserIsRedirectedToAuthorizationUrl(runFlow("authorizeRefreshPerUser", "user10"));
+        int timesCalled = AccessTokenComponent.timesCalled.get();
+
+        List<String> urls = new ArrayList<String>();
+        for (int i = 0; i < CONCURRENT_CALLBACKS / 2; i++) {
+            urls.add(url9);
+            urls.add(url10);
+        }
+        simulateConcurrentCallbacks(urls);
+
+        assertEquals(2, AccessTokenComponent.timesCalled.get() - timesCalled);
+        OAuthModuleOAuth2Adapter oauthAdapter = muleContext.getRegistry().lookupObject("oauth-refresh-per-user");
+        assertNotNull(oauthAdapter.getOauthTokenStore().retrieve("user9"));
+        assertNotNull(oauthAdapter.getOauthTokenStore().retrieve("user10"));
+    }
+
+    @Test
+    public void testProtectedResourceRestoresOncePerAccessTokenId() throws Exception {
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceMultiTenant", "user1"));
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceMultiTenant", "user2"));
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceMultiTenant", "user1"));
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceMultiTenant", "user2"));
+
+        assertEquals(Arrays.<Object>asList("user1", "user2"), RestoreAccessTokenComponent.getRestoredIds());
+    }
+
+    @Test
+    public void testProtectedResourceWithStoredAccessToken() throws Exception {
+        OAuthModuleOAuth2Adapter oauthAdapter = muleContext.getRegistry().lookupObject("default-oauth");
+        oauthAdapter.getOauthTokenStore().store("user3", new OAuthToken(Constants.ACCESS_TOKEN, null, null));
+
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResource", "user3"));
+    }
+
+    @Test(expected = MessagingException.class)
+    public void testProtectedResourceWithUnknownAccessTokenId() throws Exception {
+        runFlow("protectedResource", "user4");
+    }
+
     @Test
     public void testProtectedResourceAccessTokenExpired() throws Exception {
         MuleEvent responseEvent = runFlow("authorize");
@@ -100,6 +172,104 @@ public class OAuthModuleTest extends FunctionalTestCase {
         verifiyProtectedResourceWasAccessed(responseEvent);
     }
 
+    @Test
+    public void testProtectedResourceRefreshesExpiredAccessToken() throws Exception {
+        MuleEvent responseEvent = runFlow("authorizeRefresh");
+        String url = verifyUserIsRedirectedToAuthorizationUrl(responseEvent);
+        simulateCallbackUponUserAuthorizingConsumer(url);
+        int refreshesRequested = AccessTokenComponent.refreshesRequested.get();
+
+        OAuthModuleOAuth2Adapter oauthAdapter = muleContext.getRegistry().lookupObject("oauth-refresh");
+        assertNotNull(oauthAdapter.getRefreshToken());
+        oauthAdapter.setExpiration(new Date(System.currentTimeMillis() - 1000));
+
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceRefresh"));
+        assertEquals(1, AccessTokenComponent.refreshesRequested.get() - refreshesRequested);
+        assertFalse(oauthAdapter.hasTokenExpired());
+        assertEquals(1, oauthAdapter.getTokenRefreshStatistics().getSuccessfulRefreshes());
+    }
+
+    @Test
+    public void testAccessTokenFetchedForAccessTokenIdIsStored() throws Exception {
+        MuleEvent responseEvent = runFlow("authorizeRefreshPerUser", "user5");
+        String url = verifyUserIsRedirectedToAuthorizationUrl(responseEvent);
+        simulateCallbackUponUserAuthorizingConsumer(url);
+
+        OAuthModuleOAuth2Adapter oauthAdapter = muleContext.getRegistry().lookupObject("oauth-refresh-per-user");
+        OAuthToken token = oauthAdapter.getOauthTokenStore().retrieve("user5");
+        assertNotNull(token);
+        assertEquals(Constants.ACCESS_TOKEN, token.getAccessToken());
+        assertNotNull(token.getExpiration());
+        assertNotNull(token.getRefreshToken());
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceRefreshPerUser", "user5"));
+    }
+
+    @Test
+    public void testOverlappingAuthorizationsStoreTokensUnderTheirOwnIds() throws Exception {
+        String url7 = verifyUserIsRedirectedToAuthorizationUrl(runFlow("authorizeRefreshPerUser", "user7"));
+        String url8 = verifyUserIsRedirectedToAuthorizationUrl(runFlow("authorizeRefreshPerUser", "user8"));
+        assertEquals("user7", getParameter(url7, "state"));
+        assertEquals("user8", getParameter(url8, "state"));
+
+        simulateCallbackUponUserAuthorizingConsumer(url8);
+        simulateCallbackUponUserAuthorizingConsumer(url7);
+
+        OAuthModuleOAuth2Adapter oauthAdapter = muleContext.getRegistry().lookupObject("oauth-refresh-per-user");
+        assertNotNull(oauthAdapter.getOauthTokenStore().retrieve("user7"));
+        assertNotNull(oauthAdapter.getOauthTokenStore().retrieve("user8"));
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceRefreshPerUser", "user7"));
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceRefreshPerUser", "user8"));
+    }
+
+    @Test
+    public void testProtectedResourceRefreshesExpiredAccessTokenForAccessTokenId() throws Exception {
+        OAuthModuleOAuth2Adapter oauthAdapter = muleContext.getRegistry().lookupObject("oauth-refresh-per-user");
+        oauthAdapter.getOauthTokenStore().store("user6", new OAuthToken("expired", null, new Date(System.currentTimeMillis() - 1000), "refresh"));
+        int refreshesRequested = AccessTokenComponent.refreshesRequested.get();
+
+        verifiyProtectedResourceWasAccessed(runFlow("protectedResourceRefreshPerUser", "user6"));
+        assertEquals(1, AccessTokenComponent.refreshesRequested.get() - refreshesRequested);
+        OAuthToken token = oauthAdapter.getOauthTokenStore().retrieve("user6");
+        assertEquals(Constants.ACCESS_TOKEN, token.getAccessToken());
+        assertFalse(token.isExpired());
+        assertNotNull(token.getRefreshToken());
+    }
+
+    @Test
+    public void testTokenRequestTimeouts() throws Exception {
+        OAuthModuleOAuth2Adapter defaultAdapter = muleContext.getRegistry().lookupObject("default-oauth");
+        assertEquals(10000, defaultAdapter.getTokenConnectionTimeout());
+        assertEquals(30000, defaultAdapter.getTokenResponseTimeout());
+
+        OAuthModuleOAuth2Adapter oauthAdapter = muleContext.getRegistry().lookupObject("oauth-refresh");
+        assertEquals(5000, oauthAdapter.getTokenConnectionTimeout());
+        assertEquals(5000, oauthAdapter.getTokenResponseTimeout());
+    }
+
+    @Test
+    public void testAccessTokenIsRefreshedBeforeExpiring() throws Exception {
+        OAuthModuleOAuth2Adapter oauthAdapter = muleContext.getRegistry().lookupObject("oauth-proactive-refresh");
+        try {
+            MuleEvent responseEvent = runFlow("authorizeProactiveRefresh");
+            String url = verifyUserIsRedirectedToAuthorizationUrl(responseEvent);
+            simulateCallbackUponUserAuthorizingConsumer(url);
+
+            long deadline = System.currentTimeMillis() + REFRESH_TIMEOUT;
+            while (oauthAdapter.getTokenRefreshStatistics().getSuccessfulRefreshes() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+
+            assertTrue(oauthAdapter.getTokenRefreshStatistics().getSuccessfulRefreshes() > 0);
+            assertEquals(0, oauthAdapter.getTokenRefreshStatistics().getFailedRefreshes());
+            verifiyProtectedResourceWasAccessed(runFlow("protectedResourceProactiveRefresh"));
+        } finally {
+            // with such a small fraction the token is refreshed every few hundred milliseconds, which would
+            // keep calling the access token endpoint and skew the counters other tests rely on
+            oauthAdapter.stop();
+            oauthAdapter.reset();
+        }
+    }
+
     private void overrideTokenExpiration() throws RegistrationException {
         OAuthModuleOAuth2Adapter oauthAdapter = muleContext.getRegistry().lookupObject("default-oauth");
         oauthAdapter.setExpiration(new Date(System.currentTimeMillis() - 1000));
@@ -110,13 +280,51 @@ public class OAuthModuleTest extends FunctionalTestCase {
     }
 
     private void simulateCallbackUponUserAuthorizingConsumer(String url) throws IOException {
-        String callbackUrl = url.substring(url.indexOf("redirect_uri=") + "redirect_uri=".length()).replaceAll("%3A", ":").replaceAll("%2F", "/");
+        String callbackUrl = getParameter(url, "redirect_uri").replaceAll("%3A", ":").replaceAll("%2F", "/");
         callbackUrl += "?code=" + Constants.OAUTH_VERIFIER;
+        // like the provider, hand the state back to the callback untouched
+        String state = getParameter(url, "state");
+        if (state != null) {
+            callbackUrl += "&state=" + state;
+        }
         HttpURLConnection httpURLConnection = (HttpURLConnection) new URL(callbackUrl).openConnection();
         httpURLConnection.setRequestMethod("GET");
         httpURLConnection.getInputStream();
     }
 
+    private void simulateConcurrentCallbacks(List<String> urls) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(urls.size());
+        try {
+            List<Future<Object>> callbacks = new ArrayList<Future<Object>>();
+            for (final String url : urls) {
+                callbacks.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        start.await();
+                        simulateCallbackUponUserAuthorizingConsumer(url);
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Object> callback : callbacks) {
+                callback.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String getParameter(String url, String name) {
+        int start = url.indexOf("&" + name + "=");
+        if (start == -1) {
+            return null;
+        }
+        start += name.length() + 2;
+        int end = url.indexOf('&', start);
+        return end == -1 ? url.substring(start) : url.substring(start, end);
+    }
+
     private String verifyUserIsRedirectedToAuthorizationUrl(MuleEvent responseEvent) {
         assertEquals("302", responseEvent.getMessage().getOutboundProperty("http.status"));
         String url = responseEvent.getMessage().getOutboundProperty("Location");
@@ -128,6 +336,13 @@ public class OAuthModuleTest extends FunctionalTestCase {
         return (Flow) AbstractMuleTestCase.muleContext.getRegistry().lookupFlowConstruct(name);
     }
 
+    private MuleEvent runFlow(String flowName, String accessTokenId) throws Exception {
+        Flow flow = lookupFlowConstruct(flowName);
+        MuleEvent event = AbstractMuleTestCase.getTestEvent("");
+        event.getMessage().setInvocationProperty(OAuthTokenStore.ACCESS_TOKEN_ID_PROPERTY, accessTokenId);
+        return flow.process(event);
+    }
+
     private MuleEvent runFlow(String flowName) throws Exception {
         Flow flow = lookupFlowConstruct(flowName);
         MuleEvent event = AbstractMuleTestCase.getTestEvent("");
@@ -0,0 +1,47 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.it;
+
+import org.mule.api.annotations.Module;
+import org.mule.api.annotations.Processor;
+import org.mule.api.annotations.rest.RestCall;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+@Module(name = "rest")
+public abstract class RestModule {
+
+    public static final int PORT = 9099;
+    public static final String BASE_URL = "http://localhost:" + PORT;
+    public static final String CONTENT = "\u00d1and\u00fa, ping\u00fcino y cig\u00fce\u00f1a";
+    public static final String CONTENT_CHARSET = "ISO-8859-1";
+
+    @Processor
+    @RestCall(uri = BASE_URL + "/content")
+    public abstract InputStream getContentAsStream() throws IOException;
+
+    @Processor
+    @RestCall(uri = BASE_URL + "/content")
+    public abstract Reader getContentAsReader() throws IOException;
+
+    @Processor
+    @RestCall(uri = BASE_URL + "/content")
+    public abstract byte[] getContentAsBytes() throws IOException;
+}
@@ -0,0 +1,59 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.it;
+
+import org.mule.api.MuleEvent;
+import org.mule.construct.Flow;
+import org.mule.tck.AbstractMuleTestCase;
+import org.mule.tck.FunctionalTestCase;
+
+public abstract class AbstractModuleTest extends FunctionalTestCase {
+    private static final String EMPTY_PAYLOAD = "";
+
+    protected Flow lookupFlowConstruct(String name) {
+        return (Flow) AbstractMuleTestCase.muleContext.getRegistry().lookupFlowConstruct(name);
+    }
+
+    protected <T> T runFlow(String flowName) throws Exception {
+        String payload = EMPTY_PAYLOAD;
+        Flow flow = lookupFlowConstruct(flowName);
+        MuleEvent event = AbstractMuleTestCase.getTestEvent(payload);
+        MuleEvent responseEvent = flow.process(event);
+        if(responseEvent.getMessage().getExceptionPayload() != null) {
+            throw new Exception(responseEvent.getMessage().getExceptionPayload().getRootException());
+        }
+        return (T) responseEvent.getMessage().getPayload();
+    }
+
+    protected <T> void runFlow(String flowName, T expect) throws Exception {
+        String payload = EMPTY_PAYLOAD;
+        Flow flow = lookupFlowConstruct(flowName);
+        MuleEvent event = AbstractMuleTestCase.getTestEvent(payload);
+        MuleEvent responseEvent = flow.process(event);
+
+        assertEquals(expect, responseEvent.getMessage().getPayload());
+    }
+
+    protected <T, U> void runFlowWithPayload(String flowName, T expect, U payload) throws Exception {
+        Flow flow = lookupFlowConstruct(flowName);
+        MuleEvent event = AbstractMuleTestCase.getTestEvent(payload);
+        MuleEvent responseEvent = flow.process(event);
+
+        assertEquals(expect, responseEvent.getMessage().getPayload());
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.it;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+
+public class RestModuleTest extends AbstractModuleTest {
+
+    @Override
+    protected String getConfigResources() {
+        return "rest.xml";
+    }
+
+    public void testInputStreamResponse() throws Exception {
+        InputStream content = runFlow("getContentAsStream");
+        try {
+            assertEquals(RestModule.CONTENT, IOUtils.toString(content, RestModule.CONTENT_CHARSET));
+        } finally {
+            content.close();
+        }
+    }
+
+    public void testReaderResponseIsDecodedWithResponseCharset() throws Exception {
+        Reader content = runFlow("getContentAsReader");
+        try {
+            assertEquals(RestModule.CONTENT, IOUtils.toString(content));
+        } finally {
+            content.close();
+        }
+    }
+
+    public void testByteArrayResponse() throws Exception {
+        byte[] content = runFlow("getContentAsBytes");
+
+        assertTrue(Arrays.equals(RestModule.CONTENT.getBytes(RestModule.CONTENT_CHARSET), content));
+    }
+}
@@ -21,15 +21,31 @@ import org.mule.api.annotations.Module;
 import org.mule.api.annotations.Processor;
 import org.mule.api.annotations.Source;
 import org.mule.api.annotations.param.InboundHeaders;
+import org.mule.api.annotations.param.Payload;
 import org.mule.api.annotations.SourceThreadingModel;
 import org.mule.api.callback.SourceCallback;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Module(name = "source")
 public class SourceModule {
 
+    private static final AtomicInteger primaryNodeMessages = new AtomicInteger();
+    private static final ConcurrentMap<String, List<Object>> recordedPayloads = new ConcurrentHashMap<String, List<Object>>();
+    private static final AtomicInteger workDispatched = new AtomicInteger();
+    private static final AtomicInteger workCompleted = new AtomicInteger();
+    private static final AtomicInteger maxWorkBacklog = new AtomicInteger();
+    private static final AtomicInteger workersBusy = new AtomicInteger();
+    private static final AtomicInteger maxWorkersBusy = new AtomicInteger();
+
     @Source(threadingModel = SourceThreadingModel.NONE)
     public void countNoThread(int startAt, int endAt, int step, SourceCallback callback) throws Exception {
         int count = startAt;
@@ -72,6 +88,22 @@ public class SourceModule {
         }
     }
 
+    @Source(threadingModel = SourceThreadingModel.WORKER_POOL)
+    public void countWorkerPool(int startAt, int endAt, int step, SourceCallback callback) throws Exception {
+        int count = startAt;
+        while (true) {
+            if (Thread.interrupted() || count == endAt) {
+                throw new InterruptedException();
+            }
+
+            callback.process(count);
+            // messages handed to the workers that have not finished yet
+            updateMax(maxWorkBacklog, workDispatched.incrementAndGet() - workCompleted.get());
+
+            count += step;
+        }
+    }
+
     @Source
     public void countWithProperty(int startAt, int endAt, int step, String key, String value, SourceCallback callback) throws Exception {
         Map<String, Object> properties = new HashMap<String, Object>();
@@ -88,6 +120,129 @@ public class SourceModule {
         }
     }
 
+    @Source
+    public void countBatch(int startAt, int endAt, int batchSize, SourceCallback callback) throws Exception {
+        List<Integer> batch = new ArrayList<Integer>(batchSize);
+        for (int count = startAt; count < endAt; count++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            batch.add(count);
+            if (batch.size() == batchSize) {
+                callback.processBatch(batch);
+                batch = new ArrayList<Integer>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            callback.processBatch(batch);
+        }
+    }
+
+    @Source
+    public void countIterator(final int startAt, final int endAt, SourceCallback callback) throws Exception {
+        Iterator<Integer> counter = new Iterator<Integer>() {
+            private int count = startAt;
+
+            public boolean hasNext() {
+                return count < endAt;
+            }
+
+            public Integer next() {
+                return count++;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        int dispatched = callback.process(counter);
+        if (dispatched != endAt - startAt) {
+            throw new IllegalStateException("Expected " + (endAt - startAt) + " messages but " + dispatched + " were dispatched");
+        }
+    }
+
+    @Processor
+    public void throwExceptionIfNotList(@Payload Object payload) throws Exception {
+        if (!(payload instanceof List)) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Processor
+    public void recordPrimaryNodeMessage() {
+        primaryNodeMessages.incrementAndGet();
+    }
+
+    public static int getPrimaryNodeMessages() {
+        return primaryNodeMessages.get();
+    }
+
+    @Processor
+    public void recordPayload(String key, @Payload Object payload) {
+        recordedPayloads.putIfAbsent(key, Collections.synchronizedList(new ArrayList<Object>()));
+        recordedPayloads.get(key).add(payload);
+    }
+
+    @Processor
+    public void work(long duration) throws InterruptedException {
+        updateMax(maxWorkersBusy, workersBusy.incrementAndGet());
+        try {
+            Thread.sleep(duration);
+        } finally {
+            workersBusy.decrementAndGet();
+            workCompleted.incrementAndGet();
+        }
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public static int getWorkDispatched() {
+        return workDispatched.get();
+    }
+
+    public static int getWorkCompleted() {
+        return workCompleted.get();
+    }
+
+    public static int getMaxWorkBacklog() {
+        return maxWorkBacklog.get();
+    }
+
+    public static int getWorkersBusy() {
+        return workersBusy.get();
+    }
+
+    public static int getMaxWorkersBusy() {
+        return maxWorkersBusy.get();
+    }
+
+    public static void reset() {
+        recordedPayloads.clear();
+        workDispatched.set(0);
+        workCompleted.set(0);
+        maxWorkBacklog.set(0);
+        workersBusy.set(0);
+        maxWorkersBusy.set(0);
+    }
+
+    public static List<Object> getRecordedPayloads(String key) {
+        List<Object> payloads = recordedPayloads.get(key);
+        if (payloads == null) {
+            return Collections.emptyList();
+        }
+        synchronized (payloads) {
+            return new ArrayList<Object>(payloads);
+        }
+    }
+
     @Processor
     public void throwExceptionIfNoProperty(String key, @InboundHeaders("*") Map<String, Object> properties) throws Exception {
         if (!properties.containsKey(key)) {
@@ -0,0 +1,87 @@
+/**
+ * Mule Development Kit
+ * Copyright 2010-2011 (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mule.devkit.it;
+
+import org.mule.DefaultMuleContext;
+import org.mule.devkit.it.sources.PrimaryNodeNotification;
+import org.mule.transport.PollingController;
+
+public class PrimaryNodeSourceTest extends AbstractModuleTest {
+    private static final long POLL_INTERVAL = 50;
+    private static final long MAX_START_LATENCY = 2000;
+    private static final long PRIMARY_NODE_CHECK_INTERVAL = 5000;
+
+    private final SwitchablePollingController pollingController = new SwitchablePollingController();
+
+    @Override
+    protected String getConfigResources() {
+        return "primary-node-source.xml";
+    }
+
+    @Override
+    protected boolean isStartContext() {
+        return false;
+    }
+
+    public void testSourceStartsWhenPromotedToPrimaryNode() throws Exception {
+        ((DefaultMuleContext) muleContext).setPollingController(pollingController);
+        muleContext.start();
+
+        Thread.sleep(MAX_START_LATENCY);
+        int messagesBeforePromotion = SourceModule.getPrimaryNodeMessages();
+        Thread.sleep(POLL_INTERVAL);
+        assertEquals(messagesBeforePromotion, SourceModule.getPrimaryNodeMessages());
+
+        long promotedAt = System.currentTimeMillis();
+        pollingController.primary = true;
+        muleContext.fireNotification(new PrimaryNodeNotification(muleContext));
+
+        waitForSourceToStart(messagesBeforePromotion, promotedAt, MAX_START_LATENCY);
+    }
+
+    public void testSourceStartsWhenPromotedWithoutNotification() throws Exception {
+        ((DefaultMuleContext) muleContext).setPollingController(pollingController);
+        muleContext.start();
+
+        Thread.sleep(MAX_START_LATENCY);
+        int messagesBeforePromotion = SourceModule.getPrimaryNodeMessages();
+        Thread.sleep(POLL_INTERVAL);
+        assertEquals(messagesBeforePromotion, SourceModule.getPrimaryNodeMessages());
+
+        long promotedAt = System.currentTimeMillis();
+        pollingController.primary = true;
+
+        waitForSourceToStart(messagesBeforePromotion, promotedAt, PRIMARY_NODE_CHECK_INTERVAL + MAX_START_LATENCY);
+    }
+
+    private void waitForSourceToStart(int messagesBeforePromotion, long promotedAt, long maxLatency) throws InterruptedException {
+        while (SourceModule.getPrimaryNodeMessages() == messagesBeforePromotion) {
+            assertTrue("Source did not start after promotion to primary node",
+                    System.currentTimeMillis() - promotedAt < maxLatency);
+            Thread.sleep(POLL_INTERVAL);
+        }
+    }
+
+    private static class SwitchablePollingController implements PollingController {
+        private volatile boolean primary;
+
+        public boolean isPrimaryPollingInstance() {
+            return primary;
+        }
+    }
+}
@@ -17,13 +17,34 @@
 
 package org.mule.devkit.it;
 
+import java.util.List;
+
 public class SourceModuleTest extends AbstractModuleTest {
+    private static final long POLL_INTERVAL = 50;
+    private static final long MAX_SOURCE_LATENCY = 10000;
+    private static final int COUNT = 99;
+    private static final int BATCH_SIZE = 10;
+    private static final int WORKER_THREADS = 2;
+    private static final int WORKER_QUEUE_SIZE = 10;
+    private static final long WORK_DURATION = 20;
 
     @Override
     protected String getConfigResources() {
         return "source.xml";
     }
 
+    @Override
+    protected boolean isStartContext() {
+        return false;
+    }
+
+    @Override
+    protected void doSetUp() throws Exception {
+        // sources start along with the context, so forget what the previous context recorded first
+        SourceModule.reset();
+        muleContext.start();
+    }
+
     public void testSource() throws Exception {
         runFlow("source");
     }
@@ -36,8 +57,74 @@ public class SourceModuleTest extends AbstractModuleTest {
         runFlow("sourcePrimaryNodeOnly");
     }
 
+    public void testWorkerPoolSource() throws Exception {
+        waitForWork(COUNT);
+
+        assertEquals(COUNT, SourceModule.getWorkDispatched());
+        assertTrue("More messages were processed at once than there are workers",
+                SourceModule.getMaxWorkersBusy() <= WORKER_THREADS);
+        assertTrue("More messages were handed over than the workers and their queue can hold",
+                SourceModule.getMaxWorkBacklog() <= WORKER_THREADS + WORKER_QUEUE_SIZE);
+    }
+
+    public void testWorkerPoolSourceStop() throws Exception {
+        waitForWork(WORKER_THREADS + WORKER_QUEUE_SIZE);
+
+        lookupFlowConstruct("sourceWorkerPool").stop();
+
+        // messages handed to the workers are done once stopped, the rest were never accepted
+        assertEquals(0, SourceModule.getWorkersBusy());
+        int completed = SourceModule.getWorkCompleted();
+        Thread.sleep(WORK_DURATION * WORKER_QUEUE_SIZE);
+        assertEquals(completed, SourceModule.getWorkCompleted());
+        assertEquals(SourceModule.getWorkDispatched(), completed);
+    }
+
+    public void testBatchSource() throws Exception {
+        List<Object> batches = waitForPayloads("batch", (COUNT + BATCH_SIZE - 1) / BATCH_SIZE);
+
+        int messages = 0;
+        for (Object batch : batches) {
+            assertTrue("Batches must travel as a single list payload", batch instanceof List);
+            assertTrue(((List<?>) batch).size() <= BATCH_SIZE);
+            messages += ((List<?>) batch).size();
+        }
+        assertEquals(COUNT, messages);
+    }
+
+    public void testIteratorSource() throws Exception {
+        List<Object> payloads = waitForPayloads("iterator", COUNT);
+
+        for (Object payload : payloads) {
+            assertTrue("Every element of the iterator must be its own message", payload instanceof Integer);
+        }
+    }
+
     public void testSourceWithProperties() throws Exception {
         runFlow("sourceWithProperties");
     }
 
+    private void waitForWork(int expected) throws InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        while (SourceModule.getWorkCompleted() < expected) {
+            assertTrue("Workers did not process " + expected + " messages",
+                    System.currentTimeMillis() - startedAt < MAX_SOURCE_LATENCY);
+            Thread.sleep(POLL_INTERVAL);
+        }
+    }
+
+    private List<Object> waitForPayloads(String key, int expected) throws InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        while (SourceModule.getRecordedPayloads(key).size() < expected) {
+            assertTrue("Source did not emit " + expected + " messages",
+                    System.currentTimeMillis() - startedAt < MAX_SOURCE_LATENCY);
+            Thread.sleep(POLL_INTERVAL);
+        }
+        // make sure no more messages than expected are emitted
+        Thread.sleep(POLL_INTERVAL);
+        List<Object> payloads = SourceModule.getRecordedPayloads(key);
+        assertEquals(expected, payloads.size());
+        return payloads;
+    }
+
 }
\ No newline at end of file